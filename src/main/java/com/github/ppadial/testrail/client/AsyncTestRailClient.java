@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client;
+
+import com.github.ppadial.testrail.client.api.TestRailConsumer;
+import com.github.ppadial.testrail.client.api.TestRailFunction;
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.api.casetypes.CaseTypeServiceClient;
+import com.github.ppadial.testrail.client.api.configurations.ConfigurationServiceClient;
+import com.github.ppadial.testrail.client.api.milestones.MilestoneServiceClient;
+import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
+import com.github.ppadial.testrail.client.api.priorities.PriorityServiceClient;
+import com.github.ppadial.testrail.client.api.projects.ProjectServiceClient;
+import com.github.ppadial.testrail.client.api.results.ResultServiceClient;
+import com.github.ppadial.testrail.client.api.runs.RunServiceClient;
+import com.github.ppadial.testrail.client.api.sections.SectionServiceClient;
+import com.github.ppadial.testrail.client.api.statuses.StatusServiceClient;
+import com.github.ppadial.testrail.client.api.suites.SuiteServiceClient;
+import com.github.ppadial.testrail.client.api.templates.TemplateServiceClient;
+import com.github.ppadial.testrail.client.api.tests.TestServiceClient;
+import com.github.ppadial.testrail.client.api.users.UserServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.CancellableCall;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous counterpart of {@link TestRailClient}: every operation of every service client runs in an executor
+ * and returns a {@link CompletableFuture}.
+ *
+ * <p>The futures complete exceptionally with the same {@link TestRailException} the blocking operation raises, so the
+ * error mapping of the service clients is kept. Each operation holds a thread of the executor until it completes,
+ * including the time its requests wait for the request limits, the retries and the anti flood pauses, so the size of
+ * the executor bounds the operations in progress. To compose many of them, enable
+ * {@link ApiClient#enableVirtualThreads()} before creating the client, or pass an executor of virtual threads.
+ * Cancelling a future aborts the requests of its operation.</p>
+ *
+ * <pre>
+ * async.plans().call(plans -&gt; plans.addPlanEntry(planId, suiteId))
+ *     .thenCompose(entry -&gt; async.tests().call(tests -&gt; tests.getTests(entry.TRRuns.get(0).id)))
+ * </pre>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public class AsyncTestRailClient {
+
+  private final TestRailClient testRailClient;
+  private final Executor executor;
+
+  /**
+   * Creates an asynchronous client running the operations in the executor of the api client. The bulk operations
+   * called through it run their requests sequentially, so they do not wait for other tasks of the same executor.
+   *
+   * @param testRailClient the blocking client
+   */
+  public AsyncTestRailClient(final TestRailClient testRailClient) {
+    this(testRailClient, null);
+  }
+
+  /**
+   * Creates an asynchronous client running the operations in an executor.
+   *
+   * @param testRailClient the blocking client
+   * @param executor the executor running the operations, null to use the executor of the api client
+   */
+  public AsyncTestRailClient(final TestRailClient testRailClient, final Executor executor) {
+    this.testRailClient = testRailClient;
+    final Executor apiClientExecutor = testRailClient.getApiClient().getExecutor();
+    this.executor = (executor != null) ? executor
+        : ApiClient.asParallelTaskExecutor((apiClientExecutor != null) ? apiClientExecutor : Runnable::run);
+  }
+
+  /**
+   * Waits for all the futures without blocking.
+   *
+   * @param futures the futures to wait for
+   * @param <T> type of the results
+   * @return a future of the results, in the same order than the futures, completed exceptionally with the first error
+   */
+  public static <T> CompletableFuture<List<T>> allOf(final Collection<CompletableFuture<T>> futures) {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      final List<T> results = new ArrayList<T>(futures.size());
+      for (CompletableFuture<T> future : futures) {
+        results.add(future.join());
+      }
+      return results;
+    });
+  }
+
+  /**
+   * Get asynchronous access to the case Api functions.
+   *
+   * @return access to case functions catalog
+   */
+  public AsyncService<CaseServiceClient> cases() {
+    return new AsyncService<CaseServiceClient>(testRailClient::caseApi);
+  }
+
+  /**
+   * Get asynchronous access to the case types Api functions.
+   *
+   * @return access to case types functions catalog
+   */
+  public AsyncService<CaseTypeServiceClient> caseTypes() {
+    return new AsyncService<CaseTypeServiceClient>(testRailClient::caseTypesApi);
+  }
+
+  /**
+   * Get asynchronous access to the configuration Api functions.
+   *
+   * @return access to configuration functions catalog
+   */
+  public AsyncService<ConfigurationServiceClient> configurations() {
+    return new AsyncService<ConfigurationServiceClient>(testRailClient::configurationApi);
+  }
+
+  /**
+   * Get asynchronous access to the milestone Api functions.
+   *
+   * @return access to milestone functions catalog
+   */
+  public AsyncService<MilestoneServiceClient> milestones() {
+    return new AsyncService<MilestoneServiceClient>(testRailClient::milestoneApi);
+  }
+
+  /**
+   * Get asynchronous access to the plan Api functions.
+   *
+   * @return access to plan functions catalog
+   */
+  public AsyncService<PlanServiceClient> plans() {
+    return new AsyncService<PlanServiceClient>(testRailClient::planApi);
+  }
+
+  /**
+   * Get asynchronous access to the priority Api functions.
+   *
+   * @return access to priority functions catalog
+   */
+  public AsyncService<PriorityServiceClient> priorities() {
+    return new AsyncService<PriorityServiceClient>(testRailClient::priorityApi);
+  }
+
+  /**
+   * Get asynchronous access to the project Api functions.
+   *
+   * @return access to project functions catalog
+   */
+  public AsyncService<ProjectServiceClient> projects() {
+    return new AsyncService<ProjectServiceClient>(testRailClient::projectApi);
+  }
+
+  /**
+   * Get asynchronous access to the result Api functions.
+   *
+   * @return access to result functions catalog
+   */
+  public AsyncService<ResultServiceClient> results() {
+    return new AsyncService<ResultServiceClient>(testRailClient::resultApi);
+  }
+
+  /**
+   * Get asynchronous access to the run Api functions.
+   *
+   * @return access to run functions catalog
+   */
+  public AsyncService<RunServiceClient> runs() {
+    return new AsyncService<RunServiceClient>(testRailClient::runApi);
+  }
+
+  /**
+   * Get asynchronous access to the section Api functions.
+   *
+   * @return access to section functions catalog
+   */
+  public AsyncService<SectionServiceClient> sections() {
+    return new AsyncService<SectionServiceClient>(testRailClient::sectionApi);
+  }
+
+  /**
+   * Get asynchronous access to the status Api functions.
+   *
+   * @return access to status functions catalog
+   */
+  public AsyncService<StatusServiceClient> statuses() {
+    return new AsyncService<StatusServiceClient>(testRailClient::statusApi);
+  }
+
+  /**
+   * Get asynchronous access to the suite Api functions.
+   *
+   * @return access to suite functions catalog
+   */
+  public AsyncService<SuiteServiceClient> suites() {
+    return new AsyncService<SuiteServiceClient>(testRailClient::suiteApi);
+  }
+
+  /**
+   * Get asynchronous access to the template Api functions.
+   *
+   * @return access to template functions catalog
+   */
+  public AsyncService<TemplateServiceClient> templates() {
+    return new AsyncService<TemplateServiceClient>(testRailClient::templateApi);
+  }
+
+  /**
+   * Get asynchronous access to the test Api functions.
+   *
+   * @return access to test functions catalog
+   */
+  public AsyncService<TestServiceClient> tests() {
+    return new AsyncService<TestServiceClient>(testRailClient::testApi);
+  }
+
+  /**
+   * Get asynchronous access to the user Api functions.
+   *
+   * @return access to user functions catalog
+   */
+  public AsyncService<UserServiceClient> users() {
+    return new AsyncService<UserServiceClient>(testRailClient::userApi);
+  }
+
+  /**
+   * Runs the operations of a service client in the executor of the asynchronous client.
+   *
+   * @param <S> type of the service client
+   */
+  public final class AsyncService<S> {
+
+    private final Supplier<S> serviceClient;
+
+    private AsyncService(final Supplier<S> serviceClient) {
+      this.serviceClient = serviceClient;
+    }
+
+    /**
+     * Runs an operation returning a result. Its requests keep the traffic class and priority of the calling thread.
+     *
+     * @param operation the operation, called with the service client
+     * @param <T> type of the result
+     * @return a future of the result
+     */
+    public <T> CompletableFuture<T> call(final TestRailFunction<S, T> operation) {
+      final CompletableFuture<T> future = new CompletableFuture<T>();
+      final CancellableCall call = new CancellableCall();
+      future.whenComplete((result, error) -> {
+        if (future.isCancelled()) {
+          call.cancel();
+        }
+      });
+      try {
+        ApiClient.withCurrentRequestSettings(executor).execute(() -> {
+          if (future.isDone() || !call.start()) {
+            return;
+          }
+          try {
+            final S service = serviceClient.get();
+            future.complete(operation.apply(service));
+          } catch (TestRailException | RuntimeException e) {
+            future.completeExceptionally(e);
+          } finally {
+            call.finish();
+          }
+        });
+      } catch (RuntimeException rejected) {
+        future.completeExceptionally(rejected);
+      }
+      return future;
+    }
+
+    /**
+     * Runs an operation without result, like a delete.
+     *
+     * @param operation the operation, called with the service client
+     * @return a future completed when the operation is done
+     */
+    public CompletableFuture<Void> run(final TestRailConsumer<S> operation) {
+      return call(service -> {
+        operation.accept(service);
+        return null;
+      });
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
 import com.github.ppadial.testrail.client.api.casetypes.CaseTypeServiceClient;
 import com.github.ppadial.testrail.client.api.configurations.ConfigurationServiceClient;
 import com.github.ppadial.testrail.client.api.milestones.MilestoneServiceClient;
+import com.github.ppadial.testrail.client.api.plans.PlanResultHarvester;
 import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
 import com.github.ppadial.testrail.client.api.priorities.PriorityServiceClient;
 import com.github.ppadial.testrail.client.api.projects.ProjectServiceClient;
@@ -39,6 +40,10 @@ import com.github.ppadial.testrail.client.api.templates.TemplateServiceClient;
 import com.github.ppadial.testrail.client.api.tests.TestServiceClient;
 import com.github.ppadial.testrail.client.api.users.UserServiceClient;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.cache.AutomationIndex;
+import com.github.ppadial.testrail.client.cache.EntityCache;
+import com.github.ppadial.testrail.client.cache.ReferenceDataCache;
+import com.github.ppadial.testrail.client.cache.UserDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +63,11 @@ public class TestRailClient {
 
   //underlying Api apiClient
   private ApiClient apiClient;
+  //optional cache of the entities requested by ID, shared by the service clients
+  private EntityCache entityCache;
+  //shared caches, held while the client lives since the shared ones are only weakly referenced
+  private volatile ReferenceDataCache referenceData;
+  private volatile UserDirectory userDirectory;
 
   /**
    * Creates an instance of the apiClient and setups up required state.
@@ -68,13 +78,73 @@ public class TestRailClient {
     this.apiClient = apiClient;
   }
 
+  /**
+   * Creates an instance of the apiClient whose service clients serve the cases, suites, sections, projects, runs and
+   * milestones requested by ID from a cache.
+   * @param apiClient the api client to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public TestRailClient(ApiClient apiClient, EntityCache entityCache) {
+    this(apiClient);
+    this.entityCache = entityCache;
+  }
+
+  /**
+   * Gets the entity cache of the client.
+   *
+   * @return the entity cache, null if the client does not cache the entities
+   * @since 0.3.1
+   */
+  public EntityCache getEntityCache() {
+    return entityCache;
+  }
+
+  /**
+   * Get an asynchronous client over this one, running the operations in the executor of the api client.
+   *
+   * @return a new asynchronous client
+   * @since 0.3.1
+   */
+  public AsyncTestRailClient async() {
+    return new AsyncTestRailClient(this);
+  }
+
+  /**
+   * Get a new workflow of dependent steps over this client, running its independent steps concurrently in the executor
+   * of the api client.
+   *
+   * @return a new workflow
+   * @since 0.3.1
+   */
+  public Workflow workflow() {
+    return new Workflow(this);
+  }
+
+  ApiClient getApiClient() {
+    return apiClient;
+  }
+
   /**
    * Get access to the case Api functions.
    *
    * @return access to case functions catalog
    */
   public CaseServiceClient caseApi() {
-    return new CaseServiceClient(apiClient);
+    return new CaseServiceClient(apiClient, entityCache);
+  }
+
+  /**
+   * Get an index from the automation ID of the cases of a suite to their case ID and test IDs. It is empty until it
+   * is refreshed.
+   *
+   * @param projectId the ID of the project
+   * @param suiteId the ID of the suite, 0 for projects in single suite mode
+   * @return a new automation index
+   * @since 0.3.1
+   */
+  public AutomationIndex automationIndex(final int projectId, final int suiteId) {
+    return new AutomationIndex(apiClient, projectId, suiteId);
   }
 
   /**
@@ -101,7 +171,7 @@ public class TestRailClient {
    * @return access to milestone functions catalog
    */
   public MilestoneServiceClient milestoneApi() {
-    return new MilestoneServiceClient(apiClient);
+    return new MilestoneServiceClient(apiClient, entityCache);
   }
 
   /**
@@ -110,7 +180,18 @@ public class TestRailClient {
    * @return access to plan functions catalog
    */
   public PlanServiceClient planApi() {
-    return new PlanServiceClient(apiClient);
+    return new PlanServiceClient(apiClient, entityCache);
+  }
+
+  /**
+   * Get a harvester to fetch the results of all the runs of a plan concurrently.
+   *
+   * @param parallelism maximum number of runs fetched at the same time
+   * @return a new plan result harvester
+   * @since 0.3.1
+   */
+  public PlanResultHarvester planResultHarvester(final int parallelism) {
+    return new PlanResultHarvester(apiClient, parallelism);
   }
 
   /**
@@ -129,7 +210,34 @@ public class TestRailClient {
    * @return access to project functions catalog
    */
   public ProjectServiceClient projectApi() {
-    return new ProjectServiceClient(apiClient);
+    return new ProjectServiceClient(apiClient, entityCache);
+  }
+
+  /**
+   * Get the reference data (statuses, priorities, case types, templates and configurations) cache, shared by all the
+   * clients of the same TestRail instance and user.
+   *
+   * @return the reference data cache
+   * @since 0.3.1
+   */
+  public ReferenceDataCache referenceData() {
+    if (referenceData == null) {
+      referenceData = ReferenceDataCache.shared(apiClient);
+    }
+    return referenceData;
+  }
+
+  /**
+   * Get the directory of the users, shared by the clients of the same TestRail instance and user.
+   *
+   * @return the user directory
+   * @since 0.3.1
+   */
+  public UserDirectory userDirectory() {
+    if (userDirectory == null) {
+      userDirectory = UserDirectory.shared(apiClient);
+    }
+    return userDirectory;
   }
 
   /**
@@ -147,7 +255,7 @@ public class TestRailClient {
    * @return access to run functions catalog
    */
   public RunServiceClient runApi() {
-    return new RunServiceClient(apiClient);
+    return new RunServiceClient(apiClient, entityCache);
   }
 
   /**
@@ -156,7 +264,7 @@ public class TestRailClient {
    * @return access to section functions catalog
    */
   public SectionServiceClient sectionApi() {
-    return new SectionServiceClient(apiClient);
+    return new SectionServiceClient(apiClient, entityCache);
   }
 
   /**
@@ -174,7 +282,7 @@ public class TestRailClient {
    * @return access to suite functions catalog
    */
   public SuiteServiceClient suiteApi() {
-    return new SuiteServiceClient(apiClient);
+    return new SuiteServiceClient(apiClient, entityCache);
   }
 
   /**
@@ -192,7 +300,7 @@ public class TestRailClient {
    * @return access to test functions catalog
    */
   public TestServiceClient testApi() {
-    return new TestServiceClient(apiClient);
+    return new TestServiceClient(apiClient, entityCache);
   }
 
   /**
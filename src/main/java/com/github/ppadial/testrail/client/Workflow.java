@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client;
+
+import com.github.ppadial.testrail.client.api.OperationCancelledException;
+import com.github.ppadial.testrail.client.api.TestRailFunction;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.CancellableCall;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a workflow of steps over the service clients, each one declaring the steps it depends on.
+ *
+ * <p>A step starts as soon as all its dependencies have succeeded, so the independent branches of the workflow run
+ * concurrently in the executor, still subject to the request limits of the api client. The result of a step, like the
+ * ID of a created entity, is read by its dependents from their {@link Context}. When a step fails its dependents are
+ * cancelled without being run, while the branches that do not depend on it go on:</p>
+ *
+ * <pre>
+ * Workflow workflow = testRailClient.workflow();
+ * Step&lt;TRMilestone&gt; milestone = workflow.step("milestone",
+ *     context -&gt; context.getClient().milestoneApi().addMilestone(projectId, "1.0", null, null, null, null));
+ * Step&lt;TRPlan&gt; plan = workflow.step("plan",
+ *     context -&gt; context.getClient().planApi().addPlan(projectId, "1.0", null, context.get(milestone).id, null),
+ *     milestone);
+ * Step&lt;TRPlanEntry&gt; chrome = workflow.step("chrome",
+ *     context -&gt; context.getClient().planApi().addPlanEntry(context.get(plan).id, suiteId), plan);
+ * workflow.run();
+ * </pre>
+ *
+ * <p>As the steps can only depend on steps declared before them, a workflow has no cycles. The steps are declared
+ * from a single thread, and a workflow can be run several times.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class Workflow {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Workflow.class);
+
+  /**
+   * Status of a step in an execution of the workflow.
+   */
+  public enum Status {
+    /**
+     * Waiting for its dependencies.
+     */
+    PENDING,
+    /**
+     * Running its action.
+     */
+    RUNNING,
+    /**
+     * Its action returned a result.
+     */
+    SUCCEEDED,
+    /**
+     * Its action raised an error.
+     */
+    FAILED,
+    /**
+     * Not run or aborted, because one of its dependencies did not succeed or the execution was cancelled.
+     */
+    CANCELLED
+  }
+
+  /**
+   * A step of the workflow.
+   *
+   * @param <T> type of the result of the step
+   */
+  public static final class Step<T> {
+
+    private final int index;
+    private final String name;
+    private final TestRailFunction<Context, T> action;
+    private final List<Step<?>> dependencies;
+
+    private Step(final int index, final String name, final TestRailFunction<Context, T> action,
+        final List<Step<?>> dependencies) {
+      this.index = index;
+      this.name = name;
+      this.action = action;
+      this.dependencies = Collections.unmodifiableList(dependencies);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public List<Step<?>> getDependencies() {
+      return dependencies;
+    }
+
+    @Override
+    public String toString() {
+      return "Step{" + name + '}';
+    }
+  }
+
+  /**
+   * What a step sees while it runs: the client and the results of its dependencies.
+   */
+  public final class Context {
+
+    private final Execution execution;
+    private final Step<?> step;
+
+    private Context(final Execution execution, final Step<?> step) {
+      this.execution = execution;
+      this.step = step;
+    }
+
+    public TestRailClient getClient() {
+      return testRailClient;
+    }
+
+    /**
+     * Gets the result of a dependency of the running step.
+     *
+     * @param dependency the dependency
+     * @param <T> type of the result
+     * @return the result of the dependency
+     * @throws IllegalArgumentException if the step does not depend on it
+     */
+    public <T> T get(final Step<T> dependency) {
+      if (!step.dependencies.contains(dependency)) {
+        throw new IllegalArgumentException(step + " does not depend on " + dependency);
+      }
+      return execution.future(dependency).join();
+    }
+  }
+
+  /**
+   * An execution of the workflow.
+   */
+  public final class Execution {
+
+    private final List<Step<?>> steps;
+    private final List<CompletableFuture<Object>> futures;
+    private final AtomicIntegerArray started;
+    private final CompletableFuture<Void> completion = new CompletableFuture<Void>();
+    //runs the steps with the traffic class and priority of the thread that started the execution
+    private final Executor stepExecutor;
+
+    private Execution(final List<Step<?>> steps) {
+      this.steps = steps;
+      this.stepExecutor = ApiClient.withCurrentRequestSettings(executor);
+      this.futures = new ArrayList<CompletableFuture<Object>>(steps.size());
+      this.started = new AtomicIntegerArray(steps.size());
+      for (int i = 0; i < steps.size(); i++) {
+        futures.add(new CompletableFuture<Object>());
+      }
+      for (Step<?> step : steps) {
+        schedule(step);
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+          .whenComplete((ignored, error) -> complete());
+    }
+
+    /**
+     * Gets the future of the result of a step.
+     *
+     * @param step the step
+     * @param <T> type of the result
+     * @return the future of the result, cancelled if the step was not run
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> future(final Step<T> step) {
+      return (CompletableFuture<T>) futures.get(indexOf(step));
+    }
+
+    /**
+     * Gets the status of a step.
+     *
+     * @param step the step
+     * @return the status of the step
+     */
+    public Status getStatus(final Step<?> step) {
+      final int index = indexOf(step);
+      final CompletableFuture<Object> future = futures.get(index);
+      if (future.isCancelled()) {
+        return Status.CANCELLED;
+      }
+      if (future.isCompletedExceptionally()) {
+        return Status.FAILED;
+      }
+      if (future.isDone()) {
+        return Status.SUCCEEDED;
+      }
+      return (started.get(index) != 0) ? Status.RUNNING : Status.PENDING;
+    }
+
+    /**
+     * Gets a future completed when every step is done, exceptionally with the error of the first failed step in
+     * declaration order, or with a {@link CancellationException} if some step was cancelled.
+     *
+     * @return the future of the completion of the execution
+     */
+    public CompletableFuture<Void> completion() {
+      return completion;
+    }
+
+    /**
+     * Cancels the steps that have not finished, aborting the requests of the running ones.
+     */
+    public void cancel() {
+      for (CompletableFuture<Object> future : futures) {
+        future.cancel(false);
+      }
+    }
+
+    /**
+     * Waits for every step.
+     *
+     * @throws TestRailException the error of the first failed step in declaration order, or an
+     *     {@link OperationCancelledException} if the execution was cancelled or interrupted
+     */
+    public void await() throws TestRailException {
+      try {
+        completion.get();
+      } catch (InterruptedException interruptedException) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new OperationCancelledException("Cancelled while waiting for the workflow", interruptedException);
+      } catch (CancellationException cancellationException) {
+        throw new OperationCancelledException("Workflow cancelled", cancellationException);
+      } catch (ExecutionException executionException) {
+        if (executionException.getCause() instanceof TestRailException) {
+          throw (TestRailException) executionException.getCause();
+        }
+        throw new TestRailException(executionException.getCause());
+      }
+    }
+
+    private int indexOf(final Step<?> step) {
+      if (step.index >= steps.size() || steps.get(step.index) != step) {
+        throw new IllegalArgumentException(step + " is not a step of this execution");
+      }
+      return step.index;
+    }
+
+    private void schedule(final Step<?> step) {
+      final CompletableFuture<Object> future = futures.get(step.index);
+      final CancellableCall call = new CancellableCall();
+      future.whenComplete((result, error) -> {
+        if (future.isCancelled()) {
+          call.cancel();
+        }
+      });
+      final CompletableFuture<?>[] dependencies = new CompletableFuture<?>[step.dependencies.size()];
+      for (int i = 0; i < dependencies.length; i++) {
+        dependencies[i] = futures.get(step.dependencies.get(i).index);
+      }
+      CompletableFuture.allOf(dependencies).whenComplete((ignored, error) -> {
+        if (error != null) {
+          future.cancel(false);
+          return;
+        }
+        try {
+          stepExecutor.execute(() -> runStep(step, future, call));
+        } catch (RuntimeException rejected) {
+          future.completeExceptionally(rejected);
+        }
+      });
+    }
+
+    private void runStep(final Step<?> step, final CompletableFuture<Object> future, final CancellableCall call) {
+      if (future.isDone() || !call.start()) {
+        return;
+      }
+      started.set(step.index, 1);
+      try {
+        final Context context = new Context(this, step);
+        future.complete(step.action.apply(context));
+      } catch (TestRailException | RuntimeException e) {
+        LOG.debug("Step {} failed, cancelling its dependents", step.name, e);
+        future.completeExceptionally(e);
+      } finally {
+        call.finish();
+      }
+    }
+
+    private void complete() {
+      boolean cancelled = false;
+      for (CompletableFuture<Object> future : futures) {
+        if (future.isCancelled()) {
+          cancelled = true;
+        } else if (future.isCompletedExceptionally()) {
+          future.whenComplete((ignored, error) -> completion.completeExceptionally(error));
+          return;
+        }
+      }
+      if (cancelled) {
+        completion.cancel(false);
+      } else {
+        completion.complete(null);
+      }
+    }
+  }
+
+  private final TestRailClient testRailClient;
+  private final Executor executor;
+  private final List<Step<?>> steps = new ArrayList<Step<?>>();
+  private final Set<String> names = new HashSet<String>();
+
+  /**
+   * Creates a workflow running its steps in the executor of the api client.
+   *
+   * @param testRailClient the client used by the steps
+   */
+  public Workflow(final TestRailClient testRailClient) {
+    this(testRailClient, null);
+  }
+
+  /**
+   * Creates a workflow running its steps in an executor.
+   *
+   * @param testRailClient the client used by the steps
+   * @param executor the executor running the steps, null to use the executor of the api client
+   */
+  public Workflow(final TestRailClient testRailClient, final Executor executor) {
+    this.testRailClient = testRailClient;
+    final Executor apiClientExecutor = testRailClient.getApiClient().getExecutor();
+    this.executor = (executor != null) ? executor
+        : ApiClient.asParallelTaskExecutor((apiClientExecutor != null) ? apiClientExecutor : Runnable::run);
+  }
+
+  /**
+   * Declares a step.
+   *
+   * @param name the name of the step, unique in the workflow
+   * @param action the action of the step, it reads the results of its dependencies from the context
+   * @param dependencies the steps that must succeed before this one runs
+   * @param <T> type of the result of the step
+   * @return the step
+   * @throws IllegalArgumentException if the name is taken or a dependency is not a step of this workflow
+   */
+  public <T> Step<T> step(final String name, final TestRailFunction<Context, T> action,
+      final Step<?>... dependencies) {
+    for (Step<?> dependency : dependencies) {
+      if (dependency.index >= steps.size() || steps.get(dependency.index) != dependency) {
+        throw new IllegalArgumentException(dependency + " is not a step of this workflow");
+      }
+    }
+    if (!names.add(name)) {
+      throw new IllegalArgumentException("Duplicated step " + name);
+    }
+    final Step<T> step = new Step<T>(steps.size(), name, action, Arrays.<Step<?>>asList(dependencies.clone()));
+    steps.add(step);
+    return step;
+  }
+
+  public List<Step<?>> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * Starts an execution of the steps declared so far, without waiting for them.
+   *
+   * @return the execution
+   */
+  public Execution start() {
+    return new Execution(new ArrayList<Step<?>>(steps));
+  }
+
+  /**
+   * Runs the steps declared so far and waits for them.
+   *
+   * @return the finished execution, with the results of the steps
+   * @throws TestRailException the error of the first failed step in declaration order
+   */
+  public Execution run() throws TestRailException {
+    final Execution execution = start();
+    execution.await();
+    return execution;
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api;
+
+/**
+ * Hash map from int to int with open addressing and linear probing over two int arrays, without boxing. It takes 16
+ * bytes per entry at most.
+ *
+ * <p>Not thread safe while it is filled. Once filled and safely published it can be read from any thread.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class IntIntHashMap {
+
+  /**
+   * Callback of {@link #forEach(IntIntConsumer)}.
+   */
+  public interface IntIntConsumer {
+
+    /**
+     * Called with an entry of the map.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void accept(int key, int value);
+  }
+
+  private static final int FREE = 0;
+  private static final int MIN_CAPACITY = 8;
+
+  private int[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  // the free marker can not be stored in the arrays
+  private boolean hasFreeKey;
+  private int freeKeyValue;
+
+  /**
+   * Constructor.
+   *
+   * @param expectedSize number of entries expected, the map grows if there are more
+   */
+  public IntIntHashMap(final int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Puts an entry.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(final int key, final int value) {
+    if (key == FREE) {
+      size += hasFreeKey ? 0 : 1;
+      hasFreeKey = true;
+      freeKeyValue = value;
+      return;
+    }
+    int slot = slot(key);
+    while (keys[slot] != FREE) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * Gets the value of a key.
+   *
+   * @param key the key
+   * @param missingValue value returned if the key is not in the map
+   * @return the value of the key
+   */
+  public int get(final int key, final int missingValue) {
+    if (key == FREE) {
+      return hasFreeKey ? freeKeyValue : missingValue;
+    }
+    int slot = slot(key);
+    while (keys[slot] != FREE) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return missingValue;
+  }
+
+  /**
+   * Checks if a key is in the map.
+   *
+   * @param key the key
+   * @return true if the map has the key
+   */
+  public boolean containsKey(final int key) {
+    if (key == FREE) {
+      return hasFreeKey;
+    }
+    int slot = slot(key);
+    while (keys[slot] != FREE) {
+      if (keys[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Calls a consumer with every entry, in no particular order.
+   *
+   * @param consumer the consumer
+   */
+  public void forEach(final IntIntConsumer consumer) {
+    if (hasFreeKey) {
+      consumer.accept(FREE, freeKeyValue);
+    }
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE) {
+        consumer.accept(keys[slot], values[slot]);
+      }
+    }
+  }
+
+  private int slot(final int key) {
+    final int hash = key * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  private void rehash(final int capacity) {
+    final int[] oldKeys = keys;
+    final int[] oldValues = values;
+    allocate(capacity);
+    size = hasFreeKey ? 1 : 0;
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != FREE) {
+        put(oldKeys[slot], oldValues[slot]);
+      }
+    }
+  }
+
+  private void allocate(final int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int capacityFor(final int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api;
+
+import java.util.List;
+
+/**
+ * A page of entities returned by a paginated list endpoint.
+ *
+ * @param <T> type of the entities
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class Page<T> {
+
+  private final List<T> items;
+  private final int offset;
+  private final boolean hasNext;
+
+  /**
+   * Creates a new page.
+   *
+   * @param items entities of the page
+   * @param offset offset of the first entity of the page
+   * @param hasNext true if there are more pages after this one
+   * @since 0.3.1
+   */
+  public Page(final List<T> items, final int offset, final boolean hasNext) {
+    this.items = items;
+    this.offset = offset;
+    this.hasNext = hasNext;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the offset of the page that follows this one.
+   *
+   * @return offset of the next page
+   * @since 0.3.1
+   */
+  public int getNextOffset() {
+    return offset + items.size();
+  }
+
+  public boolean hasNext() {
+    return hasNext;
+  }
+}
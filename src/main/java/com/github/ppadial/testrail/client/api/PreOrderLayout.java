@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable pre-order layout of a forest of entities, like the sections of a suite or the milestones of a project.
+ *
+ * <p>The entities are laid out in pre-order, siblings in a given order, in plain arrays: the parent of each entity and
+ * the end of its subtree are array positions, so the ancestry is a walk up the parents array and a subtree is a
+ * contiguous range.</p>
+ *
+ * @param <T> type of the entities
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class PreOrderLayout<T> {
+
+  /**
+   * Parent position of the roots.
+   */
+  public static final int ROOT = -1;
+  /**
+   * Position of the IDs not in the layout.
+   */
+  public static final int NOT_FOUND = -1;
+
+  private final List<T> entities;
+  private final int[] parents;
+  private final int[] subtreeEnds;
+  private final IntIntHashMap positionsById;
+  private final ToIntFunction<T> id;
+
+  /**
+   * Lays out a list of entities.
+   *
+   * @param allEntities the entities, in any order, each ID once. Entities whose parent is not in the list are roots.
+   * @param id gets the ID of an entity
+   * @param parentId gets the ID of the parent of an entity
+   * @param siblingOrder order of the children of the same parent
+   */
+  @SuppressWarnings("unchecked")
+  public PreOrderLayout(final Collection<T> allEntities, final ToIntFunction<T> id, final ToIntFunction<T> parentId,
+      final Comparator<? super T> siblingOrder) {
+    final IntIntHashMap ids = new IntIntHashMap(allEntities.size());
+    for (T entity : allEntities) {
+      ids.put(id.applyAsInt(entity), 0);
+    }
+    final Map<Integer, List<T>> children = new HashMap<Integer, List<T>>();
+    for (T entity : allEntities) {
+      final int parent = ids.containsKey(parentId.applyAsInt(entity)) ? parentId.applyAsInt(entity) : 0;
+      children.computeIfAbsent(parent, ignored -> new ArrayList<T>()).add(entity);
+    }
+    for (List<T> siblings : children.values()) {
+      siblings.sort(siblingOrder);
+    }
+
+    final int size = allEntities.size();
+    final T[] layout = (T[]) new Object[size];
+    this.parents = new int[size];
+    this.subtreeEnds = new int[size];
+    this.positionsById = new IntIntHashMap(size);
+    this.id = id;
+
+    // Iterative pre-order walk, the subtree of a position ends where the walk leaves it
+    final Deque<int[]> stack = new ArrayDeque<int[]>(); /* {position, next child index} */
+    int next = 0;
+    for (T root : children.getOrDefault(0, Collections.<T>emptyList())) {
+      next = place(layout, root, ROOT, next);
+      stack.push(new int[] {next - 1, 0});
+      while (!stack.isEmpty()) {
+        final int[] frame = stack.peek();
+        final List<T> siblings = children.getOrDefault(id.applyAsInt(layout[frame[0]]), Collections.<T>emptyList());
+        if (frame[1] < siblings.size()) {
+          next = place(layout, siblings.get(frame[1]++), frame[0], next);
+          stack.push(new int[] {next - 1, 0});
+        } else {
+          subtreeEnds[frame[0]] = next;
+          stack.pop();
+        }
+      }
+    }
+    this.entities = Collections.unmodifiableList(Arrays.asList(layout));
+  }
+
+  private int place(final T[] layout, final T entity, final int parent, final int position) {
+    layout[position] = entity;
+    parents[position] = parent;
+    positionsById.put(id.applyAsInt(entity), position);
+    return position + 1;
+  }
+
+  /**
+   * Gets the number of entities of the layout.
+   *
+   * @return the number of entities
+   */
+  public int size() {
+    return entities.size();
+  }
+
+  /**
+   * Gets the entity at a position.
+   *
+   * @param position the position, from 0 to {@link #size()} exclusive
+   * @return the entity
+   */
+  public T get(final int position) {
+    return entities.get(position);
+  }
+
+  /**
+   * Gets the position of an entity.
+   *
+   * @param entityId the ID of the entity
+   * @return the position, {@link #NOT_FOUND} if the entity is not in the layout
+   */
+  public int positionOf(final int entityId) {
+    return positionsById.get(entityId, NOT_FOUND);
+  }
+
+  /**
+   * Gets the position of the parent of a position.
+   *
+   * @param position the position
+   * @return the position of the parent, {@link #ROOT} for roots
+   */
+  public int parentOf(final int position) {
+    return parents[position];
+  }
+
+  /**
+   * Gets an entity.
+   *
+   * @param entityId the ID of the entity
+   * @return the entity, null if it is not in the layout
+   */
+  public T getById(final int entityId) {
+    final int position = positionOf(entityId);
+    return (position != NOT_FOUND) ? entities.get(position) : null;
+  }
+
+  /**
+   * Gets all the entities, in pre-order.
+   *
+   * @return the unmodifiable list of entities
+   */
+  public List<T> getAll() {
+    return entities;
+  }
+
+  /**
+   * Gets the roots, in sibling order.
+   *
+   * @return the entities without parent
+   */
+  public List<T> getRoots() {
+    final List<T> roots = new ArrayList<T>();
+    for (int position = 0; position < parents.length; position = subtreeEnds[position]) {
+      roots.add(entities.get(position));
+    }
+    return roots;
+  }
+
+  /**
+   * Gets the parent of an entity.
+   *
+   * @param entityId the ID of the entity
+   * @return the ID of the parent, null for roots or entities not in the layout
+   */
+  public Integer getParentId(final int entityId) {
+    final int position = positionOf(entityId);
+    return (position != NOT_FOUND && parents[position] != ROOT) ? id.applyAsInt(entities.get(parents[position])) : null;
+  }
+
+  /**
+   * Gets the direct children of an entity.
+   *
+   * @param entityId the ID of the entity
+   * @return the children, in sibling order, empty if the entity is not in the layout
+   */
+  public List<T> getChildren(final int entityId) {
+    final int position = positionOf(entityId);
+    if (position == NOT_FOUND) {
+      return Collections.emptyList();
+    }
+    final List<T> childList = new ArrayList<T>();
+    for (int child = position + 1; child < subtreeEnds[position]; child = subtreeEnds[child]) {
+      childList.add(entities.get(child));
+    }
+    return childList;
+  }
+
+  /**
+   * Gets the ancestry of an entity.
+   *
+   * @param entityId the ID of the entity
+   * @return the entities from the root to the parent of the entity, empty for roots or entities not in the layout
+   */
+  public List<T> getAncestors(final int entityId) {
+    final int position = positionOf(entityId);
+    if (position == NOT_FOUND) {
+      return Collections.emptyList();
+    }
+    final Deque<T> ancestors = new ArrayDeque<T>();
+    for (int current = parents[position]; current != ROOT; current = parents[current]) {
+      ancestors.push(entities.get(current));
+    }
+    return new ArrayList<T>(ancestors);
+  }
+
+  /**
+   * Gets an entity and all its descendants, in pre-order.
+   *
+   * @param entityId the ID of the entity
+   * @return the unmodifiable entities of the subtree, empty if the entity is not in the layout
+   */
+  public List<T> getSubtree(final int entityId) {
+    final int position = positionOf(entityId);
+    if (position == NOT_FOUND) {
+      return Collections.emptyList();
+    }
+    return entities.subList(position, subtreeEnds[position]);
+  }
+}
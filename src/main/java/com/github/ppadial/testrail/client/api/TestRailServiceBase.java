@@ -24,18 +24,33 @@
 package com.github.ppadial.testrail.client.api;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.github.ppadial.testrail.client.HttpStatusCode;
 import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.stream.PagedPublisher;
+import com.github.ppadial.testrail.client.api.stream.Publisher;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.apiClient.JsonStreamingEntity;
+import com.github.ppadial.testrail.client.apiClient.RequestCancelledException;
+import com.github.ppadial.testrail.client.cache.EntityCache;
+import com.github.ppadial.testrail.client.cache.NegativeCache;
+import com.github.ppadial.testrail.client.cache.QueryCache;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,12 +62,18 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class TestRailServiceBase {
 
+  /**
+   * Number of entities requested per page by the paginated list operations.
+   */
+  public static final int DEFAULT_PAGE_SIZE = 250;
   private static final Logger LOG = LoggerFactory.getLogger(TestRailServiceBase.class);
 
   //underlying api client
   protected ApiClient apiClient;
   //(de)-serializes objects to/from json
   protected ObjectMapper objectMapper;
+  //optional cache of the entities requested by ID
+  protected EntityCache entityCache;
 
   /**
    * creates a new instance.
@@ -70,6 +91,60 @@ public abstract class TestRailServiceBase {
     objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
   }
 
+  /**
+   * creates a new instance serving the entities requested by ID from a cache.
+   * @param apiClient apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public TestRailServiceBase(ApiClient apiClient, EntityCache entityCache) {
+    this(apiClient);
+    this.entityCache = entityCache;
+  }
+
+  /**
+   * Gets an entity from the entity cache, loading it if it is not cached.
+   * @param region the region of the entity
+   * @param id the ID of the entity
+   * @param loader loads the entity from TestRail
+   * @param <T> type of the entity
+   * @return the entity
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  protected <T> T cached(final EntityCache.Region region, final int id, final TestRailFunction<Integer, T> loader)
+      throws TestRailException {
+    return (entityCache != null) ? entityCache.get(region, id, loader) : loader.apply(id);
+  }
+
+  /**
+   * Gets the result of a filtered list query from the query cache of the api client, running it if it is not cached.
+   * @param uriSuffix api uri subfix of the query, with its filters
+   * @param loader runs the query against TestRail
+   * @param <T> type of the listed entities
+   * @return the result of the query, unmodifiable when it comes from the cache
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  protected <T> List<T> cachedQuery(final String uriSuffix, final TestRailFunction<String, List<T>> loader)
+      throws TestRailException {
+    final QueryCache queryCache = QueryCache.of(apiClient);
+    return (queryCache != null) ? queryCache.get(uriSuffix, loader) : loader.apply(uriSuffix);
+  }
+
+  /**
+   * Puts an entity changed by this client in the entity cache.
+   * @param region the region of the entity
+   * @param id the ID of the entity
+   * @param entity the updated entity, null to invalidate it
+   * @since 0.3.1
+   */
+  protected void cacheUpdated(final EntityCache.Region region, final int id, final Object entity) {
+    if (entityCache != null) {
+      entityCache.put(region, id, entity);
+    }
+  }
+
   /**
    * .
    * @param apiResponse .
@@ -132,6 +207,146 @@ public abstract class TestRailServiceBase {
     return type;
   }
 
+  /**
+   * Handles a response that contains a list of entities, either as a plain array or wrapped into an object under the
+   * given key (as the bulk and paginated endpoints do).
+   *
+   * @param apiResponse .
+   * @param collectionKey name of the property that contains the list when the response is an object
+   * @param typeReference .
+   * @param choices .
+   * @param <T> .
+   * @return .
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  protected <T> List<T> handleApiListResponse(ApiResponse apiResponse, String collectionKey,
+      TypeReference<List<T>> typeReference, Map<HttpStatusCode, TestRailException> choices)
+      throws TestRailException {
+    List<T> type = null;
+
+    // if Response is OK, parse and return type
+    if (apiResponse.getHttpStatusCode().is2xxSuccessful()) {
+      type = readList(readTree(apiResponse), collectionKey, typeReference);
+    } else { // if Response is Not OK, then parse choices
+      handleApiResponseKoChoices(apiResponse, choices);
+    }
+
+    return type;
+  }
+
+  /**
+   * Gets a page of a list endpoint.
+   *
+   * <p>Works with the paginated responses (an object with the list and the {@code _links} to the next page) as well
+   * as with the instances that answer a plain array; for those a full page means that there may be more.</p>
+   *
+   * @param uriSuffix api uri subfix of the list, with its filters
+   * @param collectionKey name of the property that contains the list in the paginated responses
+   * @param offset number of entities to skip
+   * @param limit maximum number of entities of the page
+   * @param typeReference .
+   * @param choices .
+   * @param <T> .
+   * @return the page
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  protected <T> Page<T> getPage(String uriSuffix, String collectionKey, int offset, int limit,
+      TypeReference<List<T>> typeReference, Map<HttpStatusCode, TestRailException> choices)
+      throws TestRailException {
+    final ApiResponse apiResponse = get(uriSuffix + "&limit=" + limit + "&offset=" + offset);
+    if (!apiResponse.getHttpStatusCode().is2xxSuccessful()) {
+      handleApiResponseKoChoices(apiResponse, choices);
+    }
+
+    final JsonNode jsonNode = readTree(apiResponse);
+    final List<T> items = readList(jsonNode, collectionKey, typeReference);
+    final boolean hasNext = jsonNode.isObject()
+        ? !jsonNode.path("_links").path("next").isNull() && !jsonNode.path("_links").path("next").isMissingNode()
+        : items.size() >= limit;
+    return new Page<T>(items, offset, hasNext && !items.isEmpty());
+  }
+
+  /**
+   * Gets every page of a list endpoint.
+   *
+   * @param uriSuffix api uri subfix of the list, with its filters
+   * @param collectionKey name of the property that contains the list in the paginated responses
+   * @param typeReference .
+   * @param choices .
+   * @param <T> .
+   * @return all the entities of the list
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  protected <T> List<T> getAllPages(String uriSuffix, String collectionKey, TypeReference<List<T>> typeReference,
+      Map<HttpStatusCode, TestRailException> choices) throws TestRailException {
+    final List<T> items = new ArrayList<T>();
+    Page<T> page = getPage(uriSuffix, collectionKey, 0, DEFAULT_PAGE_SIZE, typeReference, choices);
+    items.addAll(page.getItems());
+    while (page.hasNext()) {
+      page = getPage(uriSuffix, collectionKey, page.getNextOffset(), DEFAULT_PAGE_SIZE, typeReference, choices);
+      items.addAll(page.getItems());
+    }
+    return items;
+  }
+
+  /**
+   * Publishes the entities of a list endpoint, fetching its pages as the subscribers request them from the executor
+   * of the api client.
+   *
+   * @param uriSuffix api uri subfix of the list, with its filters
+   * @param collectionKey name of the property that contains the list in the paginated responses
+   * @param typeReference .
+   * @param choices .
+   * @param <T> .
+   * @return the publisher of the entities of the list
+   * @since 0.3.1
+   */
+  protected <T> Publisher<T> publishPages(String uriSuffix, String collectionKey,
+      TypeReference<List<T>> typeReference, Map<HttpStatusCode, TestRailException> choices) {
+    return publishPages(offset -> getPage(uriSuffix, collectionKey, offset, DEFAULT_PAGE_SIZE, typeReference,
+        choices));
+  }
+
+  /**
+   * Publishes the entities of the pages returned by a page fetcher, fetching them as the subscribers request them from
+   * the executor of the api client, with the traffic class and priority of the current thread.
+   *
+   * @param pageFetcher fetches the page starting at an offset
+   * @param <T> .
+   * @return the publisher of the entities of the pages
+   * @since 0.3.1
+   */
+  protected <T> Publisher<T> publishPages(final TestRailFunction<Integer, Page<T>> pageFetcher) {
+    final Executor executor = apiClient.getExecutor();
+    return new PagedPublisher<T>(pageFetcher,
+        (executor != null) ? ApiClient.withCurrentRequestSettings(executor) : null);
+  }
+
+  private JsonNode readTree(final ApiResponse apiResponse) throws TestRailException {
+    try {
+      final JsonNode jsonNode = objectMapper.readTree(apiResponse.getBody());
+      return (jsonNode != null) ? jsonNode : MissingNode.getInstance();
+    } catch (IOException ioException) {
+      throw new TestRailException(ioException);
+    }
+  }
+
+  private <T> List<T> readList(final JsonNode jsonNode, final String collectionKey,
+      final TypeReference<List<T>> typeReference) throws TestRailException {
+    final JsonNode listNode = jsonNode.isObject() ? jsonNode.path(collectionKey) : jsonNode;
+    if (listNode.isMissingNode() || listNode.isNull()) {
+      return new ArrayList<T>();
+    }
+    try {
+      return objectMapper.readValue(objectMapper.treeAsTokens(listNode), typeReference);
+    } catch (IOException ioException) {
+      throw new TestRailException(ioException);
+    }
+  }
+
   private <T> T handleApiResponseOk(final ApiResponse apiResponse, final Class<T> clazz)
       throws TestRailException {
     final T type;
@@ -172,6 +387,59 @@ public abstract class TestRailServiceBase {
     }
   }
 
+  /**
+   * Applies a function to every input in parallel, using the executor of the api client. The requests done by the
+   * function are still subject to the request limits of the api client, with the traffic class and priority of the
+   * calling thread.
+   *
+   * @param inputs inputs to process
+   * @param function function to apply to every input
+   * @param <T> type of the inputs
+   * @param <R> type of the results
+   * @return the results, in the same order than the inputs
+   * @throws TestRailException the first error raised by the function, the pending work is cancelled
+   * @since 0.3.1
+   */
+  protected <T, R> List<R> runInParallel(final List<T> inputs, final TestRailFunction<T, R> function)
+      throws TestRailException {
+    final List<R> results = new ArrayList<R>(inputs.size());
+    final ExecutorService executor = apiClient.getExecutor();
+    // nested tasks run sequentially on a bounded pool, as waiting for tasks queued behind them could starve it
+    final boolean starvable = ApiClient.isInParallelTask() && !apiClient.usesVirtualThreads();
+    if (inputs.size() < 2 || executor == null || starvable) {
+      for (T input : inputs) {
+        results.add(function.apply(input));
+      }
+      return results;
+    }
+
+    final Executor callerExecutor = ApiClient.withCurrentRequestSettings(ApiClient.asParallelTaskExecutor(executor));
+    final List<Future<R>> futures = new ArrayList<Future<R>>(inputs.size());
+    for (T input : inputs) {
+      final FutureTask<R> task = new FutureTask<R>(() -> function.apply(input));
+      futures.add(task);
+      callerExecutor.execute(task);
+    }
+    try {
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      throw new OperationCancelledException("Cancelled while waiting for the parallel requests", interruptedException);
+    } catch (ExecutionException executionException) {
+      if (executionException.getCause() instanceof TestRailException) {
+        throw (TestRailException) executionException.getCause();
+      }
+      throw new TestRailException(executionException.getCause());
+    } finally {
+      for (Future<R> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+
   /**
    * Do a Post Operation on the TestRail service.
    *
@@ -183,15 +451,19 @@ public abstract class TestRailServiceBase {
   protected ApiResponse post(String uriSuffix) throws TestRailException {
     final ApiResponse apiResponse;
     try {
-      apiResponse = apiClient.doPost(uriSuffix, null);
+      apiResponse = apiClient.doPost(uriSuffix);
     } catch (ApiCallException apiCallException) {
-      throw new TestRailException(apiCallException);
+      throw failureOf(apiCallException);
+    } finally {
+      forgetCachedQueries(uriSuffix);
+      forgetRunTests(uriSuffix);
     }
+    forgetFailedLookups(uriSuffix, apiResponse);
     return apiResponse;
   }
 
   /**
-   * Do a Post Operation on the TestRail service.
+   * Do a Post Operation on the TestRail service. The body is serialized as json while it is sent.
    *
    * @param uriSuffix api uri subfix to send POST
    * @param data map with properties to send in the request body
@@ -202,12 +474,14 @@ public abstract class TestRailServiceBase {
   protected ApiResponse post(String uriSuffix, Map<String, ? extends Object> data) throws TestRailException {
     final ApiResponse apiResponse;
     try {
-      apiResponse = apiClient.doPost(uriSuffix, objectMapper.writeValueAsString(data));
-    } catch (JsonProcessingException jsonProcessingException) {
-      throw new TestRailException(jsonProcessingException);
+      apiResponse = apiClient.doPost(uriSuffix, new JsonStreamingEntity(objectMapper, data));
     } catch (ApiCallException apiCallException) {
-      throw new TestRailException(apiCallException);
+      throw failureOf(apiCallException);
+    } finally {
+      forgetCachedQueries(uriSuffix);
+      forgetRunTests(uriSuffix);
     }
+    forgetFailedLookups(uriSuffix, apiResponse);
     return apiResponse;
   }
 
@@ -220,12 +494,60 @@ public abstract class TestRailServiceBase {
    * @since 0.1.0
    */
   protected ApiResponse get(String uriSuffix) throws TestRailException {
+    final NegativeCache negativeCache = NegativeCache.of(apiClient);
+    if (negativeCache != null) {
+      final ApiResponse knownFailure = negativeCache.getIfPresent(uriSuffix);
+      if (knownFailure != null) {
+        return knownFailure;
+      }
+    }
     final ApiResponse apiResponse;
     try {
       apiResponse = apiClient.doGet(uriSuffix);
     } catch (ApiCallException apiCallException) {
-      throw new TestRailException(apiCallException);
+      throw failureOf(apiCallException);
+    }
+    if (negativeCache != null) {
+      negativeCache.record(uriSuffix, apiResponse);
     }
     return apiResponse;
   }
+
+  private static TestRailException failureOf(final ApiCallException apiCallException) {
+    return (apiCallException instanceof RequestCancelledException)
+        ? new OperationCancelledException(apiCallException.getMessage(), apiCallException)
+        : new TestRailException(apiCallException);
+  }
+
+  // a write, even a failed one as it may have been applied, makes the queries it affects stale
+  private void forgetCachedQueries(final String uriSuffix) {
+    final QueryCache queryCache = QueryCache.of(apiClient);
+    if (queryCache != null) {
+      queryCache.invalidateAfterWrite(uriSuffix);
+    }
+  }
+
+  // a write, even a failed one, may change the tests of the runs it affects
+  private void forgetRunTests(final String uriSuffix) {
+    if (entityCache != null) {
+      entityCache.invalidateAfterWrite(uriSuffix);
+    }
+  }
+
+  // an entity created by the client makes the failed lookups of its ID stale
+  private void forgetFailedLookups(final String uriSuffix, final ApiResponse apiResponse) {
+    final NegativeCache negativeCache = NegativeCache.of(apiClient);
+    if (negativeCache == null || negativeCache.size() == 0 || !uriSuffix.startsWith("add_")
+        || apiResponse == null || !apiResponse.getHttpStatusCode().is2xxSuccessful()) {
+      return;
+    }
+    try {
+      final JsonNode id = readTree(apiResponse).path("id");
+      if (id.canConvertToLong()) {
+        negativeCache.invalidateId(id.asLong());
+      }
+    } catch (TestRailException unparseableResponse) {
+      // reported by the response handling of the operation
+    }
+  }
 }
@@ -27,13 +27,20 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.ppadial.testrail.client.HttpStatusCode;
 import com.github.ppadial.testrail.client.TestRailException;
 import com.github.ppadial.testrail.client.api.NoAccessToProjectException;
+import com.github.ppadial.testrail.client.api.Page;
 import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.api.projects.InvalidOrUnknownProjectException;
+import com.github.ppadial.testrail.client.api.sections.InvalidOrUnknownSectionException;
+import com.github.ppadial.testrail.client.api.stream.Publisher;
+import com.github.ppadial.testrail.client.api.suites.InvalidOrUnknownTestSuiteException;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRCase;
+import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,10 +54,26 @@ import java.util.Map;
  */
 public final class CaseServiceClient extends TestRailServiceBase {
 
+  /**
+   * Default number of cases sent in each request of the bulk operations.
+   */
+  public static final int DEFAULT_BULK_CHUNK_SIZE = 250;
+
   public CaseServiceClient(ApiClient apiClient) {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the case api client serving the cases from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public CaseServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Adds a test case.
    * @param sectionId the section ID.
@@ -61,15 +84,45 @@ public final class CaseServiceClient extends TestRailServiceBase {
    */
   public final TRCase addCase(int sectionId, String title, Map<String, String> fields)
       throws TestRailException {
+    final ApiResponse apiResponse;
+    final TRCase responseObjectModel;
+
     Map<String, String> body = new HashMap<String, String>();
     body.put("title", title);
     if (fields != null) {
       body.putAll(fields);
     }
-//    return objectMapper.readValue(
-//        apiClient.doPost("add_case/" + sectionId, objectMapper.writeValueAsString(body)),
-//        TRCase.class);
-    return null;
+
+    // Do the query
+    apiResponse = post("add_case/" + sectionId, body);
+
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownSectionException("invalid or unknown section"));
+            put(HttpStatusCode.FORBIDDEN,
+                new NoAccessToProjectException("No permissions to add test cases or no access to the project"));
+          }
+        };
+
+    // Handle response
+    responseObjectModel = handleApiResponse(apiResponse, TRCase.class, choices);
+    return responseObjectModel;
+  }
+
+  /**
+   * Adds several test cases to a section. TestRail has no bulk endpoint to create cases, so the cases are created in
+   * parallel, one request per case, under the request limits of the api client.
+   *
+   * @param sectionId the section ID.
+   * @param cases one map per case with its fields, the {@code title} is mandatory
+   * @return the created cases, in the same order
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRCase> addCases(final int sectionId, final List<Map<String, String>> cases)
+      throws TestRailException {
+    return runInParallel(cases, fields -> addCase(sectionId, fields.get("title"), fields));
   }
 
   /**
@@ -81,6 +134,10 @@ public final class CaseServiceClient extends TestRailServiceBase {
    */
   public final TRCase getCase(final int caseId)
       throws TestRailException {
+    return cached(EntityCache.Region.CASES, caseId, this::fetchCase);
+  }
+
+  private TRCase fetchCase(final int caseId) throws TestRailException {
     final ApiResponse apiResponse;
     final TRCase responseObjectModel;
 
@@ -111,17 +168,48 @@ public final class CaseServiceClient extends TestRailServiceBase {
    */
   public final List<TRCase> getCases(final int projectId, final int suiteId, final int sectionId,
       final Map<String, String> filters) throws TestRailException {
-    final ApiResponse apiResponse;
-    final List<TRCase> responseObjectModel;
+    return cachedQuery(casesUrl(projectId, suiteId, sectionId, filters), this::fetchCases);
+  }
 
-    final Map<HttpStatusCode, TestRailException> choices =
-        new HashMap<HttpStatusCode, TestRailException>() {
-          {
-            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownProjectException());
-            put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
-          }
-        };
+  /**
+   * Returns a page of the cases of a project.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @param sectionId The ID of the section, 0 for all the sections
+   * @param filters the filters to apply, null for none
+   * @param offset number of cases to skip
+   * @param limit maximum number of cases of the page
+   * @return page of cases
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final Page<TRCase> getCasesPage(final int projectId, final int suiteId, final int sectionId,
+      final Map<String, String> filters, final int offset, final int limit) throws TestRailException {
+    return getPage(casesUrl(projectId, suiteId, sectionId, filters), "cases", offset, limit,
+        new TypeReference<List<TRCase>>() {
+        }, casesChoices());
+  }
 
+  /**
+   * Publishes the cases of a project, fetching the pages as the subscribers request the cases.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @param sectionId The ID of the section, 0 for all the sections
+   * @param filters the filters to apply, null for none
+   * @return publisher of the cases
+   * @since 0.3.1
+   */
+  public final Publisher<TRCase> getCasesPublisher(final int projectId, final int suiteId, final int sectionId,
+      final Map<String, String> filters) {
+    return publishPages(casesUrl(projectId, suiteId, sectionId, filters), "cases",
+        new TypeReference<List<TRCase>>() {
+        }, casesChoices());
+  }
+
+  private static String casesUrl(final int projectId, final int suiteId, final int sectionId,
+      final Map<String, String> filters) {
     String url = "get_cases/" + projectId;
     if (suiteId > 0) {
       url += "&suite_id=" + suiteId;
@@ -134,28 +222,128 @@ public final class CaseServiceClient extends TestRailServiceBase {
         url += "&" + entry.getKey() + "=" + entry.getValue();
       }
     }
+    return url;
+  }
+
+  private static Map<HttpStatusCode, TestRailException> casesChoices() {
+    return new HashMap<HttpStatusCode, TestRailException>() {
+      {
+        put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownProjectException());
+        put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+      }
+    };
+  }
+
+  private List<TRCase> fetchCases(final String url) throws TestRailException {
+    final ApiResponse apiResponse;
+    final List<TRCase> responseObjectModel;
 
     // Do the query
     apiResponse = get(url);
 
     // Handle response
     responseObjectModel = handleApiResponse(apiResponse, new TypeReference<List<TRCase>>() {
-    }, choices);
+    }, casesChoices());
     return responseObjectModel;
   }
 
   /**
-   * .
-   * @param caseId .
-   * @param fields .
-   * @return .
+   * Updates an existing test case (partial updates are supported, i.e. you can submit and update specific fields
+   * only).
+   * @param caseId The ID of the test case
+   * @param fields the fields to update
+   * @return the updated test case
    * @throws TestRailException An error in the connection with testrail
    */
   public final TRCase updateCase(final int caseId, final Map<String, Object> fields)
       throws TestRailException {
-//    return objectMapper.readValue(apiClient.doPost("update_case/" + caseId,
-//        objectMapper.writeValueAsString(fields)), TRCase.class);
-    return null;
+    final ApiResponse apiResponse;
+    final TRCase responseObjectModel;
+
+    // Do the query
+    apiResponse = post("update_case/" + caseId, (fields != null) ? fields : new HashMap<String, Object>());
+
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownTestCaseException());
+            put(HttpStatusCode.FORBIDDEN,
+                new NoAccessToProjectException("No permissions to modify test cases or no access to the project"));
+          }
+        };
+
+    // Handle response
+    responseObjectModel = handleApiResponse(apiResponse, TRCase.class, choices);
+    cacheUpdated(EntityCache.Region.CASES, caseId, responseObjectModel);
+    return responseObjectModel;
+  }
+
+  /**
+   * Updates the same fields of several test cases of a suite. The cases are sent in chunks of
+   * {@link #DEFAULT_BULK_CHUNK_SIZE}, and the chunks run in parallel under the request limits of the api client.
+   *
+   * @param suiteId The ID of the test suite
+   * @param caseIds The IDs of the test cases to update
+   * @param fields the fields to update
+   * @return the updated test cases
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRCase> updateCases(final int suiteId, final List<Integer> caseIds,
+      final Map<String, Object> fields) throws TestRailException {
+    return updateCases(suiteId, caseIds, fields, DEFAULT_BULK_CHUNK_SIZE);
+  }
+
+  /**
+   * Updates the same fields of several test cases of a suite. The cases are sent in chunks, and the chunks run in
+   * parallel under the request limits of the api client.
+   *
+   * @param suiteId The ID of the test suite
+   * @param caseIds The IDs of the test cases to update
+   * @param fields the fields to update
+   * @param chunkSize number of cases sent in each request
+   * @return the updated test cases
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRCase> updateCases(final int suiteId, final List<Integer> caseIds,
+      final Map<String, Object> fields, final int chunkSize) throws TestRailException {
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST,
+                new InvalidOrUnknownTestSuiteException("invalid or unknown test suite or test cases"));
+            put(HttpStatusCode.FORBIDDEN,
+                new NoAccessToProjectException("No permissions to modify test cases or no access to the project"));
+          }
+        };
+
+    final List<List<TRCase>> updatedChunks;
+    try {
+      updatedChunks = runInParallel(Lists.partition(caseIds, chunkSize), chunk -> {
+        final Map<String, Object> body = new HashMap<String, Object>();
+        if (fields != null) {
+          body.putAll(fields);
+        }
+        body.put("case_ids", chunk);
+        return handleApiListResponse(post("update_cases/" + suiteId, body), "updated_cases",
+            new TypeReference<List<TRCase>>() {
+            }, choices);
+      });
+    } catch (TestRailException | RuntimeException e) {
+      // Some chunks may have been applied
+      invalidateCases(caseIds);
+      throw e;
+    }
+
+    final List<TRCase> updatedCases = new ArrayList<TRCase>(caseIds.size());
+    for (List<TRCase> updatedChunk : updatedChunks) {
+      updatedCases.addAll(updatedChunk);
+    }
+    for (TRCase updatedCase : updatedCases) {
+      cacheUpdated(EntityCache.Region.CASES, updatedCase.id, updatedCase);
+    }
+    return updatedCases;
   }
 
   /**
@@ -170,7 +358,11 @@ public final class CaseServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = post("delete_case/" + caseId);
+    try {
+      apiResponse = post("delete_case/" + caseId);
+    } finally {
+      cacheUpdated(EntityCache.Region.CASES, caseId, null);
+    }
 
     final Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -184,4 +376,58 @@ public final class CaseServiceClient extends TestRailServiceBase {
     // Handle response
     handleApiResponse(apiResponse, choices);
   }
+
+  /**
+   * Deletes several test cases of a suite. The cases are sent in chunks of {@link #DEFAULT_BULK_CHUNK_SIZE}, and the
+   * chunks run in parallel under the request limits of the api client.
+   *
+   * @param suiteId The ID of the test suite
+   * @param caseIds The IDs of the test cases to delete
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final void deleteCases(final int suiteId, final List<Integer> caseIds)
+      throws TestRailException {
+    deleteCases(suiteId, caseIds, DEFAULT_BULK_CHUNK_SIZE);
+  }
+
+  /**
+   * Deletes several test cases of a suite. The cases are sent in chunks, and the chunks run in parallel under the
+   * request limits of the api client.
+   *
+   * @param suiteId The ID of the test suite
+   * @param caseIds The IDs of the test cases to delete
+   * @param chunkSize number of cases sent in each request
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final void deleteCases(final int suiteId, final List<Integer> caseIds, final int chunkSize)
+      throws TestRailException {
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST,
+                new InvalidOrUnknownTestSuiteException("invalid or unknown test suite or test cases"));
+            put(HttpStatusCode.FORBIDDEN,
+                new NoAccessToProjectException("No permissions to delete test cases or no access to the project"));
+          }
+        };
+
+    try {
+      runInParallel(Lists.partition(caseIds, chunkSize), chunk -> {
+        final Map<String, Object> body = new HashMap<String, Object>();
+        body.put("case_ids", chunk);
+        handleApiResponse(post("delete_cases/" + suiteId, body), choices);
+        return chunk.size();
+      });
+    } finally {
+      invalidateCases(caseIds);
+    }
+  }
+
+  private void invalidateCases(final List<Integer> caseIds) {
+    for (Integer caseId : caseIds) {
+      cacheUpdated(EntityCache.Region.CASES, caseId, null);
+    }
+  }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.milestones;
+
+import com.github.ppadial.testrail.client.api.PreOrderLayout;
+import com.github.ppadial.testrail.client.model.TRMilestone;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable index of the milestones of a project and their sub milestones.
+ *
+ * <p>The nested milestones are flattened into a {@link PreOrderLayout}, children sorted by ID, so the ancestry is a
+ * walk up the parents and a subtree is a contiguous range. The milestones are also sorted by start and due date, so
+ * the date range queries are binary searches, and the "active at" query reads only the active milestones.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class MilestoneIndex {
+
+  private final PreOrderLayout<TRMilestone> layout;
+  private final DateOrder byStart;
+  private final DateOrder byDue;
+  private final ActiveOrder active;
+
+  /**
+   * Builds the index of a list of milestones.
+   *
+   * @param allMilestones the milestones of a project, in any order, with or without their sub milestones nested.
+   * Milestones whose parent is not in the list are roots.
+   */
+  public MilestoneIndex(final Collection<TRMilestone> allMilestones) {
+    final Map<Integer, TRMilestone> byId = new LinkedHashMap<Integer, TRMilestone>();
+    final Deque<TRMilestone> pending = new ArrayDeque<TRMilestone>(allMilestones);
+    while (!pending.isEmpty()) {
+      final TRMilestone milestone = pending.pop();
+      byId.putIfAbsent(milestone.id, milestone);
+      if (milestone.childMilestones != null) {
+        for (TRMilestone child : milestone.childMilestones) {
+          // nested milestones may come without their parent ID, the index keeps a copy with it
+          pending.push((child.parentId == 0) ? withParent(child, milestone.id) : child);
+        }
+      }
+    }
+    this.layout = new PreOrderLayout<TRMilestone>(byId.values(), m -> m.id, m -> m.parentId,
+        Comparator.comparingInt(m -> m.id));
+    final List<TRMilestone> milestones = layout.getAll();
+    this.byStart = new DateOrder(milestones, m -> m.startOn, false);
+    this.byDue = new DateOrder(milestones, m -> m.dueOn, false);
+    this.active = new ActiveOrder(milestones, new DateOrder(milestones, MilestoneIndex::effectiveStart, true));
+  }
+
+  /**
+   * Gets the number of milestones of the index, sub milestones included.
+   *
+   * @return the number of milestones
+   */
+  public int size() {
+    return layout.size();
+  }
+
+  /**
+   * Gets a milestone.
+   *
+   * @param milestoneId the ID of the milestone
+   * @return the milestone, null if it is not in the index
+   */
+  public TRMilestone getMilestone(final int milestoneId) {
+    return layout.getById(milestoneId);
+  }
+
+  /**
+   * Gets all the milestones, in pre-order.
+   *
+   * @return the milestones
+   */
+  public List<TRMilestone> getMilestones() {
+    return layout.getAll();
+  }
+
+  /**
+   * Gets the root milestones, sorted by ID.
+   *
+   * @return the milestones without parent
+   */
+  public List<TRMilestone> getRoots() {
+    return layout.getRoots();
+  }
+
+  /**
+   * Gets the parent of a milestone.
+   *
+   * @param milestoneId the ID of the milestone
+   * @return the ID of the parent milestone, null for root milestones or milestones not in the index
+   */
+  public Integer getParentId(final int milestoneId) {
+    return layout.getParentId(milestoneId);
+  }
+
+  /**
+   * Gets the direct sub milestones of a milestone.
+   *
+   * @param milestoneId the ID of the milestone
+   * @return the sub milestones, sorted by ID, empty if the milestone is not in the index
+   */
+  public List<TRMilestone> getChildren(final int milestoneId) {
+    return layout.getChildren(milestoneId);
+  }
+
+  /**
+   * Gets the ancestry of a milestone.
+   *
+   * @param milestoneId the ID of the milestone
+   * @return the milestones from the root to the parent of the milestone, empty for root milestones or milestones not
+   * in the index
+   */
+  public List<TRMilestone> getAncestors(final int milestoneId) {
+    return layout.getAncestors(milestoneId);
+  }
+
+  /**
+   * Gets a milestone and all its sub milestones, in pre-order.
+   *
+   * @param milestoneId the ID of the milestone
+   * @return the milestones of the subtree, empty if the milestone is not in the index
+   */
+  public List<TRMilestone> getSubtree(final int milestoneId) {
+    return layout.getSubtree(milestoneId);
+  }
+
+  /**
+   * Gets the milestones scheduled to start in a time range. Milestones without start date are not included.
+   *
+   * @param from start of the range, inclusive (as UNIX timestamp)
+   * @param to end of the range, inclusive (as UNIX timestamp)
+   * @return the milestones, sorted by start date
+   */
+  public List<TRMilestone> getStartingBetween(final long from, final long to) {
+    return byStart.between(layout.getAll(), from, to);
+  }
+
+  /**
+   * Gets the milestones due in a time range. Milestones without due date are not included.
+   *
+   * @param from start of the range, inclusive (as UNIX timestamp)
+   * @param to end of the range, inclusive (as UNIX timestamp)
+   * @return the milestones, sorted by due date
+   */
+  public List<TRMilestone> getDueBetween(final long from, final long to) {
+    return byDue.between(layout.getAll(), from, to);
+  }
+
+  /**
+   * Gets the milestones active at a point in time: started, or scheduled to start, at or before it and not completed
+   * by then. Milestones without start date are considered started from the beginning.
+   *
+   * @param time the point in time (as UNIX timestamp)
+   * @return the active milestones, sorted by start date
+   */
+  public List<TRMilestone> getActiveAt(final long time) {
+    return active.at(layout.getAll(), time);
+  }
+
+  private static TRMilestone withParent(final TRMilestone milestone, final int parentId) {
+    final TRMilestone copy = new TRMilestone();
+    copy.completedOn = milestone.completedOn;
+    copy.description = milestone.description;
+    copy.dueOn = milestone.dueOn;
+    copy.id = milestone.id;
+    copy.isCompleted = milestone.isCompleted;
+    copy.isStarted = milestone.isStarted;
+    copy.childMilestones = milestone.childMilestones;
+    copy.name = milestone.name;
+    copy.parentId = parentId;
+    copy.projectId = milestone.projectId;
+    copy.startOn = milestone.startOn;
+    copy.startedOn = milestone.startedOn;
+    copy.url = milestone.url;
+    return copy;
+  }
+
+  private static long effectiveStart(final TRMilestone milestone) {
+    return (milestone.startedOn > 0) ? milestone.startedOn : milestone.startOn;
+  }
+
+  // the milestone is active until this moment, exclusive, or forever if it is not completed
+  private static long end(final TRMilestone milestone) {
+    if (milestone.completedOn != 0) {
+      return milestone.completedOn;
+    }
+    return Boolean.TRUE.equals(milestone.isCompleted) ? Long.MIN_VALUE : Long.MAX_VALUE;
+  }
+
+  /**
+   * Positions of the milestones sorted by one of their dates, with the dates in a parallel array.
+   */
+  private static final class DateOrder {
+
+    private final int[] positions;
+    private final long[] dates;
+
+    private DateOrder(final List<TRMilestone> milestones, final ToLongFunction<TRMilestone> date,
+        final boolean withoutDate) {
+      final List<Integer> sorted = new ArrayList<Integer>(milestones.size());
+      for (int position = 0; position < milestones.size(); position++) {
+        if (withoutDate || date.applyAsLong(milestones.get(position)) > 0) {
+          sorted.add(position);
+        }
+      }
+      sorted.sort(Comparator.comparingLong(position -> date.applyAsLong(milestones.get(position))));
+      this.positions = new int[sorted.size()];
+      this.dates = new long[sorted.size()];
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = sorted.get(i);
+        dates[i] = date.applyAsLong(milestones.get(positions[i]));
+      }
+    }
+
+    private List<TRMilestone> between(final List<TRMilestone> milestones, final long from, final long to) {
+      final List<TRMilestone> found = new ArrayList<TRMilestone>();
+      for (int i = firstNotBefore(from); i < dates.length && dates[i] <= to; i++) {
+        found.add(milestones.get(positions[i]));
+      }
+      return found;
+    }
+
+    // number of dates at or before a date
+    private int countUntil(final long date) {
+      return (date == Long.MAX_VALUE) ? dates.length : firstNotBefore(date + 1);
+    }
+
+    private int firstNotBefore(final long date) {
+      int low = 0;
+      int high = dates.length;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (dates[middle] < date) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * The milestones sorted by effective start, with the ends of the prefixes in a Fenwick layout: node {@code i} holds
+   * the range {@code (i - lowest bit of i, i]} sorted by end, latest first. The milestones started by a moment are a
+   * prefix, split in at most log(n) nodes, and the ones of a node still active then are read until the first that is
+   * not, so a query does not scan the finished milestones.
+   */
+  private static final class ActiveOrder {
+
+    private final DateOrder byStart;
+    private final long[] ends;
+    // indexes of byStart, 1 based nodes
+    private final int[][] nodes;
+
+    private ActiveOrder(final List<TRMilestone> milestones, final DateOrder byStart) {
+      final int size = byStart.positions.length;
+      this.byStart = byStart;
+      this.ends = new long[size];
+      for (int i = 0; i < size; i++) {
+        ends[i] = end(milestones.get(byStart.positions[i]));
+      }
+      this.nodes = new int[size + 1][];
+      for (int node = 1; node <= size; node++) {
+        final List<Integer> range = new ArrayList<Integer>(node & -node);
+        for (int i = node - (node & -node); i < node; i++) {
+          range.add(i);
+        }
+        range.sort(Comparator.comparingLong((Integer i) -> ends[i]).reversed());
+        nodes[node] = new int[range.size()];
+        for (int i = 0; i < nodes[node].length; i++) {
+          nodes[node][i] = range.get(i);
+        }
+      }
+    }
+
+    private List<TRMilestone> at(final List<TRMilestone> milestones, final long time) {
+      final List<Integer> found = new ArrayList<Integer>();
+      for (int node = byStart.countUntil(time); node > 0; node -= node & -node) {
+        for (int i = 0; i < nodes[node].length && isActive(ends[nodes[node][i]], time); i++) {
+          found.add(nodes[node][i]);
+        }
+      }
+      Collections.sort(found);
+      final List<TRMilestone> activeList = new ArrayList<TRMilestone>(found.size());
+      for (int i : found) {
+        activeList.add(milestones.get(byStart.positions[i]));
+      }
+      return activeList;
+    }
+
+    private static boolean isActive(final long end, final long time) {
+      return end == Long.MAX_VALUE || end > time;
+    }
+  }
+}
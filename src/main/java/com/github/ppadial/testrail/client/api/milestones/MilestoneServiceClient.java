@@ -31,7 +31,9 @@ import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRMilestone;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +58,17 @@ public final class MilestoneServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the milestone api client serving the milestones from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public MilestoneServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Returns an existing milestone.
    *
@@ -66,6 +79,10 @@ public final class MilestoneServiceClient extends TestRailServiceBase {
    */
   public final TRMilestone getMilestone(final int milestoneId)
       throws TestRailException {
+    return cached(EntityCache.Region.MILESTONES, milestoneId, this::fetchMilestone);
+  }
+
+  private TRMilestone fetchMilestone(final int milestoneId) throws TestRailException {
     final ApiResponse apiResponse;
     final TRMilestone responseObjectModel;
 
@@ -93,22 +110,68 @@ public final class MilestoneServiceClient extends TestRailServiceBase {
    */
   public final List<TRMilestone> getMilestones(final int projectId)
       throws TestRailException {
-    final ApiResponse apiResponse;
-    final List<TRMilestone> responseObjectModel;
-
-    // Do the query
-    apiResponse = get("get_milestones/" + projectId);
+    return getMilestones("get_milestones/" + projectId);
+  }
 
+  private List<TRMilestone> getMilestones(final String uriSuffix) throws TestRailException {
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
           put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownMilestoneException("invalid or unknown project"));
           put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException("No access to the project"));
         }};
 
-    // Handle response
-    responseObjectModel = handleApiResponse(apiResponse, new TypeReference<List<TRMilestone>>() {
+    return getAllPages(uriSuffix, "milestones", new TypeReference<List<TRMilestone>>() {
     }, choices);
-    return responseObjectModel;
+  }
+
+  /**
+   * Returns the index of the milestones of a project and their sub milestones.
+   *
+   * @param projectId The ID of the project
+   * @return index of the milestones of the project
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final MilestoneIndex getMilestoneIndex(final int projectId) throws TestRailException {
+    return new MilestoneIndex(getMilestones(projectId));
+  }
+
+  /**
+   * Returns the index of the milestones of a project, updating a previous one. Only the milestones not completed are
+   * requested, plus the ones that were not completed in the previous index and are no longer listed, which were
+   * completed or deleted since. Completed milestones are kept from the previous index, they are only dropped when
+   * deleted by a full load with {@link #getMilestoneIndex(int)}.
+   *
+   * @param projectId The ID of the project
+   * @param previous previous index of the project, null to do a full load
+   * @return index of the milestones of the project
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final MilestoneIndex getMilestoneIndex(final int projectId, final MilestoneIndex previous)
+      throws TestRailException {
+    if (previous == null) {
+      return getMilestoneIndex(projectId);
+    }
+    final MilestoneIndex open = new MilestoneIndex(getMilestones("get_milestones/" + projectId + "&is_completed=0"));
+    final List<TRMilestone> milestones = new ArrayList<TRMilestone>(open.getMilestones());
+    for (TRMilestone milestone : previous.getMilestones()) {
+      if (open.getMilestone(milestone.id) != null) {
+        continue;
+      }
+      if (Boolean.TRUE.equals(milestone.isCompleted)) {
+        milestones.add(milestone);
+      } else {
+        try {
+          final TRMilestone changed = fetchMilestone(milestone.id);
+          cacheUpdated(EntityCache.Region.MILESTONES, milestone.id, changed);
+          milestones.add(changed);
+        } catch (InvalidOrUnknownMilestoneException e) {
+          cacheUpdated(EntityCache.Region.MILESTONES, milestone.id, null);
+        }
+      }
+    }
+    return new MilestoneIndex(milestones);
   }
 
   /**
@@ -227,6 +290,7 @@ public final class MilestoneServiceClient extends TestRailServiceBase {
 
     // Handle response
     responseObjectModel = handleApiResponse(apiResponse, TRMilestone.class, choices);
+    cacheUpdated(EntityCache.Region.MILESTONES, milestoneId, responseObjectModel);
     return responseObjectModel;
   }
 
@@ -242,7 +306,11 @@ public final class MilestoneServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = get("delete_milestone/" + milestoneId);
+    try {
+      apiResponse = post("delete_milestone/" + milestoneId);
+    } finally {
+      cacheUpdated(EntityCache.Region.MILESTONES, milestoneId, null);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
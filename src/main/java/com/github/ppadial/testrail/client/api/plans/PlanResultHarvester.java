@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.plans;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.OperationCancelledException;
+import com.github.ppadial.testrail.client.api.Page;
+import com.github.ppadial.testrail.client.api.TestRailServiceBase;
+import com.github.ppadial.testrail.client.api.results.ResultServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRPlan;
+import com.github.ppadial.testrail.client.model.TRPlanEntry;
+import com.github.ppadial.testrail.client.model.TRResult;
+import com.github.ppadial.testrail.client.model.TRRun;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the results of every run of a test plan concurrently.
+ *
+ * <p>The runs of all the plan entries are fetched with a bounded parallelism, each one page by page, and their
+ * results are merged into a single stream annotated with the entry, run and configuration they belong to. The sink
+ * and the progress listener are always called from the thread that runs the harvest.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class PlanResultHarvester {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PlanResultHarvester.class);
+
+  /**
+   * Receives the progress of a harvest.
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+
+    /**
+     * Called every time the results of a run have been harvested.
+     *
+     * @param runId The ID of the harvested run
+     * @param harvestedRuns number of runs harvested so far
+     * @param totalRuns number of runs of the plan
+     * @param harvestedResults number of results harvested so far
+     */
+    void onRunHarvested(int runId, int harvestedRuns, int totalRuns, long harvestedResults);
+  }
+
+  /**
+   * A test result with the plan entry, run and configuration it belongs to.
+   */
+  public static final class HarvestedResult {
+
+    private final int planId;
+    private final String entryId;
+    private final int runId;
+    private final List<Integer> configIds;
+    private final String config;
+    private final TRResult result;
+
+    HarvestedResult(final int planId, final String entryId, final TRRun run, final TRResult result) {
+      this.planId = planId;
+      this.entryId = entryId;
+      this.runId = run.id;
+      this.configIds = (run.configIds != null) ? run.configIds : Collections.<Integer>emptyList();
+      this.config = run.config;
+      this.result = result;
+    }
+
+    public int getPlanId() {
+      return planId;
+    }
+
+    public String getEntryId() {
+      return entryId;
+    }
+
+    public int getRunId() {
+      return runId;
+    }
+
+    public List<Integer> getConfigIds() {
+      return configIds;
+    }
+
+    public String getConfig() {
+      return config;
+    }
+
+    public TRResult getResult() {
+      return result;
+    }
+  }
+
+  private final PlanServiceClient planServiceClient;
+  private final ResultServiceClient resultServiceClient;
+  private final Executor executor;
+  private final int parallelism;
+  private final Set<Future<RunResults>> inFlight =
+      Collections.newSetFromMap(new ConcurrentHashMap<Future<RunResults>, Boolean>());
+  private volatile ProgressListener progressListener;
+  private volatile boolean cancelled;
+
+  /**
+   * Creates a new harvester.
+   *
+   * @param apiClient the api client to use, its executor runs the requests
+   * @param parallelism maximum number of runs fetched at the same time
+   * @since 0.3.1
+   */
+  public PlanResultHarvester(final ApiClient apiClient, final int parallelism) {
+    this.planServiceClient = new PlanServiceClient(apiClient);
+    this.resultServiceClient = new ResultServiceClient(apiClient);
+    this.executor = (apiClient.getExecutor() != null) ? apiClient.getExecutor() : Runnable::run;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Sets the listener notified after each harvested run.
+   *
+   * @param progressListener the listener
+   * @return this harvester
+   * @since 0.3.1
+   */
+  public PlanResultHarvester withProgressListener(final ProgressListener progressListener) {
+    this.progressListener = progressListener;
+    return this;
+  }
+
+  /**
+   * Harvests the results of all the runs of a test plan.
+   *
+   * @param planId The ID of the test plan
+   * @param sink receives every result of the plan
+   * @return number of harvested results, less than the total if the harvest was cancelled
+   * @throws TestRailException An error in the connection with testrail, the pending work is cancelled
+   * @since 0.3.1
+   */
+  public long harvest(final int planId, final Consumer<HarvestedResult> sink) throws TestRailException {
+    if (cancelled) {
+      return 0;
+    }
+    final TRPlan plan = planServiceClient.getPlan(planId);
+    final List<RunTarget> targets = new ArrayList<RunTarget>();
+    if (plan.entries != null) {
+      for (TRPlanEntry entry : plan.entries) {
+        if (entry.TRRuns != null) {
+          for (TRRun run : entry.TRRuns) {
+            targets.add(new RunTarget(entry.id, run));
+          }
+        }
+      }
+    }
+    LOG.debug("Harvesting {} runs of plan {} with parallelism {}", targets.size(), planId, parallelism);
+
+    // the runs are fetched with the traffic class and priority of the caller
+    final CompletionService<RunResults> completionService =
+        new ExecutorCompletionService<RunResults>(ApiClient.withCurrentRequestSettings(executor));
+    final Iterator<RunTarget> pending = targets.iterator();
+    int submittedRuns = 0;
+    int harvestedRuns = 0;
+    long harvestedResults = 0;
+    try {
+      while (submittedRuns < parallelism && pending.hasNext() && !cancelled) {
+        submit(completionService, pending.next());
+        submittedRuns++;
+      }
+      while (harvestedRuns < submittedRuns && !cancelled) {
+        final Future<RunResults> future = completionService.take();
+        inFlight.remove(future);
+        final RunResults runResults = future.get();
+        harvestedRuns++;
+        for (TRResult result : runResults.results) {
+          sink.accept(new HarvestedResult(planId, runResults.target.entryId, runResults.target.run, result));
+          harvestedResults++;
+        }
+        final ProgressListener listener = progressListener;
+        if (listener != null) {
+          listener.onRunHarvested(runResults.target.run.id, harvestedRuns, targets.size(), harvestedResults);
+        }
+        if (pending.hasNext() && !cancelled) {
+          submit(completionService, pending.next());
+          submittedRuns++;
+        }
+      }
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      throw new OperationCancelledException("Cancelled while harvesting plan " + planId, interruptedException);
+    } catch (CancellationException cancellationException) {
+      LOG.debug("Harvest of plan {} cancelled", planId);
+    } catch (ExecutionException executionException) {
+      if (executionException.getCause() instanceof TestRailException) {
+        throw (TestRailException) executionException.getCause();
+      }
+      if (!(executionException.getCause() instanceof CancellationException)) {
+        throw new TestRailException(executionException.getCause());
+      }
+    } finally {
+      cancelInFlight();
+    }
+    return harvestedResults;
+  }
+
+  /**
+   * Cancels the harvest, the runs being fetched are abandoned and no more results are sent to the sink. A cancelled
+   * harvester can't be used again.
+   *
+   * @since 0.3.1
+   */
+  public void cancel() {
+    cancelled = true;
+    cancelInFlight();
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  private void submit(final CompletionService<RunResults> completionService, final RunTarget target) {
+    inFlight.add(completionService.submit(() -> fetch(target)));
+  }
+
+  private RunResults fetch(final RunTarget target) throws TestRailException {
+    final List<TRResult> results = new ArrayList<TRResult>();
+    int offset = 0;
+    Page<TRResult> page;
+    do {
+      if (cancelled) {
+        throw new CancellationException("harvest cancelled");
+      }
+      page = resultServiceClient.getResultsForRunPage(target.run.id, offset, TestRailServiceBase.DEFAULT_PAGE_SIZE);
+      results.addAll(page.getItems());
+      offset = page.getNextOffset();
+    } while (page.hasNext());
+    return new RunResults(target, results);
+  }
+
+  private void cancelInFlight() {
+    for (Future<RunResults> future : inFlight) {
+      future.cancel(true);
+    }
+    inFlight.clear();
+  }
+
+  private static final class RunTarget {
+    private final String entryId;
+    private final TRRun run;
+
+    private RunTarget(final String entryId, final TRRun run) {
+      this.entryId = entryId;
+      this.run = run;
+    }
+  }
+
+  private static final class RunResults {
+    private final RunTarget target;
+    private final List<TRResult> results;
+
+    private RunResults(final RunTarget target, final List<TRResult> results) {
+      this.target = target;
+      this.results = results;
+    }
+  }
+}
@@ -32,8 +32,10 @@ import com.github.ppadial.testrail.client.api.projects.InvalidOrUnknownProjectEx
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRPlan;
 import com.github.ppadial.testrail.client.model.TRPlanEntry;
+import com.github.ppadial.testrail.client.model.TRRun;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +59,17 @@ public final class PlanServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the plan api client keeping the cached runs of the plans up to date.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public PlanServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Returns an existing test plan.
    *
@@ -99,18 +112,21 @@ public final class PlanServiceClient extends TestRailServiceBase {
   // TODO: Change filters by parameters nullable
   public final List<TRPlan> getPlans(final int projectId, final Map<String, String> filters)
       throws TestRailException {
-    final ApiResponse apiResponse;
-    final List<TRPlan> responseObjectModel;
-
     String url = "get_plans/" + projectId;
     if (filters != null) {
       for (Map.Entry<String, String> entry : filters.entrySet()) {
         url += "&" + entry.getKey() + "=" + entry.getValue();
       }
     }
+    return cachedQuery(url, this::fetchPlans);
+  }
+
+  private List<TRPlan> fetchPlans(final String url) throws TestRailException {
+    final ApiResponse apiResponse;
+    final List<TRPlan> responseObjectModel;
 
     // Do the query
-    apiResponse = get("get_plans/" + projectId);
+    apiResponse = get(url);
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -232,7 +248,11 @@ public final class PlanServiceClient extends TestRailServiceBase {
     Map<String, String> body = new HashMap<String, String>();
 
     // Do the query
-    apiResponse = post("update_plan_entry/" + planId + "/" + entryId, body);
+    try {
+      apiResponse = post("update_plan_entry/" + planId + "/" + entryId, body);
+    } finally {
+      invalidatePlanRuns(planId);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -264,7 +284,11 @@ public final class PlanServiceClient extends TestRailServiceBase {
     final TRPlan responseObjectModel;
 
     // Do the query
-    apiResponse = post("close_plan/" + planId);
+    try {
+      apiResponse = post("close_plan/" + planId);
+    } finally {
+      invalidatePlanRuns(planId);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -294,7 +318,11 @@ public final class PlanServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = post("delete_plan/" + planId);
+    try {
+      apiResponse = post("delete_plan/" + planId);
+    } finally {
+      invalidatePlanRuns(planId);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -323,7 +351,11 @@ public final class PlanServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = post("delete_plan_entry/" + planId + "/" + entryId);
+    try {
+      apiResponse = post("delete_plan_entry/" + planId + "/" + entryId);
+    } finally {
+      invalidatePlanRuns(planId);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -337,4 +369,10 @@ public final class PlanServiceClient extends TestRailServiceBase {
     // Handle response
     handleApiResponse(apiResponse, choices);
   }
+
+  private void invalidatePlanRuns(final int planId) {
+    if (entityCache != null) {
+      entityCache.invalidateIf(EntityCache.Region.RUNS, run -> Integer.valueOf(planId).equals(((TRRun) run).planId));
+    }
+  }
 }
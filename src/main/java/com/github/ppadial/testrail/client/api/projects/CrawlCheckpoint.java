@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.api.projects;
+
+/**
+ * Persistence of the progress of an {@link InventoryCrawler}, so an interrupted crawl resumes without fetching the
+ * projects and suites already crawled again.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public interface CrawlCheckpoint {
+
+  /**
+   * Tells if a project has been crawled completely, with all its suites.
+   *
+   * @param projectId the ID of the project
+   * @return true if the project was crawled
+   */
+  boolean isProjectCrawled(int projectId);
+
+  /**
+   * Records that a project has been crawled completely.
+   *
+   * @param projectId the ID of the project
+   */
+  void projectCrawled(int projectId);
+
+  /**
+   * Tells if a suite has been crawled completely, with all its sections and cases.
+   *
+   * @param suiteId the ID of the suite
+   * @return true if the suite was crawled
+   */
+  boolean isSuiteCrawled(int suiteId);
+
+  /**
+   * Records that a suite has been crawled completely.
+   *
+   * @param suiteId the ID of the suite
+   */
+  void suiteCrawled(int suiteId);
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.api.projects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link CrawlCheckpoint} backed by a properties file. The file is rewritten atomically each time a project or suite
+ * is crawled.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class FileCrawlCheckpoint implements CrawlCheckpoint {
+
+  private static final String PROJECT_PREFIX = "project.";
+  private static final String SUITE_PREFIX = "suite.";
+  private static final String CRAWLED = "crawled";
+
+  private final Path file;
+  private final Properties properties = new Properties();
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Constructor.
+   *
+   * @param file the properties file, it is created on the first save if it does not exist
+   */
+  public FileCrawlCheckpoint(final Path file) {
+    this.file = file;
+    if (Files.exists(file)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to read the crawl checkpoint from " + file, e);
+      }
+    }
+  }
+
+  @Override
+  public boolean isProjectCrawled(final int projectId) {
+    return contains(PROJECT_PREFIX + projectId);
+  }
+
+  @Override
+  public void projectCrawled(final int projectId) {
+    save(PROJECT_PREFIX + projectId);
+  }
+
+  @Override
+  public boolean isSuiteCrawled(final int suiteId) {
+    return contains(SUITE_PREFIX + suiteId);
+  }
+
+  @Override
+  public void suiteCrawled(final int suiteId) {
+    save(SUITE_PREFIX + suiteId);
+  }
+
+  private boolean contains(final String key) {
+    lock.lock();
+    try {
+      return properties.containsKey(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void save(final String key) {
+    lock.lock();
+    try {
+      properties.setProperty(key, CRAWLED);
+      final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        properties.store(out, "TestRail inventory crawl checkpoint");
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the crawl checkpoint to " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
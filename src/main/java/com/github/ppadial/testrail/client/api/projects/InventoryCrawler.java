@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.api.projects;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.Page;
+import com.github.ppadial.testrail.client.api.TestRailServiceBase;
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.api.sections.SectionServiceClient;
+import com.github.ppadial.testrail.client.api.suites.SuiteServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.CancellableCall;
+import com.github.ppadial.testrail.client.apiClient.TrafficClass;
+import com.github.ppadial.testrail.client.model.TRCase;
+import com.github.ppadial.testrail.client.model.TRProject;
+import com.github.ppadial.testrail.client.model.TRSection;
+import com.github.ppadial.testrail.client.model.TRSuite;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Crawls the inventory of a TestRail instance: its projects, their suites and the sections and cases of every suite.
+ *
+ * <p>The hierarchy is expanded concurrently on a work-stealing pool with a bounded parallelism: every project, suite
+ * and list of sections or cases is a task, and idle workers steal the pending ones. The requests are sent as
+ * {@link TrafficClass#BULK} traffic, so they are subject to the request limits of the api client and give way to the
+ * interactive requests. The discovered entities are streamed to a {@link Sink}; the sink and the progress listener are
+ * never called concurrently.</p>
+ *
+ * <p>With a {@link CrawlCheckpoint} the crawled projects and suites are recorded as they complete, and a later crawl
+ * skips them. The entities of a suite that was being crawled when the crawl stopped are delivered again.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class InventoryCrawler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(InventoryCrawler.class);
+
+  private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKER_FACTORY = pool -> {
+    final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("testrail-client-crawler-" + thread.getPoolIndex());
+    thread.setDaemon(true);
+    return thread;
+  };
+
+  private static final CrawlCheckpoint NO_CHECKPOINT = new CrawlCheckpoint() {
+    @Override
+    public boolean isProjectCrawled(final int projectId) {
+      return false;
+    }
+
+    @Override
+    public void projectCrawled(final int projectId) {
+    }
+
+    @Override
+    public boolean isSuiteCrawled(final int suiteId) {
+      return false;
+    }
+
+    @Override
+    public void suiteCrawled(final int suiteId) {
+    }
+  };
+
+  /**
+   * Receives the entities discovered by a crawl. Only the methods of the wanted entities need to be implemented.
+   */
+  public interface Sink {
+
+    /**
+     * Called for every project to crawl.
+     *
+     * @param project the project
+     */
+    default void onProject(final TRProject project) {
+    }
+
+    /**
+     * Called for every suite to crawl.
+     *
+     * @param projectId the ID of the project of the suite
+     * @param suite the suite
+     */
+    default void onSuite(final int projectId, final TRSuite suite) {
+    }
+
+    /**
+     * Called for every section of a crawled suite.
+     *
+     * @param projectId the ID of the project of the section
+     * @param suiteId the ID of the suite of the section
+     * @param section the section
+     */
+    default void onSection(final int projectId, final int suiteId, final TRSection section) {
+    }
+
+    /**
+     * Called for every case of a crawled suite.
+     *
+     * @param projectId the ID of the project of the case
+     * @param suiteId the ID of the suite of the case
+     * @param testCase the case
+     */
+    default void onCase(final int projectId, final int suiteId, final TRCase testCase) {
+    }
+  }
+
+  /**
+   * Receives the progress of a crawl.
+   */
+  @FunctionalInterface
+  public interface ProgressListener {
+
+    /**
+     * Called every time a suite has been crawled.
+     *
+     * @param progress the progress of the crawl
+     */
+    void onSuiteCrawled(Progress progress);
+  }
+
+  /**
+   * Snapshot of the progress and throughput of a crawl.
+   */
+  public static final class Progress {
+
+    private final long projects;
+    private final long suites;
+    private final long crawledSuites;
+    private final long sections;
+    private final long cases;
+    private final long requests;
+    private final long elapsedMillis;
+
+    Progress(final long projects, final long suites, final long crawledSuites, final long sections,
+        final long cases, final long requests, final long elapsedMillis) {
+      this.projects = projects;
+      this.suites = suites;
+      this.crawledSuites = crawledSuites;
+      this.sections = sections;
+      this.cases = cases;
+      this.requests = requests;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getProjects() {
+      return projects;
+    }
+
+    public long getSuites() {
+      return suites;
+    }
+
+    public long getCrawledSuites() {
+      return crawledSuites;
+    }
+
+    public long getSections() {
+      return sections;
+    }
+
+    public long getCases() {
+      return cases;
+    }
+
+    public long getRequests() {
+      return requests;
+    }
+
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    /**
+     * Gets the number of entities discovered per second since the crawl started.
+     *
+     * @return entities per second
+     */
+    public double getEntitiesPerSecond() {
+      return perSecond(projects + suites + sections + cases);
+    }
+
+    /**
+     * Gets the number of requests sent per second since the crawl started.
+     *
+     * @return requests per second
+     */
+    public double getRequestsPerSecond() {
+      return perSecond(requests);
+    }
+
+    private double perSecond(final long count) {
+      return (elapsedMillis > 0) ? count * 1000.0 / elapsedMillis : 0.0;
+    }
+
+    @Override
+    public String toString() {
+      return "Progress{projects=" + projects + ", suites=" + crawledSuites + "/" + suites + ", sections=" + sections
+          + ", cases=" + cases + ", requests=" + requests + ", elapsedMillis=" + elapsedMillis + '}';
+    }
+  }
+
+  private final ProjectServiceClient projectServiceClient;
+  private final SuiteServiceClient suiteServiceClient;
+  private final SectionServiceClient sectionServiceClient;
+  private final CaseServiceClient caseServiceClient;
+  private final int parallelism;
+  private volatile CrawlCheckpoint checkpoint = NO_CHECKPOINT;
+  private volatile ProgressListener progressListener;
+  private volatile Crawl currentCrawl;
+  private volatile boolean cancelled;
+
+  /**
+   * Creates a new crawler.
+   *
+   * @param apiClient the api client to use
+   * @param parallelism maximum number of tasks run at the same time
+   * @since 0.3.1
+   */
+  public InventoryCrawler(final ApiClient apiClient, final int parallelism) {
+    this.projectServiceClient = new ProjectServiceClient(apiClient);
+    this.suiteServiceClient = new SuiteServiceClient(apiClient);
+    this.sectionServiceClient = new SectionServiceClient(apiClient);
+    this.caseServiceClient = new CaseServiceClient(apiClient);
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Sets the checkpoint that records the crawled projects and suites.
+   *
+   * @param checkpoint the checkpoint
+   * @return this crawler
+   * @since 0.3.1
+   */
+  public InventoryCrawler withCheckpoint(final CrawlCheckpoint checkpoint) {
+    this.checkpoint = (checkpoint != null) ? checkpoint : NO_CHECKPOINT;
+    return this;
+  }
+
+  /**
+   * Sets the listener notified after each crawled suite.
+   *
+   * @param progressListener the listener
+   * @return this crawler
+   * @since 0.3.1
+   */
+  public InventoryCrawler withProgressListener(final ProgressListener progressListener) {
+    this.progressListener = progressListener;
+    return this;
+  }
+
+  /**
+   * Crawls the projects of the instance, with their suites, sections and cases.
+   *
+   * @param sink receives the discovered entities
+   * @return the progress at the end of the crawl, partial if the crawl was cancelled
+   * @throws TestRailException An error in the connection with testrail, the pending work is abandoned
+   * @since 0.3.1
+   */
+  public Progress crawl(final Sink sink) throws TestRailException {
+    final Crawl crawl = new Crawl(sink, checkpoint);
+    currentCrawl = crawl;
+    final ForkJoinPool pool = new ForkJoinPool(parallelism, WORKER_FACTORY, null, false);
+    LOG.debug("Crawling the inventory with parallelism {}", parallelism);
+    try {
+      pool.invoke(new ProjectsTask(crawl));
+    } finally {
+      pool.shutdownNow();
+    }
+
+    final Throwable failure = cancelled ? null : crawl.failure.get();
+    if (failure instanceof TestRailException) {
+      throw (TestRailException) failure;
+    }
+    if (failure != null) {
+      throw new TestRailException("Unable to crawl the inventory", failure);
+    }
+    final Progress progress = crawl.progress();
+    LOG.debug("Inventory crawl finished: {}", progress);
+    return progress;
+  }
+
+  /**
+   * Gets the progress of the current or last crawl.
+   *
+   * @return the progress, null if the crawler has not been run
+   * @since 0.3.1
+   */
+  public Progress getProgress() {
+    final Crawl crawl = currentCrawl;
+    return (crawl != null) ? crawl.progress() : null;
+  }
+
+  /**
+   * Cancels the crawl, the requests in flight are aborted and no more entities are sent to the sink. A cancelled
+   * crawler can't be used again.
+   *
+   * @since 0.3.1
+   */
+  public void cancel() {
+    cancelled = true;
+    final Crawl crawl = currentCrawl;
+    if (crawl != null) {
+      crawl.abortRunningTasks();
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  private final class Crawl {
+    private final Sink sink;
+    private final CrawlCheckpoint checkpoint;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder projects = new LongAdder();
+    private final LongAdder suites = new LongAdder();
+    private final LongAdder crawledSuites = new LongAdder();
+    private final LongAdder sections = new LongAdder();
+    private final LongAdder cases = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    private final Set<CancellableCall> runningTasks = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock sinkLock = new ReentrantLock();
+
+    private Crawl(final Sink sink, final CrawlCheckpoint checkpoint) {
+      this.sink = sink;
+      this.checkpoint = checkpoint;
+    }
+
+    private boolean isStopped() {
+      return cancelled || failure.get() != null;
+    }
+
+    private void fail(final Throwable throwable) {
+      if (failure.compareAndSet(null, throwable)) {
+        LOG.debug("Inventory crawl failed, abandoning the pending work", throwable);
+        abortRunningTasks();
+      }
+    }
+
+    private void abortRunningTasks() {
+      for (CancellableCall task : runningTasks) {
+        task.cancel();
+      }
+    }
+
+    private Progress progress() {
+      return new Progress(projects.sum(), suites.sum(), crawledSuites.sum(), sections.sum(), cases.sum(),
+          requests.sum(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private void deliver(final Runnable delivery) {
+      sinkLock.lock();
+      try {
+        if (!isStopped()) {
+          delivery.run();
+        }
+      } finally {
+        sinkLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Task of the crawl, its requests are sent as bulk traffic and its failures stop the whole crawl, aborting the
+   * requests of the other tasks.
+   */
+  private abstract static class CrawlTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final transient Crawl crawl;
+
+    CrawlTask(final Crawl crawl) {
+      this.crawl = crawl;
+    }
+
+    @Override
+    protected final void compute() {
+      if (crawl.isStopped()) {
+        return;
+      }
+      final CancellableCall task = new CancellableCall();
+      crawl.runningTasks.add(task);
+      if (!task.start()) {
+        crawl.runningTasks.remove(task);
+        return;
+      }
+      final TrafficClass previous = ApiClient.setTrafficClass(TrafficClass.BULK);
+      try {
+        // a crawl stopped before the task was registered did not cancel it
+        if (!crawl.isStopped()) {
+          crawl();
+        }
+      } catch (TestRailException | RuntimeException exception) {
+        crawl.fail(exception);
+      } finally {
+        ApiClient.setTrafficClass(previous);
+        task.finish();
+        crawl.runningTasks.remove(task);
+      }
+    }
+
+    abstract void crawl() throws TestRailException;
+  }
+
+  private final class ProjectsTask extends CrawlTask {
+    private static final long serialVersionUID = 1L;
+
+    private ProjectsTask(final Crawl crawl) {
+      super(crawl);
+    }
+
+    @Override
+    void crawl() throws TestRailException {
+      final List<TRProject> projects = projectServiceClient.getProjects();
+      crawl.requests.increment();
+      final List<ProjectTask> tasks = new ArrayList<ProjectTask>();
+      for (TRProject project : projects) {
+        if (!crawl.checkpoint.isProjectCrawled(project.id)) {
+          crawl.projects.increment();
+          crawl.deliver(() -> crawl.sink.onProject(project));
+          tasks.add(new ProjectTask(crawl, project.id));
+        }
+      }
+      invokeAll(tasks);
+    }
+  }
+
+  private final class ProjectTask extends CrawlTask {
+    private static final long serialVersionUID = 1L;
+
+    private final int projectId;
+
+    private ProjectTask(final Crawl crawl, final int projectId) {
+      super(crawl);
+      this.projectId = projectId;
+    }
+
+    @Override
+    void crawl() throws TestRailException {
+      final List<TRSuite> suites = suiteServiceClient.getSuites(projectId);
+      crawl.requests.increment();
+      final List<SuiteTask> tasks = new ArrayList<SuiteTask>();
+      for (TRSuite suite : suites) {
+        if (!crawl.checkpoint.isSuiteCrawled(suite.id)) {
+          crawl.suites.increment();
+          crawl.deliver(() -> crawl.sink.onSuite(projectId, suite));
+          tasks.add(new SuiteTask(crawl, projectId, suite.id));
+        }
+      }
+      invokeAll(tasks);
+      if (!crawl.isStopped()) {
+        crawl.checkpoint.projectCrawled(projectId);
+      }
+    }
+  }
+
+  private final class SuiteTask extends CrawlTask {
+    private static final long serialVersionUID = 1L;
+
+    private final int projectId;
+    private final int suiteId;
+
+    private SuiteTask(final Crawl crawl, final int projectId, final int suiteId) {
+      super(crawl);
+      this.projectId = projectId;
+      this.suiteId = suiteId;
+    }
+
+    @Override
+    void crawl() {
+      invokeAll(new SectionsTask(crawl, projectId, suiteId), new CasesTask(crawl, projectId, suiteId));
+      if (!crawl.isStopped()) {
+        crawl.checkpoint.suiteCrawled(suiteId);
+        crawl.crawledSuites.increment();
+        final ProgressListener listener = progressListener;
+        if (listener != null) {
+          crawl.deliver(() -> listener.onSuiteCrawled(crawl.progress()));
+        }
+      }
+    }
+  }
+
+  private final class SectionsTask extends CrawlTask {
+    private static final long serialVersionUID = 1L;
+
+    private final int projectId;
+    private final int suiteId;
+
+    private SectionsTask(final Crawl crawl, final int projectId, final int suiteId) {
+      super(crawl);
+      this.projectId = projectId;
+      this.suiteId = suiteId;
+    }
+
+    @Override
+    void crawl() throws TestRailException {
+      int offset = 0;
+      Page<TRSection> page;
+      do {
+        page = sectionServiceClient.getSectionsPage(projectId, suiteId, offset, TestRailServiceBase.DEFAULT_PAGE_SIZE);
+        crawl.requests.increment();
+        final List<TRSection> items = page.getItems();
+        crawl.sections.add(items.size());
+        crawl.deliver(() -> items.forEach(section -> crawl.sink.onSection(projectId, suiteId, section)));
+        offset = page.getNextOffset();
+      } while (page.hasNext() && !crawl.isStopped());
+    }
+  }
+
+  private final class CasesTask extends CrawlTask {
+    private static final long serialVersionUID = 1L;
+
+    private final int projectId;
+    private final int suiteId;
+
+    private CasesTask(final Crawl crawl, final int projectId, final int suiteId) {
+      super(crawl);
+      this.projectId = projectId;
+      this.suiteId = suiteId;
+    }
+
+    @Override
+    void crawl() throws TestRailException {
+      int offset = 0;
+      Page<TRCase> page;
+      do {
+        page = caseServiceClient.getCasesPage(projectId, suiteId, 0, null, offset,
+            TestRailServiceBase.DEFAULT_PAGE_SIZE);
+        crawl.requests.increment();
+        final List<TRCase> items = page.getItems();
+        crawl.cases.add(items.size());
+        crawl.deliver(() -> items.forEach(testCase -> crawl.sink.onCase(projectId, suiteId, testCase)));
+        offset = page.getNextOffset();
+      } while (page.hasNext() && !crawl.isStopped());
+    }
+  }
+}
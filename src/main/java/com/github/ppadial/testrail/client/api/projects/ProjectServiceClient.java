@@ -32,6 +32,7 @@ import com.github.ppadial.testrail.client.api.plans.InvalidOrUnknownTestPlanExce
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRProject;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +57,17 @@ public final class ProjectServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the project api client serving the projects from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public ProjectServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Returns an existing project.
    *
@@ -66,6 +78,10 @@ public final class ProjectServiceClient extends TestRailServiceBase {
    */
   public final TRProject getProject(final int projectId)
       throws TestRailException {
+    return cached(EntityCache.Region.PROJECTS, projectId, this::fetchProject);
+  }
+
+  private TRProject fetchProject(final int projectId) throws TestRailException {
     final ApiResponse apiResponse;
     final TRProject responseObjectModel;
 
@@ -223,6 +239,7 @@ public final class ProjectServiceClient extends TestRailServiceBase {
 
     // Handle response
     responseObjectModel = handleApiResponse(apiResponse, TRProject.class, choices);
+    cacheUpdated(EntityCache.Region.PROJECTS, projectId, responseObjectModel);
     return responseObjectModel;
   }
 
@@ -238,7 +255,14 @@ public final class ProjectServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = post("delete_project/" + projectId);
+    try {
+      apiResponse = post("delete_project/" + projectId);
+    } finally {
+      // Everything in the project is gone
+      if (entityCache != null) {
+        entityCache.invalidateAll();
+      }
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * {@link WatermarkStore} backed by a properties file. The file is rewritten atomically on each save.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class FileWatermarkStore implements WatermarkStore {
+
+  private static final String PREFIX = "run.";
+  private static final String BOUNDARY_SUFFIX = ".boundary";
+
+  private final Path file;
+  private final Properties properties = new Properties();
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Constructor.
+   *
+   * @param file the properties file, it is created on the first save if it does not exist
+   */
+  public FileWatermarkStore(final Path file) {
+    this.file = file;
+    if (Files.exists(file)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to read the watermarks from " + file, e);
+      }
+    }
+  }
+
+  @Override
+  public Watermark load(final int runId) {
+    lock.lock();
+    try {
+      final String createdOn = properties.getProperty(PREFIX + runId);
+      if (createdOn == null) {
+        return Watermark.NONE;
+      }
+      final Set<Integer> boundaryIds = new LinkedHashSet<Integer>();
+      for (String id : StringUtils.split(properties.getProperty(PREFIX + runId + BOUNDARY_SUFFIX, ""), ',')) {
+        boundaryIds.add(Integer.valueOf(id));
+      }
+      return new Watermark(Long.parseLong(createdOn), boundaryIds);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void save(final int runId, final Watermark watermark) {
+    lock.lock();
+    try {
+      properties.setProperty(PREFIX + runId, String.valueOf(watermark.getCreatedOn()));
+      properties.setProperty(PREFIX + runId + BOUNDARY_SUFFIX, StringUtils.join(watermark.getBoundaryIds(), ","));
+      final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp)) {
+        properties.store(out, "TestRail result poller watermarks");
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write the watermarks to " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
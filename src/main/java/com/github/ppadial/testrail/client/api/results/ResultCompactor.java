@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.model.TRResult;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opt-in compaction stage in front of the result submission.
+ *
+ * <p>Results are buffered during a flush window. Several results reported for the same test, or for the same run and
+ * case combination, collapse into the latest one, and the survivors are sent with a single {@code add_results} /
+ * {@code add_results_for_cases} call per run when the window is flushed.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class ResultCompactor implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResultCompactor.class);
+  private static final String COMMENT = "comment";
+  private static final String COMMENT_SEPARATOR = "\n\n";
+
+  /**
+   * How the comments of the collapsed results are handled.
+   */
+  public enum CommentMode {
+    /**
+     * Only the comment of the latest result is kept.
+     */
+    LATEST,
+    /**
+     * The comments of all the collapsed results are concatenated, in the order they were reported.
+     */
+    CONCATENATE
+  }
+
+  private final ResultServiceClient resultServiceClient;
+  private final CommentMode commentMode;
+  private final Object lock = new Object();
+  private final AtomicLong submittedResults = new AtomicLong();
+  private final AtomicLong savedPosts = new AtomicLong();
+  private final AtomicLong posts = new AtomicLong();
+  private final ScheduledExecutorService scheduler;
+  //pending results per run, guarded by lock
+  private Map<Integer, RunBuffer> pending = new LinkedHashMap<Integer, RunBuffer>();
+
+  /**
+   * Creates a compactor that keeps only the latest result and is flushed manually.
+   *
+   * @param resultServiceClient the result service used to submit the results
+   * @since 0.3.1
+   */
+  public ResultCompactor(final ResultServiceClient resultServiceClient) {
+    this(resultServiceClient, CommentMode.LATEST, 0);
+  }
+
+  /**
+   * Creates a compactor.
+   *
+   * @param resultServiceClient the result service used to submit the results
+   * @param commentMode how the comments of the collapsed results are handled
+   * @param flushWindowMillis length of the flush window in milliseconds, 0 or less to flush only manually
+   * @since 0.3.1
+   */
+  public ResultCompactor(final ResultServiceClient resultServiceClient, final CommentMode commentMode,
+      final long flushWindowMillis) {
+    this.resultServiceClient = resultServiceClient;
+    this.commentMode = commentMode;
+    if (flushWindowMillis > 0) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "testrail-result-compactor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::flushQuietly, flushWindowMillis, flushWindowMillis,
+          TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+  /**
+   * Queues a result for a test, replacing any result queued for the same test in the current window.
+   *
+   * @param runId The ID of the test run the test belongs to
+   * @param testId The ID of the test the result should be added to
+   * @param statusId The ID of the test status
+   * @param comment The comment / description for the test result
+   * @param version The version or build you tested against
+   * @param elapsed The time it took to execute the test
+   * @param defects A comma-separated list of defects to link to the test result
+   * @param assignedToId The ID of a user the test should be assigned to
+   * @param customFields Custom fields, submitted with their system name prefixed with 'custom_'
+   * @since 0.3.1
+   */
+  public void addResult(final int runId, final int testId, final Integer statusId, final String comment,
+      final String version, final Long elapsed, final String defects, final Integer assignedToId,
+      final Map<String, String> customFields) {
+    final Map<String, String> body = ResultServiceClient.resultBody(statusId, comment, version, elapsed, defects,
+        assignedToId, customFields);
+    body.put("test_id", String.valueOf(testId));
+    synchronized (lock) {
+      merge(buffer(runId).byTest, testId, body);
+    }
+  }
+
+  /**
+   * Queues a result for a run and case combination, replacing any result queued for the same combination in the
+   * current window.
+   *
+   * @param runId The ID of the test run
+   * @param caseId The ID of the test case
+   * @param statusId The ID of the test status
+   * @param comment The comment / description for the test result
+   * @param version The version or build you tested against
+   * @param elapsed The time it took to execute the test
+   * @param defects A comma-separated list of defects to link to the test result
+   * @param assignedToId The ID of a user the test should be assigned to
+   * @param customFields Custom fields, submitted with their system name prefixed with 'custom_'
+   * @since 0.3.1
+   */
+  public void addResultForCase(final int runId, final int caseId, final Integer statusId, final String comment,
+      final String version, final Long elapsed, final String defects, final Integer assignedToId,
+      final Map<String, String> customFields) {
+    final Map<String, String> body = ResultServiceClient.resultBody(statusId, comment, version, elapsed, defects,
+        assignedToId, customFields);
+    body.put("case_id", String.valueOf(caseId));
+    synchronized (lock) {
+      merge(buffer(runId).byCase, caseId, body);
+    }
+  }
+
+  /**
+   * Submits every pending result, one request per run and kind of key.
+   *
+   * <p>If a submission fails, the results that were not submitted are queued again (unless a newer result for the
+   * same key arrived meanwhile) and the error is raised.</p>
+   *
+   * @return the results created by TestRail
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public List<TRResult> flush() throws TestRailException {
+    final Map<Integer, RunBuffer> toSubmit;
+    synchronized (lock) {
+      toSubmit = pending;
+      pending = new LinkedHashMap<Integer, RunBuffer>();
+    }
+
+    final List<TRResult> created = new ArrayList<TRResult>();
+    final Iterator<Map.Entry<Integer, RunBuffer>> iterator = toSubmit.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<Integer, RunBuffer> entry = iterator.next();
+      final RunBuffer runBuffer = entry.getValue();
+      try {
+        if (!runBuffer.byTest.isEmpty()) {
+          created.addAll(resultServiceClient.addResults(entry.getKey(),
+              new ArrayList<Map<String, String>>(runBuffer.byTest.values())));
+          posts.incrementAndGet();
+          runBuffer.byTest.clear();
+        }
+        if (!runBuffer.byCase.isEmpty()) {
+          created.addAll(resultServiceClient.addResultsForCases(entry.getKey(),
+              new ArrayList<Map<String, String>>(runBuffer.byCase.values())));
+          posts.incrementAndGet();
+          runBuffer.byCase.clear();
+        }
+        iterator.remove();
+      } catch (TestRailException testRailException) {
+        requeue(toSubmit);
+        throw testRailException;
+      }
+    }
+    return created;
+  }
+
+  /**
+   * Number of results queued since the compactor was created.
+   *
+   * @return number of queued results
+   * @since 0.3.1
+   */
+  public long getSubmittedResults() {
+    return submittedResults.get();
+  }
+
+  /**
+   * Number of posts that compaction saved, i.e. results that were superseded by a later one in the same window.
+   *
+   * @return number of saved posts
+   * @since 0.3.1
+   */
+  public long getSavedPosts() {
+    return savedPosts.get();
+  }
+
+  /**
+   * Number of requests sent to TestRail by the flushes.
+   *
+   * @return number of bulk requests
+   * @since 0.3.1
+   */
+  public long getPosts() {
+    return posts.get();
+  }
+
+  /**
+   * Stops the flush window, if any, and submits the pending results.
+   *
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  @Override
+  public void close() throws TestRailException {
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    flush();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (TestRailException | RuntimeException exception) {
+      LOG.error("Error while flushing the compacted results: {}", exception.getMessage());
+    }
+  }
+
+  private RunBuffer buffer(final int runId) {
+    RunBuffer runBuffer = pending.get(runId);
+    if (runBuffer == null) {
+      runBuffer = new RunBuffer();
+      pending.put(runId, runBuffer);
+    }
+    return runBuffer;
+  }
+
+  private void merge(final Map<Integer, Map<String, String>> results, final int key,
+      final Map<String, String> body) {
+    submittedResults.incrementAndGet();
+    final Map<String, String> previous = results.remove(key);
+    if (previous != null) {
+      savedPosts.incrementAndGet();
+      if (commentMode == CommentMode.CONCATENATE && StringUtils.isNotEmpty(previous.get(COMMENT))) {
+        final String comment = body.get(COMMENT);
+        body.put(COMMENT, StringUtils.isEmpty(comment)
+            ? previous.get(COMMENT) : previous.get(COMMENT) + COMMENT_SEPARATOR + comment);
+      }
+    }
+    // re-inserted so the submission keeps the order of the latest reports
+    results.put(key, body);
+  }
+
+  private void requeue(final Map<Integer, RunBuffer> notSubmitted) {
+    synchronized (lock) {
+      for (Map.Entry<Integer, RunBuffer> entry : notSubmitted.entrySet()) {
+        final RunBuffer runBuffer = buffer(entry.getKey());
+        for (Map.Entry<Integer, Map<String, String>> result : entry.getValue().byTest.entrySet()) {
+          runBuffer.byTest.putIfAbsent(result.getKey(), result.getValue());
+        }
+        for (Map.Entry<Integer, Map<String, String>> result : entry.getValue().byCase.entrySet()) {
+          runBuffer.byCase.putIfAbsent(result.getKey(), result.getValue());
+        }
+      }
+    }
+  }
+
+  private static final class RunBuffer {
+    private final Map<Integer, Map<String, String>> byTest = new LinkedHashMap<Integer, Map<String, String>>();
+    private final Map<Integer, Map<String, String>> byCase = new LinkedHashMap<Integer, Map<String, String>>();
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Filters of the result list endpoints ({@code get_results}, {@code get_results_for_case} and {@code
+ * get_results_for_run}). Every filter is optional, the ones not set are not sent.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class ResultFilter {
+
+  private final Long createdAfter;
+  private final Long createdBefore;
+  private final List<Integer> createdBy;
+  private final List<Integer> statuses;
+  private final Integer limit;
+  private final Integer offset;
+
+  private ResultFilter(final Builder builder) {
+    this.createdAfter = builder.createdAfter;
+    this.createdBefore = builder.createdBefore;
+    this.createdBy = Collections.unmodifiableList(new ArrayList<Integer>(builder.createdBy));
+    this.statuses = Collections.unmodifiableList(new ArrayList<Integer>(builder.statuses));
+    this.limit = builder.limit;
+    this.offset = builder.offset;
+  }
+
+  /**
+   * Creates a new filter builder.
+   *
+   * @return a new builder without filters
+   * @since 0.3.1
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets a builder initialized with the filters of this one.
+   *
+   * @return a new builder
+   * @since 0.3.1
+   */
+  public Builder toBuilder() {
+    return new Builder()
+        .createdAfter(createdAfter)
+        .createdBefore(createdBefore)
+        .createdBy(createdBy)
+        .statuses(statuses)
+        .limit(limit)
+        .offset(offset);
+  }
+
+  public Long getCreatedAfter() {
+    return createdAfter;
+  }
+
+  public Long getCreatedBefore() {
+    return createdBefore;
+  }
+
+  public List<Integer> getCreatedBy() {
+    return createdBy;
+  }
+
+  public List<Integer> getStatuses() {
+    return statuses;
+  }
+
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public Integer getOffset() {
+    return offset;
+  }
+
+  /**
+   * Appends the filters to an endpoint url.
+   *
+   * @param url the url of the endpoint
+   * @return the url with the filters that are set
+   * @since 0.3.1
+   */
+  public String appendTo(final String url) {
+    final StringBuilder filteredUrl = new StringBuilder(url);
+    if (!statuses.isEmpty()) {
+      filteredUrl.append("&status_id=").append(StringUtils.join(statuses, ","));
+    }
+    if (!createdBy.isEmpty()) {
+      filteredUrl.append("&created_by=").append(StringUtils.join(createdBy, ","));
+    }
+    if (createdBefore != null && createdBefore > 0) {
+      filteredUrl.append("&created_before=").append(createdBefore);
+    }
+    if (createdAfter != null && createdAfter > 0) {
+      filteredUrl.append("&created_after=").append(createdAfter);
+    }
+    if (limit != null && limit > 0) {
+      filteredUrl.append("&limit=").append(limit);
+    }
+    if (offset != null && offset > 0) {
+      filteredUrl.append("&offset=").append(offset);
+    }
+    return filteredUrl.toString();
+  }
+
+  /**
+   * Builder of the result filters.
+   *
+   * @since 0.3.1
+   */
+  public static final class Builder {
+
+    private Long createdAfter;
+    private Long createdBefore;
+    private List<Integer> createdBy = Collections.emptyList();
+    private List<Integer> statuses = Collections.emptyList();
+    private Integer limit;
+    private Integer offset;
+
+    private Builder() {
+    }
+
+    /**
+     * Only return test results created after this date.
+     *
+     * @param createdAfter UNIX timestamp, null to not filter
+     * @return Builder pointer
+     */
+    public Builder createdAfter(final Long createdAfter) {
+      this.createdAfter = createdAfter;
+      return this;
+    }
+
+    /**
+     * Only return test results created before this date.
+     *
+     * @param createdBefore UNIX timestamp, null to not filter
+     * @return Builder pointer
+     */
+    public Builder createdBefore(final Long createdBefore) {
+      this.createdBefore = createdBefore;
+      return this;
+    }
+
+    /**
+     * Only return test results created by these users.
+     *
+     * @param createdBy the user IDs, null to not filter
+     * @return Builder pointer
+     */
+    public Builder createdBy(final List<Integer> createdBy) {
+      this.createdBy = (createdBy != null) ? createdBy : Collections.<Integer>emptyList();
+      return this;
+    }
+
+    /**
+     * Only return test results with these statuses.
+     *
+     * @param statuses the status IDs, null to not filter
+     * @return Builder pointer
+     */
+    public Builder statuses(final List<Integer> statuses) {
+      this.statuses = (statuses != null) ? statuses : Collections.<Integer>emptyList();
+      return this;
+    }
+
+    /**
+     * Limit the number of returned test results.
+     *
+     * @param limit the maximum number of results, null or 0 to not limit
+     * @return Builder pointer
+     */
+    public Builder limit(final Integer limit) {
+      this.limit = limit;
+      return this;
+    }
+
+    /**
+     * Skip a number of test results.
+     *
+     * @param offset number of results to skip, null or 0 to not skip
+     * @return Builder pointer
+     */
+    public Builder offset(final Integer offset) {
+      this.offset = offset;
+      return this;
+    }
+
+    /**
+     * Build the filter.
+     *
+     * @return the result filter
+     */
+    public ResultFilter build() {
+      return new ResultFilter(this);
+    }
+  }
+}
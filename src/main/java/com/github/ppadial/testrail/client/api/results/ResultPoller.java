@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.OperationCancelledException;
+import com.github.ppadial.testrail.client.api.Page;
+import com.github.ppadial.testrail.client.api.TestRailServiceBase;
+import com.github.ppadial.testrail.client.model.TRResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental poller of the results of test runs.
+ *
+ * <p>For every watched run it keeps a watermark of the newest {@code created_on} delivered, and each tick only asks
+ * TestRail for the results created after it, so the cost of a tick grows with the new results and not with the size
+ * of the run. The request overlaps the watermark by one second, as TestRail timestamps have a second resolution, and
+ * the results already delivered in that overlap are skipped by ID.</p>
+ *
+ * <p>New results are pushed to the subscribers oldest first, then the watermark is advanced and persisted.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class ResultPoller implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResultPoller.class);
+  private static final Comparator<TRResult> OLDEST_FIRST = new Comparator<TRResult>() {
+    @Override
+    public int compare(final TRResult a, final TRResult b) {
+      final int byDate = Long.compare(createdOn(a), createdOn(b));
+      return (byDate != 0) ? byDate : Integer.compare(a.id, b.id);
+    }
+  };
+
+  /**
+   * Receives the new results of the watched runs.
+   */
+  public interface Subscriber {
+
+    /**
+     * Called with the results created since the previous tick.
+     *
+     * @param runId the ID of the run
+     * @param results the new results, oldest first, never empty
+     */
+    void onResults(int runId, List<TRResult> results);
+  }
+
+  private final ResultServiceClient resultServiceClient;
+  private final WatermarkStore watermarkStore;
+  private final int pageSize;
+  private final Map<Integer, Watermark> watermarks = new ConcurrentHashMap<Integer, Watermark>();
+  // the moment of the runs watched from it, kept until the watermark overlap no longer reaches it
+  private final Map<Integer, Long> createdAfterFloors = new ConcurrentHashMap<Integer, Long>();
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<Subscriber>();
+  private final ReentrantLock pollLock = new ReentrantLock();
+  private volatile ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor with in memory watermarks.
+   *
+   * @param resultServiceClient the result service client
+   */
+  public ResultPoller(final ResultServiceClient resultServiceClient) {
+    this(resultServiceClient, null, TestRailServiceBase.DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param resultServiceClient the result service client
+   * @param watermarkStore where the watermarks are persisted, null to keep them in memory only
+   * @param pageSize number of results requested per page
+   */
+  public ResultPoller(final ResultServiceClient resultServiceClient, final WatermarkStore watermarkStore,
+      final int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("The page size must be positive");
+    }
+    this.resultServiceClient = resultServiceClient;
+    this.watermarkStore = watermarkStore;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Starts watching a run. The first tick delivers the results after the stored watermark, or all of them.
+   *
+   * @param runId the ID of the run
+   * @return this poller
+   */
+  public ResultPoller watch(final int runId) {
+    watermarks.putIfAbsent(runId, (watermarkStore != null) ? watermarkStore.load(runId) : Watermark.NONE);
+    return this;
+  }
+
+  /**
+   * Starts watching a run, delivering only the results created after a moment.
+   *
+   * @param runId the ID of the run
+   * @param createdAfter UNIX timestamp, the results created on it or before are not delivered
+   * @return this poller
+   */
+  public ResultPoller watch(final int runId, final long createdAfter) {
+    createdAfterFloors.put(runId, createdAfter);
+    watermarks.put(runId, new Watermark(createdAfter + 1, Collections.<Integer>emptySet()));
+    return this;
+  }
+
+  /**
+   * Stops watching a run. Its persisted watermark is kept.
+   *
+   * @param runId the ID of the run
+   */
+  public void unwatch(final int runId) {
+    watermarks.remove(runId);
+    createdAfterFloors.remove(runId);
+  }
+
+  /**
+   * Gets the current watermark of a run.
+   *
+   * @param runId the ID of the run
+   * @return the watermark, null if the run is not watched
+   */
+  public Watermark getWatermark(final int runId) {
+    return watermarks.get(runId);
+  }
+
+  /**
+   * Registers a subscriber of the new results.
+   *
+   * @param subscriber the subscriber
+   * @return this poller
+   */
+  public ResultPoller subscribe(final Subscriber subscriber) {
+    subscribers.add(subscriber);
+    return this;
+  }
+
+  /**
+   * Unregisters a subscriber.
+   *
+   * @param subscriber the subscriber
+   */
+  public void unsubscribe(final Subscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * Polls all the watched runs once. Ticks never overlap, a tick started while another one is running waits for it.
+   *
+   * @return number of new results delivered
+   * @throws TestRailException An error in the connection with testrail, the runs polled before keep their progress
+   */
+  public int poll() throws TestRailException {
+    pollLock.lock();
+    try {
+      int delivered = 0;
+      for (Integer runId : new ArrayList<Integer>(watermarks.keySet())) {
+        delivered += pollRun(runId);
+      }
+      return delivered;
+    } finally {
+      pollLock.unlock();
+    }
+  }
+
+  /**
+   * Polls the watched runs periodically in a background thread. Errors are logged and retried on the next tick.
+   *
+   * @param period time between the end of a tick and the start of the next one
+   * @param unit time unit of the period
+   */
+  public void start(final long period, final TimeUnit unit) {
+    if (scheduler != null) {
+      throw new IllegalStateException("The poller is already started");
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "testrail-result-poller");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        poll();
+      } catch (OperationCancelledException cancelled) {
+        LOG.debug("Poll cancelled", cancelled);
+      } catch (TestRailException | RuntimeException e) {
+        LOG.warn("Unable to poll the results", e);
+      }
+    }, 0, period, unit);
+  }
+
+  /**
+   * Stops the periodic polling, if started.
+   */
+  @Override
+  public void close() {
+    final ScheduledExecutorService current = scheduler;
+    scheduler = null;
+    if (current != null) {
+      current.shutdownNow();
+    }
+  }
+
+  private int pollRun(final int runId) throws TestRailException {
+    final Watermark watermark = watermarks.get(runId);
+    if (watermark == null) {
+      return 0;
+    }
+    final Long floor = createdAfterFloors.get(runId);
+    final ResultFilter filter = ResultFilter.builder()
+        .createdAfter((watermark.getCreatedOn() > 0) ? watermark.getCreatedOn() - 1 : null)
+        .build();
+
+    // Collect the results newer than the watermark, by ID as the pages shift when results are added meanwhile
+    final Map<Integer, TRResult> freshById = new LinkedHashMap<Integer, TRResult>();
+    int offset = 0;
+    Page<TRResult> page;
+    do {
+      page = resultServiceClient.getResultsForRunPage(runId, filter, offset, pageSize);
+      for (TRResult result : page.getItems()) {
+        if (createdOn(result) >= watermark.getCreatedOn() - 1 && !watermark.getBoundaryIds().contains(result.id)
+            && (floor == null || createdOn(result) > floor)) {
+          freshById.putIfAbsent(result.id, result);
+        }
+      }
+      offset = page.getNextOffset();
+    } while (page.hasNext() && !page.getItems().isEmpty());
+    if (freshById.isEmpty()) {
+      return 0;
+    }
+    final List<TRResult> fresh = new ArrayList<TRResult>(freshById.values());
+    Collections.sort(fresh, OLDEST_FIRST);
+
+    // Deliver, then advance the watermark
+    for (Subscriber subscriber : subscribers) {
+      try {
+        subscriber.onResults(runId, Collections.unmodifiableList(fresh));
+      } catch (RuntimeException e) {
+        LOG.warn("Subscriber failed handling the results of run {}", runId, e);
+      }
+    }
+    final Watermark advanced = advance(watermark, fresh);
+    if (floor != null && advanced.getCreatedOn() - 1 > floor) {
+      createdAfterFloors.remove(runId, floor);
+    }
+    if (watermarks.replace(runId, watermark, advanced) && watermarkStore != null) {
+      watermarkStore.save(runId, advanced);
+    }
+    return fresh.size();
+  }
+
+  private static Watermark advance(final Watermark watermark, final List<TRResult> fresh) {
+    final long createdOn = Math.max(watermark.getCreatedOn(), createdOn(fresh.get(fresh.size() - 1)));
+    final Set<Integer> boundaryIds = new LinkedHashSet<Integer>();
+    if (watermark.getCreatedOn() >= createdOn - 1) {
+      boundaryIds.addAll(watermark.getBoundaryIds());
+    }
+    for (TRResult result : fresh) {
+      if (createdOn(result) >= createdOn - 1) {
+        boundaryIds.add(result.id);
+      }
+    }
+    return new Watermark(createdOn, boundaryIds);
+  }
+
+  private static long createdOn(final TRResult result) {
+    return (result.createdOn != null) ? result.createdOn : 0L;
+  }
+}
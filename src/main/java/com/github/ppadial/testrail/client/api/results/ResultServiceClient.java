@@ -27,9 +27,11 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.ppadial.testrail.client.HttpStatusCode;
 import com.github.ppadial.testrail.client.TestRailException;
 import com.github.ppadial.testrail.client.api.NoAccessToProjectException;
+import com.github.ppadial.testrail.client.api.Page;
 import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.api.cases.InvalidOrUnknownTestCaseException;
 import com.github.ppadial.testrail.client.api.runs.InvalidOrUnknownTestRunException;
+import com.github.ppadial.testrail.client.api.stream.Publisher;
 import com.github.ppadial.testrail.client.api.tests.InvalidOrUnknownTestException;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
@@ -68,13 +70,8 @@ public final class ResultServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
     final List<TRResult> responseObjectModel;
 
-    String url = "get_results/" + testId;
-    if (limit != null && limit > 0) {
-      url += "&limit=" + limit.toString();
-    }
-
     // Do the query
-    apiResponse = get(url);
+    apiResponse = get(ResultFilter.builder().limit(limit).build().appendTo("get_results/" + testId));
 
     final Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -115,27 +112,31 @@ public final class ResultServiceClient extends TestRailServiceBase {
   public final List<TRResult> getResultsForRun(final int runId, final Long createdAfter, final Long createdBefore,
       final List<Integer> createdBy, final Integer limit, final List<Integer> statuses)
       throws TestRailException {
+    return getResultsForRun(runId, ResultFilter.builder()
+        .createdAfter(createdAfter)
+        .createdBefore(createdBefore)
+        .createdBy(createdBy)
+        .limit(limit)
+        .statuses(statuses)
+        .build());
+  }
+
+  /**
+   * Returns a list of test results for a test run. Requires TestRail 4.0 or later.
+   *
+   * @param runId The ID of the test run (mandatory)
+   * @param filter the filters to apply
+   * @return list of test results
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRResult> getResultsForRun(final int runId, final ResultFilter filter)
+      throws TestRailException {
     final ApiResponse apiResponse;
     final List<TRResult> responseObjectModel;
 
     // Do the query
-    apiResponse = get(
-        addLimitFilter(
-            addCreatedAfterFilter(
-                addCreatedBeforeFilter(
-                    addCreatedByFilter(
-                        addStatusFilter(
-                            "get_results_for_run/" + runId
-                            , statuses
-                        )
-                        , createdBy
-                    )
-                    , createdBefore
-                )
-                , createdAfter
-            )
-            , limit)
-    );
+    apiResponse = get(filter.appendTo("get_results_for_run/" + runId));
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -146,11 +147,66 @@ public final class ResultServiceClient extends TestRailServiceBase {
         };
 
     // Handle response
-    responseObjectModel = handleApiResponse(apiResponse, new TypeReference<List<TRResult>>() {
+    responseObjectModel = handleApiListResponse(apiResponse, "results", new TypeReference<List<TRResult>>() {
     }, choices);
     return responseObjectModel;
   }
 
+  /**
+   * Returns a page of the test results of a test run, newest first.
+   *
+   * @param runId The ID of the test run
+   * @param offset number of results to skip
+   * @param limit maximum number of results of the page
+   * @return page of test results
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final Page<TRResult> getResultsForRunPage(final int runId, final int offset, final int limit)
+      throws TestRailException {
+    return getResultsForRunPage(runId, ResultFilter.builder().build(), offset, limit);
+  }
+
+  /**
+   * Returns a page of the filtered test results of a test run, newest first.
+   *
+   * @param runId The ID of the test run
+   * @param filter the filters to apply, its limit and offset are ignored
+   * @param offset number of results to skip
+   * @param limit maximum number of results of the page
+   * @return page of test results
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final Page<TRResult> getResultsForRunPage(final int runId, final ResultFilter filter, final int offset,
+      final int limit) throws TestRailException {
+    Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownTestRunException());
+            put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+          }
+        };
+
+    final ResultFilter pageFilter = filter.toBuilder().limit(null).offset(null).build();
+    return getPage(pageFilter.appendTo("get_results_for_run/" + runId), "results", offset, limit,
+        new TypeReference<List<TRResult>>() {
+        }, choices);
+  }
+
+  /**
+   * Publishes the filtered test results of a test run, newest first, fetching the pages as the subscribers request the
+   * results.
+   *
+   * @param runId The ID of the test run
+   * @param filter the filters to apply, its limit and offset are ignored
+   * @return publisher of the test results
+   * @since 0.3.1
+   */
+  public final Publisher<TRResult> getResultsForRunPublisher(final int runId, final ResultFilter filter) {
+    return publishPages(offset -> getResultsForRunPage(runId, filter, offset, DEFAULT_PAGE_SIZE));
+  }
+
   /**
    * Returns a list of test results for a test run and case combination. <p>The difference to get_results is that this
    * method expects a test run + test case instead of a test. In TestRail, tests are part of a test run and the test
@@ -173,7 +229,8 @@ public final class ResultServiceClient extends TestRailServiceBase {
     final List<TRResult> responseObjectModel;
 
     // Do the query
-    apiResponse = get(addLimitFilter("get_results_for_case/" + runId + "/" + caseId, limit));
+    apiResponse = get(ResultFilter.builder().limit(limit).build()
+        .appendTo("get_results_for_case/" + runId + "/" + caseId));
 
     final Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -213,30 +270,8 @@ public final class ResultServiceClient extends TestRailServiceBase {
       throws TestRailException {
     final ApiResponse apiResponse;
     final TRResult responseObjectModel;
-    final Map<String, String> body = new HashMap<String, String>();
-    if (statusId != null) {
-      body.put("status_id", statusId.toString());
-    }
-    if (comment != null && StringUtils.isNotEmpty(comment)) {
-      body.put("comment", comment);
-    }
-    if (version != null && StringUtils.isNotEmpty(version)) {
-      body.put("version", version);
-    }
-    if (elapsed != null) {
-      body.put("elapsed", elapsed.toString());
-    }
-    if (defects != null && StringUtils.isNotEmpty(defects)) {
-      body.put("defects", defects);
-    }
-    if (assignedToId != null) {
-      body.put("assignedto_id", assignedToId.toString());
-    }
-    if (customFields != null) {
-      for (Map.Entry<String, String> entry : customFields.entrySet()) {
-        body.put(entry.getKey(), entry.getValue());
-      }
-    }
+    final Map<String, String> body =
+        resultBody(statusId, comment, version, elapsed, defects, assignedToId, customFields);
 
     // Do the query
     apiResponse = post("add_result/" + testId, body);
@@ -285,31 +320,8 @@ public final class ResultServiceClient extends TestRailServiceBase {
       final Map<String, String> customFields) throws TestRailException {
     final ApiResponse apiResponse;
     final TRResult responseObjectModel;
-    final Map<String, String> body = new HashMap<String, String>();
-
-    if (statusId != null) {
-      body.put("status_id", statusId.toString());
-    }
-    if (comment != null && StringUtils.isNotEmpty(comment)) {
-      body.put("comment", comment);
-    }
-    if (version != null && StringUtils.isNotEmpty(version)) {
-      body.put("version", version);
-    }
-    if (elapsed != null) {
-      body.put("elapsed", elapsed.toString());
-    }
-    if (defects != null && StringUtils.isNotEmpty(defects)) {
-      body.put("defects", defects);
-    }
-    if (assignedToId != null) {
-      body.put("assignedto_id", assignedToId.toString());
-    }
-    if (customFields != null) {
-      for (Map.Entry<String, String> entry : customFields.entrySet()) {
-        body.put(entry.getKey(), entry.getValue());
-      }
-    }
+    final Map<String, String> body =
+        resultBody(statusId, comment, version, elapsed, defects, assignedToId, customFields);
 
     // Do the query
     apiResponse = post("add_result_for_case/" + runId + "/" + caseId, body);
@@ -328,37 +340,92 @@ public final class ResultServiceClient extends TestRailServiceBase {
     return responseObjectModel;
   }
 
+  /**
+   * Adds one or more new test results, comments or assigns one or more tests. Ideal for test automation to bulk-add
+   * multiple test results in one step.
+   *
+   * @param runId The ID of the test run the results should be added to
+   * @param results one entry per result, each one with the {@code test_id} and the same fields accepted by
+   * {@link #addResult(int, Integer, String, String, Long, String, Integer, Map)}
+   * @return the added test results
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRResult> addResults(final int runId, final List<Map<String, String>> results)
+      throws TestRailException {
+    return addBulkResults("add_results/" + runId, results);
+  }
+
   /**
    * Adds one or more new test results, comments or assigns one or more tests (using the case IDs). Ideal for test
    * automation to bulk-add multiple test results in one step.
-   * @return .
+   *
+   * @param runId The ID of the test run the results should be added to
+   * @param results one entry per result, each one with the {@code case_id} and the same fields accepted by
+   * {@link #addResultForCase(int, int, Integer, String, String, Long, String, Integer, Map)}
+   * @return the added test results
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
    */
-  public final TRResult addResultsForCases() {
-    throw new NotImplementedException("Not implemented");
+  public final List<TRResult> addResultsForCases(final int runId, final List<Map<String, String>> results)
+      throws TestRailException {
+    return addBulkResults("add_results_for_cases/" + runId, results);
   }
 
-  private final String addLimitFilter(final String currentUrl, final Integer limit) {
-    return (limit != null && limit > 0) ?
-        currentUrl + "&limit=" + limit.toString() : StringUtils.EMPTY;
-  }
+  private List<TRResult> addBulkResults(final String uriSuffix, final List<Map<String, String>> results)
+      throws TestRailException {
+    final ApiResponse apiResponse;
+    final List<TRResult> responseObjectModel;
+    final Map<String, Object> body = new HashMap<String, Object>();
+    body.put("results", results);
 
-  private final String addStatusFilter(final String currentUrl, final List<Integer> statuses) {
-    return (statuses != null && !statuses.isEmpty()) ?
-        currentUrl + "&status_id=" + StringUtils.join(statuses, ",") : StringUtils.EMPTY;
-  }
+    // Do the query
+    apiResponse = post(uriSuffix, body);
 
-  private final String addCreatedAfterFilter(final String currentUrl, final Long createdAfter) {
-    return (createdAfter != null && createdAfter > 0) ?
-        currentUrl + "&created_after=" + createdAfter.toString() : StringUtils.EMPTY;
-  }
+    Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownTestRunException());
+            put(HttpStatusCode.FORBIDDEN,
+                new NoAccessToProjectException("No permissions to add test results or no access to the project"));
+          }
+        };
 
-  private final String addCreatedBeforeFilter(final String currentUrl, final Long createdBefore) {
-    return (createdBefore != null && createdBefore > 0) ?
-        currentUrl + "&created_before=" + createdBefore.toString() : StringUtils.EMPTY;
+    // Handle response
+    responseObjectModel = handleApiResponse(apiResponse, new TypeReference<List<TRResult>>() {
+    }, choices);
+    return responseObjectModel;
   }
 
-  private final String addCreatedByFilter(final String currentUrl, final List<Integer> createdBys) {
-    return (createdBys != null && !createdBys.isEmpty()) ?
-        currentUrl + "&created_by=" + StringUtils.join(createdBys, ",") : StringUtils.EMPTY;
+  /**
+   * Builds the request body of a single test result, skipping the fields that were not provided.
+   */
+  static Map<String, String> resultBody(final Integer statusId, final String comment, final String version,
+      final Long elapsed, final String defects, final Integer assignedToId, final Map<String, String> customFields) {
+    final Map<String, String> body = new HashMap<String, String>();
+    if (statusId != null) {
+      body.put("status_id", statusId.toString());
+    }
+    if (comment != null && StringUtils.isNotEmpty(comment)) {
+      body.put("comment", comment);
+    }
+    if (version != null && StringUtils.isNotEmpty(version)) {
+      body.put("version", version);
+    }
+    if (elapsed != null) {
+      body.put("elapsed", elapsed.toString());
+    }
+    if (defects != null && StringUtils.isNotEmpty(defects)) {
+      body.put("defects", defects);
+    }
+    if (assignedToId != null) {
+      body.put("assignedto_id", assignedToId.toString());
+    }
+    if (customFields != null) {
+      for (Map.Entry<String, String> entry : customFields.entrySet()) {
+        body.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return body;
   }
 }
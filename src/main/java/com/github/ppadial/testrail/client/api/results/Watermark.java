@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * High-water mark of the results of a run already delivered by a {@link ResultPoller}.
+ *
+ * <p>It keeps the newest {@code created_on} seen and the IDs of the results created in the last second up to it, so
+ * that results sharing a timestamp with the watermark are neither lost nor delivered twice.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class Watermark {
+
+  /**
+   * Watermark of a run without delivered results.
+   */
+  public static final Watermark NONE = new Watermark(0L, Collections.<Integer>emptySet());
+
+  private final long createdOn;
+  private final Set<Integer> boundaryIds;
+
+  /**
+   * Constructor.
+   *
+   * @param createdOn newest creation timestamp delivered (UNIX timestamp)
+   * @param boundaryIds IDs of the delivered results created in the second before the timestamp or on it
+   */
+  public Watermark(final long createdOn, final Set<Integer> boundaryIds) {
+    this.createdOn = createdOn;
+    this.boundaryIds = Collections.unmodifiableSet(new LinkedHashSet<Integer>(boundaryIds));
+  }
+
+  public long getCreatedOn() {
+    return createdOn;
+  }
+
+  public Set<Integer> getBoundaryIds() {
+    return boundaryIds;
+  }
+
+  @Override
+  public String toString() {
+    return "Watermark{createdOn=" + createdOn + ", boundaryIds=" + boundaryIds + '}';
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+/**
+ * Persistence of the {@link ResultPoller} watermarks, so a restarted poller does not download the runs again.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public interface WatermarkStore {
+
+  /**
+   * Loads the watermark of a run.
+   *
+   * @param runId the ID of the run
+   * @return the stored watermark, {@link Watermark#NONE} if there is none
+   */
+  Watermark load(int runId);
+
+  /**
+   * Stores the watermark of a run.
+   *
+   * @param runId the ID of the run
+   * @param watermark the watermark to store
+   */
+  void save(int runId, Watermark watermark);
+}
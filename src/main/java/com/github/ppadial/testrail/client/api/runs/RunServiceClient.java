@@ -30,6 +30,7 @@ import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRRun;
 import java.util.HashMap;
 import java.util.Map;
@@ -47,6 +48,17 @@ public final class RunServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the run api client serving the runs from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public RunServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Returns an existing test run. Please see get_tests for the list of included tests in this run.
    *
@@ -57,6 +69,10 @@ public final class RunServiceClient extends TestRailServiceBase {
    */
   public final TRRun getRun(final int runId)
       throws TestRailException {
+    return cached(EntityCache.Region.RUNS, runId, this::fetchRun);
+  }
+
+  private TRRun fetchRun(final int runId) throws TestRailException {
     final ApiResponse apiResponse;
     final TRRun responseObjectModel;
 
@@ -23,16 +23,23 @@
 
 package com.github.ppadial.testrail.client.api.sections;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.github.ppadial.testrail.client.HttpStatusCode;
 import com.github.ppadial.testrail.client.TestRailException;
 import com.github.ppadial.testrail.client.api.NoAccessToProjectException;
+import com.github.ppadial.testrail.client.api.Page;
 import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.api.projects.InvalidOrUnknownProjectException;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRSection;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.assertj.core.util.Strings;
 
@@ -49,6 +56,140 @@ public final class SectionServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the section api client serving the sections from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public SectionServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
+  /**
+   * Returns an existing section.
+   *
+   * @param sectionId The ID of the section
+   * @return the section
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final TRSection getSection(final int sectionId)
+      throws TestRailException {
+    return cached(EntityCache.Region.SECTIONS, sectionId, this::fetchSection);
+  }
+
+  private TRSection fetchSection(final int sectionId) throws TestRailException {
+    final ApiResponse apiResponse;
+    final TRSection responseObjectModel;
+
+    // Do the query
+    apiResponse = get("get_section/" + sectionId);
+
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {
+          {
+            put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownSectionException());
+            put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+          }
+        };
+
+    // Handle response
+    responseObjectModel = handleApiResponse(apiResponse, TRSection.class, choices);
+    return responseObjectModel;
+  }
+
+  /**
+   * Returns the sections of a project and test suite, requesting all the pages.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @return the sections
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final List<TRSection> getSections(final int projectId, final int suiteId) throws TestRailException {
+    return getAllPages(sectionsUrl(projectId, suiteId), "sections", new TypeReference<List<TRSection>>() {
+    }, sectionsChoices());
+  }
+
+  /**
+   * Returns a page of the sections of a project and test suite.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @param offset number of sections to skip
+   * @param limit maximum number of sections of the page
+   * @return page of sections
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final Page<TRSection> getSectionsPage(final int projectId, final int suiteId, final int offset,
+      final int limit) throws TestRailException {
+    return getPage(sectionsUrl(projectId, suiteId), "sections", offset, limit, new TypeReference<List<TRSection>>() {
+    }, sectionsChoices());
+  }
+
+  /**
+   * Returns the tree of the sections of a project and test suite.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @return the section tree
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final SectionTree getSectionTree(final int projectId, final int suiteId) throws TestRailException {
+    return new SectionTree(getSections(projectId, suiteId));
+  }
+
+  /**
+   * Creates the missing sections of several paths, like {@code "API/Payments/Refunds"}. The missing sections are
+   * created one tree level at a time, and the sections of the same level in parallel under the request limits of the
+   * api client.
+   *
+   * @param projectId The ID of the project
+   * @param suiteId The ID of the test suite (0 if the project is operating in single suite mode)
+   * @param tree the current section tree of the suite
+   * @param paths the section paths that must exist
+   * @return the section tree including all the paths
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final SectionTree ensurePaths(final int projectId, final int suiteId, final SectionTree tree,
+      final Collection<String> paths) throws TestRailException {
+    int maxDepth = 0;
+    for (String path : paths) {
+      maxDepth = Math.max(maxDepth, SectionTree.split(path).length);
+    }
+
+    SectionTree current = tree;
+    for (int level = 0; level <= maxDepth; level++) {
+      // The first missing section of each path, once per parent and name
+      final Map<String, MissingSection> missing = new LinkedHashMap<String, MissingSection>();
+      for (String path : paths) {
+        final String[] names = SectionTree.split(path);
+        final int[] existing = current.longestExistingPrefix(names);
+        if (existing[0] < names.length) {
+          final MissingSection section = new MissingSection(existing[1], names[existing[0]]);
+          missing.putIfAbsent(section.parentId + SectionTree.PATH_SEPARATOR + section.name, section);
+        }
+      }
+      if (missing.isEmpty()) {
+        return current;
+      }
+
+      final List<TRSection> created = runInParallel(new ArrayList<MissingSection>(missing.values()),
+          section -> addSection(projectId, null, (suiteId > 0) ? suiteId : null,
+              (section.parentId > 0) ? section.parentId : null, section.name));
+      final List<TRSection> sections = new ArrayList<TRSection>(current.getSections());
+      sections.addAll(created);
+      current = new SectionTree(sections);
+    }
+    throw new TestRailException("The created sections do not match the requested paths " + paths);
+  }
+
   /**
    * Creates a new section.
    *
@@ -85,7 +226,7 @@ public final class SectionServiceClient extends TestRailServiceBase {
     }
 
     // Do the query
-    apiResponse = get("add_section/" + projectId);
+    apiResponse = post("add_section/" + projectId, body);
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
@@ -138,6 +279,7 @@ public final class SectionServiceClient extends TestRailServiceBase {
 
     // Handle response
     responseObjectModel = handleApiResponse(apiResponse, TRSection.class, choices);
+    cacheUpdated(EntityCache.Region.SECTIONS, sectionId, responseObjectModel);
     return responseObjectModel;
   }
 
@@ -154,7 +296,15 @@ public final class SectionServiceClient extends TestRailServiceBase {
     final ApiResponse apiResponse;
 
     // Do the query
-    apiResponse = post("delete_section/" + sectionId);
+    try {
+      apiResponse = post("delete_section/" + sectionId);
+    } finally {
+      // The subsections and the cases in them are deleted too
+      if (entityCache != null) {
+        entityCache.invalidateAll(EntityCache.Region.SECTIONS);
+        entityCache.invalidateAll(EntityCache.Region.CASES);
+      }
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {
@@ -169,4 +319,32 @@ public final class SectionServiceClient extends TestRailServiceBase {
     // Handle response
     handleApiResponse(apiResponse, choices);
   }
+
+  private static String sectionsUrl(final int projectId, final int suiteId) {
+    return "get_sections/" + projectId + ((suiteId > 0) ? "&suite_id=" + suiteId : "");
+  }
+
+  private static Map<HttpStatusCode, TestRailException> sectionsChoices() {
+    return new HashMap<HttpStatusCode, TestRailException>() {
+      {
+        put(HttpStatusCode.BAD_REQUEST,
+            new InvalidOrUnknownProjectException("Invalid or unknown project or test suite"));
+        put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+      }
+    };
+  }
+
+  /**
+   * A section to create under a parent.
+   */
+  private static final class MissingSection {
+
+    private final int parentId;
+    private final String name;
+
+    private MissingSection(final int parentId, final String name) {
+      this.parentId = parentId;
+      this.name = name;
+    }
+  }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.sections;
+
+import com.github.ppadial.testrail.client.api.PreOrderLayout;
+import com.github.ppadial.testrail.client.model.TRSection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable tree of the sections of a suite.
+ *
+ * <p>The sections are kept in a {@link PreOrderLayout}, children sorted by display order, so a subtree is a contiguous
+ * range. Paths like {@code "API/Payments/Refunds"} are resolved with one hash lookup per level.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class SectionTree {
+
+  /**
+   * Separator of the section names in a path. Section names containing it can not be resolved by path.
+   */
+  public static final String PATH_SEPARATOR = "/";
+
+  private static final int ROOT = PreOrderLayout.ROOT;
+
+  private final PreOrderLayout<TRSection> layout;
+  private final Map<String, Integer> positionsByParentAndName;
+
+  /**
+   * Builds the tree of a list of sections.
+   *
+   * @param allSections the sections of a suite, in any order. Sections whose parent is not in the list are roots.
+   */
+  public SectionTree(final Collection<TRSection> allSections) {
+    final Map<Integer, TRSection> byId = new HashMap<Integer, TRSection>();
+    for (TRSection section : allSections) {
+      byId.put(section.id, section);
+    }
+    this.layout = new PreOrderLayout<TRSection>(byId.values(), s -> s.id, s -> s.parent_id,
+        Comparator.<TRSection>comparingInt(s -> s.display_order).thenComparingInt(s -> s.id));
+    this.positionsByParentAndName = new HashMap<String, Integer>(layout.size() * 2);
+    for (int position = 0; position < layout.size(); position++) {
+      final TRSection section = layout.get(position);
+      if (section.name != null) {
+        positionsByParentAndName.putIfAbsent(key(layout.parentOf(position), section.name), position);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of sections of the tree.
+   *
+   * @return the number of sections
+   */
+  public int size() {
+    return layout.size();
+  }
+
+  /**
+   * Gets a section.
+   *
+   * @param sectionId the ID of the section
+   * @return the section, null if it is not in the tree
+   */
+  public TRSection getSection(final int sectionId) {
+    return layout.getById(sectionId);
+  }
+
+  /**
+   * Resolves a path of section names, like {@code "API/Payments/Refunds"}.
+   *
+   * @param path the names of the sections from the root, separated by {@link #PATH_SEPARATOR}
+   * @return the ID of the section, null if some section of the path does not exist
+   */
+  public Integer resolve(final String path) {
+    final int position = positionOf(split(path), ROOT);
+    return (position >= 0) ? layout.get(position).id : null;
+  }
+
+  /**
+   * Gets the path of a section.
+   *
+   * @param sectionId the ID of the section
+   * @return the names of the sections from the root, separated by {@link #PATH_SEPARATOR}, null if the section is
+   * not in the tree
+   */
+  public String getPath(final int sectionId) {
+    final int position = layout.positionOf(sectionId);
+    if (position == PreOrderLayout.NOT_FOUND) {
+      return null;
+    }
+    final Deque<String> names = new ArrayDeque<String>();
+    for (int current = position; current != ROOT; current = layout.parentOf(current)) {
+      names.push(layout.get(current).name);
+    }
+    return StringUtils.join(names, PATH_SEPARATOR);
+  }
+
+  /**
+   * Gets the parent of a section.
+   *
+   * @param sectionId the ID of the section
+   * @return the ID of the parent section, null for root sections or sections not in the tree
+   */
+  public Integer getParentId(final int sectionId) {
+    return layout.getParentId(sectionId);
+  }
+
+  /**
+   * Gets a section and all its descendants, in pre-order.
+   *
+   * @param sectionId the ID of the section
+   * @return the sections of the subtree, empty if the section is not in the tree
+   */
+  public List<TRSection> getSubtree(final int sectionId) {
+    return layout.getSubtree(sectionId);
+  }
+
+  /**
+   * Gets the root sections, in display order.
+   *
+   * @return the root sections
+   */
+  public List<TRSection> getRoots() {
+    return layout.getRoots();
+  }
+
+  /**
+   * Gets all the sections, in pre-order.
+   *
+   * @return the sections
+   */
+  public List<TRSection> getSections() {
+    return layout.getAll();
+  }
+
+  /**
+   * Gets the deepest existing section of a path.
+   *
+   * @param names the section names of the path
+   * @return number of leading names that exist, and the ID of the last of them (0 if none exists)
+   */
+  int[] longestExistingPrefix(final String[] names) {
+    int parent = ROOT;
+    int depth = 0;
+    while (depth < names.length) {
+      final Integer child = positionsByParentAndName.get(key(parent, names[depth]));
+      if (child == null) {
+        break;
+      }
+      parent = child;
+      depth++;
+    }
+    return new int[] {depth, (parent != ROOT) ? layout.get(parent).id : 0};
+  }
+
+  static String[] split(final String path) {
+    final String[] names = StringUtils.split(path, PATH_SEPARATOR);
+    for (int i = 0; i < names.length; i++) {
+      names[i] = names[i].trim();
+    }
+    return names;
+  }
+
+  private int positionOf(final String[] names, final int from) {
+    int current = from;
+    for (String name : names) {
+      final Integer child = positionsByParentAndName.get(key(current, name));
+      if (child == null) {
+        return -1;
+      }
+      current = child;
+    }
+    return current;
+  }
+
+  private static String key(final int parent, final String name) {
+    return parent + PATH_SEPARATOR + name;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.stream;
+
+import com.github.ppadial.testrail.client.api.Page;
+import com.github.ppadial.testrail.client.api.TestRailFunction;
+import com.github.ppadial.testrail.client.apiClient.CancellableCall;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of the entities of a paginated list endpoint.
+ *
+ * <p>A page is only requested to TestRail when the subscriber has asked for more entities than the ones left from the
+ * previous page, so a slow subscriber slows down the fetch and at most one page per subscription is kept in memory.
+ * The pages are fetched, and the entities emitted, from the executor; the requests are still subject to the request
+ * limits of the api client. Each subscription reads the list from the start, and cancelling it aborts the request of
+ * the page being fetched.</p>
+ *
+ * @param <T> type of the entities
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class PagedPublisher<T> implements Publisher<T> {
+
+  private final TestRailFunction<Integer, Page<T>> pageFetcher;
+  private final Executor executor;
+
+  /**
+   * Creates a new publisher.
+   *
+   * @param pageFetcher fetches the page starting at an offset
+   * @param executor runs the fetches and emits the entities, null to do it in the thread requesting them
+   */
+  public PagedPublisher(final TestRailFunction<Integer, Page<T>> pageFetcher, final Executor executor) {
+    this.pageFetcher = pageFetcher;
+    this.executor = (executor != null) ? executor : Runnable::run;
+  }
+
+  @Override
+  public void subscribe(final Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    final PagedSubscription subscription = new PagedSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  /**
+   * Subscription emitting the entities page by page. The emission runs in a single drain loop at a time, so the
+   * signals to the subscriber are serialized.
+   */
+  private final class PagedSubscription implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    //number of pending drain requests, only the caller moving it from 0 runs the loop
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private final Queue<T> buffer = new ArrayDeque<T>();
+    private final CancellableCall pageFetch = new CancellableCall();
+    private volatile boolean cancelled;
+    private boolean done;
+    private int nextOffset;
+    private boolean hasNext = true;
+    private volatile Throwable invalidRequest;
+
+    private PagedSubscription(final Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("The number of requested entities must be positive: " + n);
+      } else {
+        demand.getAndUpdate(current -> (current + n < 0) ? Long.MAX_VALUE : current + n);
+      }
+      if (pendingDrains.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      // aborts the request of the page being fetched
+      pageFetch.cancel();
+      if (pendingDrains.getAndIncrement() == 0) {
+        // drop the buffered page in the drain loop, the only one touching it
+        executor.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      int drains = 1;
+      do {
+        emit();
+        drains = pendingDrains.addAndGet(-drains);
+      } while (drains != 0);
+    }
+
+    private void emit() {
+      if (done) {
+        return;
+      }
+      if (cancelled) {
+        terminate();
+        return;
+      }
+      if (invalidRequest != null) {
+        terminate();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      while (demand.get() > 0 && !cancelled) {
+        if (buffer.isEmpty()) {
+          if (!hasNext) {
+            terminate();
+            subscriber.onComplete();
+            return;
+          }
+          if (!pageFetch.start()) {
+            terminate();
+            return;
+          }
+          try {
+            final Page<T> page = pageFetcher.apply(nextOffset);
+            buffer.addAll(page.getItems());
+            nextOffset = page.getNextOffset();
+            hasNext = page.hasNext();
+          } catch (Exception e) {
+            terminate();
+            if (!cancelled) {
+              subscriber.onError(e);
+            }
+            return;
+          } finally {
+            pageFetch.finish();
+          }
+          continue;
+        }
+        demand.decrementAndGet();
+        subscriber.onNext(buffer.poll());
+      }
+      if (buffer.isEmpty() && !hasNext && !cancelled) {
+        terminate();
+        subscriber.onComplete();
+      } else if (cancelled) {
+        terminate();
+      }
+    }
+
+    private void terminate() {
+      done = true;
+      buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.stream;
+
+/**
+ * Provider of a potentially unbounded number of entities, emitted as requested by its subscribers.
+ *
+ * <p>Same contract as the Reactive Streams {@code Publisher} and the Java 9 {@code Flow.Publisher}, so it can be
+ * adapted to either with a method reference.</p>
+ *
+ * @param <T> type of the entities
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+
+  /**
+   * Starts emitting entities to a subscriber, once it requests them.
+   *
+   * @param subscriber the subscriber, it receives its subscription first
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.stream;
+
+/**
+ * Receiver of the entities of a {@link Publisher}. The methods of a subscriber are never called concurrently.
+ *
+ * <p>Same contract as the Reactive Streams {@code Subscriber} and the Java 9 {@code Flow.Subscriber}.</p>
+ *
+ * @param <T> type of the entities
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public interface Subscriber<T> {
+
+  /**
+   * Called once, before any other signal. No entity is emitted until it is requested through the subscription.
+   *
+   * @param subscription the subscription to request entities or cancel
+   */
+  void onSubscribe(Subscription subscription);
+
+  /**
+   * Called with each requested entity.
+   *
+   * @param item the entity
+   */
+  void onNext(T item);
+
+  /**
+   * Called once when the publisher fails, no other signal follows.
+   *
+   * @param throwable the failure, usually a {@code TestRailException}
+   */
+  void onError(Throwable throwable);
+
+  /**
+   * Called once when all the entities have been emitted, no other signal follows.
+   */
+  void onComplete();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.stream;
+
+/**
+ * Link between a {@link Publisher} and one of its {@link Subscriber}s.
+ *
+ * <p>Same contract as the Reactive Streams {@code Subscription} and the Java 9 {@code Flow.Subscription}.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public interface Subscription {
+
+  /**
+   * Requests more entities. The demand adds up until the entities are emitted.
+   *
+   * @param n number of entities, a non positive number fails the subscription
+   */
+  void request(long n);
+
+  /**
+   * Stops the emission of entities, no more requests are sent to TestRail.
+   */
+  void cancel();
+}
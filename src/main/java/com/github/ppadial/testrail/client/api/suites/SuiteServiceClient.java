@@ -32,6 +32,7 @@ import com.github.ppadial.testrail.client.api.projects.InvalidOrUnknownProjectEx
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRSuite;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +57,17 @@ public final class SuiteServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new instance of the suite api client serving the suites from a cache.
+   *
+   * @param apiClient the apiclient to use
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public SuiteServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
   /**
    * Returns an existing test suite.
    *
@@ -66,6 +78,10 @@ public final class SuiteServiceClient extends TestRailServiceBase {
    */
   public final TRSuite getSuite(final int suiteId)
       throws TestRailException {
+    return cached(EntityCache.Region.SUITES, suiteId, this::fetchSuite);
+  }
+
+  private TRSuite fetchSuite(final int suiteId) throws TestRailException {
     final ApiResponse apiResponse;
     final TRSuite responseObjectModel;
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.tests;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.ppadial.testrail.client.api.IntIntHashMap;
+
+/**
+ * Immutable mapping from the case IDs of a run to its test IDs, to post results by test with
+ * {@code add_result/{testId}}. It is kept in primitive arrays, a few bytes per test.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class RunTestMap {
+
+  /**
+   * Value returned by {@link #getTestId(int)} for the cases that are not in the run.
+   */
+  public static final int NO_TEST = -1;
+
+  private final int runId;
+  private final IntIntHashMap testIdsByCaseId;
+
+  RunTestMap(final int runId, final IntIntHashMap testIdsByCaseId) {
+    this.runId = runId;
+    this.testIdsByCaseId = testIdsByCaseId;
+  }
+
+  @JsonCreator
+  RunTestMap(@JsonProperty("runId") final int runId, @JsonProperty("caseIds") final int[] caseIds,
+      @JsonProperty("testIds") final int[] testIds) {
+    this.runId = runId;
+    this.testIdsByCaseId = new IntIntHashMap(caseIds.length);
+    for (int i = 0; i < caseIds.length; i++) {
+      testIdsByCaseId.put(caseIds[i], testIds[i]);
+    }
+  }
+
+  @JsonProperty("runId")
+  public int getRunId() {
+    return runId;
+  }
+
+  /**
+   * Gets the test of a case in the run.
+   *
+   * @param caseId the ID of the case
+   * @return the ID of the test, {@link #NO_TEST} if the case is not in the run
+   */
+  public int getTestId(final int caseId) {
+    return testIdsByCaseId.get(caseId, NO_TEST);
+  }
+
+  /**
+   * Checks if a case is in the run.
+   *
+   * @param caseId the ID of the case
+   * @return true if the run has a test of the case
+   */
+  public boolean containsCase(final int caseId) {
+    return testIdsByCaseId.containsKey(caseId);
+  }
+
+  /**
+   * Gets the number of tests of the run.
+   *
+   * @return the number of tests
+   */
+  public int size() {
+    return testIdsByCaseId.size();
+  }
+
+  @JsonProperty("caseIds")
+  int[] getCaseIds() {
+    final int[] caseIds = new int[size()];
+    final int[] next = {0};
+    testIdsByCaseId.forEach((caseId, testId) -> caseIds[next[0]++] = caseId);
+    return caseIds;
+  }
+
+  @JsonProperty("testIds")
+  int[] getTestIds() {
+    final int[] testIds = new int[size()];
+    final int[] next = {0};
+    testIdsByCaseId.forEach((caseId, testId) -> testIds[next[0]++] = testId);
+    return testIds;
+  }
+}
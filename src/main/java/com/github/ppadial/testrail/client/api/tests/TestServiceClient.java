@@ -23,17 +23,24 @@
 
 package com.github.ppadial.testrail.client.api.tests;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.github.ppadial.testrail.client.HttpStatusCode;
 import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.IntIntHashMap;
 import com.github.ppadial.testrail.client.api.NoAccessToProjectException;
 import com.github.ppadial.testrail.client.api.TestRailServiceBase;
 import com.github.ppadial.testrail.client.api.results.ResultServiceClient;
 import com.github.ppadial.testrail.client.api.runs.InvalidOrUnknownTestRunException;
+import com.github.ppadial.testrail.client.api.stream.Publisher;
 import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.github.ppadial.testrail.client.cache.EntityCache;
 import com.github.ppadial.testrail.client.model.TRTest;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -57,6 +64,114 @@ public final class TestServiceClient extends TestRailServiceBase {
     super(apiClient);
   }
 
+  /**
+   * Creates a new test service client keeping the case to test mappings of the runs in a cache.
+   *
+   * @param apiClient the apiclient
+   * @param entityCache the entity cache, null to not cache
+   * @since 0.3.1
+   */
+  public TestServiceClient(final ApiClient apiClient, final EntityCache entityCache) {
+    super(apiClient, entityCache);
+  }
+
+  /**
+   * Returns the mapping from the case IDs to the test IDs of a test run. The tests are read as a stream, without
+   * building a {@link TRTest} per test.
+   *
+   * @param runId The ID of the test run
+   * @return the case to test mapping of the run
+   * @throws TestRailException An error in the connection with testrail
+   * @since 0.3.1
+   */
+  public final RunTestMap getRunTestMap(final int runId) throws TestRailException {
+    return cached(EntityCache.Region.RUN_TESTS, runId, this::fetchRunTestMap);
+  }
+
+  private RunTestMap fetchRunTestMap(final int runId) throws TestRailException {
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {{
+          put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownTestRunException());
+          put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+        }};
+
+    final IntIntHashMap testIdsByCaseId = new IntIntHashMap(DEFAULT_PAGE_SIZE);
+    int offset = 0;
+    TestPage page;
+    do {
+      // Do the query
+      final ApiResponse apiResponse =
+          get("get_tests/" + runId + "&limit=" + DEFAULT_PAGE_SIZE + "&offset=" + offset);
+
+      // Handle response
+      handleApiResponse(apiResponse, choices);
+      try (JsonParser parser = objectMapper.getFactory().createParser(apiResponse.getBody())) {
+        page = readTests(parser, testIdsByCaseId);
+      } catch (IOException ioException) {
+        throw new TestRailException("Unable to read the tests of run " + runId, ioException);
+      }
+      // by the tests read, repeated cases do not grow the map
+      offset += page.read;
+    } while (page.hasNext && page.read > 0);
+    return new RunTestMap(runId, testIdsByCaseId);
+  }
+
+  // the number of tests read from a page and if there may be a next one
+  private static final class TestPage {
+
+    private int read;
+    private boolean hasNext;
+  }
+
+  // reads a plain array of tests, or a page of them. A full plain array means that there may be more, like getPage
+  private static TestPage readTests(final JsonParser parser, final IntIntHashMap testIdsByCaseId)
+      throws IOException {
+    final TestPage page = new TestPage();
+    if (parser.nextToken() == JsonToken.START_ARRAY) {
+      page.read = readTestArray(parser, testIdsByCaseId);
+      page.hasNext = page.read >= DEFAULT_PAGE_SIZE;
+      return page;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+      if ("tests".equals(field)) {
+        page.read = readTestArray(parser, testIdsByCaseId);
+      } else if ("_links".equals(field)) {
+        final JsonNode links = parser.readValueAsTree();
+        final JsonNode next = links.get("next");
+        page.hasNext = next != null && !next.isNull();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return page;
+  }
+
+  // returns the number of tests read
+  private static int readTestArray(final JsonParser parser, final IntIntHashMap testIdsByCaseId)
+      throws IOException {
+    int read = 0;
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      int testId = 0;
+      int caseId = 0;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.getCurrentName();
+        parser.nextToken();
+        if ("id".equals(field)) {
+          testId = parser.getIntValue();
+        } else if ("case_id".equals(field)) {
+          caseId = parser.getIntValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      testIdsByCaseId.put(caseId, testId);
+      read++;
+    }
+    return read;
+  }
+
   /**
    * Returns an existing test. use {@link ResultServiceClient#getResults(int, Integer)} instead.
    *
@@ -113,6 +228,24 @@ public final class TestServiceClient extends TestRailServiceBase {
     return trTest;
   }
 
+  /**
+   * Publishes the tests of a test run, fetching the pages as the subscribers request the tests.
+   *
+   * @param runId The ID of the test run
+   * @return publisher of the tests
+   * @since 0.3.1
+   */
+  public final Publisher<TRTest> getTestsPublisher(final int runId) {
+    final Map<HttpStatusCode, TestRailException> choices =
+        new HashMap<HttpStatusCode, TestRailException>() {{
+          put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownTestRunException());
+          put(HttpStatusCode.FORBIDDEN, new NoAccessToProjectException());
+        }};
+
+    return publishPages("get_tests/" + runId, "tests", new TypeReference<List<TRTest>>() {
+    }, choices);
+  }
+
   /**
    * Returns a list of tests with specified statuses for a test run.
    *
@@ -124,15 +257,19 @@ public final class TestServiceClient extends TestRailServiceBase {
    */
   public final List<TRTest> getTestsFilterByStatus(final int runId, final int... statuses)
       throws TestRailException {
-    final ApiResponse apiResponse;
-    final List<TRTest> responseObjectModel;
-
     // TODO: validate status id? how?
     // This line convert an int[] to an string[]
     final String listOfStatus = String.join(",",
         (Arrays.stream(statuses)).sorted().mapToObj(String::valueOf).toArray(String[]::new));
+    return cachedQuery("get_tests/" + runId + "&status_id=" + listOfStatus, this::fetchTests);
+  }
+
+  private List<TRTest> fetchTests(final String url) throws TestRailException {
+    final ApiResponse apiResponse;
+    final List<TRTest> responseObjectModel;
+
     // Do the query
-    apiResponse = get("get_tests/" + runId + "&status_id=" + listOfStatus);
+    apiResponse = get(url);
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
@@ -31,6 +31,8 @@ import com.github.ppadial.testrail.client.apiClient.ApiCallException;
 import com.github.ppadial.testrail.client.apiClient.ApiClient;
 import com.github.ppadial.testrail.client.apiClient.ApiResponse;
 import com.github.ppadial.testrail.client.model.TRUser;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -71,6 +73,7 @@ public final class UserServiceClient extends TestRailServiceBase {
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
           put(HttpStatusCode.NOT_FOUND, new InvalidOrUnknownUserException("invalid or unknown user"));
+          put(HttpStatusCode.BAD_REQUEST, new InvalidOrUnknownUserException("invalid or unknown user"));
         }};
 
     // Handle response
@@ -93,7 +96,11 @@ public final class UserServiceClient extends TestRailServiceBase {
     final TRUser trUser;
 
     // Do the query
-    apiResponse = get("get_user_by_email&email=" + email);
+    try {
+      apiResponse = get("get_user_by_email&email=" + URLEncoder.encode(email, "UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new TestRailException("Unable to encode the email address", e);
+    }
 
     Map<HttpStatusCode, TestRailException> choices =
         new HashMap<HttpStatusCode, TestRailException>() {{
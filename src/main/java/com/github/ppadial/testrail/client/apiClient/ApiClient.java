@@ -23,19 +23,33 @@
 
 package com.github.ppadial.testrail.client.apiClient;
 
-import java.io.UnsupportedEncodingException;
+import com.github.ppadial.testrail.client.HttpStatusCode;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 import org.assertj.core.util.Strings;
 import org.slf4j.Logger;
@@ -44,27 +58,40 @@ import org.slf4j.LoggerFactory;
 /**
  * Client to talk to TestRail API end points
  *
+ * <p>Interrupting a thread waiting for a request cancels it: a request in flight is aborted and its connection closed,
+ * and the call fails with a {@link RequestCancelledException}.</p>
+ *
  * @author Paulino Padial
  * @since 0.1.0
  */
 public class ApiClient {
 
   private static final Logger LOG = LoggerFactory.getLogger(ApiClient.class);
-  private static Long MIN_MS_BETWEEN_RETRIES = Long.valueOf(250) /* 0,25s */;
-  private static Long MAX_MS_BETWEEN_RETRIES = Long.valueOf(60000) /* 1m */;
-  private static Integer MIN_RETRY_NUM = 1;
-  private static Integer MAX_RETRY_NUM = 20;
-  private static Long MIN_FLOOD_VALUE = Long.valueOf(1000); /* 1s */
-  private static Long MAX_FLOOD_VALUE = Long.valueOf(60000); /* 1m */
+  //traffic class chosen for the requests of the current thread, null to classify them by method
+  private static final ThreadLocal<TrafficClass> TRAFFIC_CLASS = new ThreadLocal<TrafficClass>();
+  //priority chosen for the requests of the current thread, null to use the default of their traffic class
+  private static final ThreadLocal<RequestPriority> PRIORITY = new ThreadLocal<RequestPriority>();
+  //marks the threads running a task of the executor of a client, nested parallel work runs sequentially in them
+  private static final ThreadLocal<Boolean> IN_PARALLEL_TASK = new ThreadLocal<Boolean>();
   private HttpClient httpClient;
+  //null when the http client was provided from outside
+  private PoolingHttpClientConnectionManager connectionManager;
+  private static final String API_PATH = "/index.php?/api/v2/";
+  //null when the http client was provided from outside
   private String url;
+  //prefix of the request uris, the api path alone when there is no url
+  private final String apiUrl;
   private String username;
   private String password;
-  private boolean retryOnFailureEnabled = false; /*disabled by default*/
-  private Integer numOfRetries = MIN_RETRY_NUM;
-  private Long millisBetweenRetries = MIN_MS_BETWEEN_RETRIES;
-  private boolean antiFloodEnabled = false; /*disabled by default*/
-  private Long antiFloodValue = MIN_FLOOD_VALUE;
+  //replaced as a whole on every change, each request reads it once
+  private volatile ApiClientConfig config = ApiClientConfig.DEFAULT;
+  //guards the changes of the configuration and of the executor, so the pool is always sized to the limits
+  private final ReentrantLock configLock = new ReentrantLock();
+  private final RequestLimiter requestLimiter = new RequestLimiter(ApiClientConfig.DEFAULT);
+  private volatile RequestHedger requestHedger;
+  private volatile ThreadPoolExecutor executor;
+  //null unless virtual threads are enabled and supported by the JVM
+  private volatile ExecutorService virtualThreadExecutor;
 
   /**
    * Creates a new instance of the object.
@@ -77,7 +104,8 @@ public class ApiClient {
   public ApiClient(String url, String user, String password) {
     try {
       LOG.debug(":: Constructor method ::");
-      this.url = url + "/index.php?/api/v2/";
+      this.url = url + API_PATH;
+      this.apiUrl = this.url;
       this.username = user;
       this.password = password;
 
@@ -88,7 +116,13 @@ public class ApiClient {
           "Basic " + base64.encodeToString(
               (this.username + ":" + this.password).getBytes(StandardCharsets.UTF_8))));
 
-      httpClient = HttpClientBuilder.create().setDefaultHeaders(headerList).build();
+      connectionManager = new PoolingHttpClientConnectionManager();
+      connectionManager.setMaxTotal(ApiClientConfig.DEFAULT.getMaxConcurrentRequests());
+      connectionManager.setDefaultMaxPerRoute(ApiClientConfig.DEFAULT.getMaxConcurrentRequests());
+      httpClient = HttpClientBuilder.create()
+          .setConnectionManager(connectionManager)
+          .setDefaultHeaders(headerList)
+          .build();
       LOG.debug("Created API client for {}", url);
     } catch (Exception e) {
       LOG.error(e.getMessage());
@@ -102,10 +136,58 @@ public class ApiClient {
    * @since 0.1.0
    */
   public ApiClient(HttpClient httpClient) {
-    this.url = url + "/index.php?/api/v2/";
+    this.apiUrl = API_PATH;
     this.httpClient = httpClient;
   }
 
+  /**
+   * Gets the current configuration of the client.
+   *
+   * @return the configuration, requests sent from now on use it
+   * @since 0.3.1
+   */
+  public ApiClientConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Replaces the configuration of the client. The requests in flight finish with the configuration they started with,
+   * the connection pool, the executor and the request limits are resized without waiting for them.
+   *
+   * @param config the new configuration
+   * @since 0.3.1
+   */
+  public void setConfig(final ApiClientConfig config) {
+    if (config == null) {
+      throw new IllegalArgumentException("The configuration can not be null");
+    }
+    updateConfig(current -> config);
+  }
+
+  /**
+   * Changes the configuration of the client from the current one. The changes of concurrent callers are applied one
+   * after the other, so none is lost.
+   *
+   * @param update function creating the new configuration from the current one
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig updateConfig(final UnaryOperator<ApiClientConfig> update) {
+    configLock.lock();
+    try {
+      final ApiClientConfig updated = update.apply(config);
+      if (updated == null) {
+        throw new IllegalArgumentException("The configuration can not be null");
+      }
+      applyLimits(updated);
+      config = updated;
+      LOG.debug("Configuration changed to {}", updated);
+      return updated;
+    } finally {
+      configLock.unlock();
+    }
+  }
+
   /**
    * Enable the retry-mode per request.
    *
@@ -113,10 +195,7 @@ public class ApiClient {
    * @since 0.1.0
    */
   public void enableRetryOnFailure(final Integer numOfRetries) {
-    this.retryOnFailureEnabled = true;
-    this.numOfRetries =
-        (numOfRetries < MIN_RETRY_NUM) ? MIN_RETRY_NUM
-            : (numOfRetries > MAX_RETRY_NUM) ? MAX_RETRY_NUM : numOfRetries;
+    updateConfig(current -> current.withRetry(numOfRetries));
   }
 
   /**
@@ -127,13 +206,7 @@ public class ApiClient {
    * @since 0.1.0
    */
   public void enableRetryOnFailure(final Integer numOfRetries, final Integer millisBetweenRetries) {
-    this.retryOnFailureEnabled = true;
-    this.numOfRetries =
-        (numOfRetries < MIN_RETRY_NUM) ? MIN_RETRY_NUM
-            : (numOfRetries > MAX_RETRY_NUM) ? MAX_RETRY_NUM : numOfRetries;
-    this.millisBetweenRetries =
-        (millisBetweenRetries < MIN_MS_BETWEEN_RETRIES) ? MIN_MS_BETWEEN_RETRIES
-            : (millisBetweenRetries > MAX_MS_BETWEEN_RETRIES) ? MAX_MS_BETWEEN_RETRIES : millisBetweenRetries;
+    updateConfig(current -> current.withRetry(numOfRetries, millisBetweenRetries));
   }
 
   /**
@@ -144,10 +217,329 @@ public class ApiClient {
    * @since 0.1.0
    */
   public void enableAntiFlooding(final Long antiFloodValue) {
-    this.antiFloodEnabled = true;
-    this.antiFloodValue =
-        (antiFloodValue < MIN_FLOOD_VALUE) ? MIN_FLOOD_VALUE
-            : (antiFloodValue > MAX_FLOOD_VALUE) ? MAX_FLOOD_VALUE : antiFloodValue;
+    updateConfig(current -> current.withAntiFlood(antiFloodValue));
+  }
+
+  /**
+   * Enable the limitation of the requests sent to the server. The connection pool is sized to the number of concurrent
+   * requests.
+   *
+   * @param maxConcurrentRequests maximum number of requests in flight (min 1, max {@code MAX_CONCURRENT_REQUESTS})
+   * @param requestsPerSecond maximum number of requests per second, null to not limit the rate
+   * @since 0.3.1
+   */
+  public void enableRequestLimiting(final int maxConcurrentRequests, final Double requestsPerSecond) {
+    updateConfig(current -> current.withRequestLimit(maxConcurrentRequests, requestsPerSecond));
+  }
+
+  private void applyLimits(final ApiClientConfig updated) {
+    final int concurrentRequests = updated.getMaxConcurrentRequests();
+    if (connectionManager != null) {
+      connectionManager.setMaxTotal(concurrentRequests);
+      connectionManager.setDefaultMaxPerRoute(concurrentRequests);
+    }
+    requestLimiter.update(updated);
+    final ThreadPoolExecutor current = executor;
+    if (current != null) {
+      // the order matters, the core size can never be greater than the maximum one
+      if (concurrentRequests > current.getMaximumPoolSize()) {
+        current.setMaximumPoolSize(concurrentRequests);
+        current.setCorePoolSize(concurrentRequests);
+      } else {
+        current.setCorePoolSize(concurrentRequests);
+        current.setMaximumPoolSize(concurrentRequests);
+      }
+    }
+  }
+
+  /**
+   * Sets the traffic class of the requests sent from the current thread, overriding the default one (reads for the
+   * GET requests, writes for the POST ones). Restore the previous class when done:
+   *
+   * <pre>
+   * final TrafficClass previous = ApiClient.setTrafficClass(TrafficClass.BULK);
+   * try {
+   *   // export
+   * } finally {
+   *   ApiClient.setTrafficClass(previous);
+   * }
+   * </pre>
+   *
+   * @param trafficClass the traffic class, null to go back to the default ones
+   * @return the traffic class set before, null if there was none
+   * @since 0.3.1
+   */
+  public static TrafficClass setTrafficClass(final TrafficClass trafficClass) {
+    final TrafficClass previous = TRAFFIC_CLASS.get();
+    if (trafficClass != null) {
+      TRAFFIC_CLASS.set(trafficClass);
+    } else {
+      TRAFFIC_CLASS.remove();
+    }
+    return previous;
+  }
+
+  /**
+   * Gets the traffic class set for the requests sent from the current thread.
+   *
+   * @return the traffic class, null if the default ones are used
+   * @since 0.3.1
+   */
+  public static TrafficClass getTrafficClass() {
+    return TRAFFIC_CLASS.get();
+  }
+
+  /**
+   * Sets the priority of the requests sent from the current thread, overriding the default of their traffic class.
+   * Restore the previous priority when done, like with {@link #setTrafficClass(TrafficClass)}.
+   *
+   * @param priority the priority, null to go back to the default ones
+   * @return the priority set before, null if there was none
+   * @since 0.3.1
+   */
+  public static RequestPriority setRequestPriority(final RequestPriority priority) {
+    final RequestPriority previous = PRIORITY.get();
+    if (priority != null) {
+      PRIORITY.set(priority);
+    } else {
+      PRIORITY.remove();
+    }
+    return previous;
+  }
+
+  /**
+   * Gets the priority set for the requests sent from the current thread.
+   *
+   * @return the priority, null if the defaults of the traffic classes are used
+   * @since 0.3.1
+   */
+  public static RequestPriority getRequestPriority() {
+    return PRIORITY.get();
+  }
+
+  /**
+   * Runs a task sending its requests with a priority, restoring the previous one afterwards.
+   *
+   * @param priority the priority of the requests of the task
+   * @param task the task to run
+   * @since 0.3.1
+   */
+  public static void runWithPriority(final RequestPriority priority, final Runnable task) {
+    final RequestPriority previous = setRequestPriority(priority);
+    try {
+      task.run();
+    } finally {
+      setRequestPriority(previous);
+    }
+  }
+
+  /**
+   * Wraps an executor to run its tasks with the traffic class and priority chosen by the current thread, for the work
+   * done by other threads on its behalf. The thread running a task gets its own settings back afterwards.
+   *
+   * @param executor the executor
+   * @return executor running the tasks with the traffic class and priority of the current thread
+   * @since 0.3.1
+   */
+  public static Executor withCurrentRequestSettings(final Executor executor) {
+    final TrafficClass trafficClass = TRAFFIC_CLASS.get();
+    final RequestPriority priority = PRIORITY.get();
+    return task -> executor.execute(() -> {
+      final TrafficClass previousTrafficClass = setTrafficClass(trafficClass);
+      final RequestPriority previousPriority = setRequestPriority(priority);
+      try {
+        task.run();
+      } finally {
+        setTrafficClass(previousTrafficClass);
+        setRequestPriority(previousPriority);
+      }
+    });
+  }
+
+  /**
+   * Wraps the executor of a client to mark its tasks as parallel tasks. The bulk operations called from a parallel task
+   * run their requests sequentially, so the task never waits for other tasks queued behind it in the same executor.
+   *
+   * @param executor the executor of the client
+   * @return executor running the tasks as parallel tasks
+   * @since 0.3.1
+   */
+  public static Executor asParallelTaskExecutor(final Executor executor) {
+    return task -> executor.execute(() -> {
+      final Boolean previous = IN_PARALLEL_TASK.get();
+      IN_PARALLEL_TASK.set(Boolean.TRUE);
+      try {
+        task.run();
+      } finally {
+        if (previous == null) {
+          IN_PARALLEL_TASK.remove();
+        }
+      }
+    });
+  }
+
+  /**
+   * Checks if the current thread runs a parallel task, see {@link #asParallelTaskExecutor(Executor)}.
+   *
+   * @return true if the thread runs a task of the executor of a client
+   * @since 0.3.1
+   */
+  public static boolean isInParallelTask() {
+    return IN_PARALLEL_TASK.get() != null;
+  }
+
+  /**
+   * Gets an executor for the background work of a client, like cache refreshes: the tasks run on the executor of the
+   * client, or on the calling thread if it has none, with {@link RequestPriority#LOW}, so they only use the request
+   * rate nobody else is using.
+   *
+   * @param apiClient the api client
+   * @return executor running the tasks with low priority
+   * @since 0.3.1
+   */
+  public static Executor lowPriorityExecutor(final ApiClient apiClient) {
+    return task -> {
+      final Runnable lowPriority = () -> runWithPriority(RequestPriority.LOW, task);
+      final Executor executor = apiClient.getExecutor();
+      if (executor != null) {
+        executor.execute(lowPriority);
+      } else {
+        lowPriority.run();
+      }
+    };
+  }
+
+  /**
+   * Enable the execution of the bulk operations of the client on virtual threads, one per task, instead of on a pool
+   * sized to the number of concurrent requests. The requests are still subject to the request limits of the client,
+   * but any number of logical calls can wait for them without holding a platform thread. Virtual threads need JDK 21
+   * or newer, on older JVMs the pool is kept.
+   *
+   * @return true if virtual threads are used from now on, false if the JVM does not support them
+   * @since 0.3.1
+   */
+  public boolean enableVirtualThreads() {
+    if (virtualThreadExecutor != null) {
+      return true;
+    }
+    final ExecutorService created = VirtualThreads.newExecutor("testrail-client-virtual-");
+    if (created == null) {
+      LOG.warn("Virtual threads are not supported by this JVM, the bulk operations keep using a thread pool");
+      return false;
+    }
+    configLock.lock();
+    try {
+      if (virtualThreadExecutor == null) {
+        virtualThreadExecutor = created;
+        return true;
+      }
+    } finally {
+      configLock.unlock();
+    }
+    created.shutdown();
+    return true;
+  }
+
+  /**
+   * Checks if the bulk operations of the client run on virtual threads.
+   *
+   * @return true if virtual threads are enabled and supported
+   * @since 0.3.1
+   */
+  public boolean usesVirtualThreads() {
+    return virtualThreadExecutor != null;
+  }
+
+  /**
+   * Gets the number of hedged GET requests, the second requests sent because the first one was slow.
+   *
+   * @return the hedges sent since the client was created
+   * @since 0.3.1
+   */
+  public long getHedgedRequests() {
+    final RequestHedger current = requestHedger;
+    return (current != null) ? current.getHedges() : 0;
+  }
+
+  /**
+   * Enable the caching of the lookups answered with "invalid or unknown", so repeated lookups of the same missing
+   * entity are answered locally.
+   *
+   * @param ttlMillis time a failing lookup is remembered, 0 to disable it
+   * @since 0.3.1
+   */
+  public void enableNegativeCaching(final long ttlMillis) {
+    updateConfig(current -> (ttlMillis > 0) ? current.withNegativeCache(ttlMillis) : current.withoutNegativeCache());
+  }
+
+  /**
+   * Enable the caching of the filtered list queries, so repeated queries are answered locally until they expire or a
+   * write through this client affects them.
+   *
+   * @param ttlMillis time a query result is kept, 0 to disable it
+   * @param maximumEntities maximum number of entities kept in all the query results, 0 for the default
+   * @since 0.3.1
+   */
+  public void enableQueryCaching(final long ttlMillis, final long maximumEntities) {
+    updateConfig(current -> (ttlMillis > 0)
+        ? current.withQueryCache(ttlMillis, maximumEntities) : current.withoutQueryCache());
+  }
+
+  /**
+   * Gets the TestRail url of the client.
+   *
+   * @return the url, null if the client was created from an http client
+   * @since 0.3.1
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the username of the client.
+   *
+   * @return the username, null if the client was created from an http client
+   * @since 0.3.1
+   */
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Gets the executor used to run the bulk operations of the client in parallel. The requests done from it are still
+   * subject to the request limits of the client.
+   *
+   * @return the executor of the client, running a virtual thread per task if they are enabled
+   * @since 0.3.1
+   */
+  public ExecutorService getExecutor() {
+    final ExecutorService virtual = virtualThreadExecutor;
+    if (virtual != null) {
+      return virtual;
+    }
+    ThreadPoolExecutor current = executor;
+    if (current == null) {
+      // a lock instead of a monitor, so a virtual thread waiting here does not pin its carrier thread
+      configLock.lock();
+      try {
+        current = executor;
+        if (current == null) {
+          final AtomicInteger threadCount = new AtomicInteger();
+          final int poolSize = config.getMaxConcurrentRequests();
+          current = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(), runnable -> {
+                final Thread thread = new Thread(runnable, "testrail-client-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+          current.allowCoreThreadTimeOut(true);
+          executor = current;
+        }
+      } finally {
+        configLock.unlock();
+      }
+    }
+    return current;
   }
 
   /**
@@ -160,7 +552,7 @@ public class ApiClient {
    */
   public ApiResponse doGet(String uriSuffix) throws ApiCallException {
     LOG.debug("Invoking {}", uriSuffix);
-    final HttpGet httpGet = new HttpGet(url + uriSuffix);
+    final HttpGet httpGet = new HttpGet(apiUrl + uriSuffix);
     return doRequest(httpGet);
   }
 
@@ -175,22 +567,30 @@ public class ApiClient {
    */
   public ApiResponse doPost(String uriSuffix, String jsonData) throws ApiCallException {
     LOG.debug("Invoking {} with jsonData {}", uriSuffix, jsonData);
-    final HttpPost httpPost = new HttpPost(url + uriSuffix);
+    final HttpPost httpPost = new HttpPost(apiUrl + uriSuffix);
     // If we have json body data to send
     if (!Strings.isNullOrEmpty(jsonData)) {
-      final StringEntity reqEntity;
-      try {
-
-        reqEntity = new StringEntity(jsonData);
-        reqEntity.setContentType("application/json");
-      } catch (UnsupportedEncodingException unsupportedEncodingException) {
-        throw new ApiCallException(unsupportedEncodingException);
-      }
-      httpPost.setEntity(reqEntity);
+      httpPost.setEntity(new StringEntity(jsonData, ContentType.APPLICATION_JSON));
     }
     return doRequest(httpPost);
   }
 
+  /**
+   * Do an HTTP Post call against the TestRail instance.
+   *
+   * @param uriSuffix suffix url to query
+   * @param entity request body, see {@link JsonStreamingEntity} to stream json bodies
+   * @return response object
+   * @throws ApiCallException An error during the call to the service
+   * @since 0.3.1
+   */
+  public ApiResponse doPost(String uriSuffix, HttpEntity entity) throws ApiCallException {
+    LOG.debug("Invoking {} with a request entity", uriSuffix);
+    final HttpPost httpPost = new HttpPost(apiUrl + uriSuffix);
+    httpPost.setEntity(entity);
+    return doRequest(httpPost);
+  }
+
   /**
    * Do an HTTP Post call against the TestRail instance.
    *
@@ -201,76 +601,174 @@ public class ApiClient {
    */
   public ApiResponse doPost(String uriSuffix) throws ApiCallException {
     LOG.debug("Invoking {} without body", uriSuffix);
-    final HttpPost httpPost = new HttpPost(url + uriSuffix);
+    final HttpPost httpPost = new HttpPost(apiUrl + uriSuffix);
     return doRequest(httpPost);
   }
 
   private ApiResponse doRequest(HttpUriRequest httpUriRequest) throws ApiCallException {
-    LOG.debug("method called with AntiFlood={} RetryOnFailure={}", antiFloodEnabled, retryOnFailureEnabled);
-    ApiResponse apiResponse;
-    HttpResponse httpResponse;
+    // a single snapshot per request, a reconfiguration applies from the next request on
+    final ApiClientConfig current = config;
+    LOG.debug("method called with AntiFlood={} RetryOnFailure={}", current.isAntiFloodEnabled(),
+        current.isRetryOnFailureEnabled());
+    applyTimeouts(httpUriRequest, current);
+    final TrafficClass trafficClass = (TRAFFIC_CLASS.get() != null) ? TRAFFIC_CLASS.get()
+        : (httpUriRequest instanceof HttpGet) ? TrafficClass.READ : TrafficClass.WRITE;
+    final RequestPriority priority =
+        (PRIORITY.get() != null) ? PRIORITY.get() : RequestPriority.defaultFor(trafficClass);
     int numOfExecutions = 0;
+    while (true) {
+      numOfExecutions++;
+      final boolean canRetry = current.isRetryOnFailureEnabled() && numOfExecutions <= current.getNumOfRetries()
+          && isRepeatable(httpUriRequest);
+      final ApiResponse apiResponse;
+      try {
+        apiResponse = execute(httpUriRequest, trafficClass, priority, current);
+      } catch (ApiCallException exception) {
+        // only the reads are sent again, the server may have done a write before failing
+        if (!canRetry || !(httpUriRequest instanceof HttpGet) || exception instanceof RequestCancelledException) {
+          throw exception;
+        }
+        LOG.debug("the request failed on execution {}, retrying: {}", numOfExecutions, exception.getMessage());
+        waitBeforeRetry(httpUriRequest, current.getMillisBetweenRetries());
+        continue;
+      }
 
+      if (!canRetry || !isRetryable(httpUriRequest, apiResponse.getHttpStatusCode())) {
+        if (numOfExecutions > 1) {
+          LOG.debug("the request has finished after {} executions with {} retries", numOfExecutions,
+              numOfExecutions - 1);
+        }
+        return apiResponse;
+      }
+      LOG.debug("the request got status code {} on execution {}, retrying", apiResponse.getHttpStatusCode().value(),
+          numOfExecutions);
+      waitBeforeRetry(httpUriRequest, retryDelay(apiResponse, current));
+    }
+  }
+
+  private ApiResponse execute(HttpUriRequest httpUriRequest, TrafficClass trafficClass, RequestPriority priority,
+      ApiClientConfig current) throws ApiCallException {
+    final ApiResponse apiResponse;
+    if (Thread.currentThread().isInterrupted()) {
+      throw new RequestCancelledException("Cancelled before sending the request");
+    }
     try {
-      //do {
-      httpResponse = httpClient.execute(httpUriRequest);
-      apiResponse = ApiResponseMapper.from(httpResponse); // parse
-//        numOfExecutions++; // increments the executions
-
-//        // Anti-Flood capability
-//        // applies after each request if enabled
-//        if (antiFloodEnabled) {
-//          LOG.debug("Anti flood enabled, waiting: {} seconds after the call", antiFloodValue / 1000);
-//          try {
-//            Thread.sleep(antiFloodValue);
-//          } catch (InterruptedException antiFloodInterruptedException) {
-//            LOG.error("Error while applying antiflood delay before request with message {}",
-//                antiFloodInterruptedException.getMessage());
-//          }
-//        }
-//        // End of Anti-Flood capability
-//
-//        // Check for the response of the request
-//        final int statusCode = httpResponse.getStatusLine().getStatusCode();
-//        // IF response is OK, get out
-//        if (apiResponse.getHttpStatusCode().is2xxSuccessful()) {
-//          if (retryOnFailureEnabled) {
-//            LOG.debug("the request has been OK after {} executions with {} retries", numOfExecutions,
-//                numOfExecutions - 1);
-//          }
-//          break; // return httpresponse
-//        } else { // In case KO...
-//          // In case of ERROR, if RetryOnFailure is not enabled, raise an exception
-//          if (!retryOnFailureEnabled) {
-//            throw new ApiCallException(
-//                "Received status code " + apiResponse.getHttpStatusCode().value() + " with content '"
-//                    + apiResponse.getBody() + "'");
-//          } else {
-//            // RetryOnFailure Enabled
-//            // in this case if i have consume all the retries, raise an exception
-//            if (numOfExecutions > this.numOfRetries) {
-//              throw new ApiCallException(
-//                  "After " + numOfExecutions + " executions and " + (numOfExecutions - 1) + " retries"
-//                      + " the Request still failing with  status code " + apiResponse.getHttpStatusCode().value()
-//                      + " and content '" + apiResponse.getBody() + "'");
-//            } else {
-//              // Little timing between retries
-//              try {
-//                Thread.sleep(this.millisBetweenRetries);
-//              } catch (InterruptedException e) {
-//                LOG.error("Error during wait between retries with message {}", e.getMessage());
-//              }
-//            }
-//          }
-//        }
-//      } while (retryOnFailureEnabled);
-    } catch (Exception exception) {
-      throw new ApiCallException(exception.getCause());
+      requestLimiter.acquire(trafficClass, priority);
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      throw new RequestCancelledException("Cancelled while waiting to send the request", interruptedException);
     }
+    InFlightRequests.register(httpUriRequest);
+    try {
+      if (current.isHedgingEnabled() && httpUriRequest instanceof HttpGet) {
+        apiResponse = requestHedger().execute((HttpGet) httpUriRequest, trafficClass, current);
+      } else {
+        apiResponse = ApiResponseMapper.from(httpClient.execute(httpUriRequest));
+      }
 
+      // Anti-Flood capability
+      // applies after each request if enabled, still holding the permit of the request
+      if (current.isAntiFloodEnabled()) {
+        LOG.debug("Anti flood enabled, waiting: {} seconds after the call", current.getAntiFloodValue() / 1000);
+        try {
+          Thread.sleep(current.getAntiFloodValue());
+        } catch (InterruptedException antiFloodInterruptedException) {
+          Thread.currentThread().interrupt();
+          LOG.error("Error while applying antiflood delay after request with message {}",
+              antiFloodInterruptedException.getMessage());
+        }
+      }
+    } catch (Exception exception) {
+      if (httpUriRequest.isAborted() || Thread.currentThread().isInterrupted()) {
+        // the connection of an aborted request is closed, not reused
+        throw new RequestCancelledException("Cancelled while waiting for the response", exception);
+      }
+      throw new ApiCallException(exception.getCause() != null ? exception.getCause() : exception);
+    } finally {
+      InFlightRequests.unregister(httpUriRequest);
+      requestLimiter.release(trafficClass);
+    }
     return apiResponse;
   }
 
+  private RequestHedger requestHedger() {
+    RequestHedger current = requestHedger;
+    if (current == null) {
+      configLock.lock();
+      try {
+        current = requestHedger;
+        if (current == null) {
+          current = new RequestHedger(httpClient, requestLimiter);
+          requestHedger = current;
+        }
+      } finally {
+        configLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  private static void applyTimeouts(HttpUriRequest httpUriRequest, ApiClientConfig current) {
+    if (!(httpUriRequest instanceof HttpRequestBase)
+        || (current.getConnectTimeoutMillis() == null && current.getSocketTimeoutMillis() == null)) {
+      return;
+    }
+    // -1 keeps the default of the http client
+    final int connectTimeout = (current.getConnectTimeoutMillis() != null) ? current.getConnectTimeoutMillis() : -1;
+    final int socketTimeout = (current.getSocketTimeoutMillis() != null) ? current.getSocketTimeoutMillis() : -1;
+    ((HttpRequestBase) httpUriRequest).setConfig(RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setConnectionRequestTimeout(connectTimeout)
+        .setSocketTimeout(socketTimeout)
+        .build());
+  }
+
+  private static boolean isRepeatable(HttpUriRequest httpUriRequest) {
+    if (httpUriRequest instanceof HttpEntityEnclosingRequest) {
+      final HttpEntity entity = ((HttpEntityEnclosingRequest) httpUriRequest).getEntity();
+      return entity == null || entity.isRepeatable();
+    }
+    return true;
+  }
+
+  // the server did not process a request rejected for flooding or unavailability, any other error only allows to
+  // repeat the reads
+  private static boolean isRetryable(HttpUriRequest httpUriRequest, HttpStatusCode statusCode) {
+    if (statusCode == HttpStatusCode.TOO_MANY_REQUEST || statusCode == HttpStatusCode.SERVICE_UNAVAILABLE) {
+      return true;
+    }
+    return statusCode.is5xxServerError() && httpUriRequest instanceof HttpGet;
+  }
+
+  // TestRail tells how many seconds to wait when it rejects a request for flooding
+  private static long retryDelay(ApiResponse apiResponse, ApiClientConfig current) {
+    final HttpResponse httpResponse = apiResponse.getUnderlyingHttpResponse();
+    final Header retryAfter = (httpResponse != null) ? httpResponse.getFirstHeader("Retry-After") : null;
+    if (retryAfter != null && retryAfter.getValue() != null) {
+      try {
+        final long retryAfterMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.getValue().trim()));
+        return Math.min(Math.max(retryAfterMillis, current.getMillisBetweenRetries()),
+            ApiClientConfig.MAX_MS_BETWEEN_RETRIES);
+      } catch (NumberFormatException numberFormatException) {
+        LOG.debug("Ignoring the Retry-After header {}", retryAfter.getValue());
+      }
+    }
+    return current.getMillisBetweenRetries();
+  }
+
+  private static void waitBeforeRetry(HttpUriRequest httpUriRequest, long millis) throws ApiCallException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      throw new RequestCancelledException("Cancelled while waiting to retry the request", interruptedException);
+    }
+    if (httpUriRequest instanceof HttpRequestBase) {
+      // releases anything left from the previous execution
+      ((HttpRequestBase) httpUriRequest).releaseConnection();
+    }
+  }
+
   /**
    * Builder class for API Client class.
    *
@@ -287,6 +785,18 @@ public class ApiClient {
     private Long millisBetweenRetries;
     private Boolean antiFloodEnabled = false;
     private Long antiFloodValue;
+    private Integer maxConcurrentRequests;
+    private Double requestsPerSecond;
+    private Integer connectTimeoutMillis;
+    private Integer socketTimeoutMillis;
+    private int[] bulkheadWeights;
+    private Long priorityAgingMillis;
+    private Double hedgingPercentile;
+    private Double hedgingBudget;
+    private Long negativeCacheTtlMillis;
+    private Long queryCacheTtlMillis;
+    private Long queryCacheMaximumEntities;
+    private boolean virtualThreads;
 
     /**
      * Sets TestRail instance url.
@@ -355,6 +865,113 @@ public class ApiClient {
       return this;
     }
 
+    /**
+     * Limits the requests sent to the server.
+     *
+     * @param maxConcurrentRequests maximum number of requests in flight (min 1, max 64)
+     * @param requestsPerSecond maximum number of requests per second, null to not limit the rate
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withRequestLimit(final Integer maxConcurrentRequests, final Double requestsPerSecond) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      this.requestsPerSecond = requestsPerSecond;
+      return this;
+    }
+
+    /**
+     * Sets the timeouts of the requests.
+     *
+     * @param connectTimeoutMillis maximum time to get a connection, null to use the default
+     * @param socketTimeoutMillis maximum time waiting for data from the server, null to use the default
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withTimeouts(final Integer connectTimeoutMillis, final Integer socketTimeoutMillis) {
+      this.connectTimeoutMillis = connectTimeoutMillis;
+      this.socketTimeoutMillis = socketTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * Splits the request limits between the read, write and bulk traffic, see
+     * {@link ApiClientConfig#withBulkheads(int, int, int)}.
+     *
+     * @param readWeight weight of the read traffic
+     * @param writeWeight weight of the write traffic
+     * @param bulkWeight weight of the bulk traffic
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withBulkheads(final int readWeight, final int writeWeight, final int bulkWeight) {
+      this.bulkheadWeights = new int[] {readWeight, writeWeight, bulkWeight};
+      return this;
+    }
+
+    /**
+     * Sets how long a waiting request needs to wait to gain a priority level.
+     *
+     * @param priorityAgingMillis milliseconds to wait to gain a priority level
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withPriorityAging(final Long priorityAgingMillis) {
+      this.priorityAgingMillis = priorityAgingMillis;
+      return this;
+    }
+
+    /**
+     * Hedges the slow GET requests, see {@link ApiClientConfig#withHedging(double, double)}.
+     *
+     * @param percentile percentile of the latencies to wait before hedging, like 95
+     * @param budget maximum fraction of extra requests, like 0.05
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withHedging(final double percentile, final double budget) {
+      this.hedgingPercentile = percentile;
+      this.hedgingBudget = budget;
+      return this;
+    }
+
+    /**
+     * Remembers the lookups answered with "invalid or unknown" for a while.
+     *
+     * @param ttlMillis time a failing lookup is remembered
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withNegativeCache(final Long ttlMillis) {
+      this.negativeCacheTtlMillis = ttlMillis;
+      return this;
+    }
+
+    /**
+     * Caches the results of the filtered list queries for a while.
+     *
+     * @param ttlMillis time a query result is kept
+     * @param maximumEntities maximum number of entities kept in all the query results, null for the default
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withQueryCache(final Long ttlMillis, final Long maximumEntities) {
+      this.queryCacheTtlMillis = ttlMillis;
+      this.queryCacheMaximumEntities = maximumEntities;
+      return this;
+    }
+
+    /**
+     * Runs the bulk operations on virtual threads when the JVM supports them (JDK 21 or newer).
+     *
+     * @param virtualThreads true to use virtual threads
+     * @return Builder pointer
+     * @since 0.3.1
+     */
+    public Builder withVirtualThreads(final boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
     /**
      * Build the API Client Object.
      *
@@ -364,13 +981,49 @@ public class ApiClient {
     public ApiClient build() {
       LOG.debug("Building an instance of ApiClient");
       ApiClient apiClient = new ApiClient(testRailUrl, username, accessKey);
+      ApiClientConfig config = ApiClientConfig.DEFAULT;
       if (retryOnFailure) {
         LOG.debug("adding retry support");
-        apiClient.enableRetryOnFailure(numOfRetries);
+        config = (millisBetweenRetries != null) ? config.withRetry(numOfRetries, millisBetweenRetries)
+            : config.withRetry(numOfRetries);
       }
       if (antiFloodEnabled) {
         LOG.debug("adding anti-flooding support");
-        apiClient.enableAntiFlooding(antiFloodValue);
+        config = config.withAntiFlood(antiFloodValue);
+      }
+      if (maxConcurrentRequests != null) {
+        LOG.debug("adding request limiting support");
+        config = config.withRequestLimit(maxConcurrentRequests, requestsPerSecond);
+      }
+      if (connectTimeoutMillis != null || socketTimeoutMillis != null) {
+        LOG.debug("adding timeouts");
+        config = config.withTimeouts(connectTimeoutMillis, socketTimeoutMillis);
+      }
+      if (bulkheadWeights != null) {
+        LOG.debug("adding bulkheads support");
+        config = config.withBulkheads(bulkheadWeights[0], bulkheadWeights[1], bulkheadWeights[2]);
+      }
+      if (priorityAgingMillis != null) {
+        LOG.debug("adding priority aging");
+        config = config.withPriorityAging(priorityAgingMillis);
+      }
+      if (hedgingPercentile != null) {
+        LOG.debug("adding hedging support");
+        config = config.withHedging(hedgingPercentile, hedgingBudget);
+      }
+      if (negativeCacheTtlMillis != null) {
+        LOG.debug("adding negative caching support");
+        config = config.withNegativeCache(negativeCacheTtlMillis);
+      }
+      if (queryCacheTtlMillis != null) {
+        LOG.debug("adding query caching support");
+        config = config.withQueryCache(queryCacheTtlMillis,
+            (queryCacheMaximumEntities != null) ? queryCacheMaximumEntities : 0L);
+      }
+      apiClient.setConfig(config);
+      if (virtualThreads) {
+        LOG.debug("adding virtual threads support");
+        apiClient.enableVirtualThreads();
       }
       return apiClient;
     }
@@ -0,0 +1,537 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import java.util.Arrays;
+
+/**
+ * Tuning of an {@link ApiClient}: retries, anti flooding, request limits, timeouts and caches. It is immutable, every
+ * change creates a new configuration, so a client publishes it atomically and every request works with a consistent
+ * one.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class ApiClientConfig {
+
+  static final long MIN_MS_BETWEEN_RETRIES = 250L /* 0,25s */;
+  static final long MAX_MS_BETWEEN_RETRIES = 60000L /* 1m */;
+  static final int MIN_RETRY_NUM = 1;
+  static final int MAX_RETRY_NUM = 20;
+  static final long MIN_FLOOD_VALUE = 1000L; /* 1s */
+  static final long MAX_FLOOD_VALUE = 60000L; /* 1m */
+  static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+  static final int MAX_CONCURRENT_REQUESTS = 64;
+  static final long DEFAULT_PRIORITY_AGING_MILLIS = 2000L; /* 2s */
+
+  /**
+   * Configuration of a new client: no retries, no anti flooding, {@code DEFAULT_MAX_CONCURRENT_REQUESTS} requests in
+   * flight, no rate limit and the timeouts of the http client.
+   */
+  public static final ApiClientConfig DEFAULT = new ApiClientConfig(new Settings());
+
+  private final boolean retryOnFailureEnabled;
+  private final int numOfRetries;
+  private final long millisBetweenRetries;
+  private final boolean antiFloodEnabled;
+  private final long antiFloodValue;
+  private final int maxConcurrentRequests;
+  //null when the rate is not limited
+  private final Double requestsPerSecond;
+  //null to use the timeouts of the http client
+  private final Integer connectTimeoutMillis;
+  private final Integer socketTimeoutMillis;
+  //weight of every traffic class by ordinal, null when there are no bulkheads
+  private final int[] bulkheadWeights;
+  private final long priorityAgingMillis;
+  //0 when the requests are not hedged
+  private final double hedgingPercentile;
+  private final double hedgingBudget;
+  //0 when the failing lookups are not cached
+  private final long negativeCacheTtlMillis;
+  //0 when the list queries are not cached
+  private final long queryCacheTtlMillis;
+  //0 for the default of the query cache
+  private final long queryCacheMaximumEntities;
+
+  private ApiClientConfig(final Settings settings) {
+    this.retryOnFailureEnabled = settings.retryOnFailureEnabled;
+    this.numOfRetries = settings.numOfRetries;
+    this.millisBetweenRetries = settings.millisBetweenRetries;
+    this.antiFloodEnabled = settings.antiFloodEnabled;
+    this.antiFloodValue = settings.antiFloodValue;
+    this.maxConcurrentRequests = settings.maxConcurrentRequests;
+    this.requestsPerSecond = settings.requestsPerSecond;
+    this.connectTimeoutMillis = settings.connectTimeoutMillis;
+    this.socketTimeoutMillis = settings.socketTimeoutMillis;
+    this.bulkheadWeights = settings.bulkheadWeights;
+    this.priorityAgingMillis = settings.priorityAgingMillis;
+    this.hedgingPercentile = settings.hedgingPercentile;
+    this.hedgingBudget = settings.hedgingBudget;
+    this.negativeCacheTtlMillis = settings.negativeCacheTtlMillis;
+    this.queryCacheTtlMillis = settings.queryCacheTtlMillis;
+    this.queryCacheMaximumEntities = settings.queryCacheMaximumEntities;
+  }
+
+  /**
+   * Copy of this configuration retrying the failed requests.
+   *
+   * @param numOfRetries number of retries before mark a failure (min {@code MIN_RETRY_NUM}, max {@code MAX_RETRY_NUM})
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withRetry(final int numOfRetries) {
+    return withRetry(numOfRetries, millisBetweenRetries);
+  }
+
+  /**
+   * Copy of this configuration retrying the failed requests.
+   *
+   * @param numOfRetries number of retries before mark a failure (min {@code MIN_RETRY_NUM}, max {@code MAX_RETRY_NUM})
+   * @param millisBetweenRetries number of milliseconds between retries (min {@code MIN_MS_BETWEEN_RETRIES}, max
+   * {@code MAX_MS_BETWEEN_RETRIES})
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withRetry(final int numOfRetries, final long millisBetweenRetries) {
+    final Settings settings = new Settings(this);
+    settings.retryOnFailureEnabled = true;
+    settings.numOfRetries = clamp(numOfRetries, MIN_RETRY_NUM, MAX_RETRY_NUM);
+    settings.millisBetweenRetries = clamp(millisBetweenRetries, MIN_MS_BETWEEN_RETRIES, MAX_MS_BETWEEN_RETRIES);
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration not retrying the failed requests.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutRetry() {
+    final Settings settings = new Settings(this);
+    settings.retryOnFailureEnabled = false;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration waiting after every call to the server.
+   *
+   * @param antiFloodValue milliseconds to wait after each call (min {@code MIN_FLOOD_VALUE}, max {@code
+   * MAX_FLOOD_VALUE})
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withAntiFlood(final long antiFloodValue) {
+    final Settings settings = new Settings(this);
+    settings.antiFloodEnabled = true;
+    settings.antiFloodValue = clamp(antiFloodValue, MIN_FLOOD_VALUE, MAX_FLOOD_VALUE);
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration not waiting after the calls to the server.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutAntiFlood() {
+    final Settings settings = new Settings(this);
+    settings.antiFloodEnabled = false;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration with other request limits. The connection pool and the executor of the client are
+   * sized to the number of concurrent requests.
+   *
+   * @param maxConcurrentRequests maximum number of requests in flight (min 1, max {@code MAX_CONCURRENT_REQUESTS})
+   * @param requestsPerSecond maximum number of requests per second, null to not limit the rate
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withRequestLimit(final int maxConcurrentRequests, final Double requestsPerSecond) {
+    if (requestsPerSecond != null && !(requestsPerSecond > 0)) {
+      throw new IllegalArgumentException("The requests per second must be positive, got " + requestsPerSecond);
+    }
+    final Settings settings = new Settings(this);
+    settings.maxConcurrentRequests = clamp(maxConcurrentRequests, 1, MAX_CONCURRENT_REQUESTS);
+    settings.requestsPerSecond = requestsPerSecond;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration with other timeouts.
+   *
+   * @param connectTimeoutMillis maximum time to get a connection, null to use the one of the http client
+   * @param socketTimeoutMillis maximum time waiting for data from the server, null to use the one of the http client
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withTimeouts(final Integer connectTimeoutMillis, final Integer socketTimeoutMillis) {
+    if ((connectTimeoutMillis != null && connectTimeoutMillis < 0)
+        || (socketTimeoutMillis != null && socketTimeoutMillis < 0)) {
+      throw new IllegalArgumentException("The timeouts can not be negative");
+    }
+    final Settings settings = new Settings(this);
+    settings.connectTimeoutMillis = connectTimeoutMillis;
+    settings.socketTimeoutMillis = socketTimeoutMillis;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration splitting the concurrent requests and the request rate between the traffic classes.
+   * Every class gets a share proportional to its weight, at least one request in flight, and can borrow the capacity
+   * the other classes are not using. Borrowed capacity is given back as soon as the requests using it finish.
+   *
+   * @param readWeight weight of the {@link TrafficClass#READ} traffic, at least 1
+   * @param writeWeight weight of the {@link TrafficClass#WRITE} traffic, at least 1
+   * @param bulkWeight weight of the {@link TrafficClass#BULK} traffic, at least 1
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withBulkheads(final int readWeight, final int writeWeight, final int bulkWeight) {
+    if (readWeight < 1 || writeWeight < 1 || bulkWeight < 1) {
+      throw new IllegalArgumentException("The bulkhead weights must be at least 1");
+    }
+    final int[] weights = new int[TrafficClass.values().length];
+    weights[TrafficClass.READ.ordinal()] = readWeight;
+    weights[TrafficClass.WRITE.ordinal()] = writeWeight;
+    weights[TrafficClass.BULK.ordinal()] = bulkWeight;
+    final Settings settings = new Settings(this);
+    settings.bulkheadWeights = weights;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration sharing the request limits between all the traffic.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutBulkheads() {
+    final Settings settings = new Settings(this);
+    settings.bulkheadWeights = null;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration with another aging period for the waiting requests. Every period a request waits, it
+   * gains a priority level.
+   *
+   * @param priorityAgingMillis milliseconds to wait to gain a priority level, at least 1
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withPriorityAging(final long priorityAgingMillis) {
+    if (priorityAgingMillis < 1) {
+      throw new IllegalArgumentException("The priority aging period must be positive, got " + priorityAgingMillis);
+    }
+    final Settings settings = new Settings(this);
+    settings.priorityAgingMillis = priorityAgingMillis;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration hedging the GET requests: when a request gets no response within the given percentile
+   * of the recent latencies of its endpoint, the same request is sent again and the first response is used.
+   *
+   * @param percentile percentile of the latencies to wait before hedging, like 95 (more than 0, less than 100)
+   * @param budget maximum fraction of extra requests, like 0.05 for 5% (more than 0, at most 1)
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withHedging(final double percentile, final double budget) {
+    if (!(percentile > 0 && percentile < 100) || !(budget > 0 && budget <= 1)) {
+      throw new IllegalArgumentException(
+          "The hedging percentile must be in (0, 100) and its budget in (0, 1], got " + percentile + " and " + budget);
+    }
+    final Settings settings = new Settings(this);
+    settings.hedgingPercentile = percentile;
+    settings.hedgingBudget = budget;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration not hedging the requests.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutHedging() {
+    final Settings settings = new Settings(this);
+    settings.hedgingPercentile = 0;
+    settings.hedgingBudget = 0;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration caching the lookups answered with "invalid or unknown".
+   *
+   * @param ttlMillis time a failing lookup is remembered
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withNegativeCache(final long ttlMillis) {
+    if (ttlMillis <= 0) {
+      throw new IllegalArgumentException("The time to live of the negative cache must be positive, got " + ttlMillis);
+    }
+    final Settings settings = new Settings(this);
+    settings.negativeCacheTtlMillis = ttlMillis;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration not caching the failing lookups.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutNegativeCache() {
+    final Settings settings = new Settings(this);
+    settings.negativeCacheTtlMillis = 0;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration caching the results of the filtered list queries.
+   *
+   * @param ttlMillis time a query result is kept
+   * @param maximumEntities maximum number of entities kept in all the query results, 0 for the default
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withQueryCache(final long ttlMillis, final long maximumEntities) {
+    if (ttlMillis <= 0 || maximumEntities < 0) {
+      throw new IllegalArgumentException("The time to live of the query cache must be positive and its size can not be"
+          + " negative, got " + ttlMillis + " and " + maximumEntities);
+    }
+    final Settings settings = new Settings(this);
+    settings.queryCacheTtlMillis = ttlMillis;
+    settings.queryCacheMaximumEntities = maximumEntities;
+    return new ApiClientConfig(settings);
+  }
+
+  /**
+   * Copy of this configuration not caching the list queries.
+   *
+   * @return the new configuration
+   * @since 0.3.1
+   */
+  public ApiClientConfig withoutQueryCache() {
+    final Settings settings = new Settings(this);
+    settings.queryCacheTtlMillis = 0;
+    settings.queryCacheMaximumEntities = 0;
+    return new ApiClientConfig(settings);
+  }
+
+  public boolean isRetryOnFailureEnabled() {
+    return retryOnFailureEnabled;
+  }
+
+  public int getNumOfRetries() {
+    return numOfRetries;
+  }
+
+  public long getMillisBetweenRetries() {
+    return millisBetweenRetries;
+  }
+
+  public boolean isAntiFloodEnabled() {
+    return antiFloodEnabled;
+  }
+
+  public long getAntiFloodValue() {
+    return antiFloodValue;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  public Double getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  public Integer getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public Integer getSocketTimeoutMillis() {
+    return socketTimeoutMillis;
+  }
+
+  public long getPriorityAgingMillis() {
+    return priorityAgingMillis;
+  }
+
+  public boolean isHedgingEnabled() {
+    return hedgingPercentile > 0;
+  }
+
+  public double getHedgingPercentile() {
+    return hedgingPercentile;
+  }
+
+  public double getHedgingBudget() {
+    return hedgingBudget;
+  }
+
+  public long getNegativeCacheTtlMillis() {
+    return negativeCacheTtlMillis;
+  }
+
+  public long getQueryCacheTtlMillis() {
+    return queryCacheTtlMillis;
+  }
+
+  public long getQueryCacheMaximumEntities() {
+    return queryCacheMaximumEntities;
+  }
+
+  public boolean isBulkheadsEnabled() {
+    return bulkheadWeights != null;
+  }
+
+  /**
+   * Gets the weight of a traffic class in the bulkheads.
+   *
+   * @param trafficClass the traffic class
+   * @return the weight, 0 if the bulkheads are not enabled
+   * @since 0.3.1
+   */
+  public int getBulkheadWeight(final TrafficClass trafficClass) {
+    return (bulkheadWeights != null) ? bulkheadWeights[trafficClass.ordinal()] : 0;
+  }
+
+  /**
+   * Gets the requests in flight reserved to a traffic class.
+   *
+   * @param trafficClass the traffic class
+   * @return its share of the concurrent requests, the maximum of concurrent requests if the bulkheads are not enabled
+   * @since 0.3.1
+   */
+  public int getConcurrencyShare(final TrafficClass trafficClass) {
+    if (bulkheadWeights == null) {
+      return maxConcurrentRequests;
+    }
+    return Math.max(1, maxConcurrentRequests * bulkheadWeights[trafficClass.ordinal()] / totalWeight());
+  }
+
+  /**
+   * Gets the requests per second reserved to a traffic class.
+   *
+   * @param trafficClass the traffic class
+   * @return its share of the request rate, null if the rate is not limited
+   * @since 0.3.1
+   */
+  public Double getRateShare(final TrafficClass trafficClass) {
+    if (requestsPerSecond == null || bulkheadWeights == null) {
+      return requestsPerSecond;
+    }
+    return requestsPerSecond * bulkheadWeights[trafficClass.ordinal()] / totalWeight();
+  }
+
+  private int totalWeight() {
+    int total = 0;
+    for (int weight : bulkheadWeights) {
+      total += weight;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return "ApiClientConfig{"
+        + "retryOnFailureEnabled=" + retryOnFailureEnabled
+        + ", numOfRetries=" + numOfRetries
+        + ", millisBetweenRetries=" + millisBetweenRetries
+        + ", antiFloodEnabled=" + antiFloodEnabled
+        + ", antiFloodValue=" + antiFloodValue
+        + ", maxConcurrentRequests=" + maxConcurrentRequests
+        + ", requestsPerSecond=" + requestsPerSecond
+        + ", connectTimeoutMillis=" + connectTimeoutMillis
+        + ", socketTimeoutMillis=" + socketTimeoutMillis
+        + ", bulkheadWeights=" + Arrays.toString(bulkheadWeights)
+        + ", priorityAgingMillis=" + priorityAgingMillis
+        + ", hedgingPercentile=" + hedgingPercentile
+        + ", hedgingBudget=" + hedgingBudget
+        + ", negativeCacheTtlMillis=" + negativeCacheTtlMillis
+        + ", queryCacheTtlMillis=" + queryCacheTtlMillis
+        + ", queryCacheMaximumEntities=" + queryCacheMaximumEntities
+        + '}';
+  }
+
+  private static int clamp(final int value, final int min, final int max) {
+    return (value < min) ? min : (value > max) ? max : value;
+  }
+
+  private static long clamp(final long value, final long min, final long max) {
+    return (value < min) ? min : (value > max) ? max : value;
+  }
+
+  /**
+   * Values of a configuration being created.
+   */
+  private static final class Settings {
+
+    private boolean retryOnFailureEnabled = false;
+    private int numOfRetries = MIN_RETRY_NUM;
+    private long millisBetweenRetries = MIN_MS_BETWEEN_RETRIES;
+    private boolean antiFloodEnabled = false;
+    private long antiFloodValue = MIN_FLOOD_VALUE;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private Double requestsPerSecond;
+    private Integer connectTimeoutMillis;
+    private Integer socketTimeoutMillis;
+    private int[] bulkheadWeights;
+    private long priorityAgingMillis = DEFAULT_PRIORITY_AGING_MILLIS;
+    private double hedgingPercentile;
+    private double hedgingBudget;
+    private long negativeCacheTtlMillis;
+    private long queryCacheTtlMillis;
+    private long queryCacheMaximumEntities;
+
+    private Settings() {
+    }
+
+    private Settings(final ApiClientConfig config) {
+      this.retryOnFailureEnabled = config.retryOnFailureEnabled;
+      this.numOfRetries = config.numOfRetries;
+      this.millisBetweenRetries = config.millisBetweenRetries;
+      this.antiFloodEnabled = config.antiFloodEnabled;
+      this.antiFloodValue = config.antiFloodValue;
+      this.maxConcurrentRequests = config.maxConcurrentRequests;
+      this.requestsPerSecond = config.requestsPerSecond;
+      this.connectTimeoutMillis = config.connectTimeoutMillis;
+      this.socketTimeoutMillis = config.socketTimeoutMillis;
+      this.bulkheadWeights = config.bulkheadWeights;
+      this.priorityAgingMillis = config.priorityAgingMillis;
+      this.hedgingPercentile = config.hedgingPercentile;
+      this.hedgingBudget = config.hedgingBudget;
+      this.negativeCacheTtlMillis = config.negativeCacheTtlMillis;
+      this.queryCacheTtlMillis = config.queryCacheTtlMillis;
+      this.queryCacheMaximumEntities = config.queryCacheMaximumEntities;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.apiClient;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ties a call run in another thread to whoever may cancel it, like the future of the call.
+ *
+ * <p>Cancelling the call interrupts the thread running it, which aborts the request it has in flight or stops it
+ * waiting to send one, and makes the call fail with a {@link RequestCancelledException}. The interrupt is cleared when
+ * the call finishes, so the thread can go on running other tasks.</p>
+ *
+ * <pre>
+ * if (call.start()) {
+ *   try {
+ *     // send the requests
+ *   } finally {
+ *     call.finish();
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class CancellableCall {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private Thread runner;
+  private volatile boolean cancelled;
+  private boolean interrupted;
+
+  /**
+   * Marks the current thread as the one running the call.
+   *
+   * @return false if the call was cancelled and must not run
+   */
+  public boolean start() {
+    lock.lock();
+    try {
+      if (cancelled) {
+        return false;
+      }
+      runner = Thread.currentThread();
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks the end of the run of the call in the current thread, clearing the interrupt of a cancellation.
+   */
+  public void finish() {
+    lock.lock();
+    try {
+      runner = null;
+      if (interrupted) {
+        interrupted = false;
+        Thread.interrupted();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Cancels the call, interrupting the thread running it. A call that has not started will not run.
+   */
+  public void cancel() {
+    lock.lock();
+    try {
+      cancelled = true;
+      if (runner != null && !interrupted) {
+        interrupted = true;
+        runner.interrupt();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+}
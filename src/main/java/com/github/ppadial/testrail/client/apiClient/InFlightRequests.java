@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.apiClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Registry of the requests in flight and the threads waiting for them, aborting the requests of the interrupted
+ * threads.
+ *
+ * <p>A blocking http exchange does not notice the interrupts of its thread, so a watchdog checks the waiting threads
+ * while there are requests in flight. Aborting a request shuts down its connection, which is released to the pool
+ * without being reused.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+final class InFlightRequests {
+
+  private static final long CHECK_INTERVAL_MILLIS = 10;
+
+  private static final Map<HttpUriRequest, Thread> IN_FLIGHT = new ConcurrentHashMap<HttpUriRequest, Thread>();
+  private static final AtomicBoolean WATCHING = new AtomicBoolean();
+  private static final ScheduledExecutorService WATCHDOG = newWatchdog();
+
+  private InFlightRequests() {
+  }
+
+  /**
+   * Registers a request sent from the current thread, aborting it at once if the thread is already interrupted.
+   *
+   * @param request the request
+   */
+  static void register(final HttpUriRequest request) {
+    final Thread thread = Thread.currentThread();
+    IN_FLIGHT.put(request, thread);
+    if (thread.isInterrupted()) {
+      request.abort();
+    }
+    if (WATCHING.compareAndSet(false, true)) {
+      WATCHDOG.schedule(InFlightRequests::check, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Unregisters a finished request.
+   *
+   * @param request the request
+   */
+  static void unregister(final HttpUriRequest request) {
+    IN_FLIGHT.remove(request);
+  }
+
+  private static void check() {
+    for (Map.Entry<HttpUriRequest, Thread> entry : IN_FLIGHT.entrySet()) {
+      if (entry.getValue().isInterrupted() && !entry.getKey().isAborted()) {
+        entry.getKey().abort();
+      }
+    }
+    if (IN_FLIGHT.isEmpty()) {
+      WATCHING.set(false);
+      // a request registered meanwhile may have seen the watchdog still running
+      if (IN_FLIGHT.isEmpty() || !WATCHING.compareAndSet(false, true)) {
+        return;
+      }
+    }
+    WATCHDOG.schedule(InFlightRequests::check, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  private static ScheduledExecutorService newWatchdog() {
+    final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+      final Thread thread = new Thread(runnable, "testrail-client-cancellation-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    watchdog.setRemoveOnCancelPolicy(true);
+    return watchdog;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Request entity that serializes an object as UTF-8 json directly into the connection output stream.
+ *
+ * <p>The body is never materialized as a {@code String}, it is written while it is serialized and sent with chunked
+ * transfer encoding. The entity is repeatable, every write serializes the object again.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class JsonStreamingEntity extends AbstractHttpEntity {
+
+  private final ObjectMapper objectMapper;
+  private final Object body;
+
+  /**
+   * Creates a new entity.
+   *
+   * @param objectMapper mapper used to serialize the body
+   * @param body the object to send as json
+   * @since 0.3.1
+   */
+  public JsonStreamingEntity(final ObjectMapper objectMapper, final Object body) {
+    this.objectMapper = objectMapper;
+    this.body = body;
+    setContentType(ContentType.APPLICATION_JSON.toString());
+    setChunked(true);
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    // unknown until it is serialized, sent chunked
+    return -1;
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    return new ByteArrayInputStream(objectMapper.writeValueAsBytes(body));
+  }
+
+  @Override
+  public void writeTo(final OutputStream outputStream) throws IOException {
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+      // the connection owns the stream, closing the generator must only flush it
+      jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      objectMapper.writeValue(jsonGenerator, body);
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+
+/**
+ * Sends GET requests with hedging. When no response arrives within the usual latency of the endpoint (a percentile
+ * of its recent latencies), a second identical request is sent and the first response wins; the other request is
+ * aborted. The second request takes a different pooled connection, so a load balancer in front of the TestRail
+ * instance usually sends it to another node.
+ *
+ * <p>The hedges are limited by a budget: every request earns a fraction of a hedge, and a hedge is only sent if there
+ * is a whole one saved, a free request slot and spare request rate.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+final class RequestHedger {
+
+  private static final String API_PATH = "api/v2/";
+  //latencies kept per endpoint, and needed before hedging its requests
+  private static final int SAMPLES = 512;
+  private static final int MIN_SAMPLES = 20;
+  //the percentile is computed again after these many new latencies
+  private static final int RECOMPUTE_EVERY = 32;
+  //budget in thousandths of a hedge, at most this many hedges can be saved for a burst
+  private static final long BUDGET_UNIT = 1000;
+  private static final long MAX_BUDGET = 10 * BUDGET_UNIT;
+
+  private final HttpClient httpClient;
+  private final RequestLimiter requestLimiter;
+  private final ConcurrentMap<String, LatencyTracker> latencies = new ConcurrentHashMap<String, LatencyTracker>();
+  private final AtomicLong budget = new AtomicLong(BUDGET_UNIT);
+  private final AtomicLong hedges = new AtomicLong();
+  private final ReentrantLock threadsLock = new ReentrantLock();
+  private volatile ScheduledThreadPoolExecutor timer;
+  private volatile ExecutorService hedgeExecutor;
+
+  RequestHedger(final HttpClient httpClient, final RequestLimiter requestLimiter) {
+    this.httpClient = httpClient;
+    this.requestLimiter = requestLimiter;
+  }
+
+  /**
+   * Sends a GET request, hedging it if it is slow. The caller holds the request slot of the first request.
+   *
+   * @param request the request
+   * @param trafficClass traffic class of the request
+   * @param config configuration with the hedging percentile and budget
+   * @return the first response
+   * @throws Exception the error of the request, if both requests failed the error of the last one
+   */
+  ApiResponse execute(final HttpGet request, final TrafficClass trafficClass, final ApiClientConfig config)
+      throws Exception {
+    earnBudget(config.getHedgingBudget());
+    final LatencyTracker tracker = latencies.computeIfAbsent(endpointOf(request), endpoint -> new LatencyTracker());
+    final long delayNanos = tracker.percentile(config.getHedgingPercentile());
+    if (delayNanos < 0) {
+      // not enough latencies known yet
+      final long start = System.nanoTime();
+      final ApiResponse apiResponse = ApiResponseMapper.from(httpClient.execute(request));
+      tracker.record(System.nanoTime() - start);
+      return apiResponse;
+    }
+
+    final CompletableFuture<ApiResponse> result = new CompletableFuture<ApiResponse>();
+    final AtomicInteger pendingAttempts = new AtomicInteger(1);
+    final AtomicReference<HttpGet> hedgeRequest = new AtomicReference<HttpGet>();
+    final ScheduledFuture<?> hedgeLaunch = timer().schedule(() -> {
+      if (result.isDone() || !takeBudget()) {
+        return;
+      }
+      if (!requestLimiter.tryAcquire(trafficClass)) {
+        giveBackBudget();
+        return;
+      }
+      pendingAttempts.incrementAndGet();
+      if (result.isDone()) {
+        // the first request finished meanwhile
+        pendingAttempts.decrementAndGet();
+        requestLimiter.release(trafficClass);
+        giveBackBudget();
+        return;
+      }
+      hedges.incrementAndGet();
+      final HttpGet hedge = copyOf(request);
+      hedgeRequest.set(hedge);
+      hedgeExecutor().execute(() -> {
+        try {
+          attempt(hedge, request, result, pendingAttempts, tracker);
+        } finally {
+          requestLimiter.release(trafficClass);
+        }
+      });
+    }, delayNanos, TimeUnit.NANOSECONDS);
+
+    attempt(request, null, result, pendingAttempts, tracker);
+    hedgeLaunch.cancel(false);
+    final HttpGet hedge = hedgeRequest.get();
+    if (hedge != null && (Thread.currentThread().isInterrupted()
+        || result.isDone() && !result.isCompletedExceptionally())) {
+      // the hedge lost, already won and this is a no-op, or the request was cancelled
+      hedge.abort();
+    }
+    try {
+      return result.get();
+    } catch (InterruptedException interruptedException) {
+      // cancelled while the hedge runs, the first request already finished
+      result.completeExceptionally(interruptedException);
+      final HttpGet pendingHedge = hedgeRequest.get();
+      if (pendingHedge != null) {
+        pendingHedge.abort();
+      }
+      Thread.currentThread().interrupt();
+      throw new RequestCancelledException("Cancelled while waiting for the hedged response", interruptedException);
+    } catch (ExecutionException executionException) {
+      throw (executionException.getCause() instanceof Exception) ? (Exception) executionException.getCause()
+          : executionException;
+    }
+  }
+
+  // the loser is only known for the hedge, the primary request learns it lost from the result
+  private void attempt(final HttpGet request, final HttpGet other, final CompletableFuture<ApiResponse> result,
+      final AtomicInteger pendingAttempts, final LatencyTracker tracker) {
+    final long start = System.nanoTime();
+    try {
+      final ApiResponse apiResponse = ApiResponseMapper.from(httpClient.execute(request));
+      tracker.record(System.nanoTime() - start);
+      if (result.complete(apiResponse) && other != null) {
+        other.abort();
+      }
+    } catch (Exception exception) {
+      if (pendingAttempts.decrementAndGet() == 0) {
+        result.completeExceptionally(exception);
+      }
+    }
+  }
+
+  /**
+   * Gets the number of hedges sent.
+   *
+   * @return the hedges sent since the client was created
+   */
+  long getHedges() {
+    return hedges.get();
+  }
+
+  private void earnBudget(final double fraction) {
+    final long earned = Math.max(1, Math.round(fraction * BUDGET_UNIT));
+    budget.getAndUpdate(current -> Math.min(MAX_BUDGET, current + earned));
+  }
+
+  private boolean takeBudget() {
+    while (true) {
+      final long current = budget.get();
+      if (current < BUDGET_UNIT) {
+        return false;
+      }
+      if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+        return true;
+      }
+    }
+  }
+
+  private void giveBackBudget() {
+    budget.getAndUpdate(current -> Math.min(MAX_BUDGET, current + BUDGET_UNIT));
+  }
+
+  private static HttpGet copyOf(final HttpGet request) {
+    final HttpGet copy = new HttpGet(request.getURI());
+    copy.setHeaders(request.getAllHeaders());
+    copy.setConfig(request.getConfig());
+    return copy;
+  }
+
+  // get_tests/1&limit=250 -> get_tests
+  private static String endpointOf(final HttpGet request) {
+    final String uri = request.getURI().toString();
+    final int apiPath = uri.indexOf(API_PATH);
+    final int start = (apiPath >= 0) ? apiPath + API_PATH.length() : 0;
+    int end = start;
+    while (end < uri.length() && uri.charAt(end) != '/' && uri.charAt(end) != '&') {
+      end++;
+    }
+    return uri.substring(start, end);
+  }
+
+  private ScheduledThreadPoolExecutor timer() {
+    ScheduledThreadPoolExecutor current = timer;
+    if (current == null) {
+      threadsLock.lock();
+      try {
+        current = timer;
+        if (current == null) {
+          current = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "testrail-client-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+          });
+          current.setRemoveOnCancelPolicy(true);
+          timer = current;
+        }
+      } finally {
+        threadsLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  private ExecutorService hedgeExecutor() {
+    ExecutorService current = hedgeExecutor;
+    if (current == null) {
+      threadsLock.lock();
+      try {
+        current = hedgeExecutor;
+        if (current == null) {
+          final AtomicInteger threadCount = new AtomicInteger();
+          current = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "testrail-client-hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+          hedgeExecutor = current;
+        }
+      } finally {
+        threadsLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Recent latencies of an endpoint.
+   */
+  private static final class LatencyTracker {
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+    //recomputed every RECOMPUTE_EVERY latencies, -1 while there are not enough of them
+    private volatile long cachedPercentile = -1;
+    private volatile double cachedFor = -1;
+    private volatile long cachedAt = -1;
+
+    void record(final long latencyNanos) {
+      final long count = recorded.getAndIncrement();
+      samples.set((int) (count % SAMPLES), latencyNanos);
+    }
+
+    long percentile(final double percentile) {
+      final long count = recorded.get();
+      if (count < MIN_SAMPLES) {
+        return -1;
+      }
+      if (cachedFor == percentile && cachedAt >= 0 && count - cachedAt < RECOMPUTE_EVERY) {
+        return cachedPercentile;
+      }
+      final int size = (int) Math.min(count, SAMPLES);
+      final long[] sorted = new long[size];
+      for (int i = 0; i < size; i++) {
+        sorted[i] = samples.get(i);
+      }
+      Arrays.sort(sorted);
+      final int index = (int) Math.min(size - 1, Math.ceil(percentile / 100 * size) - 1);
+      final long value = sorted[Math.max(0, index)];
+      cachedPercentile = value;
+      cachedFor = percentile;
+      cachedAt = count;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedules the requests sent to the TestRail instance within its limits, both in number of concurrent requests and,
+ * optionally, in requests per second. The limits can be changed while requests are in flight: the requests already
+ * sent finish normally and the new limits apply to the ones still waiting.
+ *
+ * <p>With bulkheads, every {@link TrafficClass} has a reserved share of the concurrent requests and of the rate. A
+ * class can borrow the share of the other classes while they are not using it, but never the part a waiting request
+ * of its owner could take.
+ *
+ * <p>The waiting requests are queued by {@link RequestPriority} and traffic class. A free slot goes to the request
+ * with the highest priority that can be sent, the oldest one on ties. Every aging period waited raises the priority of
+ * a request one level, so the low priority work is never starved. The {@link RequestPriority#LOW} requests only take
+ * the request rate nobody else is using, until they age.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+final class RequestLimiter {
+
+  private static final TrafficClass[] TRAFFIC_CLASSES = TrafficClass.values();
+  private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+  private static final long MAX_SPARE_RATE_POLL_MILLIS = 100;
+  //longest uninterruptible wait for a rate token, while holding a request slot
+  private static final long RATE_WAIT_STEP_MILLIS = 10;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  //one FIFO queue per priority and traffic class, see queue()
+  private final List<ArrayDeque<Waiter>> queues =
+      new ArrayList<ArrayDeque<Waiter>>(PRIORITIES.length * TRAFFIC_CLASSES.length);
+  private final int[] inFlight = new int[TRAFFIC_CLASSES.length];
+  private final int[] waiting = new int[TRAFFIC_CLASSES.length];
+  private int totalInFlight;
+  private int maxConcurrentRequests;
+  //null when there are no bulkheads
+  private int[] concurrencyShares;
+  private volatile long agingNanos;
+  //one per traffic class with bulkheads, a single shared one without them, null when the rate is not limited
+  private volatile RateLimiter[] rateLimiters;
+
+  /**
+   * Creates a new limiter.
+   *
+   * @param config configuration with the limits
+   */
+  RequestLimiter(final ApiClientConfig config) {
+    for (int i = 0; i < PRIORITIES.length * TRAFFIC_CLASSES.length; i++) {
+      queues.add(new ArrayDeque<Waiter>());
+    }
+    update(config);
+  }
+
+  /**
+   * Changes the limits. When the number of concurrent requests shrinks, the requests in flight keep their permits and
+   * no new request is sent until enough of them finish.
+   *
+   * @param config configuration with the new limits
+   */
+  void update(final ApiClientConfig config) {
+    lock.lock();
+    try {
+      maxConcurrentRequests = config.getMaxConcurrentRequests();
+      if (config.isBulkheadsEnabled()) {
+        concurrencyShares = new int[TRAFFIC_CLASSES.length];
+        for (TrafficClass trafficClass : TRAFFIC_CLASSES) {
+          concurrencyShares[trafficClass.ordinal()] = config.getConcurrencyShare(trafficClass);
+        }
+      } else {
+        concurrencyShares = null;
+      }
+      agingNanos = TimeUnit.MILLISECONDS.toNanos(config.getPriorityAgingMillis());
+      rateLimiters = updateRateLimiters(rateLimiters, config);
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // keeps the existing limiters when possible, so the requests waiting on them see the new rate
+  private static RateLimiter[] updateRateLimiters(final RateLimiter[] current, final ApiClientConfig config) {
+    if (config.getRequestsPerSecond() == null) {
+      return null;
+    }
+    final int size = config.isBulkheadsEnabled() ? TRAFFIC_CLASSES.length : 1;
+    final RateLimiter[] updated = new RateLimiter[size];
+    for (int i = 0; i < size; i++) {
+      final double rate = config.getRateShare(TRAFFIC_CLASSES[i]);
+      if (current != null && current.length == size) {
+        updated[i] = current[i];
+        if (updated[i].getRate() != rate) {
+          updated[i].setRate(rate);
+        }
+      } else {
+        updated[i] = RateLimiter.create(rate);
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * Waits until a new request can be sent.
+   *
+   * @param trafficClass traffic class of the request
+   * @param priority priority of the request
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  void acquire(final TrafficClass trafficClass, final RequestPriority priority) throws InterruptedException {
+    final int index = trafficClass.ordinal();
+    final long enqueuedNanos = System.nanoTime();
+    if (priority == RequestPriority.LOW) {
+      // before taking a slot, so the low priority requests do not hold them while waiting for spare rate
+      acquireSpareRate(index, enqueuedNanos);
+    }
+
+    lock.lock();
+    try {
+      final Waiter waiter = new Waiter(index, priority, enqueuedNanos, lock.newCondition());
+      queue(priority, index).addLast(waiter);
+      waiting[index]++;
+      dispatch();
+      while (!waiter.granted) {
+        try {
+          waiter.turn.await();
+        } catch (InterruptedException interruptedException) {
+          if (waiter.granted) {
+            inFlight[index]--;
+            totalInFlight--;
+          } else {
+            queue(priority, index).remove(waiter);
+            waiting[index]--;
+          }
+          dispatch();
+          throw interruptedException;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (priority != RequestPriority.LOW) {
+      try {
+        acquireRate(index);
+      } catch (InterruptedException interruptedException) {
+        release(trafficClass);
+        throw interruptedException;
+      }
+    }
+  }
+
+  /**
+   * Takes a request slot and a request rate token only if both are free right now and no other request is waiting for
+   * them, for the optional requests like the hedges.
+   *
+   * @param trafficClass traffic class of the request
+   * @return true if the request can be sent, release it when done; false if it should not be sent
+   */
+  boolean tryAcquire(final TrafficClass trafficClass) {
+    final int index = trafficClass.ordinal();
+    lock.lock();
+    try {
+      for (int waitingRequests : waiting) {
+        if (waitingRequests > 0) {
+          return false;
+        }
+      }
+      if (!canSend(index)) {
+        return false;
+      }
+      inFlight[index]++;
+      totalInFlight++;
+    } finally {
+      lock.unlock();
+    }
+    final RateLimiter[] current = rateLimiters;
+    if (current != null && !tryAcquireRate(current, index)) {
+      release(trafficClass);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Notifies that a request is finished.
+   *
+   * @param trafficClass traffic class of the request
+   */
+  void release(final TrafficClass trafficClass) {
+    lock.lock();
+    try {
+      inFlight[trafficClass.ordinal()]--;
+      totalInFlight--;
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int getMaxConcurrentRequests() {
+    lock.lock();
+    try {
+      return maxConcurrentRequests;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private ArrayDeque<Waiter> queue(final RequestPriority priority, final int trafficClass) {
+    return queues.get(priority.ordinal() * TRAFFIC_CLASSES.length + trafficClass);
+  }
+
+  // gives the free slots to the waiting requests, by effective priority and then by age
+  private void dispatch() {
+    while (totalInFlight < maxConcurrentRequests) {
+      final long now = System.nanoTime();
+      Waiter next = null;
+      int nextLevel = Integer.MAX_VALUE;
+      for (ArrayDeque<Waiter> queue : queues) {
+        final Waiter head = queue.peekFirst();
+        if (head == null || !canSend(head.trafficClass)) {
+          continue;
+        }
+        final int level = effectiveLevel(head, now);
+        if (next == null || level < nextLevel || (level == nextLevel && head.enqueuedNanos - next.enqueuedNanos < 0)) {
+          next = head;
+          nextLevel = level;
+        }
+      }
+      if (next == null) {
+        return;
+      }
+      queue(next.priority, next.trafficClass).removeFirst();
+      waiting[next.trafficClass]--;
+      inFlight[next.trafficClass]++;
+      totalInFlight++;
+      next.granted = true;
+      next.turn.signal();
+    }
+  }
+
+  private int effectiveLevel(final Waiter waiter, final long now) {
+    final long aged = (agingNanos > 0) ? (now - waiter.enqueuedNanos) / agingNanos : 0;
+    return (int) Math.max(0, waiter.priority.ordinal() - aged);
+  }
+
+  private boolean canSend(final int index) {
+    if (totalInFlight >= maxConcurrentRequests) {
+      return false;
+    }
+    if (concurrencyShares == null || inFlight[index] < concurrencyShares[index]) {
+      return true;
+    }
+    // borrows the free capacity, except the unused share of the classes with requests waiting for it
+    int reserved = 0;
+    for (int other = 0; other < concurrencyShares.length; other++) {
+      if (other != index && waiting[other] > 0) {
+        reserved += Math.max(0, concurrencyShares[other] - inFlight[other]);
+      }
+    }
+    return maxConcurrentRequests - totalInFlight > reserved;
+  }
+
+  // waits in short steps, as the rate limiter waits are not interruptible
+  private void acquireRate(final int index) throws InterruptedException {
+    while (true) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      final RateLimiter[] current = rateLimiters;
+      if (current == null || tryAcquireRate(current, index)
+          || current[(current.length == 1) ? 0 : index].tryAcquire(RATE_WAIT_STEP_MILLIS, TimeUnit.MILLISECONDS)) {
+        return;
+      }
+      Thread.sleep(RATE_WAIT_STEP_MILLIS);
+    }
+  }
+
+  // waits for a token nobody reserved, or for its turn once the request aged
+  private void acquireSpareRate(final int index, final long enqueuedNanos) throws InterruptedException {
+    while (true) {
+      final RateLimiter[] current = rateLimiters;
+      if (current == null || tryAcquireRate(current, index)) {
+        return;
+      }
+      if (System.nanoTime() - enqueuedNanos >= agingNanos) {
+        acquireRate(index);
+        return;
+      }
+      final RateLimiter own = current[(current.length == 1) ? 0 : index];
+      Thread.sleep(Math.max(1, Math.min(MAX_SPARE_RATE_POLL_MILLIS, (long) (1000 / own.getRate()))));
+    }
+  }
+
+  private static boolean tryAcquireRate(final RateLimiter[] current, final int index) {
+    if (current.length == 1) {
+      return current[0].tryAcquire();
+    }
+    if (current[index].tryAcquire()) {
+      return true;
+    }
+    // borrows the rate the other classes are not using
+    for (int other = 0; other < current.length; other++) {
+      if (other != index && current[other].tryAcquire()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A request waiting to be sent.
+   */
+  private static final class Waiter {
+
+    private final int trafficClass;
+    private final RequestPriority priority;
+    private final long enqueuedNanos;
+    private final Condition turn;
+    //guarded by the lock of the limiter
+    private boolean granted;
+
+    private Waiter(final int trafficClass, final RequestPriority priority, final long enqueuedNanos,
+        final Condition turn) {
+      this.trafficClass = trafficClass;
+      this.priority = priority;
+      this.enqueuedNanos = enqueuedNanos;
+      this.turn = turn;
+    }
+  }
+}
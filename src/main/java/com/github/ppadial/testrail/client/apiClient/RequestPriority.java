@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+/**
+ * Priority of a request waiting to be sent to the TestRail instance. When the request limits are reached, the
+ * requests with higher priority are sent first. A waiting request gains a priority level every aging period, so the
+ * low priority work keeps moving.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public enum RequestPriority {
+
+  /**
+   * Work other processes are blocked on, like the result reporting or the run creation. The default of the
+   * {@link TrafficClass#WRITE} traffic.
+   */
+  HIGH,
+
+  /**
+   * Interactive work. The default of the {@link TrafficClass#READ} traffic.
+   */
+  NORMAL,
+
+  /**
+   * Work that can wait, like cache refreshes, prefetches and analytics. It only uses the request rate no other
+   * request is using. The default of the {@link TrafficClass#BULK} traffic.
+   */
+  LOW;
+
+  /**
+   * Gets the default priority of a traffic class.
+   *
+   * @param trafficClass the traffic class
+   * @return its default priority
+   * @since 0.3.1
+   */
+  public static RequestPriority defaultFor(final TrafficClass trafficClass) {
+    return (trafficClass == TrafficClass.WRITE) ? HIGH : (trafficClass == TrafficClass.BULK) ? LOW : NORMAL;
+  }
+}
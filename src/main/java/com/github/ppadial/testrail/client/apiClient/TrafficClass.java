@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+/**
+ * Kinds of traffic sent to the TestRail instance. With bulkheads enabled every kind has its own share of the
+ * concurrent requests and of the request rate, so a large export can not stall the result reporting.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public enum TrafficClass {
+
+  /**
+   * Interactive reads, the default of the GET requests.
+   */
+  READ,
+
+  /**
+   * Writes like the result reporting or the run creation, the default of the POST requests.
+   */
+  WRITE,
+
+  /**
+   * Bulk or background traffic like crawls and exports, chosen by the caller with
+   * {@link ApiClient#setTrafficClass(TrafficClass)}.
+   */
+  BULK
+}
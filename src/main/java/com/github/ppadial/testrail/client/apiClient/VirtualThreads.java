@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors running every task on its own virtual thread. Virtual threads only exist from JDK 21 on and the
+ * client is built for Java 8, so they are looked up by reflection.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+final class VirtualThreads {
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Creates an executor starting a new virtual thread for every task.
+   *
+   * @param namePrefix prefix of the names of the threads, followed by a counter
+   * @return the executor, null if the running JVM does not support virtual threads
+   */
+  static ExecutorService newExecutor(final String namePrefix) {
+    final ThreadFactory threadFactory = newThreadFactory(namePrefix);
+    if (threadFactory == null) {
+      return null;
+    }
+    try {
+      final Method newThreadPerTaskExecutor =
+          Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      return null;
+    }
+  }
+
+  // Thread.ofVirtual().name(namePrefix, 1).factory()
+  private static ThreadFactory newThreadFactory(final String namePrefix) {
+    try {
+      final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      final Object namedBuilder = builderType.getMethod("name", String.class, long.class)
+          .invoke(builder, namePrefix, 1L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(namedBuilder);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      // before JDK 21, or a JDK where they are still a disabled preview feature
+      return null;
+    }
+  }
+}
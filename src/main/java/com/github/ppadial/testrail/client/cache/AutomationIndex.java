@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.Page;
+import com.github.ppadial.testrail.client.api.TestRailServiceBase;
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.api.tests.RunTestMap;
+import com.github.ppadial.testrail.client.api.tests.TestServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRCase;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index from the automation ID of the cases of a suite to their case ID, and from the case ID to the test ID in the
+ * watched runs.
+ *
+ * <p>The index is an immutable snapshot replaced as a whole on each refresh, so the lookups are hash map reads from
+ * any thread without locking. The cases are refreshed incrementally, asking only for the ones updated since the
+ * previous refresh. The tests of a run are reloaded, as TestRail can not filter them by update time. Both are read
+ * page by page.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class AutomationIndex implements Snapshottable, AutoCloseable {
+
+  /**
+   * Default name of the case custom field holding the automation ID, without the {@code custom_} prefix.
+   */
+  public static final String DEFAULT_AUTOMATION_FIELD = "automation_id";
+
+  private static final Logger LOG = LoggerFactory.getLogger(AutomationIndex.class);
+
+  private final ApiClient apiClient;
+  private final int projectId;
+  private final int suiteId;
+  private final String automationField;
+  private final Set<Integer> watchedRuns = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private volatile State state = new State();
+  private volatile ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor using the default automation field.
+   *
+   * @param apiClient the api client
+   * @param projectId the ID of the project
+   * @param suiteId the ID of the suite, 0 for projects in single suite mode
+   */
+  public AutomationIndex(final ApiClient apiClient, final int projectId, final int suiteId) {
+    this(apiClient, projectId, suiteId, DEFAULT_AUTOMATION_FIELD);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param apiClient the api client
+   * @param projectId the ID of the project
+   * @param suiteId the ID of the suite, 0 for projects in single suite mode
+   * @param automationField name of the case custom field holding the automation ID, without the {@code custom_}
+   * prefix
+   */
+  public AutomationIndex(final ApiClient apiClient, final int projectId, final int suiteId,
+      final String automationField) {
+    this.apiClient = apiClient;
+    this.projectId = projectId;
+    this.suiteId = suiteId;
+    this.automationField = automationField;
+  }
+
+  /**
+   * Adds a run to the index, its tests are loaded on the next refresh.
+   *
+   * @param runId the ID of the run
+   * @return this index
+   */
+  public AutomationIndex watchRun(final int runId) {
+    watchedRuns.add(runId);
+    return this;
+  }
+
+  /**
+   * Gets the case of an automation ID.
+   *
+   * @param automationId the automation ID
+   * @return the ID of the case, null if it is unknown
+   */
+  public Integer getCaseId(final String automationId) {
+    return state.caseIds.get(automationId);
+  }
+
+  /**
+   * Gets the test of a case in a run.
+   *
+   * @param runId the ID of a watched run
+   * @param caseId the ID of the case
+   * @return the ID of the test, null if it is unknown
+   */
+  public Integer getTestId(final int runId, final int caseId) {
+    final RunTestMap testIds = state.testIds.get(runId);
+    final int testId = (testIds != null) ? testIds.getTestId(caseId) : RunTestMap.NO_TEST;
+    return (testId != RunTestMap.NO_TEST) ? testId : null;
+  }
+
+  /**
+   * Gets the test of an automation ID in a run.
+   *
+   * @param runId the ID of a watched run
+   * @param automationId the automation ID
+   * @return the ID of the test, null if it is unknown
+   */
+  public Integer getTestId(final int runId, final String automationId) {
+    final Integer caseId = getCaseId(automationId);
+    return (caseId != null) ? getTestId(runId, caseId) : null;
+  }
+
+  /**
+   * Refreshes the index: the cases updated since the previous refresh and the tests of the watched runs.
+   *
+   * @throws TestRailException An error in the connection with testrail, the index keeps its previous content
+   */
+  public void refresh() throws TestRailException {
+    refreshLock.lock();
+    try {
+      final State current = state;
+      final State next = new State(current);
+      final Map<String, String> filters = new HashMap<String, String>();
+      if (current.casesUpdatedOn > 0) {
+        // one second of overlap, updating the same case twice is harmless
+        filters.put("updated_after", String.valueOf(current.casesUpdatedOn - 1));
+      }
+      final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient);
+      Page<TRCase> page = null;
+      do {
+        page = caseServiceClient.getCasesPage(projectId, suiteId, 0, filters,
+            (page != null) ? page.getNextOffset() : 0, TestRailServiceBase.DEFAULT_PAGE_SIZE);
+        for (TRCase trCase : page.getItems()) {
+          next.putCase(trCase.id, automationId(trCase));
+          if (trCase.updatedOn != null) {
+            next.casesUpdatedOn = Math.max(next.casesUpdatedOn, trCase.updatedOn);
+          }
+        }
+      } while (page.hasNext());
+      final TestServiceClient testServiceClient = new TestServiceClient(apiClient);
+      for (Integer runId : watchedRuns) {
+        next.testIds.put(runId, testServiceClient.getRunTestMap(runId));
+      }
+      state = next;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * Drops the content of the index, the next refresh loads all the cases again. Deleted cases are only forgotten
+   * this way.
+   */
+  public void clear() {
+    refreshLock.lock();
+    try {
+      state = new State();
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * Refreshes the index periodically in a background thread. Errors are logged and retried on the next refresh.
+   *
+   * @param period time between the end of a refresh and the start of the next one
+   * @param unit time unit of the period
+   */
+  public void start(final long period, final TimeUnit unit) {
+    if (scheduler != null) {
+      throw new IllegalStateException("The index is already started");
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "testrail-automation-index");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (TestRailException | RuntimeException e) {
+        LOG.warn("Unable to refresh the automation index of suite {}", suiteId, e);
+      }
+    }, 0, period, unit);
+  }
+
+  /**
+   * Stops the periodic refresh, if started.
+   */
+  @Override
+  public void close() {
+    final ScheduledExecutorService current = scheduler;
+    scheduler = null;
+    if (current != null) {
+      current.shutdownNow();
+    }
+  }
+
+  @Override
+  public String getSnapshotName() {
+    return "automation-index-" + projectId + "-" + suiteId;
+  }
+
+  @Override
+  public void writeSnapshot(final JsonGenerator generator) throws IOException {
+    final State current = state;
+    final Snapshot snapshot = new Snapshot();
+    snapshot.automationIds = current.automationIds;
+    snapshot.testIds = current.testIds;
+    snapshot.casesUpdatedOn = current.casesUpdatedOn;
+    generator.writeObject(snapshot);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The runs of the snapshot are watched, and the next refresh only asks for the cases updated after it.</p>
+   */
+  @Override
+  public void readSnapshot(final JsonParser parser) throws IOException {
+    final Snapshot snapshot = parser.readValueAs(Snapshot.class);
+    refreshLock.lock();
+    try {
+      final State restored = new State();
+      for (Map.Entry<Integer, String> entry : snapshot.automationIds.entrySet()) {
+        restored.putCase(entry.getKey(), entry.getValue());
+      }
+      for (Map.Entry<Integer, RunTestMap> entry : snapshot.testIds.entrySet()) {
+        restored.testIds.put(entry.getKey(), entry.getValue());
+        watchedRuns.add(entry.getKey());
+      }
+      restored.casesUpdatedOn = snapshot.casesUpdatedOn;
+      state = restored;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private String automationId(final TRCase trCase) {
+    final Map<String, Object> customFields = trCase.getCustomFields();
+    final Object automationId = (customFields != null) ? customFields.get(automationField) : null;
+    return (automationId != null) ? automationId.toString() : null;
+  }
+
+  /**
+   * Content of the index. It is only modified before being published.
+   */
+  private static final class State {
+
+    private final Map<String, Integer> caseIds;
+    private final Map<Integer, String> automationIds;
+    private final Map<Integer, RunTestMap> testIds;
+    private long casesUpdatedOn;
+
+    private State() {
+      this.caseIds = new HashMap<String, Integer>();
+      this.automationIds = new HashMap<Integer, String>();
+      this.testIds = new HashMap<Integer, RunTestMap>();
+    }
+
+    private State(final State state) {
+      this.caseIds = new HashMap<String, Integer>(state.caseIds);
+      this.automationIds = new HashMap<Integer, String>(state.automationIds);
+      this.testIds = new HashMap<Integer, RunTestMap>(state.testIds);
+      this.casesUpdatedOn = state.casesUpdatedOn;
+    }
+
+    private void putCase(final int caseId, final String automationId) {
+      final String previous = (automationId != null)
+          ? automationIds.put(caseId, automationId) : automationIds.remove(caseId);
+      if (previous != null && !previous.equals(automationId)) {
+        caseIds.remove(previous, caseId);
+      }
+      if (automationId != null) {
+        caseIds.put(automationId, caseId);
+      }
+    }
+  }
+
+  /**
+   * Content of the index in a snapshot.
+   */
+  static final class Snapshot {
+
+    public Map<Integer, String> automationIds = new HashMap<Integer, String>();
+    public Map<Integer, RunTestMap> testIds = new HashMap<Integer, RunTestMap>();
+    public long casesUpdatedOn;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the content of several caches in a local file and restores it on startup, so short lived processes start with
+ * warm caches.
+ *
+ * <p>The file is a small binary container: a magic number, the format version, the creation time and one section per
+ * cache with its content as json. It is memory mapped on restore, and it is ignored when the magic or the version do
+ * not match or when it is older than the maximum age. A snapshot that can not be used is never an error, the caches
+ * are just left cold.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class CacheSnapshots {
+
+  /**
+   * Version of the file format, files written with another version are ignored.
+   */
+  public static final short FORMAT_VERSION = 1;
+
+  private static final Logger LOG = LoggerFactory.getLogger(CacheSnapshots.class);
+  private static final int MAGIC = 0x54524353; /* TRCS */
+
+  private final Path file;
+  private final long maxAgeMillis;
+  private final Map<String, Snapshottable> caches = new LinkedHashMap<String, Snapshottable>();
+  private final ObjectMapper objectMapper;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * Constructor.
+   *
+   * @param file the snapshot file
+   * @param maxAge maximum age of a snapshot to be restored
+   * @param unit time unit of the maximum age
+   */
+  public CacheSnapshots(final Path file, final long maxAge, final TimeUnit unit) {
+    this.file = file;
+    this.maxAgeMillis = unit.toMillis(maxAge);
+    this.objectMapper = new ObjectMapper();
+    objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  /**
+   * Registers a cache to be saved and restored.
+   *
+   * @param cache the cache
+   * @return this snapshots instance
+   */
+  public CacheSnapshots register(final Snapshottable cache) {
+    lock.lock();
+    try {
+      if (caches.containsKey(cache.getSnapshotName())) {
+        throw new IllegalArgumentException("A cache named " + cache.getSnapshotName() + " is already registered");
+      }
+      caches.put(cache.getSnapshotName(), cache);
+      return this;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Saves the content of the registered caches. The file is replaced atomically.
+   *
+   * @throws IOException if the file can not be written
+   */
+  public void save() throws IOException {
+    lock.lock();
+    try {
+      doSave();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void doSave() throws IOException {
+    final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        Files.newOutputStream(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+      out.writeInt(MAGIC);
+      out.writeShort(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+      out.writeInt(caches.size());
+      final ByteArrayOutputStream section = new ByteArrayOutputStream();
+      for (Snapshottable cache : caches.values()) {
+        section.reset();
+        writeSection(cache, section);
+        final byte[] name = cache.getSnapshotName().getBytes(StandardCharsets.UTF_8);
+        out.writeShort(name.length);
+        out.write(name);
+        out.writeInt(section.size());
+        section.writeTo(out);
+      }
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Saves the content of the registered caches when the JVM shuts down.
+   */
+  public void saveOnShutdown() {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        save();
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Unable to save the cache snapshot {}", file, e);
+      }
+    }, "testrail-cache-snapshot"));
+  }
+
+  /**
+   * Restores the registered caches from the snapshot file, if it exists and is valid. The sections of caches that
+   * are not registered are skipped.
+   *
+   * @return true if the snapshot was restored
+   */
+  public boolean restore() {
+    lock.lock();
+    try {
+      return doRestore();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean doRestore() {
+    if (!Files.isRegularFile(file)) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC) {
+        LOG.warn("Ignoring the cache snapshot {}, it is not a snapshot file", file);
+        return false;
+      }
+      final short version = buffer.getShort();
+      if (version != FORMAT_VERSION) {
+        LOG.info("Ignoring the cache snapshot {}, its version {} is not supported", file, version);
+        return false;
+      }
+      final long age = System.currentTimeMillis() - buffer.getLong();
+      if (age > maxAgeMillis) {
+        LOG.info("Ignoring the cache snapshot {}, it is {} ms old", file, age);
+        return false;
+      }
+      final int sections = buffer.getInt();
+      for (int i = 0; i < sections; i++) {
+        final byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        final int length = buffer.getInt();
+        final ByteBuffer section = buffer.slice();
+        section.limit(length);
+        buffer.position(buffer.position() + length);
+        final Snapshottable cache = caches.get(new String(name, StandardCharsets.UTF_8));
+        if (cache != null) {
+          try (JsonParser parser = objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(section))) {
+            parser.nextToken();
+            cache.readSnapshot(parser);
+          }
+        }
+      }
+      return true;
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      LOG.warn("Ignoring the cache snapshot {}, it can not be read", file, e);
+      return false;
+    }
+  }
+
+  private void writeSection(final Snapshottable cache, final OutputStream out) throws IOException {
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+      cache.writeSnapshot(generator);
+    }
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.TestRailFunction;
+import com.github.ppadial.testrail.client.api.tests.RunTestMap;
+import com.github.ppadial.testrail.client.model.TRCase;
+import com.github.ppadial.testrail.client.model.TRMilestone;
+import com.github.ppadial.testrail.client.model.TRProject;
+import com.github.ppadial.testrail.client.model.TRRun;
+import com.github.ppadial.testrail.client.model.TRSection;
+import com.github.ppadial.testrail.client.model.TRSuite;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Bounded cache of the TestRail entities requested by ID.
+ *
+ * <p>Each kind of entity, and the case to test mappings of the runs, is kept in its own region, with its own bound and
+ * statistics. The service clients created with a cache serve the entities from it, and update or invalidate them when
+ * their own update, delete and close operations change them. Changes done by other clients are seen once the entries
+ * expire.</p>
+ *
+ * <p>The cached entities are shared, they must not be modified by the callers.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class EntityCache implements Snapshottable {
+
+  /**
+   * Default maximum number of entities per region.
+   */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+  /**
+   * Default time an entity is kept after being loaded or updated, in minutes.
+   */
+  public static final long DEFAULT_EXPIRE_MINUTES = 10;
+
+  /**
+   * Kinds of cached entities.
+   */
+  public enum Region {
+    CASES(TRCase.class),
+    SUITES(TRSuite.class),
+    SECTIONS(TRSection.class),
+    PROJECTS(TRProject.class),
+    RUNS(TRRun.class),
+    MILESTONES(TRMilestone.class),
+    RUN_TESTS(RunTestMap.class);
+
+    private final Class<?> entityType;
+
+    Region(final Class<?> entityType) {
+      this.entityType = entityType;
+    }
+
+    /**
+     * Gets the type of the entities of the region.
+     *
+     * @return the entity type
+     */
+    public Class<?> getEntityType() {
+      return entityType;
+    }
+  }
+
+  // the writes that change the tests of the run in their uri
+  private static final Set<String> RUN_WRITES = new HashSet<String>(Arrays.asList("update_run", "delete_run",
+      "update_run_in_plan_entry", "delete_run_from_plan_entry"));
+  // the writes that change the tests of runs not named in their uri
+  private static final Set<String> PLAN_WRITES = new HashSet<String>(Arrays.asList("update_plan", "delete_plan",
+      "update_plan_entry", "delete_plan_entry"));
+
+  private final Map<Region, Cache<Integer, Object>> regions = new EnumMap<Region, Cache<Integer, Object>>(Region.class);
+
+  private EntityCache(final Builder builder) {
+    for (Region region : Region.values()) {
+      final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+          .expireAfterWrite(builder.expireAfter, builder.expireUnit)
+          .recordStats();
+      if (builder.weighers.containsKey(region)) {
+        cacheBuilder.maximumWeight(builder.maximumWeights.get(region)).weigher(builder.weighers.get(region));
+      } else {
+        cacheBuilder.maximumSize(builder.maximumSizes.containsKey(region)
+            ? builder.maximumSizes.get(region) : builder.maximumSize);
+      }
+      regions.put(region, cacheBuilder.build());
+    }
+  }
+
+  /**
+   * Creates a new cache builder.
+   *
+   * @return a new builder with the default bounds
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets an entity, loading it if it is not cached. Concurrent requests of the same missing entity load it once.
+   *
+   * @param region the region of the entity
+   * @param id the ID of the entity
+   * @param loader loads the entity from TestRail
+   * @param <T> type of the entity
+   * @return the entity
+   * @throws TestRailException An error in the connection with testrail
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(final Region region, final int id, final TestRailFunction<Integer, T> loader)
+      throws TestRailException {
+    try {
+      return (T) regions.get(region).get(id, () -> loader.apply(id));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof TestRailException) {
+        throw (TestRailException) e.getCause();
+      }
+      throw new TestRailException("Unable to load the entity " + id + " of " + region, e.getCause());
+    }
+  }
+
+  /**
+   * Puts the latest version of an entity, usually the one returned by an update.
+   *
+   * @param region the region of the entity
+   * @param id the ID of the entity
+   * @param entity the entity, null to invalidate it
+   */
+  public void put(final Region region, final int id, final Object entity) {
+    if (entity != null) {
+      regions.get(region).put(id, entity);
+    } else {
+      invalidate(region, id);
+    }
+  }
+
+  /**
+   * Drops an entity.
+   *
+   * @param region the region of the entity
+   * @param id the ID of the entity
+   */
+  public void invalidate(final Region region, final int id) {
+    regions.get(region).invalidate(id);
+  }
+
+  /**
+   * Drops the entities of a region matching a condition.
+   *
+   * @param region the region of the entities
+   * @param condition the condition of the entities to drop
+   */
+  public void invalidateIf(final Region region, final Predicate<Object> condition) {
+    regions.get(region).asMap().values().removeIf(condition);
+  }
+
+  /**
+   * Drops the case to test mappings of the runs affected by a write: the run of a run write, or all of them for the
+   * plan writes, as their uris do not tell which runs they change.
+   *
+   * @param uriSuffix the endpoint and IDs of the write, like {@code "update_run/12"}
+   */
+  public void invalidateAfterWrite(final String uriSuffix) {
+    final String endpoint = StringUtils.substringBefore(uriSuffix, "/");
+    if (RUN_WRITES.contains(endpoint)) {
+      final String runId = StringUtils.substringBefore(StringUtils.substringAfter(uriSuffix, "/"), "&");
+      if (StringUtils.isNumeric(runId)) {
+        invalidate(Region.RUN_TESTS, Integer.parseInt(runId));
+      } else {
+        invalidateAll(Region.RUN_TESTS);
+      }
+    } else if (PLAN_WRITES.contains(endpoint)) {
+      invalidateAll(Region.RUN_TESTS);
+    }
+  }
+
+  /**
+   * Drops all the entities of a region.
+   *
+   * @param region the region to drop
+   */
+  public void invalidateAll(final Region region) {
+    regions.get(region).invalidateAll();
+  }
+
+  /**
+   * Drops all the entities.
+   */
+  public void invalidateAll() {
+    for (Cache<Integer, Object> cache : regions.values()) {
+      cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Gets the hit, miss, load and eviction counts of a region.
+   *
+   * @param region the region
+   * @return the statistics of the region
+   */
+  public CacheStats getStats(final Region region) {
+    return regions.get(region).stats();
+  }
+
+  /**
+   * Gets the number of cached entities of a region.
+   *
+   * @param region the region
+   * @return approximate number of entities
+   */
+  public long size(final Region region) {
+    return regions.get(region).size();
+  }
+
+  @Override
+  public String getSnapshotName() {
+    return "entities";
+  }
+
+  @Override
+  public void writeSnapshot(final JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    for (Map.Entry<Region, Cache<Integer, Object>> region : regions.entrySet()) {
+      generator.writeObjectFieldStart(region.getKey().name());
+      for (Map.Entry<Integer, Object> entity : region.getValue().asMap().entrySet()) {
+        generator.writeObjectField(String.valueOf(entity.getKey()), entity.getValue());
+      }
+      generator.writeEndObject();
+    }
+    generator.writeEndObject();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The restored entities expire as if they had just been loaded, the maximum age of the snapshot bounds how stale
+   * they can be.</p>
+   */
+  @Override
+  public void readSnapshot(final JsonParser parser) throws IOException {
+    final JsonNode snapshot = parser.readValueAsTree();
+    for (Region region : Region.values()) {
+      final Iterator<Map.Entry<String, JsonNode>> entities = snapshot.path(region.name()).fields();
+      while (entities.hasNext()) {
+        final Map.Entry<String, JsonNode> entity = entities.next();
+        regions.get(region).put(Integer.valueOf(entity.getKey()),
+            parser.getCodec().treeToValue(entity.getValue(), region.getEntityType()));
+      }
+    }
+  }
+
+  /**
+   * Builder of the entity cache.
+   */
+  public static final class Builder {
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private final Map<Region, Long> maximumSizes = new EnumMap<Region, Long>(Region.class);
+    private final Map<Region, Long> maximumWeights = new EnumMap<Region, Long>(Region.class);
+    private final Map<Region, Weigher<Integer, Object>> weighers =
+        new EnumMap<Region, Weigher<Integer, Object>>(Region.class);
+    private long expireAfter = DEFAULT_EXPIRE_MINUTES;
+    private TimeUnit expireUnit = TimeUnit.MINUTES;
+
+    private Builder() {
+    }
+
+    /**
+     * Maximum number of entities of each region without a specific bound.
+     *
+     * @param maximumSize the maximum number of entities
+     * @return Builder pointer
+     */
+    public Builder maximumSize(final long maximumSize) {
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Maximum number of entities of a region.
+     *
+     * @param region the region
+     * @param maximumSize the maximum number of entities
+     * @return Builder pointer
+     */
+    public Builder maximumSize(final Region region, final long maximumSize) {
+      this.maximumSizes.put(region, maximumSize);
+      this.weighers.remove(region);
+      return this;
+    }
+
+    /**
+     * Maximum weight of the entities of a region, for regions whose entities differ a lot in size.
+     *
+     * @param region the region
+     * @param maximumWeight the maximum total weight
+     * @param weigher computes the weight of an entity
+     * @return Builder pointer
+     */
+    public Builder maximumWeight(final Region region, final long maximumWeight,
+        final Weigher<Integer, Object> weigher) {
+      this.maximumWeights.put(region, maximumWeight);
+      this.weighers.put(region, weigher);
+      return this;
+    }
+
+    /**
+     * Time an entity is kept after being loaded or updated.
+     *
+     * @param duration the time
+     * @param unit the unit of the time
+     * @return Builder pointer
+     */
+    public Builder expireAfterWrite(final long duration, final TimeUnit unit) {
+      this.expireAfter = duration;
+      this.expireUnit = unit;
+      return this;
+    }
+
+    /**
+     * Build the cache.
+     *
+     * @return the entity cache
+     */
+    public EntityCache build() {
+      return new EntityCache(this);
+    }
+  }
+}
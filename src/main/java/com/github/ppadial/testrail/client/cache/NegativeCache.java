@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClientConfig;
+import com.github.ppadial.testrail.client.apiClient.ApiResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Short lived cache of the lookups answered with "invalid or unknown" (HTTP 400), keyed by endpoint and ID.
+ *
+ * <p>A lookup of a deleted case or a stale run ID fails the same way every time, so the failing response is kept for
+ * a while and replayed, raising the same exception without calling TestRail. The entries of an ID are dropped as soon
+ * as the client creates an entity with it. Only the lookups of a single entity by ID are cached, not the lists.</p>
+ *
+ * <p>Each api client with negative caching enabled has its own cache, shared by all its service clients. The cache is
+ * created again, empty, when the time to live of the client changes.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class NegativeCache {
+
+  /**
+   * Default time a failing lookup is remembered, in seconds.
+   */
+  public static final long DEFAULT_TTL_SECONDS = 60;
+  /**
+   * Default maximum number of failing lookups remembered.
+   */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+  // the endpoints getting a single entity by ID
+  private static final Set<String> LOOKUPS = new HashSet<String>(Arrays.asList("get_case", "get_milestone",
+      "get_plan", "get_project", "get_run", "get_section", "get_suite", "get_test", "get_user"));
+  private static final SharedInstances<NegativeCache> BY_CLIENT = SharedInstances.perClient(
+      apiClient -> new NegativeCache(ttlMillisOf(apiClient), TimeUnit.MILLISECONDS, DEFAULT_MAXIMUM_SIZE),
+      (apiClient, cache) -> cache.ttlMillis == ttlMillisOf(apiClient));
+
+  private final Cache<String, ApiResponse> responses;
+  private final long ttlMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param ttl time a failing lookup is remembered
+   * @param unit time unit of the ttl
+   * @param maximumSize maximum number of failing lookups remembered
+   */
+  public NegativeCache(final long ttl, final TimeUnit unit, final long maximumSize) {
+    this.ttlMillis = unit.toMillis(ttl);
+    this.responses = CacheBuilder.newBuilder()
+        .expireAfterWrite(ttl, unit)
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Gets the negative cache of an api client, with the time to live currently configured in the client.
+   *
+   * @param apiClient the api client
+   * @return the negative cache, null if negative caching is not enabled in the api client
+   */
+  public static NegativeCache of(final ApiClient apiClient) {
+    if (ttlMillisOf(apiClient) <= 0) {
+      BY_CLIENT.discard(apiClient);
+      return null;
+    }
+    return BY_CLIENT.get(apiClient);
+  }
+
+  private static long ttlMillisOf(final ApiClient apiClient) {
+    final ApiClientConfig config = apiClient.getConfig();
+    return (config != null) ? config.getNegativeCacheTtlMillis() : 0;
+  }
+
+  /**
+   * Gets the remembered failing response of a lookup.
+   *
+   * @param uriSuffix the endpoint and ID of the lookup
+   * @return the failing response, null if the lookup is not known to fail
+   */
+  public ApiResponse getIfPresent(final String uriSuffix) {
+    return responses.getIfPresent(uriSuffix);
+  }
+
+  /**
+   * Remembers the response of a request if it is an "invalid or unknown" one of a single entity lookup.
+   *
+   * @param uriSuffix the endpoint and ID of the lookup
+   * @param apiResponse the response
+   */
+  public void record(final String uriSuffix, final ApiResponse apiResponse) {
+    if (apiResponse != null && apiResponse.getHttpStatusCode() == HttpStatusCode.BAD_REQUEST && isLookup(uriSuffix)) {
+      responses.put(uriSuffix, apiResponse);
+    }
+  }
+
+  /**
+   * Forgets the failing lookups of an ID, in any endpoint.
+   *
+   * @param id the ID of an entity created by the client
+   */
+  public void invalidateId(final long id) {
+    if (responses.size() > 0) {
+      final String idSegment = String.valueOf(id);
+      responses.asMap().keySet().removeIf(uriSuffix -> idSegment.equals(idSegment(uriSuffix)));
+    }
+  }
+
+  /**
+   * Forgets all the failing lookups.
+   */
+  public void invalidateAll() {
+    responses.invalidateAll();
+  }
+
+  /**
+   * Gets the number of remembered failing lookups.
+   *
+   * @return approximate number of lookups
+   */
+  public long size() {
+    return responses.size();
+  }
+
+  /**
+   * Gets the hit and miss counts.
+   *
+   * @return the statistics of the cache
+   */
+  public CacheStats getStats() {
+    return responses.stats();
+  }
+
+  // get_case/12, but not get_cases/1 nor get_results_for_case/1/2
+  private static boolean isLookup(final String uriSuffix) {
+    return LOOKUPS.contains(StringUtils.substringBefore(uriSuffix, "/"))
+        && StringUtils.isNumeric(StringUtils.substringAfter(uriSuffix, "/"));
+  }
+
+  private static String idSegment(final String uriSuffix) {
+    final String afterEndpoint = StringUtils.substringAfter(uriSuffix, "/");
+    final int end = StringUtils.indexOfAny(afterEndpoint, '/', '&');
+    return (end >= 0) ? afterEndpoint.substring(0, end) : afterEndpoint;
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.TestRailFunction;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClientConfig;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Short lived cache of the results of the filtered list queries, like {@code get_cases} or {@code get_plans}.
+ *
+ * <p>The queries are keyed by endpoint and filters in a canonical form: the filters are sorted by name and the lists
+ * of IDs by value, so the same query built in a different order hits the same entry. The memory is bounded by the
+ * total number of listed entities, and the writes done through the client drop the queries of the endpoints they
+ * affect. Changes done by other clients are seen once the entries expire.</p>
+ *
+ * <p>The cached lists are shared and unmodifiable. Each api client with query caching enabled has its own cache,
+ * shared by all its service clients, and created again, empty, when the query caching settings of the client
+ * change.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class QueryCache {
+
+  /**
+   * Default time a query result is kept, in seconds.
+   */
+  public static final long DEFAULT_TTL_SECONDS = 60;
+  /**
+   * Default maximum number of entities kept in all the query results.
+   */
+  public static final long DEFAULT_MAXIMUM_ENTITIES = 100000;
+
+  private static final Pattern ID_LIST = Pattern.compile("\\d+(,\\d+)*");
+  // the list endpoints affected by each write endpoint
+  private static final Map<String, List<String>> AFFECTED_QUERIES = new HashMap<String, List<String>>();
+
+  static {
+    affects("get_cases", "add_case", "update_case", "update_cases", "delete_case", "delete_cases",
+        "move_cases_to_section", "copy_cases_to_section", "delete_section", "delete_suite");
+    affects("get_plans", "add_plan", "update_plan", "close_plan", "delete_plan", "add_plan_entry",
+        "update_plan_entry", "delete_plan_entry", "add_run_to_plan_entry", "update_run_in_plan_entry",
+        "delete_run_from_plan_entry", "add_result", "add_result_for_case", "add_results", "add_results_for_cases");
+    affects("get_tests", "add_result", "add_result_for_case", "add_results", "add_results_for_cases",
+        "update_case", "update_cases", "delete_case", "delete_cases", "update_run", "close_run", "delete_run",
+        "update_plan_entry", "delete_plan_entry", "update_run_in_plan_entry", "delete_run_from_plan_entry");
+  }
+
+  private static final SharedInstances<QueryCache> BY_CLIENT = SharedInstances.perClient(
+      apiClient -> new QueryCache(ttlMillisOf(apiClient), TimeUnit.MILLISECONDS, maximumEntitiesOf(apiClient)),
+      (apiClient, cache) -> cache.ttlMillis == ttlMillisOf(apiClient)
+          && cache.maximumEntities == maximumEntitiesOf(apiClient));
+
+  private final Cache<String, List<?>> queries;
+  private final long ttlMillis;
+  private final long maximumEntities;
+  // bumped by every invalidation, a query loaded while its endpoint was invalidated is not kept
+  private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<String, AtomicLong>();
+  private final AtomicLong allGenerations = new AtomicLong();
+
+  /**
+   * Constructor.
+   *
+   * @param ttl time a query result is kept
+   * @param unit time unit of the ttl
+   * @param maximumEntities maximum number of entities kept in all the query results
+   */
+  public QueryCache(final long ttl, final TimeUnit unit, final long maximumEntities) {
+    this.ttlMillis = unit.toMillis(ttl);
+    this.maximumEntities = maximumEntities;
+    this.queries = CacheBuilder.newBuilder()
+        .expireAfterWrite(ttl, unit)
+        .maximumWeight(maximumEntities)
+        .<String, List<?>>weigher((query, entities) -> entities.size() + 1)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Gets the query cache of an api client, with the settings currently configured in the client.
+   *
+   * @param apiClient the api client
+   * @return the query cache, null if query caching is not enabled in the api client
+   */
+  public static QueryCache of(final ApiClient apiClient) {
+    if (ttlMillisOf(apiClient) <= 0) {
+      BY_CLIENT.discard(apiClient);
+      return null;
+    }
+    return BY_CLIENT.get(apiClient);
+  }
+
+  private static long ttlMillisOf(final ApiClient apiClient) {
+    final ApiClientConfig config = apiClient.getConfig();
+    return (config != null) ? config.getQueryCacheTtlMillis() : 0;
+  }
+
+  private static long maximumEntitiesOf(final ApiClient apiClient) {
+    final ApiClientConfig config = apiClient.getConfig();
+    return (config != null && config.getQueryCacheMaximumEntities() > 0)
+        ? config.getQueryCacheMaximumEntities() : DEFAULT_MAXIMUM_ENTITIES;
+  }
+
+  /**
+   * Gets the result of a list query, running it if it is not cached. Concurrent requests of the same missing query
+   * run it once.
+   *
+   * @param uriSuffix the endpoint and filters of the query
+   * @param loader runs the query against TestRail
+   * @param <T> type of the listed entities
+   * @return the unmodifiable result of the query
+   * @throws TestRailException An error in the connection with testrail
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(final String uriSuffix, final TestRailFunction<String, List<T>> loader)
+      throws TestRailException {
+    final String query = normalize(uriSuffix);
+    final long generation = generationOf(endpointOf(query));
+    try {
+      final List<?> entities = queries.get(query, () -> {
+        final List<T> loaded = loader.apply(uriSuffix);
+        return (loaded != null) ? Collections.unmodifiableList(loaded) : Collections.<T>emptyList();
+      });
+      if (generationOf(endpointOf(query)) != generation) {
+        // invalidated while loading, the invalidation could not drop the entry as it was not stored yet
+        queries.asMap().remove(query, entities);
+      }
+      return (List<T>) entities;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof TestRailException) {
+        throw (TestRailException) e.getCause();
+      }
+      throw new TestRailException("Unable to run the query " + uriSuffix, e.getCause());
+    }
+  }
+
+  /**
+   * Drops the queries affected by a write.
+   *
+   * @param uriSuffix the endpoint and IDs of the write, like {@code "add_result/12"}
+   */
+  public void invalidateAfterWrite(final String uriSuffix) {
+    final List<String> affected = AFFECTED_QUERIES.get(endpointOf(uriSuffix));
+    if (affected != null) {
+      for (String endpoint : affected) {
+        invalidateEndpoint(endpoint);
+      }
+    }
+  }
+
+  /**
+   * Drops all the queries of an endpoint.
+   *
+   * @param endpoint the name of the list endpoint, like {@code "get_cases"}
+   */
+  public void invalidateEndpoint(final String endpoint) {
+    generations.computeIfAbsent(endpoint, ignored -> new AtomicLong()).incrementAndGet();
+    queries.asMap().keySet().removeIf(query -> endpoint.equals(endpointOf(query)));
+  }
+
+  /**
+   * Drops all the queries.
+   */
+  public void invalidateAll() {
+    allGenerations.incrementAndGet();
+    queries.invalidateAll();
+  }
+
+  /**
+   * Gets the number of cached queries.
+   *
+   * @return the number of queries
+   */
+  public long size() {
+    return queries.size();
+  }
+
+  /**
+   * Gets the hit and miss statistics of the cache.
+   *
+   * @return the statistics
+   */
+  public CacheStats getStats() {
+    return queries.stats();
+  }
+
+  /**
+   * Gets the canonical form of a query: the filters sorted by name and the lists of IDs sorted by value. Repeated
+   * filters are all kept, in their original order.
+   *
+   * @param uriSuffix the endpoint and filters of the query
+   * @return the canonical query
+   */
+  static String normalize(final String uriSuffix) {
+    final String[] parts = StringUtils.split(uriSuffix, '&');
+    final List<String[]> filters = new ArrayList<String[]>(parts.length);
+    for (int i = 1; i < parts.length; i++) {
+      final String name = StringUtils.substringBefore(parts[i], "=");
+      final String value = StringUtils.substringAfter(parts[i], "=");
+      filters.add(new String[] {name, ID_LIST.matcher(value).matches() ? sortIds(value) : value});
+    }
+    // the sort is stable, so the repeated filters keep their order
+    filters.sort(Comparator.comparing((String[] filter) -> filter[0]));
+    final StringBuilder query = new StringBuilder(parts.length > 0 ? parts[0] : "");
+    for (String[] filter : filters) {
+      query.append('&').append(filter[0]).append('=').append(filter[1]);
+    }
+    return query.toString();
+  }
+
+  private long generationOf(final String endpoint) {
+    final AtomicLong generation = generations.get(endpoint);
+    return allGenerations.get() + ((generation != null) ? generation.get() : 0);
+  }
+
+  private static String sortIds(final String ids) {
+    final TreeSet<Long> sorted = new TreeSet<Long>();
+    for (String id : StringUtils.split(ids, ',')) {
+      sorted.add(Long.valueOf(id));
+    }
+    return StringUtils.join(sorted, ',');
+  }
+
+  private static String endpointOf(final String uriSuffix) {
+    final int end = StringUtils.indexOfAny(uriSuffix, '/', '&');
+    return (end >= 0) ? uriSuffix.substring(0, end) : uriSuffix;
+  }
+
+  private static void affects(final String listEndpoint, final String... writeEndpoints) {
+    for (String writeEndpoint : writeEndpoints) {
+      AFFECTED_QUERIES.computeIfAbsent(writeEndpoint, ignored -> new ArrayList<String>()).add(listEndpoint);
+    }
+  }
+}
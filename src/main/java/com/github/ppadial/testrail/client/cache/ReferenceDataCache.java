@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.casetypes.CaseTypeServiceClient;
+import com.github.ppadial.testrail.client.api.configurations.ConfigurationServiceClient;
+import com.github.ppadial.testrail.client.api.milestones.MilestoneIndex;
+import com.github.ppadial.testrail.client.api.milestones.MilestoneServiceClient;
+import com.github.ppadial.testrail.client.api.priorities.PriorityServiceClient;
+import com.github.ppadial.testrail.client.api.statuses.StatusServiceClient;
+import com.github.ppadial.testrail.client.api.templates.TemplateServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRCaseType;
+import com.github.ppadial.testrail.client.model.TRConfig;
+import com.github.ppadial.testrail.client.model.TRConfigGroup;
+import com.github.ppadial.testrail.client.model.TRMilestone;
+import com.github.ppadial.testrail.client.model.TRPriority;
+import com.github.ppadial.testrail.client.model.TRStatus;
+import com.github.ppadial.testrail.client.model.TRTemplate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the TestRail reference data: statuses, priorities, case types, templates, configurations and milestones.
+ *
+ * <p>The data is loaded once on first access, even when several threads ask for it at the same time. After the
+ * refresh period it is reloaded in the background on the next access, while the old copy keeps being served, and it
+ * is only dropped once the expiration period is over without a successful reload.</p>
+ *
+ * <p>The lookups by name are case insensitive and answered from memory.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class ReferenceDataCache implements Snapshottable {
+
+  /**
+   * Default time after which the data is refreshed in the background, in minutes.
+   */
+  public static final long DEFAULT_REFRESH_MINUTES = 60;
+  /**
+   * Default time after which the data is dropped if it could not be refreshed, in minutes.
+   */
+  public static final long DEFAULT_EXPIRE_MINUTES = 24 * 60;
+
+  private static final SharedInstances<ReferenceDataCache> SHARED = new SharedInstances<ReferenceDataCache>(
+      apiClient -> new ReferenceDataCache(apiClient, DEFAULT_REFRESH_MINUTES, DEFAULT_EXPIRE_MINUTES,
+          TimeUnit.MINUTES));
+  private static final String GLOBAL = "global";
+  private static final String SEPARATOR = "/";
+
+  private final LoadingCache<String, Indexed<TRStatus>> statuses;
+  private final LoadingCache<String, Indexed<TRPriority>> priorities;
+  private final LoadingCache<String, Indexed<TRCaseType>> caseTypes;
+  private final LoadingCache<Integer, Indexed<TRTemplate>> templates;
+  private final LoadingCache<Integer, Indexed<TRConfigGroup>> configs;
+  private final LoadingCache<Integer, MilestoneIndex> milestones;
+  // when the milestones of each project were last loaded in full, from System.nanoTime()
+  private final ConcurrentMap<Integer, Long> milestoneFullLoads = new ConcurrentHashMap<Integer, Long>();
+
+  /**
+   * Constructor.
+   *
+   * @param apiClient the api client used to load the data
+   * @param refreshAfter time after which the data is refreshed in the background
+   * @param expireAfter time after which the data is dropped if it could not be refreshed, and after which the
+   * milestones are refreshed in full
+   * @param unit time unit of the periods
+   */
+  public ReferenceDataCache(final ApiClient apiClient, final long refreshAfter, final long expireAfter,
+      final TimeUnit unit) {
+    if (expireAfter < refreshAfter) {
+      throw new IllegalArgumentException("The data can not expire before it is refreshed");
+    }
+    // the refreshes can wait
+    final Executor reloadExecutor = ApiClient.lowPriorityExecutor(apiClient);
+    final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .refreshAfterWrite(refreshAfter, unit)
+        .expireAfterWrite(expireAfter, unit);
+    final long fullReloadNanos = unit.toNanos(expireAfter);
+
+    this.statuses = builder.build(CacheLoader.asyncReloading(new CacheLoader<String, Indexed<TRStatus>>() {
+      @Override
+      public Indexed<TRStatus> load(final String key) throws TestRailException {
+        return indexStatuses(new StatusServiceClient(apiClient).getStatuses());
+      }
+    }, reloadExecutor));
+    this.priorities = builder.build(CacheLoader.asyncReloading(new CacheLoader<String, Indexed<TRPriority>>() {
+      @Override
+      public Indexed<TRPriority> load(final String key) throws TestRailException {
+        return indexPriorities(new PriorityServiceClient(apiClient).getPriorities());
+      }
+    }, reloadExecutor));
+    this.caseTypes = builder.build(CacheLoader.asyncReloading(new CacheLoader<String, Indexed<TRCaseType>>() {
+      @Override
+      public Indexed<TRCaseType> load(final String key) throws TestRailException {
+        return indexCaseTypes(new CaseTypeServiceClient(apiClient).getCaseTypes());
+      }
+    }, reloadExecutor));
+    this.templates = builder.build(CacheLoader.asyncReloading(new CacheLoader<Integer, Indexed<TRTemplate>>() {
+      @Override
+      public Indexed<TRTemplate> load(final Integer projectId) throws TestRailException {
+        return indexTemplates(new TemplateServiceClient(apiClient).getTemplates(projectId));
+      }
+    }, reloadExecutor));
+    this.configs = builder.build(CacheLoader.asyncReloading(new CacheLoader<Integer, Indexed<TRConfigGroup>>() {
+      @Override
+      public Indexed<TRConfigGroup> load(final Integer projectId) throws TestRailException {
+        return indexConfigs(new ConfigurationServiceClient(apiClient).getConfigs(projectId));
+      }
+    }, reloadExecutor));
+    this.milestones = builder.build(CacheLoader.asyncReloading(new CacheLoader<Integer, MilestoneIndex>() {
+      @Override
+      public MilestoneIndex load(final Integer projectId) throws TestRailException {
+        milestoneFullLoads.put(projectId, System.nanoTime());
+        return new MilestoneServiceClient(apiClient).getMilestoneIndex(projectId);
+      }
+
+      @Override
+      public ListenableFuture<MilestoneIndex> reload(final Integer projectId, final MilestoneIndex previous)
+          throws TestRailException {
+        // the completed milestones are kept as they were, only a full load drops the ones deleted since
+        final Long fullLoad = milestoneFullLoads.get(projectId);
+        if (fullLoad == null || System.nanoTime() - fullLoad >= fullReloadNanos) {
+          return Futures.immediateFuture(load(projectId));
+        }
+        return Futures.immediateFuture(new MilestoneServiceClient(apiClient).getMilestoneIndex(projectId, previous));
+      }
+    }, reloadExecutor));
+  }
+
+  /**
+   * Gets the cache shared by all the clients of the same TestRail instance and user in this JVM. The cache is only
+   * kept while it is referenced, so callers should hold on to it instead of asking for it on every use.
+   *
+   * @param apiClient the api client, used to load the data when the cache is created
+   * @return the shared cache, with the default periods
+   */
+  public static ReferenceDataCache shared(final ApiClient apiClient) {
+    return SHARED.get(apiClient);
+  }
+
+  /**
+   * Gets the available test statuses.
+   *
+   * @return the statuses
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRStatus> getStatuses() throws TestRailException {
+    return get(statuses, GLOBAL).items;
+  }
+
+  /**
+   * Gets the ID of a test status.
+   *
+   * @param name the system name or the label of the status
+   * @return the ID of the status, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getStatusId(final String name) throws TestRailException {
+    return get(statuses, GLOBAL).idOf(name);
+  }
+
+  /**
+   * Gets the available priorities.
+   *
+   * @return the priorities
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRPriority> getPriorities() throws TestRailException {
+    return get(priorities, GLOBAL).items;
+  }
+
+  /**
+   * Gets the ID of a priority.
+   *
+   * @param name the name or the short name of the priority
+   * @return the ID of the priority, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getPriorityId(final String name) throws TestRailException {
+    return get(priorities, GLOBAL).idOf(name);
+  }
+
+  /**
+   * Gets the available case types.
+   *
+   * @return the case types
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRCaseType> getCaseTypes() throws TestRailException {
+    return get(caseTypes, GLOBAL).items;
+  }
+
+  /**
+   * Gets the ID of a case type.
+   *
+   * @param name the name of the case type
+   * @return the ID of the case type, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getCaseTypeId(final String name) throws TestRailException {
+    return get(caseTypes, GLOBAL).idOf(name);
+  }
+
+  /**
+   * Gets the templates of a project.
+   *
+   * @param projectId the ID of the project
+   * @return the templates
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRTemplate> getTemplates(final int projectId) throws TestRailException {
+    return get(templates, projectId).items;
+  }
+
+  /**
+   * Gets the ID of a template of a project.
+   *
+   * @param projectId the ID of the project
+   * @param name the name of the template
+   * @return the ID of the template, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getTemplateId(final int projectId, final String name) throws TestRailException {
+    return get(templates, projectId).idOf(name);
+  }
+
+  /**
+   * Gets the configuration groups of a project.
+   *
+   * @param projectId the ID of the project
+   * @return the configuration groups, with their configurations
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRConfigGroup> getConfigs(final int projectId) throws TestRailException {
+    return get(configs, projectId).items;
+  }
+
+  /**
+   * Gets the ID of a configuration of a project.
+   *
+   * @param projectId the ID of the project
+   * @param groupName the name of the configuration group
+   * @param name the name of the configuration
+   * @return the ID of the configuration, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getConfigId(final int projectId, final String groupName, final String name)
+      throws TestRailException {
+    return get(configs, projectId).idOf(groupName + SEPARATOR + name);
+  }
+
+  /**
+   * Gets the ID of a configuration of a project, searching all the groups.
+   *
+   * @param projectId the ID of the project
+   * @param name the name of the configuration
+   * @return the ID of the configuration of the first group that has it, null if it does not exist
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public Integer getConfigId(final int projectId, final String name) throws TestRailException {
+    return get(configs, projectId).idOf(name);
+  }
+
+  /**
+   * Gets the index of the milestones of a project. On refresh only the milestones that were not completed are
+   * requested again, except once per expiration period and after a restore, when all of them are reloaded so the
+   * milestones deleted on the server are dropped.
+   *
+   * @param projectId the ID of the project
+   * @return the milestone index
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public MilestoneIndex getMilestoneIndex(final int projectId) throws TestRailException {
+    return get(milestones, projectId);
+  }
+
+  /**
+   * Drops all the cached data, the next access loads it again.
+   */
+  public void invalidateAll() {
+    statuses.invalidateAll();
+    priorities.invalidateAll();
+    caseTypes.invalidateAll();
+    templates.invalidateAll();
+    configs.invalidateAll();
+    milestones.invalidateAll();
+  }
+
+  /**
+   * Drops the cached configurations of a project, to be used after changing them.
+   *
+   * @param projectId the ID of the project
+   */
+  public void invalidateConfigs(final int projectId) {
+    configs.invalidate(projectId);
+  }
+
+  /**
+   * Drops the cached milestone index of a project, to be used after changing its milestones.
+   *
+   * @param projectId the ID of the project
+   */
+  public void invalidateMilestones(final int projectId) {
+    milestones.invalidate(projectId);
+  }
+
+  @Override
+  public String getSnapshotName() {
+    return "reference-data";
+  }
+
+  @Override
+  public void writeSnapshot(final JsonGenerator generator) throws IOException {
+    final Snapshot snapshot = new Snapshot();
+    snapshot.statuses = itemsIfPresent(statuses, GLOBAL);
+    snapshot.priorities = itemsIfPresent(priorities, GLOBAL);
+    snapshot.caseTypes = itemsIfPresent(caseTypes, GLOBAL);
+    for (Map.Entry<Integer, Indexed<TRTemplate>> entry : templates.asMap().entrySet()) {
+      snapshot.templates.put(entry.getKey(), entry.getValue().items);
+    }
+    for (Map.Entry<Integer, Indexed<TRConfigGroup>> entry : configs.asMap().entrySet()) {
+      snapshot.configs.put(entry.getKey(), entry.getValue().items);
+    }
+    for (Map.Entry<Integer, MilestoneIndex> entry : milestones.asMap().entrySet()) {
+      snapshot.milestones.put(entry.getKey(), entry.getValue().getMilestones());
+    }
+    generator.writeObject(snapshot);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The restored data is refreshed in the background right away, and served meanwhile.</p>
+   */
+  @Override
+  public void readSnapshot(final JsonParser parser) throws IOException {
+    final Snapshot snapshot = parser.readValueAs(Snapshot.class);
+    if (snapshot.statuses != null) {
+      restore(statuses, GLOBAL, indexStatuses(snapshot.statuses));
+    }
+    if (snapshot.priorities != null) {
+      restore(priorities, GLOBAL, indexPriorities(snapshot.priorities));
+    }
+    if (snapshot.caseTypes != null) {
+      restore(caseTypes, GLOBAL, indexCaseTypes(snapshot.caseTypes));
+    }
+    for (Map.Entry<Integer, List<TRTemplate>> entry : snapshot.templates.entrySet()) {
+      restore(templates, entry.getKey(), indexTemplates(entry.getValue()));
+    }
+    for (Map.Entry<Integer, List<TRConfigGroup>> entry : snapshot.configs.entrySet()) {
+      restore(configs, entry.getKey(), indexConfigs(entry.getValue()));
+    }
+    for (Map.Entry<Integer, List<TRMilestone>> entry : snapshot.milestones.entrySet()) {
+      restore(milestones, entry.getKey(), new MilestoneIndex(entry.getValue()));
+    }
+  }
+
+  private static <K, V> void restore(final LoadingCache<K, V> cache, final K key, final V value) {
+    cache.put(key, value);
+    cache.refresh(key);
+  }
+
+  private static <K, T> List<T> itemsIfPresent(final LoadingCache<K, Indexed<T>> cache, final K key) {
+    final Indexed<T> indexed = cache.getIfPresent(key);
+    return (indexed != null) ? indexed.items : null;
+  }
+
+  private static Indexed<TRStatus> indexStatuses(final List<TRStatus> items) {
+    final Indexed<TRStatus> indexed = new Indexed<TRStatus>(items);
+    for (TRStatus status : indexed.items) {
+      indexed.put(status.name, status.id);
+      indexed.put(status.label, status.id);
+    }
+    return indexed;
+  }
+
+  private static Indexed<TRPriority> indexPriorities(final List<TRPriority> items) {
+    final Indexed<TRPriority> indexed = new Indexed<TRPriority>(items);
+    for (TRPriority priority : indexed.items) {
+      indexed.put(priority.name, priority.id);
+      indexed.put(priority.shortName, priority.id);
+    }
+    return indexed;
+  }
+
+  private static Indexed<TRCaseType> indexCaseTypes(final List<TRCaseType> items) {
+    final Indexed<TRCaseType> indexed = new Indexed<TRCaseType>(items);
+    for (TRCaseType caseType : indexed.items) {
+      indexed.put(caseType.name, caseType.id);
+    }
+    return indexed;
+  }
+
+  private static Indexed<TRTemplate> indexTemplates(final List<TRTemplate> items) {
+    final Indexed<TRTemplate> indexed = new Indexed<TRTemplate>(items);
+    for (TRTemplate template : indexed.items) {
+      indexed.put(template.name, template.id);
+    }
+    return indexed;
+  }
+
+  private static Indexed<TRConfigGroup> indexConfigs(final List<TRConfigGroup> items) {
+    final Indexed<TRConfigGroup> indexed = new Indexed<TRConfigGroup>(items);
+    for (TRConfigGroup group : indexed.items) {
+      if (group.configs == null) {
+        continue;
+      }
+      for (TRConfig config : group.configs) {
+        indexed.put(group.name + SEPARATOR + config.name, config.id);
+        indexed.putIfAbsent(config.name, config.id);
+      }
+    }
+    return indexed;
+  }
+
+  private static <K, V> V get(final LoadingCache<K, V> cache, final K key) throws TestRailException {
+    try {
+      return cache.get(key);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof TestRailException) {
+        throw (TestRailException) e.getCause();
+      }
+      throw new TestRailException("Unable to load the reference data", e.getCause());
+    }
+  }
+
+  /**
+   * Content of the cache in a snapshot.
+   */
+  static final class Snapshot {
+
+    public List<TRStatus> statuses;
+    public List<TRPriority> priorities;
+    public List<TRCaseType> caseTypes;
+    public Map<Integer, List<TRTemplate>> templates = new HashMap<Integer, List<TRTemplate>>();
+    public Map<Integer, List<TRConfigGroup>> configs = new HashMap<Integer, List<TRConfigGroup>>();
+    public Map<Integer, List<TRMilestone>> milestones = new HashMap<Integer, List<TRMilestone>>();
+  }
+
+  /**
+   * Immutable list of items with the IDs indexed by lower case name.
+   */
+  private static final class Indexed<T> {
+
+    private final List<T> items;
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private Indexed(final List<T> items) {
+      this.items = Collections.unmodifiableList(
+          (items != null) ? new ArrayList<T>(items) : Collections.<T>emptyList());
+    }
+
+    private void put(final String name, final Integer id) {
+      if (name != null) {
+        ids.put(name.toLowerCase(Locale.ROOT), id);
+      }
+    }
+
+    private void putIfAbsent(final String name, final Integer id) {
+      if (name != null) {
+        ids.putIfAbsent(name.toLowerCase(Locale.ROOT), id);
+      }
+    }
+
+    private Integer idOf(final String name) {
+      return (name != null) ? ids.get(name.toLowerCase(Locale.ROOT)) : null;
+    }
+  }
+}
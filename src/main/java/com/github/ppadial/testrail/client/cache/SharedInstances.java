@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Registry of the instances shared by the clients of the same TestRail instance and user in this JVM. The clients
+ * created from an http client have no url, so each of them gets its own instance.
+ *
+ * <p>The instances are only weakly referenced: they are kept while someone uses them, and dropped with their api
+ * client afterwards.</p>
+ *
+ * <p>A registry created with {@link #perClient(Function, BiPredicate)} instead keeps one instance per api client, for
+ * as long as the client, and creates it again when the settings of the client it depends on change.</p>
+ *
+ * @param <V> type of the shared instances
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+final class SharedInstances<V> {
+
+  private final Cache<String, V> byUser;
+  //weak keys are compared by identity
+  private final Cache<ApiClient, V> byClient;
+  private final Function<ApiClient, V> factory;
+  //null when the instances are shared by user
+  private final BiPredicate<ApiClient, V> upToDate;
+
+  /**
+   * Constructor.
+   *
+   * @param factory creates the instance of an api client the first time it is asked for
+   */
+  SharedInstances(final Function<ApiClient, V> factory) {
+    this.byUser = CacheBuilder.newBuilder().weakValues().build();
+    this.byClient = CacheBuilder.newBuilder().weakKeys().weakValues().build();
+    this.factory = factory;
+    this.upToDate = null;
+  }
+
+  private SharedInstances(final Function<ApiClient, V> factory, final BiPredicate<ApiClient, V> upToDate) {
+    this.byUser = null;
+    this.byClient = CacheBuilder.newBuilder().weakKeys().build();
+    this.factory = factory;
+    this.upToDate = upToDate;
+  }
+
+  /**
+   * Creates a registry of the instances owned by a single api client.
+   *
+   * @param factory creates the instance of an api client from its current settings
+   * @param upToDate checks if an instance was created with the current settings of its api client
+   * @param <V> type of the instances
+   * @return the registry
+   */
+  static <V> SharedInstances<V> perClient(final Function<ApiClient, V> factory,
+      final BiPredicate<ApiClient, V> upToDate) {
+    return new SharedInstances<V>(factory, upToDate);
+  }
+
+  /**
+   * Gets the instance shared with the api client, creating it if there is none in use.
+   *
+   * @param apiClient the api client
+   * @return the shared instance
+   */
+  V get(final ApiClient apiClient) {
+    if (upToDate != null) {
+      final V current = byClient.getIfPresent(apiClient);
+      if (current != null && upToDate.test(apiClient, current)) {
+        return current;
+      }
+      return byClient.asMap().compute(apiClient, (client, previous) ->
+          (previous != null && upToDate.test(client, previous)) ? previous : factory.apply(client));
+    }
+    try {
+      if (apiClient.getUrl() == null) {
+        return byClient.get(apiClient, () -> factory.apply(apiClient));
+      }
+      return byUser.get(apiClient.getUrl() + '\u0000' + apiClient.getUsername(), () -> factory.apply(apiClient));
+    } catch (ExecutionException e) {
+      throw new UncheckedExecutionException(e.getCause());
+    }
+  }
+
+  /**
+   * Drops the instance of an api client, the next one asked for is a new one.
+   *
+   * @param apiClient the api client
+   */
+  void discard(final ApiClient apiClient) {
+    if (byClient.getIfPresent(apiClient) != null) {
+      byClient.invalidate(apiClient);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+
+/**
+ * A cache whose content can be saved in a {@link CacheSnapshots} file and restored from it by a later process.
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public interface Snapshottable {
+
+  /**
+   * Gets the name of the section of the snapshot file holding the content of this cache. It must be unique among the
+   * caches registered in the same snapshot.
+   *
+   * @return the section name
+   */
+  String getSnapshotName();
+
+  /**
+   * Writes the content of the cache as a single json value.
+   *
+   * @param generator the generator, with an object codec set
+   * @throws IOException if the content can not be written
+   */
+  void writeSnapshot(JsonGenerator generator) throws IOException;
+
+  /**
+   * Restores the content written by {@link #writeSnapshot(JsonGenerator)}, on top of the current content.
+   *
+   * @param parser the parser, with an object codec set
+   * @throws IOException if the content can not be read
+   */
+  void readSnapshot(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.users.InvalidEmailAddressException;
+import com.github.ppadial.testrail.client.api.users.InvalidOrUnknownUserException;
+import com.github.ppadial.testrail.client.api.users.UnknownEmailAddressException;
+import com.github.ppadial.testrail.client.api.users.UserServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRUser;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Directory of the TestRail users, answering the lookups by email and by ID from memory.
+ *
+ * <p>The users are loaded once on first access, even when several threads ask for them at the same time. After the
+ * refresh period they are reloaded in the background on the next access, while the old copy keeps being served.</p>
+ *
+ * <p>The emails and IDs that are not in the directory are asked to the server once, and the answer, found or not, is
+ * kept for a short time. The email lookups are case insensitive.</p>
+ *
+ * @author Paulino Padial
+ * @since 0.3.1
+ */
+public final class UserDirectory {
+
+  /**
+   * Default time after which the users are refreshed in the background, in minutes.
+   */
+  public static final long DEFAULT_REFRESH_MINUTES = 15;
+  /**
+   * Default time after which the users are dropped if they could not be refreshed, in minutes.
+   */
+  public static final long DEFAULT_EXPIRE_MINUTES = 24 * 60;
+  /**
+   * Default time the answer of the server for an email or ID not in the directory is kept, in minutes.
+   */
+  public static final long DEFAULT_UNKNOWN_MINUTES = 5;
+
+  private static final SharedInstances<UserDirectory> SHARED = new SharedInstances<UserDirectory>(
+      apiClient -> new UserDirectory(apiClient, DEFAULT_REFRESH_MINUTES, DEFAULT_EXPIRE_MINUTES,
+          DEFAULT_UNKNOWN_MINUTES, TimeUnit.MINUTES));
+  private static final String USERS = "users";
+
+  private final LoadingCache<String, Users> users;
+  private final LoadingCache<String, Optional<TRUser>> unknownEmails;
+  private final LoadingCache<Integer, Optional<TRUser>> unknownIds;
+
+  /**
+   * Constructor.
+   *
+   * @param apiClient the api client used to load the users
+   * @param refreshAfter time after which the users are refreshed in the background
+   * @param expireAfter time after which the users are dropped if they could not be refreshed
+   * @param unknownFor time the answer of the server for an email or ID not in the directory is kept
+   * @param unit time unit of the periods
+   */
+  public UserDirectory(final ApiClient apiClient, final long refreshAfter, final long expireAfter,
+      final long unknownFor, final TimeUnit unit) {
+    if (expireAfter < refreshAfter) {
+      throw new IllegalArgumentException("The users can not expire before they are refreshed");
+    }
+    // the refreshes can wait
+    final Executor reloadExecutor = ApiClient.lowPriorityExecutor(apiClient);
+
+    this.users = CacheBuilder.newBuilder()
+        .refreshAfterWrite(refreshAfter, unit)
+        .expireAfterWrite(expireAfter, unit)
+        .build(CacheLoader.asyncReloading(new CacheLoader<String, Users>() {
+          @Override
+          public Users load(final String key) throws TestRailException {
+            return new Users(new UserServiceClient(apiClient).getUsers());
+          }
+        }, reloadExecutor));
+    this.unknownEmails = CacheBuilder.newBuilder()
+        .expireAfterWrite(unknownFor, unit)
+        .build(new CacheLoader<String, Optional<TRUser>>() {
+          @Override
+          public Optional<TRUser> load(final String email) throws TestRailException {
+            try {
+              return Optional.of(new UserServiceClient(apiClient).getUserByEmail(email));
+            } catch (UnknownEmailAddressException | InvalidEmailAddressException e) {
+              return Optional.empty();
+            }
+          }
+        });
+    this.unknownIds = CacheBuilder.newBuilder()
+        .expireAfterWrite(unknownFor, unit)
+        .build(new CacheLoader<Integer, Optional<TRUser>>() {
+          @Override
+          public Optional<TRUser> load(final Integer userId) throws TestRailException {
+            try {
+              return Optional.of(new UserServiceClient(apiClient).getUser(userId));
+            } catch (InvalidOrUnknownUserException e) {
+              return Optional.empty();
+            }
+          }
+        });
+  }
+
+  /**
+   * Gets the directory shared by all the clients of the same TestRail instance and user in this JVM. The directory is
+   * only kept while it is referenced, so callers should hold on to it instead of asking for it on every use.
+   *
+   * @param apiClient the api client, used to load the users when the directory is created
+   * @return the shared directory, with the default periods
+   */
+  public static UserDirectory shared(final ApiClient apiClient) {
+    return SHARED.get(apiClient);
+  }
+
+  /**
+   * Gets all the users.
+   *
+   * @return the users
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public List<TRUser> getUsers() throws TestRailException {
+    return get(users, USERS).items;
+  }
+
+  /**
+   * Gets a user by email address, ignoring the case.
+   *
+   * @param email the email address
+   * @return the user, null if there is no user with that email address
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public TRUser getUserByEmail(final String email) throws TestRailException {
+    if (email == null) {
+      return null;
+    }
+    final String key = email.trim().toLowerCase(Locale.ROOT);
+    final TRUser user = get(users, USERS).byEmail.get(key);
+    return (user != null) ? user : get(unknownEmails, key).orElse(null);
+  }
+
+  /**
+   * Gets a user by ID.
+   *
+   * @param userId the ID of the user
+   * @return the user, null if there is no user with that ID
+   * @throws TestRailException An error in the connection with testrail
+   */
+  public TRUser getUser(final int userId) throws TestRailException {
+    final TRUser user = get(users, USERS).byId.get(userId);
+    return (user != null) ? user : get(unknownIds, userId).orElse(null);
+  }
+
+  /**
+   * Drops the users and the answers for the unknown emails and IDs, they are loaded again on next access.
+   */
+  public void invalidateAll() {
+    users.invalidateAll();
+    unknownEmails.invalidateAll();
+    unknownIds.invalidateAll();
+  }
+
+  private static <K, V> V get(final LoadingCache<K, V> cache, final K key) throws TestRailException {
+    try {
+      return cache.get(key);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof TestRailException) {
+        throw (TestRailException) e.getCause();
+      }
+      throw new TestRailException("Unable to load the users", e.getCause());
+    }
+  }
+
+  /**
+   * Immutable list of users indexed by lower case email and by ID.
+   */
+  private static final class Users {
+
+    private final List<TRUser> items;
+    private final Map<String, TRUser> byEmail = new HashMap<String, TRUser>();
+    private final Map<Integer, TRUser> byId = new HashMap<Integer, TRUser>();
+
+    private Users(final List<TRUser> items) {
+      this.items = Collections.unmodifiableList(
+          (items != null) ? new ArrayList<TRUser>(items) : Collections.<TRUser>emptyList());
+      for (TRUser user : this.items) {
+        byId.put(user.id, user);
+        if (user.email != null) {
+          byEmail.put(user.email.toLowerCase(Locale.ROOT), user);
+        }
+      }
+    }
+  }
+}
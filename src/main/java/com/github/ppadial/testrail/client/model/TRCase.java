@@ -45,4 +45,6 @@ public class TRCase extends CustomFieldsEntity {
   @JsonProperty("section_id")
   public int sectionId;
   public String refs;
+  @JsonProperty("updated_on")
+  public Long updatedOn;
 }
@@ -38,6 +38,7 @@ public class TRPlanEntry {
   @JsonProperty("suite_id")
   public int suiteId;
   public String name;
+  @JsonProperty("runs")
   public List<TRRun> TRRuns;
   @JsonProperty("assignedto_id")
   public Integer assignedTo;
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.tests.InvalidOrUnknownTestException;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.RequestCancelledException;
+import com.github.ppadial.testrail.client.apiClient.TrafficClass;
+import com.github.ppadial.testrail.client.model.TRRun;
+import com.github.ppadial.testrail.client.model.TRTest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AsyncTestRailClientTest {
+
+  @Mock private ApiClient apiClient;
+
+  private ExecutorService executor;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    executor = Executors.newFixedThreadPool(2);
+    Mockito.when(apiClient.doGet("get_run/1"))
+        .thenReturn(response(HttpStatusCode.OK, "{\"id\": 1, \"name\": \"Nightly\"}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_test/")))
+        .thenAnswer(invocation -> {
+          final String id = ((String) invocation.getArguments()[0]).substring("get_test/".length());
+          return id.equals("404")
+              ? response(HttpStatusCode.BAD_REQUEST, "{\"error\": \"Field :test_id is not a valid test.\"}")
+              : response(HttpStatusCode.OK, "{\"id\": " + id + ", \"run_id\": 1}");
+        });
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void operations_ShouldKeepTheTrafficClassOfTheCaller() throws Exception {
+    final List<TrafficClass> trafficClasses = Collections.synchronizedList(new ArrayList<TrafficClass>());
+    Mockito.when(apiClient.doGet("get_run/2")).thenAnswer(invocation -> {
+      trafficClasses.add(ApiClient.getTrafficClass());
+      return response(HttpStatusCode.OK, "{\"id\": 2}");
+    });
+    final AsyncTestRailClient async = new AsyncTestRailClient(new TestRailClient(apiClient), executor);
+
+    final TrafficClass previous = ApiClient.setTrafficClass(TrafficClass.BULK);
+    try {
+      async.runs().call(runs -> runs.getRun(2)).get(5, TimeUnit.SECONDS);
+    } finally {
+      ApiClient.setTrafficClass(previous);
+    }
+    async.runs().call(runs -> runs.getRun(2)).get(5, TimeUnit.SECONDS);
+
+    assertThat(trafficClasses).containsExactly(TrafficClass.BULK, null);
+  }
+
+  @Test
+  public void operations_ShouldComposeWithoutBlocking() throws Exception {
+    final AsyncTestRailClient async = new AsyncTestRailClient(new TestRailClient(apiClient), executor);
+
+    final List<TRTest> tests = async.runs().call(runs -> runs.getRun(1))
+        .thenCompose(run -> {
+          final List<CompletableFuture<TRTest>> futures = new ArrayList<CompletableFuture<TRTest>>();
+          for (int testId = 10; testId < 20; testId++) {
+            final int id = testId;
+            futures.add(async.tests().call(testsApi -> testsApi.getTest(id)));
+          }
+          return AsyncTestRailClient.allOf(futures);
+        })
+        .get();
+
+    assertThat(tests).hasSize(10);
+    assertThat(tests.get(9).id).isEqualTo(19);
+  }
+
+  @Test
+  public void operations_ShouldFailWithTheExceptionOfTheServiceClient() throws Exception {
+    final AsyncTestRailClient async = new AsyncTestRailClient(new TestRailClient(apiClient), executor);
+
+    Throwable thrown = null;
+    try {
+      async.tests().call(testsApi -> testsApi.getTest(404)).get();
+    } catch (ExecutionException e) {
+      thrown = e.getCause();
+    }
+
+    assertThat(thrown).isInstanceOf(InvalidOrUnknownTestException.class);
+  }
+
+  @Test
+  public void cancel_ShouldInterruptTheRunningOperation() throws Exception {
+    final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    Mockito.when(apiClient.doGet("get_run/2")).thenAnswer(invocation -> {
+      started.countDown();
+      try {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException interruptedException) {
+        interrupted.countDown();
+        throw new RequestCancelledException("Cancelled while waiting for the response", interruptedException);
+      }
+      return response(HttpStatusCode.OK, "{\"id\": 2}");
+    });
+    try {
+      final AsyncTestRailClient async = new AsyncTestRailClient(new TestRailClient(apiClient), singleThread);
+      final CompletableFuture<TRRun> run = async.runs().call(runs -> runs.getRun(2));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+      run.cancel(true);
+
+      assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(run.isCancelled()).isTrue();
+      // the interrupt does not leak to the next task of the thread
+      assertThat(singleThread.submit(() -> Thread.currentThread().isInterrupted()).get()).isFalse();
+    } finally {
+      singleThread.shutdownNow();
+    }
+  }
+}
@@ -25,8 +25,33 @@ package com.github.ppadial.testrail.client;
 
 import static org.mockito.Mockito.when;
 
+import com.github.ppadial.testrail.client.apiClient.ApiResponse;
 import java.net.URL;
 import org.mockito.Mockito;
 
 public class MocksFactory {
+
+  /**
+   * Creates a successful response of the api.
+   *
+   * @param body the json body
+   * @return the response
+   */
+  public static ApiResponse response(final String body) {
+    return response(HttpStatusCode.OK, body);
+  }
+
+  /**
+   * Creates a response of the api.
+   *
+   * @param httpStatusCode the status of the response
+   * @param body the json body
+   * @return the response
+   */
+  public static ApiResponse response(final HttpStatusCode httpStatusCode, final String body) {
+    final ApiResponse apiResponse = new ApiResponse();
+    apiResponse.setHttpStatusCode(httpStatusCode);
+    apiResponse.setBody(body);
+    return apiResponse;
+  }
 }
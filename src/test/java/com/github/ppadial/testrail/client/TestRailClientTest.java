@@ -27,6 +27,7 @@ import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
 import com.github.ppadial.testrail.client.api.casetypes.CaseTypeServiceClient;
 import com.github.ppadial.testrail.client.api.configurations.ConfigurationServiceClient;
 import com.github.ppadial.testrail.client.api.milestones.MilestoneServiceClient;
+import com.github.ppadial.testrail.client.api.plans.PlanResultHarvester;
 import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
 import com.github.ppadial.testrail.client.api.priorities.PriorityServiceClient;
 import com.github.ppadial.testrail.client.api.projects.ProjectServiceClient;
@@ -86,6 +87,11 @@ public class TestRailClientTest {
     assertThat(testRailClient.planApi()).isInstanceOf(PlanServiceClient.class);
   }
 
+  @Test
+  public void testPlanResultHarvester() throws Exception {
+    assertThat(testRailClient.planResultHarvester(4)).isInstanceOf(PlanResultHarvester.class);
+  }
+
   @Test
   public void testPriorityApi() throws Exception {
     assertThat(testRailClient.priorityApi()).isInstanceOf(PriorityServiceClient.class);
@@ -135,4 +141,9 @@ public class TestRailClientTest {
   public void testUserApi() throws Exception {
     assertThat(testRailClient.userApi()).isInstanceOf(UserServiceClient.class);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAsync() throws Exception {
+    assertThat(testRailClient.async()).isInstanceOf(AsyncTestRailClient.class);
+  }
+}
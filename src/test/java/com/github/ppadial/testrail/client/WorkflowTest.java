@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.ppadial.testrail.client.Workflow.Execution;
+import com.github.ppadial.testrail.client.Workflow.Status;
+import com.github.ppadial.testrail.client.Workflow.Step;
+import com.github.ppadial.testrail.client.api.tests.InvalidOrUnknownTestException;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRProject;
+import com.github.ppadial.testrail.client.model.TRSuite;
+import com.github.ppadial.testrail.client.model.TRTest;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WorkflowTest {
+
+  @Mock private ApiClient apiClient;
+
+  private ExecutorService executor;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    executor = Executors.newFixedThreadPool(2);
+    Mockito.when(apiClient.doGet("get_project/1")).thenReturn(response(HttpStatusCode.OK, "{\"id\": 1}"));
+    Mockito.when(apiClient.doGet("get_suites/1"))
+        .thenReturn(response(HttpStatusCode.OK, "[{\"id\": 10}, {\"id\": 11}]"));
+    Mockito.when(apiClient.doGet("get_test/404"))
+        .thenReturn(response(HttpStatusCode.BAD_REQUEST, "{\"error\": \"Field :test_id is not a valid test.\"}"));
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void run_ShouldPassTheResultsToTheDependentSteps() throws Exception {
+    final Workflow workflow = new Workflow(new TestRailClient(apiClient), executor);
+    final Step<TRProject> project = workflow.step("project",
+        context -> context.getClient().projectApi().getProject(1));
+    final Step<List<TRSuite>> suites = workflow.step("suites",
+        context -> context.getClient().suiteApi().getSuites(context.get(project).id), project);
+    final Step<Integer> count = workflow.step("count", context -> context.get(suites).size(), suites);
+
+    final Execution execution = workflow.run();
+
+    assertThat(execution.future(count).get()).isEqualTo(2);
+    assertThat(execution.getStatus(project)).isEqualTo(Status.SUCCEEDED);
+  }
+
+  @Test
+  public void run_ShouldRunTheIndependentStepsConcurrently() throws Exception {
+    final Workflow workflow = new Workflow(new TestRailClient(apiClient), executor);
+    final CountDownLatch bothRunning = new CountDownLatch(2);
+    final Step<Boolean> left = workflow.step("left", context -> {
+      bothRunning.countDown();
+      return bothRunning.await(5, TimeUnit.SECONDS);
+    });
+    final Step<Boolean> right = workflow.step("right", context -> {
+      bothRunning.countDown();
+      return bothRunning.await(5, TimeUnit.SECONDS);
+    });
+
+    final Execution execution = workflow.run();
+
+    assertThat(execution.future(left).get()).isTrue();
+    assertThat(execution.future(right).get()).isTrue();
+  }
+
+  @Test
+  public void run_WithFailedStep_ShouldCancelItsDependentsOnly() throws Exception {
+    final Workflow workflow = new Workflow(new TestRailClient(apiClient), executor);
+    final AtomicBoolean dependentRun = new AtomicBoolean();
+    final Step<TRProject> project = workflow.step("project",
+        context -> context.getClient().projectApi().getProject(1));
+    final Step<TRTest> broken = workflow.step("broken", context -> context.getClient().testApi().getTest(404),
+        project);
+    final Step<Boolean> dependent = workflow.step("dependent", context -> dependentRun.getAndSet(true), broken);
+    final Step<List<TRSuite>> suites = workflow.step("suites",
+        context -> context.getClient().suiteApi().getSuites(context.get(project).id), project);
+
+    final Execution execution = workflow.start();
+
+    assertThatThrownBy(execution::await).isInstanceOf(InvalidOrUnknownTestException.class);
+    assertThat(execution.getStatus(broken)).isEqualTo(Status.FAILED);
+    assertThat(execution.getStatus(dependent)).isEqualTo(Status.CANCELLED);
+    assertThat(execution.getStatus(suites)).isEqualTo(Status.SUCCEEDED);
+    assertThat(dependentRun).isFalse();
+  }
+
+  @Test
+  public void step_WithStepOfAnotherWorkflow_ShouldBeRejected() {
+    final Workflow workflow = new Workflow(new TestRailClient(apiClient), executor);
+    final Step<Integer> foreign = new Workflow(new TestRailClient(apiClient), executor).step("one", context -> 1);
+
+    assertThatThrownBy(() -> workflow.step("two", context -> 2, foreign))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
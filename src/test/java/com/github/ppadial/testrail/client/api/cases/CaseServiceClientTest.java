@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.cases;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.api.NoAccessToProjectException;
+import com.github.ppadial.testrail.client.api.sections.InvalidOrUnknownSectionException;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRCase;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CaseServiceClientTest {
+
+  @Mock private ApiClient apiClient;
+  private CaseServiceClient caseServiceClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    caseServiceClient = new CaseServiceClient(apiClient);
+  }
+
+  @Test
+  public void addCase_ShouldSendTheTitleAndTheFields() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("add_case/5"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("{\"id\": 7, \"title\": \"Login\", \"section_id\": 5}"));
+
+    final TRCase trCase = caseServiceClient.addCase(5, "Login", Collections.singletonMap("priority_id", "2"));
+
+    final ArgumentCaptor<HttpEntity> body = ArgumentCaptor.forClass(HttpEntity.class);
+    Mockito.verify(apiClient).doPost(Mockito.eq("add_case/5"), body.capture());
+    assertThat(EntityUtils.toString(body.getValue())).contains("\"title\":\"Login\"").contains("\"priority_id\":\"2\"");
+    assertThat(trCase.id).isEqualTo(7);
+  }
+
+  @Test(expectedExceptions = InvalidOrUnknownSectionException.class)
+  public void addCase_WithUnknownSection_ShouldThrowAnException() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("add_case/5"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(HttpStatusCode.BAD_REQUEST, "{\"error\": \"Field :section_id is not a valid section.\"}"));
+
+    caseServiceClient.addCase(5, "Login", null);
+  }
+
+  @Test(expectedExceptions = NoAccessToProjectException.class)
+  public void addCase_WithoutPermissions_ShouldThrowAnException() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("add_case/5"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(HttpStatusCode.FORBIDDEN, "{\"error\": \"No access to the project\"}"));
+
+    caseServiceClient.addCase(5, "Login", null);
+  }
+
+  @Test
+  public void updateCase_ShouldSendOnlyTheGivenFields() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("update_case/7"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("{\"id\": 7, \"title\": \"Logout\"}"));
+    final Map<String, Object> fields = new HashMap<String, Object>();
+    fields.put("title", "Logout");
+
+    final TRCase trCase = caseServiceClient.updateCase(7, fields);
+
+    final ArgumentCaptor<HttpEntity> body = ArgumentCaptor.forClass(HttpEntity.class);
+    Mockito.verify(apiClient).doPost(Mockito.eq("update_case/7"), body.capture());
+    assertThat(EntityUtils.toString(body.getValue())).isEqualTo("{\"title\":\"Logout\"}");
+    assertThat(trCase.title).isEqualTo("Logout");
+  }
+
+  @Test(expectedExceptions = InvalidOrUnknownTestCaseException.class)
+  public void updateCase_WithUnknownCase_ShouldThrowAnException() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("update_case/7"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(HttpStatusCode.BAD_REQUEST, "{\"error\": \"Field :case_id is not a valid test case.\"}"));
+
+    caseServiceClient.updateCase(7, null);
+  }
+
+  @Test(expectedExceptions = NoAccessToProjectException.class)
+  public void updateCase_WithoutPermissions_ShouldThrowAnException() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("update_case/7"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(HttpStatusCode.FORBIDDEN, "{\"error\": \"No access to the project\"}"));
+
+    caseServiceClient.updateCase(7, null);
+  }
+
+  @Test
+  public void updateCases_ShouldSendOneRequestPerChunk() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("update_cases/3"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("{\"updated_cases\":[{\"id\":1},{\"id\":2}]}"));
+
+    final List<TRCase> updatedCases =
+        caseServiceClient.updateCases(3, ids(600), Collections.singletonMap("priority_id", 2), 250);
+
+    Mockito.verify(apiClient, Mockito.times(3))
+        .doPost(Mockito.eq("update_cases/3"), Mockito.any(HttpEntity.class));
+    assertThat(updatedCases).hasSize(6);
+  }
+
+  @Test
+  public void deleteCases_ShouldSendOneRequestPerChunk() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("delete_cases/3"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(""));
+
+    caseServiceClient.deleteCases(3, ids(500));
+
+    Mockito.verify(apiClient, Mockito.times(2))
+        .doPost(Mockito.eq("delete_cases/3"), Mockito.any(HttpEntity.class));
+  }
+
+  private static List<Integer> ids(final int count) {
+    final List<Integer> ids = new ArrayList<Integer>(count);
+    for (int id = 1; id <= count; id++) {
+      ids.add(id);
+    }
+    return ids;
+  }
+}
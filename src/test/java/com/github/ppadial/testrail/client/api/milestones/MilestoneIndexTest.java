@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.milestones;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRMilestone;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MilestoneIndexTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_milestones/1&limit=250&offset=0"))
+        .thenReturn(response(HttpStatusCode.OK, "[{\"id\": 1, \"name\": \"Release 1\", \"start_on\": 100,"
+            + " \"due_on\": 300, \"milestones\": [{\"id\": 2, \"name\": \"Sprint 1\", \"start_on\": 100,"
+            + " \"due_on\": 200, \"is_completed\": true, \"completed_on\": 190},"
+            + " {\"id\": 3, \"name\": \"Sprint 2\", \"start_on\": 200, \"due_on\": 300}]}]"));
+    Mockito.when(apiClient.doGet("get_milestones/1&is_completed=0&limit=250&offset=0"))
+        .thenReturn(response(HttpStatusCode.OK, "[{\"id\": 1, \"name\": \"Release 1\", \"start_on\": 100,"
+            + " \"due_on\": 300}, {\"id\": 4, \"name\": \"Sprint 3\", \"parent_id\": 1, \"start_on\": 300}]"));
+    Mockito.when(apiClient.doGet("get_milestone/3"))
+        .thenReturn(response(HttpStatusCode.OK, "{\"id\": 3, \"name\": \"Sprint 2\", \"parent_id\": 1,"
+            + " \"start_on\": 200, \"due_on\": 300, \"is_completed\": true, \"completed_on\": 290}"));
+  }
+
+  @Test
+  public void index_ShouldFlattenTheNestedMilestones() throws Exception {
+    final MilestoneIndex index = new MilestoneServiceClient(apiClient).getMilestoneIndex(1);
+
+    assertThat(index.size()).isEqualTo(3);
+    assertThat(ids(index.getRoots())).containsExactly(1);
+    assertThat(ids(index.getChildren(1))).containsExactly(2, 3);
+    assertThat(ids(index.getAncestors(3))).containsExactly(1);
+    assertThat(index.getParentId(2)).isEqualTo(1);
+    assertThat(ids(index.getSubtree(1))).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void dateQueries_ShouldUseTheStartAndDueDates() throws Exception {
+    final MilestoneIndex index = new MilestoneServiceClient(apiClient).getMilestoneIndex(1);
+
+    assertThat(ids(index.getStartingBetween(150, 250))).containsExactly(3);
+    assertThat(ids(index.getDueBetween(0, 299))).containsExactly(2);
+    assertThat(ids(index.getActiveAt(150))).containsExactly(1, 2);
+    assertThat(ids(index.getActiveAt(195))).containsExactly(1);
+    assertThat(index.getActiveAt(50)).isEmpty();
+  }
+
+  @Test
+  public void incrementalIndex_ShouldOnlyAskForTheOpenMilestones() throws Exception {
+    final MilestoneServiceClient milestoneServiceClient = new MilestoneServiceClient(apiClient);
+    final MilestoneIndex previous = milestoneServiceClient.getMilestoneIndex(1);
+
+    final MilestoneIndex index = milestoneServiceClient.getMilestoneIndex(1, previous);
+
+    assertThat(ids(index.getChildren(1))).containsExactly(2, 3, 4);
+    assertThat(index.getMilestone(3).isCompleted).isTrue();
+    assertThat(ids(index.getActiveAt(300))).containsExactly(1, 4);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_milestones/1&limit=250&offset=0");
+  }
+
+  @Test
+  public void index_ShouldTreatMilestonesWithUnknownParentAsRoots() {
+    final TRMilestone orphan = new TRMilestone();
+    orphan.id = 7;
+    orphan.parentId = 6;
+
+    final MilestoneIndex index = new MilestoneIndex(Collections.singletonList(orphan));
+
+    assertThat(ids(index.getRoots())).containsExactly(7);
+    assertThat(index.getParentId(7)).isNull();
+    assertThat(ids(index.getActiveAt(0))).containsExactly(7);
+  }
+
+  private static List<Integer> ids(final List<TRMilestone> milestones) {
+    return milestones.stream().map(m -> m.id).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.plans;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.plans.PlanResultHarvester.HarvestedResult;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.TrafficClass;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PlanResultHarvesterTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_plan/1")).thenReturn(response(
+        "{\"id\":1,\"entries\":[{\"id\":\"e1\",\"runs\":["
+            + "{\"id\":10,\"config\":\"Chrome\",\"config_ids\":[3]},"
+            + "{\"id\":11,\"config\":\"Firefox\",\"config_ids\":[4]}]}]}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/10&")))
+        .thenReturn(response("{\"offset\":0,\"results\":[{\"id\":100},{\"id\":101}],\"_links\":{\"next\":null}}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/11&")))
+        .thenReturn(response("[{\"id\":110}]"));
+  }
+
+  @Test
+  public void harvest_ShouldMergeTheResultsOfAllTheRuns() throws Exception {
+    final List<HarvestedResult> harvested = new ArrayList<HarvestedResult>();
+    final List<Integer> progress = new ArrayList<Integer>();
+
+    final long count = new PlanResultHarvester(apiClient, 2)
+        .withProgressListener((runId, harvestedRuns, totalRuns, harvestedResults) -> progress.add(harvestedRuns))
+        .harvest(1, harvested::add);
+
+    assertThat(count).isEqualTo(3);
+    assertThat(harvested).extracting(result -> result.getResult().id).containsExactlyInAnyOrder(100, 101, 110);
+    assertThat(harvested).filteredOn(result -> result.getRunId() == 11)
+        .extracting(HarvestedResult::getConfig).containsExactly("Firefox");
+    assertThat(progress).containsExactly(1, 2);
+  }
+
+  @Test
+  public void cancelledHarvester_ShouldNotHarvest() throws Exception {
+    final PlanResultHarvester harvester = new PlanResultHarvester(apiClient, 2);
+    harvester.cancel();
+
+    assertThat(harvester.harvest(1, result -> { })).isZero();
+    assertThat(harvester.isCancelled()).isTrue();
+    Mockito.verify(apiClient, Mockito.never()).doGet(Mockito.anyString());
+  }
+
+  @Test
+  public void harvest_ShouldFetchTheRunsWithTheTrafficClassOfTheCaller() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    final List<TrafficClass> trafficClasses = Collections.synchronizedList(new ArrayList<TrafficClass>());
+    Mockito.when(apiClient.getExecutor()).thenReturn(executor);
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/11&"))).thenAnswer(invocation -> {
+      trafficClasses.add(ApiClient.getTrafficClass());
+      return response("[{\"id\":110}]");
+    });
+    final TrafficClass previous = ApiClient.setTrafficClass(TrafficClass.BULK);
+    try {
+      new PlanResultHarvester(apiClient, 2).harvest(1, result -> { });
+    } finally {
+      ApiClient.setTrafficClass(previous);
+      executor.shutdownNow();
+    }
+
+    assertThat(trafficClasses).containsExactly(TrafficClass.BULK);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.ppadial.testrail.client.api.projects;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.api.projects.InventoryCrawler.Progress;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.model.TRCase;
+import com.github.ppadial.testrail.client.model.TRSection;
+import com.github.ppadial.testrail.client.model.TRSuite;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class InventoryCrawlerTest {
+
+  @Mock private ApiClient apiClient;
+
+  private final List<Integer> suites = new CopyOnWriteArrayList<Integer>();
+  private final List<Integer> sections = new CopyOnWriteArrayList<Integer>();
+  private final List<Integer> cases = new CopyOnWriteArrayList<Integer>();
+  private final InventoryCrawler.Sink sink = new InventoryCrawler.Sink() {
+    @Override
+    public void onSuite(final int projectId, final TRSuite suite) {
+      suites.add(suite.id);
+    }
+
+    @Override
+    public void onSection(final int projectId, final int suiteId, final TRSection section) {
+      sections.add(section.id);
+    }
+
+    @Override
+    public void onCase(final int projectId, final int suiteId, final TRCase testCase) {
+      cases.add(testCase.id);
+    }
+  };
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    suites.clear();
+    sections.clear();
+    cases.clear();
+    Mockito.when(apiClient.doGet("get_projects")).thenReturn(response(HttpStatusCode.OK, "[{\"id\":1},{\"id\":2}]"));
+    Mockito.when(apiClient.doGet("get_suites/1")).thenReturn(response(HttpStatusCode.OK, "[{\"id\":10}]"));
+    Mockito.when(apiClient.doGet("get_suites/2")).thenReturn(response(HttpStatusCode.OK, "[{\"id\":20},{\"id\":21}]"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_sections/1&suite_id=10&"))).thenReturn(
+        response(HttpStatusCode.OK, "{\"sections\":[{\"id\":100},{\"id\":101}],\"_links\":{\"next\":null}}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_sections/2&")))
+        .thenReturn(response(HttpStatusCode.OK, "{\"sections\":[],\"_links\":{\"next\":null}}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_cases/1&suite_id=10&")))
+        .thenReturn(response(HttpStatusCode.OK, "{\"cases\":[{\"id\":1000}],\"_links\":{\"next\":null}}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_cases/2&suite_id=20&")))
+        .thenReturn(response(HttpStatusCode.OK, "{\"cases\":[{\"id\":2000}],\"_links\":{\"next\":null}}"));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_cases/2&suite_id=21&"))).thenReturn(
+        response(HttpStatusCode.OK, "{\"cases\":[{\"id\":2100},{\"id\":2101}],\"_links\":{\"next\":null}}"));
+  }
+
+  @Test
+  public void crawl_ShouldStreamTheWholeInventory() throws Exception {
+    final List<Long> crawledSuites = new CopyOnWriteArrayList<Long>();
+
+    final Progress progress = new InventoryCrawler(apiClient, 4)
+        .withProgressListener(current -> crawledSuites.add(current.getCrawledSuites()))
+        .crawl(sink);
+
+    assertThat(suites).containsExactlyInAnyOrder(10, 20, 21);
+    assertThat(sections).containsExactlyInAnyOrder(100, 101);
+    assertThat(cases).containsExactlyInAnyOrder(1000, 2000, 2100, 2101);
+    assertThat(crawledSuites).hasSize(3).contains(3L);
+    assertThat(progress.getProjects()).isEqualTo(2);
+    assertThat(progress.getCrawledSuites()).isEqualTo(3);
+    assertThat(progress.getCases()).isEqualTo(4);
+    assertThat(progress.getRequests()).isEqualTo(9);
+  }
+
+  @Test
+  public void crawl_WithCheckpoint_ShouldResumeFromTheFailedSuite() throws Exception {
+    final Path file = Files.createTempFile("crawl", ".properties");
+    Files.delete(file);
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_cases/2&suite_id=21&")))
+        .thenReturn(response(HttpStatusCode.BAD_REQUEST, "{\"error\":\"Field :project_id is not a valid project\"}"))
+        .thenReturn(response(HttpStatusCode.OK, "{\"cases\":[{\"id\":2100}],\"_links\":{\"next\":null}}"));
+
+    assertThatThrownBy(() -> new InventoryCrawler(apiClient, 1).withCheckpoint(new FileCrawlCheckpoint(file))
+        .crawl(sink)).isInstanceOf(InvalidOrUnknownProjectException.class);
+    final FileCrawlCheckpoint checkpoint = new FileCrawlCheckpoint(file);
+    assertThat(checkpoint.isProjectCrawled(1)).isTrue();
+    assertThat(checkpoint.isProjectCrawled(2)).isFalse();
+    assertThat(checkpoint.isSuiteCrawled(21)).isFalse();
+
+    suites.clear();
+    cases.clear();
+    new InventoryCrawler(apiClient, 1).withCheckpoint(checkpoint).crawl(sink);
+
+    assertThat(suites).containsExactly(21);
+    assertThat(cases).containsExactly(2100);
+    assertThat(new FileCrawlCheckpoint(file).isProjectCrawled(2)).isTrue();
+    Files.delete(file);
+  }
+}
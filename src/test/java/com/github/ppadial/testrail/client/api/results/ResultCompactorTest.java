@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.results.ResultCompactor.CommentMode;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResultCompactorTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doPost(Mockito.anyString(), Mockito.any(HttpEntity.class))).thenReturn(response("[]"));
+  }
+
+  @Test
+  public void resultsForTheSameCase_ShouldCollapseIntoOnePost() throws Exception {
+    final ResultCompactor compactor = new ResultCompactor(new ResultServiceClient(apiClient));
+
+    compactor.addResultForCase(1, 10, 5, "first", null, null, null, null, null);
+    compactor.addResultForCase(1, 10, 5, "second", null, null, null, null, null);
+    compactor.addResultForCase(1, 10, 1, "third", null, null, null, null, null);
+    compactor.addResultForCase(1, 11, 1, null, null, null, null, null, null);
+    compactor.flush();
+
+    final ArgumentCaptor<HttpEntity> body = ArgumentCaptor.forClass(HttpEntity.class);
+    Mockito.verify(apiClient, Mockito.times(1))
+        .doPost(Mockito.eq("add_results_for_cases/1"), body.capture());
+    assertThat(EntityUtils.toString(body.getValue()))
+        .contains("third").doesNotContain("first").doesNotContain("second");
+    assertThat(compactor.getSubmittedResults()).isEqualTo(4);
+    assertThat(compactor.getSavedPosts()).isEqualTo(2);
+    assertThat(compactor.getPosts()).isEqualTo(1);
+  }
+
+  @Test
+  public void concatenateMode_ShouldKeepAllComments() throws Exception {
+    final ResultCompactor compactor =
+        new ResultCompactor(new ResultServiceClient(apiClient), CommentMode.CONCATENATE, 0);
+
+    compactor.addResult(1, 20, 5, "first", null, null, null, null, null);
+    compactor.addResult(1, 20, 1, "second", null, null, null, null, null);
+    compactor.close();
+
+    final ArgumentCaptor<HttpEntity> body = ArgumentCaptor.forClass(HttpEntity.class);
+    Mockito.verify(apiClient).doPost(Mockito.eq("add_results/1"), body.capture());
+    assertThat(EntityUtils.toString(body.getValue())).contains("first\\n\\nsecond");
+  }
+
+  @Test
+  public void flushWithoutResults_ShouldNotPost() throws Exception {
+    final ResultCompactor compactor = new ResultCompactor(new ResultServiceClient(apiClient));
+
+    assertThat(compactor.flush()).isEmpty();
+    Mockito.verify(apiClient, Mockito.never()).doPost(Mockito.anyString(), Mockito.any(HttpEntity.class));
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import org.testng.annotations.Test;
+
+public class ResultFilterTest {
+
+  @Test
+  public void missingFilters_ShouldKeepTheUrl() {
+    final String url = ResultFilter.builder()
+        .statuses(Arrays.asList(1, 5))
+        .createdAfter(100L)
+        .build()
+        .appendTo("get_results_for_run/1");
+
+    assertThat(url).isEqualTo("get_results_for_run/1&status_id=1,5&created_after=100");
+  }
+
+  @Test
+  public void noFilters_ShouldReturnTheUrl() {
+    assertThat(ResultFilter.builder().build().appendTo("get_results_for_run/1")).isEqualTo("get_results_for_run/1");
+  }
+}
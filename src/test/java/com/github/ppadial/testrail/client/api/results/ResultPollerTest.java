@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.results;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResultPollerTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void secondTick_ShouldOnlyDeliverNewResults() throws Exception {
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/1")))
+        .thenReturn(response("[{\"id\": 2, \"created_on\": 100}, {\"id\": 1, \"created_on\": 90}]"))
+        .thenReturn(response("[{\"id\": 3, \"created_on\": 100}, {\"id\": 2, \"created_on\": 100}]"));
+    final List<Integer> delivered = new ArrayList<Integer>();
+    final ResultPoller poller = new ResultPoller(new ResultServiceClient(apiClient))
+        .watch(1)
+        .subscribe((runId, results) -> results.forEach(result -> delivered.add(result.id)));
+
+    assertThat(poller.poll()).isEqualTo(2);
+    assertThat(poller.poll()).isEqualTo(1);
+
+    assertThat(delivered).containsExactly(1, 2, 3);
+    Mockito.verify(apiClient).doGet(Mockito.startsWith("get_results_for_run/1&created_after=99&"));
+    assertThat(poller.getWatermark(1).getCreatedOn()).isEqualTo(100L);
+  }
+
+  @Test
+  public void shiftingPages_ShouldDeliverEachResultOnce() throws Exception {
+    // result 4 is added between the first and the second page, pushing result 2 to the second page
+    Mockito.when(apiClient.doGet(Mockito.contains("offset=0")))
+        .thenReturn(response("[{\"id\": 3, \"created_on\": 30}, {\"id\": 2, \"created_on\": 20}]"));
+    Mockito.when(apiClient.doGet(Mockito.contains("offset=2")))
+        .thenReturn(response("[{\"id\": 2, \"created_on\": 20}, {\"id\": 1, \"created_on\": 10}]"));
+    Mockito.when(apiClient.doGet(Mockito.contains("offset=4"))).thenReturn(response("[]"));
+    final List<Integer> delivered = new ArrayList<Integer>();
+    final ResultPoller poller = new ResultPoller(new ResultServiceClient(apiClient), null, 2)
+        .watch(1)
+        .subscribe((runId, results) -> results.forEach(result -> delivered.add(result.id)));
+
+    assertThat(poller.poll()).isEqualTo(3);
+
+    assertThat(delivered).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void watchFromAMoment_ShouldNotDeliverTheResultsCreatedOnIt() throws Exception {
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/1")))
+        .thenReturn(response("[{\"id\": 3, \"created_on\": 1001}, {\"id\": 2, \"created_on\": 1000},"
+            + " {\"id\": 1, \"created_on\": 999}]"))
+        .thenReturn(response("[{\"id\": 4, \"created_on\": 1001}, {\"id\": 3, \"created_on\": 1001},"
+            + " {\"id\": 2, \"created_on\": 1000}]"));
+    final List<Integer> delivered = new ArrayList<Integer>();
+    final ResultPoller poller = new ResultPoller(new ResultServiceClient(apiClient))
+        .watch(1, 1000)
+        .subscribe((runId, results) -> results.forEach(result -> delivered.add(result.id)));
+
+    assertThat(poller.poll()).isEqualTo(1);
+    assertThat(poller.poll()).isEqualTo(1);
+
+    assertThat(delivered).containsExactly(3, 4);
+    Mockito.verify(apiClient, Mockito.times(2)).doGet(Mockito.startsWith("get_results_for_run/1&created_after=1000&"));
+  }
+
+  @Test
+  public void storedWatermark_ShouldBeResumed() throws Exception {
+    final WatermarkStore store = Mockito.mock(WatermarkStore.class);
+    Mockito.when(store.load(1)).thenReturn(new Watermark(500L, Collections.singleton(7)));
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_results_for_run/1")))
+        .thenReturn(response("[{\"id\": 8, \"created_on\": 501}, {\"id\": 7, \"created_on\": 500}]"));
+    final ResultPoller poller = new ResultPoller(new ResultServiceClient(apiClient), store, 250).watch(1);
+
+    assertThat(poller.poll()).isEqualTo(1);
+
+    Mockito.verify(apiClient).doGet(Mockito.startsWith("get_results_for_run/1&created_after=499&"));
+    Mockito.verify(store).save(Mockito.eq(1), Mockito.any(Watermark.class));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.sections;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import java.util.Arrays;
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SectionServiceClientTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_sections/1&suite_id=2&limit=250&offset=0"))
+        .thenReturn(response("{\"offset\": 0, \"limit\": 250, \"size\": 1, \"_links\": {\"next\": null},"
+            + " \"sections\": [{\"id\": 10, \"name\": \"API\", \"depth\": 0}]}"));
+    Mockito.when(apiClient.doPost(Mockito.eq("add_section/1"), Mockito.any(HttpEntity.class)))
+        .thenAnswer(invocation -> {
+          final String body = EntityUtils.toString((HttpEntity) invocation.getArguments()[1]);
+          return body.contains("Payments")
+              ? response("{\"id\": 11, \"name\": \"Payments\", \"parent_id\": 10, \"depth\": 1}")
+              : response("{\"id\": 12, \"name\": \"Refunds\", \"parent_id\": 11, \"depth\": 2}");
+        });
+  }
+
+  @Test
+  public void ensurePaths_ShouldCreateTheMissingSectionsLevelByLevel() throws Exception {
+    final SectionServiceClient sectionServiceClient = new SectionServiceClient(apiClient);
+
+    final SectionTree tree = sectionServiceClient.ensurePaths(1, 2, sectionServiceClient.getSectionTree(1, 2),
+        Arrays.asList("API/Payments/Refunds", "API/Payments", "API"));
+
+    assertThat(tree.resolve("API/Payments/Refunds")).isEqualTo(12);
+    assertThat(tree.size()).isEqualTo(3);
+    Mockito.verify(apiClient, Mockito.times(2)).doPost(Mockito.eq("add_section/1"), Mockito.any(HttpEntity.class));
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.sections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.model.TRSection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class SectionTreeTest {
+
+  private final SectionTree tree = new SectionTree(Arrays.asList(
+      section(4, "Refunds", 2, 2),
+      section(1, "API", 0, 1),
+      section(2, "Payments", 1, 2),
+      section(3, "Orders", 1, 1),
+      section(5, "UI", 0, 2)));
+
+  @Test
+  public void resolve_ShouldFollowThePathNames() {
+    assertThat(tree.resolve("API/Payments/Refunds")).isEqualTo(4);
+    assertThat(tree.resolve(" API / Orders ")).isEqualTo(3);
+    assertThat(tree.resolve("API/Refunds")).isNull();
+    assertThat(tree.getPath(4)).isEqualTo("API/Payments/Refunds");
+    assertThat(tree.getParentId(4)).isEqualTo(2);
+  }
+
+  @Test
+  public void subtree_ShouldListTheDescendantsInDisplayOrder() {
+    assertThat(ids(tree.getSubtree(1))).containsExactly(1, 3, 2, 4);
+    assertThat(ids(tree.getSubtree(5))).containsExactly(5);
+    assertThat(ids(tree.getRoots())).containsExactly(1, 5);
+  }
+
+  private static List<Integer> ids(final List<TRSection> sections) {
+    return sections.stream().map(section -> section.id).collect(Collectors.toList());
+  }
+
+  private static TRSection section(final int id, final String name, final int parentId, final int displayOrder) {
+    final TRSection section = new TRSection();
+    section.id = id;
+    section.name = name;
+    section.parent_id = parentId;
+    section.display_order = displayOrder;
+    return section;
+  }
+}
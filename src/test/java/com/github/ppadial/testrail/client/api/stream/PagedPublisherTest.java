@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.Page;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PagedPublisherTest {
+
+  private static final int TOTAL = 7;
+  private static final int PAGE_SIZE = 3;
+
+  private List<Integer> fetchedOffsets;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() {
+    fetchedOffsets = new ArrayList<Integer>();
+  }
+
+  @Test
+  public void publisher_ShouldFetchThePagesAsTheEntitiesAreRequested() {
+    final RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedPublisher<Integer>(this::page, null).subscribe(subscriber);
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.items).containsExactly(0, 1);
+    assertThat(fetchedOffsets).containsExactly(0);
+
+    subscriber.subscription.request(2);
+    assertThat(subscriber.items).containsExactly(0, 1, 2, 3);
+    assertThat(fetchedOffsets).containsExactly(0, 3);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertThat(subscriber.items).hasSize(TOTAL);
+    assertThat(subscriber.completed).isTrue();
+  }
+
+  @Test
+  public void cancel_ShouldStopTheFetch() {
+    final RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedPublisher<Integer>(this::page, null).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(10);
+
+    assertThat(subscriber.items).containsExactly(0);
+    assertThat(fetchedOffsets).containsExactly(0);
+    assertThat(subscriber.completed).isFalse();
+  }
+
+  @Test
+  public void publisher_ShouldSignalTheErrorsOfTheFetch() {
+    final RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedPublisher<Integer>(offset -> {
+      throw new TestRailException("unavailable");
+    }, null).subscribe(subscriber);
+
+    subscriber.subscription.request(1);
+
+    assertThat(subscriber.error).isInstanceOf(TestRailException.class);
+  }
+
+  @Test
+  public void request_ShouldFailWithANonPositiveNumber() {
+    final RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedPublisher<Integer>(this::page, null).subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+
+    assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    assertThat(fetchedOffsets).isEmpty();
+  }
+
+  private Page<Integer> page(final int offset) {
+    fetchedOffsets.add(offset);
+    final List<Integer> items = new ArrayList<Integer>();
+    for (int item = offset; item < Math.min(offset + PAGE_SIZE, TOTAL); item++) {
+      items.add(item);
+    }
+    return new Page<Integer>(items, offset, offset + PAGE_SIZE < TOTAL);
+  }
+
+  private static final class RecordingSubscriber implements Subscriber<Integer> {
+
+    private final List<Integer> items = new ArrayList<Integer>();
+    private Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(final Integer item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+      this.error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      this.completed = true;
+    }
+  }
+}
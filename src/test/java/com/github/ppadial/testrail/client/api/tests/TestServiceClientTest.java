@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.api.tests;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.IntIntHashMap;
+import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
+import com.github.ppadial.testrail.client.api.stream.Subscriber;
+import com.github.ppadial.testrail.client.api.stream.Subscription;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.cache.EntityCache;
+import com.github.ppadial.testrail.client.model.TRTest;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.http.HttpEntity;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestServiceClientTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_tests/7&limit=250&offset=0"))
+        .thenReturn(response("{\"offset\": 0, \"limit\": 250, \"size\": 2, \"_links\": {\"next\": \"/api/v2/x\"},"
+            + " \"tests\": [{\"id\": 100, \"case_id\": 1, \"custom_steps\": [{\"content\": \"a\"}]},"
+            + " {\"id\": 101, \"case_id\": 2}]}"));
+    Mockito.when(apiClient.doGet("get_tests/7&limit=250&offset=2"))
+        .thenReturn(response("{\"offset\": 2, \"limit\": 250, \"size\": 1, \"_links\": {\"next\": null},"
+            + " \"tests\": [{\"id\": 102, \"case_id\": 3}]}"));
+  }
+
+  @Test
+  public void getRunTestMap_ShouldMapTheCasesOfAllThePages() throws Exception {
+    final RunTestMap runTestMap = new TestServiceClient(apiClient).getRunTestMap(7);
+
+    assertThat(runTestMap.size()).isEqualTo(3);
+    assertThat(runTestMap.getTestId(1)).isEqualTo(100);
+    assertThat(runTestMap.getTestId(3)).isEqualTo(102);
+    assertThat(runTestMap.getTestId(4)).isEqualTo(RunTestMap.NO_TEST);
+  }
+
+  @Test
+  public void getRunTestMap_ShouldPageByTheTestsRead() throws Exception {
+    Mockito.when(apiClient.doGet("get_tests/8&limit=250&offset=0"))
+        .thenReturn(response("{\"_links\": {\"next\": \"/api/v2/x\"}, \"tests\": [{\"id\": 100, \"case_id\": 1}]}"));
+    Mockito.when(apiClient.doGet("get_tests/8&limit=250&offset=1"))
+        .thenReturn(response("{\"_links\": {\"next\": \"/api/v2/x\"}, \"tests\": [{\"id\": 100, \"case_id\": 1}]}"));
+    Mockito.when(apiClient.doGet("get_tests/8&limit=250&offset=2"))
+        .thenReturn(response("{\"_links\": {\"next\": null}, \"tests\": [{\"id\": 101, \"case_id\": 2}]}"));
+
+    final RunTestMap runTestMap = new TestServiceClient(apiClient).getRunTestMap(8);
+
+    assertThat(runTestMap.size()).isEqualTo(2);
+    assertThat(runTestMap.getTestId(2)).isEqualTo(101);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_tests/8&limit=250&offset=1");
+  }
+
+  @Test
+  public void getRunTestMap_ShouldReadAllThePagesOfPlainArrays() throws Exception {
+    final StringBuilder fullPage = new StringBuilder("[");
+    for (int testId = 1; testId <= 250; testId++) {
+      // the last tests repeat the first cases
+      fullPage.append((testId > 1) ? ", " : "").append("{\"id\": ").append(testId)
+          .append(", \"case_id\": ").append((testId - 1) % 200 + 1).append("}");
+    }
+    Mockito.when(apiClient.doGet("get_tests/9&limit=250&offset=0"))
+        .thenReturn(response(fullPage.append("]").toString()));
+    Mockito.when(apiClient.doGet("get_tests/9&limit=250&offset=250"))
+        .thenReturn(response("[{\"id\": 251, \"case_id\": 500}]"));
+
+    final RunTestMap runTestMap = new TestServiceClient(apiClient).getRunTestMap(9);
+
+    assertThat(runTestMap.size()).isEqualTo(201);
+    assertThat(runTestMap.getTestId(500)).isEqualTo(251);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_tests/9&limit=250&offset=250");
+  }
+
+  @Test
+  public void getRunTestMap_ShouldBeServedFromTheCache() throws Exception {
+    final EntityCache entityCache = EntityCache.builder().build();
+    final TestServiceClient testServiceClient = new TestServiceClient(apiClient, entityCache);
+
+    testServiceClient.getRunTestMap(7);
+    final RunTestMap runTestMap = testServiceClient.getRunTestMap(7);
+
+    assertThat(runTestMap.getTestId(2)).isEqualTo(101);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_tests/7&limit=250&offset=0");
+  }
+
+  @Test
+  public void getRunTestMap_ShouldBeReloadedAfterAWriteOfTheRun() throws Exception {
+    final EntityCache entityCache = EntityCache.builder().build();
+    final TestServiceClient testServiceClient = new TestServiceClient(apiClient, entityCache);
+
+    testServiceClient.getRunTestMap(7);
+    entityCache.invalidateAfterWrite("update_run/8");
+    testServiceClient.getRunTestMap(7);
+    entityCache.invalidateAfterWrite("delete_run/7");
+    testServiceClient.getRunTestMap(7);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_tests/7&limit=250&offset=0");
+  }
+
+  @Test
+  public void getRunTestMap_ShouldBeReloadedAfterAPlanEntryUpdate() throws Exception {
+    Mockito.when(apiClient.doPost(Mockito.eq("update_plan_entry/3/4"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("[]"));
+    final EntityCache entityCache = EntityCache.builder().build();
+    final TestServiceClient testServiceClient = new TestServiceClient(apiClient, entityCache);
+
+    testServiceClient.getRunTestMap(7);
+    new PlanServiceClient(apiClient, entityCache).updatePlanEntry(3, 4);
+    testServiceClient.getRunTestMap(7);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_tests/7&limit=250&offset=0");
+  }
+
+  @Test
+  public void getTestsPublisher_ShouldEmitTheTestsOfAllThePages() throws Exception {
+    final List<Integer> testIds = new ArrayList<Integer>();
+    new TestServiceClient(apiClient).getTestsPublisher(7).subscribe(new Subscriber<TRTest>() {
+      @Override
+      public void onSubscribe(final Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(final TRTest item) {
+        testIds.add(item.id);
+      }
+
+      @Override
+      public void onError(final Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+        testIds.add(0);
+      }
+    });
+
+    assertThat(testIds).containsExactly(100, 101, 102, 0);
+  }
+
+  @Test
+  public void intIntHashMap_ShouldKeepAllTheEntriesWhenGrowing() {
+    final IntIntHashMap map = new IntIntHashMap(2);
+    for (int key = 0; key < 1000; key++) {
+      map.put(key, key * 2);
+    }
+
+    assertThat(map.size()).isEqualTo(1000);
+    assertThat(map.get(0, -1)).isEqualTo(0);
+    assertThat(map.get(999, -1)).isEqualTo(1998);
+    assertThat(map.get(1000, -1)).isEqualTo(-1);
+  }
+}
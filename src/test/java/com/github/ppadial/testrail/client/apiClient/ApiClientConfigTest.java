@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+public class ApiClientConfigTest {
+
+  @Test
+  public void withers_ShouldCreateNewConfigurationsAndKeepTheOriginal() {
+    final ApiClientConfig config = ApiClientConfig.DEFAULT
+        .withRetry(3, 500L)
+        .withAntiFlood(2000L)
+        .withRequestLimit(8, 10.0)
+        .withTimeouts(1000, 5000);
+
+    assertThat(config.isRetryOnFailureEnabled()).isTrue();
+    assertThat(config.getNumOfRetries()).isEqualTo(3);
+    assertThat(config.getMillisBetweenRetries()).isEqualTo(500L);
+    assertThat(config.isAntiFloodEnabled()).isTrue();
+    assertThat(config.getAntiFloodValue()).isEqualTo(2000L);
+    assertThat(config.getMaxConcurrentRequests()).isEqualTo(8);
+    assertThat(config.getRequestsPerSecond()).isEqualTo(10.0);
+    assertThat(config.getConnectTimeoutMillis()).isEqualTo(1000);
+    assertThat(config.getSocketTimeoutMillis()).isEqualTo(5000);
+    assertThat(ApiClientConfig.DEFAULT.isRetryOnFailureEnabled()).isFalse();
+    assertThat(ApiClientConfig.DEFAULT.getMaxConcurrentRequests())
+        .isEqualTo(ApiClientConfig.DEFAULT_MAX_CONCURRENT_REQUESTS);
+
+    final ApiClientConfig disabled = config.withoutRetry().withoutAntiFlood();
+    assertThat(disabled.isRetryOnFailureEnabled()).isFalse();
+    assertThat(disabled.isAntiFloodEnabled()).isFalse();
+    assertThat(disabled.getMaxConcurrentRequests()).isEqualTo(8);
+    assertThat(config.isRetryOnFailureEnabled()).isTrue();
+  }
+
+  @Test
+  public void withers_ShouldClampTheValuesToTheirLimits() {
+    final ApiClientConfig low = ApiClientConfig.DEFAULT.withRetry(0, 1L).withAntiFlood(1L).withRequestLimit(0, null);
+    final ApiClientConfig high = ApiClientConfig.DEFAULT.withRetry(100, Long.MAX_VALUE).withAntiFlood(Long.MAX_VALUE)
+        .withRequestLimit(1000, null);
+
+    assertThat(low.getNumOfRetries()).isEqualTo(ApiClientConfig.MIN_RETRY_NUM);
+    assertThat(low.getMillisBetweenRetries()).isEqualTo(ApiClientConfig.MIN_MS_BETWEEN_RETRIES);
+    assertThat(low.getAntiFloodValue()).isEqualTo(ApiClientConfig.MIN_FLOOD_VALUE);
+    assertThat(low.getMaxConcurrentRequests()).isEqualTo(1);
+    assertThat(high.getNumOfRetries()).isEqualTo(ApiClientConfig.MAX_RETRY_NUM);
+    assertThat(high.getMillisBetweenRetries()).isEqualTo(ApiClientConfig.MAX_MS_BETWEEN_RETRIES);
+    assertThat(high.getAntiFloodValue()).isEqualTo(ApiClientConfig.MAX_FLOOD_VALUE);
+    assertThat(high.getMaxConcurrentRequests()).isEqualTo(ApiClientConfig.MAX_CONCURRENT_REQUESTS);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void withRequestLimit_WithNonPositiveRate_ShouldThrowAnException() {
+    ApiClientConfig.DEFAULT.withRequestLimit(4, 0.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void withTimeouts_WithNegativeValue_ShouldThrowAnException() {
+    ApiClientConfig.DEFAULT.withTimeouts(-1, null);
+  }
+
+  @Test
+  public void withBulkheads_ShouldSplitTheLimitsByWeight() {
+    final ApiClientConfig config = ApiClientConfig.DEFAULT.withRequestLimit(8, 40.0).withBulkheads(2, 1, 1);
+
+    assertThat(config.isBulkheadsEnabled()).isTrue();
+    assertThat(config.getConcurrencyShare(TrafficClass.READ)).isEqualTo(4);
+    assertThat(config.getConcurrencyShare(TrafficClass.WRITE)).isEqualTo(2);
+    assertThat(config.getRateShare(TrafficClass.BULK)).isEqualTo(10.0);
+    assertThat(config.withRequestLimit(1, null).getConcurrencyShare(TrafficClass.BULK)).isEqualTo(1);
+    assertThat(config.withoutBulkheads().getConcurrencyShare(TrafficClass.BULK)).isEqualTo(8);
+    assertThat(config.withoutBulkheads().getRateShare(TrafficClass.BULK)).isEqualTo(40.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void withBulkheads_WithZeroWeight_ShouldThrowAnException() {
+    ApiClientConfig.DEFAULT.withBulkheads(1, 0, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void withPriorityAging_WithZeroPeriod_ShouldThrowAnException() {
+    ApiClientConfig.DEFAULT.withPriorityAging(0);
+  }
+
+  @Test
+  public void withHedging_ShouldEnableItUntilRemoved() {
+    final ApiClientConfig config = ApiClientConfig.DEFAULT.withHedging(95, 0.05);
+
+    assertThat(ApiClientConfig.DEFAULT.isHedgingEnabled()).isFalse();
+    assertThat(config.isHedgingEnabled()).isTrue();
+    assertThat(config.getHedgingPercentile()).isEqualTo(95.0);
+    assertThat(config.getHedgingBudget()).isEqualTo(0.05);
+    assertThat(config.withoutHedging().isHedgingEnabled()).isFalse();
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void withHedging_WithFullPercentile_ShouldThrowAnException() {
+    ApiClientConfig.DEFAULT.withHedging(100, 0.05);
+  }
+}
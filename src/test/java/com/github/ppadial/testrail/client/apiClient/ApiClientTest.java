@@ -26,9 +26,25 @@ package com.github.ppadial.testrail.client.apiClient;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -206,6 +222,132 @@ public class ApiClientTest extends PowerMockTestCase {
     // TODO: We don't have a property to verify the set-ed value!
   }
 
+  @Test
+  public void retryOnFailure_WithTooManyRequests_ShouldRetryAndReturnTheLastResponse() throws Exception {
+    final AtomicInteger executions = new AtomicInteger();
+    Mockito.when(httpClient.execute(Mockito.any())).thenAnswer(invocation ->
+        response(executions.incrementAndGet() == 1 ? 429 : 200));
+    final ApiClient apiClient = new ApiClient(httpClient);
+    apiClient.enableRetryOnFailure(2);
+
+    final ApiResponse apiResponse = apiClient.doGet("get_case/1");
+
+    assertThat(apiResponse.getHttpStatusCode()).isEqualTo(HttpStatusCode.OK);
+    assertThat(executions.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void retryOnFailure_WithServerErrorOnAWrite_ShouldNotRetry() throws Exception {
+    final AtomicInteger executions = new AtomicInteger();
+    Mockito.when(httpClient.execute(Mockito.any())).thenAnswer(invocation -> {
+      executions.incrementAndGet();
+      return response(500);
+    });
+    final ApiClient apiClient = new ApiClient(httpClient);
+    apiClient.enableRetryOnFailure(2);
+
+    final ApiResponse apiResponse = apiClient.doPost("add_result/1", "{}");
+
+    assertThat(apiResponse.getHttpStatusCode()).isEqualTo(HttpStatusCode.INTERNAL_SERVER_ERROR);
+    assertThat(executions.get()).isEqualTo(1);
+  }
+
+  @Test(timeOut = 60000)
+  public void updateConfig_WhileRequestsAreInFlight_ShouldApplyTheNewLimitsWithoutFailures() throws Exception {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    Mockito.when(httpClient.execute(Mockito.any())).thenAnswer(invocation -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(1);
+        return response(200);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    });
+    final ApiClient apiClient = new ApiClient(httpClient);
+    final AtomicBoolean stop = new AtomicBoolean();
+    final ExecutorService callers = Executors.newFixedThreadPool(16);
+    final List<Future<Integer>> calls = new ArrayList<Future<Integer>>();
+    for (int i = 0; i < 16; i++) {
+      calls.add(callers.submit(() -> {
+        int done = 0;
+        while (!stop.get()) {
+          assertThat(apiClient.doGet("get_case/1").getHttpStatusCode()).isEqualTo(HttpStatusCode.OK);
+          done++;
+        }
+        return done;
+      }));
+    }
+
+    // When: the configuration changes constantly while the requests are running
+    for (int i = 0; i < 200; i++) {
+      final int maxConcurrentRequests = 1 + (i % 8);
+      apiClient.updateConfig(config -> config.withRequestLimit(maxConcurrentRequests, null).withTimeouts(1000, 1000));
+      apiClient.getExecutor();
+      Thread.sleep(1);
+    }
+    apiClient.enableRequestLimiting(2, null);
+    Thread.sleep(100);
+    maxInFlight.set(0);
+    Thread.sleep(300);
+    stop.set(true);
+    callers.shutdown();
+    assertThat(callers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    // Then: every call succeeded and only the last limit applies
+    for (Future<Integer> call : calls) {
+      assertThat(call.get()).isPositive();
+    }
+    assertThat(maxInFlight.get()).isEqualTo(2);
+    assertThat(apiClient.getConfig().getMaxConcurrentRequests()).isEqualTo(2);
+    assertThat(apiClient.getConfig().getSocketTimeoutMillis()).isEqualTo(1000);
+  }
+
+  @Test
+  public void doGet_WhenTheCallerIsInterrupted_ShouldAbortTheRequestInFlight() throws Exception {
+    final CountDownLatch sent = new CountDownLatch(1);
+    final AtomicReference<HttpUriRequest> inFlight = new AtomicReference<HttpUriRequest>();
+    Mockito.when(httpClient.execute(Mockito.any())).thenAnswer(invocation -> {
+      final HttpUriRequest request = (HttpUriRequest) invocation.getArguments()[0];
+      inFlight.set(request);
+      sent.countDown();
+      // a blocking exchange does not notice the interrupts, only the abort of the request ends it
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!request.isAborted() && System.nanoTime() < deadline) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+      throw new InterruptedIOException("Request aborted");
+    });
+    final ApiClient apiClient = new ApiClient(httpClient);
+    final AtomicReference<Throwable> thrown = new AtomicReference<Throwable>();
+    final Thread caller = new Thread(() -> thrown.set(catchThrowable(() -> apiClient.doGet("get_case/1"))));
+    caller.start();
+    assertThat(sent.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // When: the caller is interrupted while the request is in flight
+    caller.interrupt();
+    caller.join(TimeUnit.SECONDS.toMillis(5));
+
+    // Then: the request is aborted and the call fails as cancelled
+    assertThat(caller.isAlive()).isFalse();
+    assertThat(inFlight.get().isAborted()).isTrue();
+    assertThat(thrown.get()).isInstanceOf(RequestCancelledException.class);
+  }
+
+  @Test
+  public void enableVirtualThreads_ShouldRunTheBulkOperationsOnThemWhenSupported() throws Exception {
+    final ApiClient apiClient = new ApiClient(httpClient);
+
+    final boolean enabled = apiClient.enableVirtualThreads();
+
+    // only JDK 21 or newer supports them, older JVMs keep the pool
+    assertThat(apiClient.usesVirtualThreads()).isEqualTo(enabled);
+    final String threadName = apiClient.getExecutor().submit(() -> Thread.currentThread().getName()).get();
+    assertThat(threadName).startsWith(enabled ? "testrail-client-virtual-" : "testrail-client-");
+    assertThat(apiClient.enableVirtualThreads()).isEqualTo(enabled);
+  }
+
   @Test
   public void internalBuilder_ForCoverage() throws Exception {
     ApiClient apiClient = new ApiClient.Builder()
@@ -214,9 +356,16 @@ public class ApiClientTest extends PowerMockTestCase {
         .withRetry(1)
         .withRetry(1, 1)
         .withAntiFlood(Long.valueOf(1))
+        .withTimeouts(1000, 5000)
         .build();
   }
 
+  private static HttpResponse response(final int statusCode) throws Exception {
+    final BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, "");
+    response.setEntity(new StringEntity("{}"));
+    return response;
+  }
+
   private static class MockitoStateCleaner implements Runnable {
     public void run() {
       clearMockProgress();
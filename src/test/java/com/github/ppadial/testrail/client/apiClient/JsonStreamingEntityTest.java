@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.testng.annotations.Test;
+
+public class JsonStreamingEntityTest {
+
+  @Test
+  public void writeTo_ShouldWriteUtf8JsonWithoutClosingTheStream() throws Exception {
+    final JsonStreamingEntity entity =
+        new JsonStreamingEntity(new ObjectMapper(), Collections.singletonMap("comment", "café"));
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        throw new IllegalStateException("the stream belongs to the connection");
+      }
+    };
+
+    entity.writeTo(outputStream);
+
+    assertThat(outputStream.toByteArray())
+        .isEqualTo("{\"comment\":\"café\"}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void entity_ShouldBeChunkedAndRepeatable() throws Exception {
+    final JsonStreamingEntity entity = new JsonStreamingEntity(new ObjectMapper(), Collections.emptyMap());
+
+    assertThat(entity.isChunked()).isTrue();
+    assertThat(entity.isRepeatable()).isTrue();
+    assertThat(entity.getContentLength()).isEqualTo(-1);
+    assertThat(entity.getContentType().getValue()).startsWith("application/json");
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RequestHedgerTest {
+
+  private static final String URL = "http://testrail/index.php?/api/v2/get_run/";
+  private static final ApiClientConfig CONFIG = ApiClientConfig.DEFAULT.withRequestLimit(4, null).withHedging(90, 0.5);
+
+  private HttpClient httpClient;
+  private AtomicInteger executions;
+  //the next request answers after a long time, unless it is aborted
+  private AtomicBoolean nextIsSlow;
+  private AtomicInteger aborted;
+  private RequestHedger requestHedger;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    httpClient = Mockito.mock(HttpClient.class);
+    executions = new AtomicInteger();
+    nextIsSlow = new AtomicBoolean();
+    aborted = new AtomicInteger();
+    Mockito.when(httpClient.execute(Mockito.any(HttpUriRequest.class))).thenAnswer(invocation -> {
+      final HttpGet request = (HttpGet) invocation.getArguments()[0];
+      executions.incrementAndGet();
+      final long end = System.currentTimeMillis() + (nextIsSlow.getAndSet(false) ? 10000 : 5);
+      while (System.currentTimeMillis() < end) {
+        if (request.isAborted()) {
+          aborted.incrementAndGet();
+          throw new IOException("aborted");
+        }
+        Thread.sleep(1);
+      }
+      return response();
+    });
+    requestHedger = new RequestHedger(httpClient, new RequestLimiter(CONFIG));
+  }
+
+  @Test(timeOut = 30000)
+  public void execute_WithSlowResponse_ShouldHedgeAndAbortTheSlowRequest() throws Exception {
+    for (int i = 0; i < 30; i++) {
+      requestHedger.execute(new HttpGet(URL + i), TrafficClass.READ, CONFIG);
+    }
+    final long hedgesBefore = requestHedger.getHedges();
+    final int abortedBefore = aborted.get();
+
+    nextIsSlow.set(true);
+    final long start = System.nanoTime();
+    final ApiResponse apiResponse = requestHedger.execute(new HttpGet(URL + 1), TrafficClass.READ, CONFIG);
+
+    assertThat(apiResponse.getHttpStatusCode()).isEqualTo(HttpStatusCode.OK);
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+    assertThat(requestHedger.getHedges()).isEqualTo(hedgesBefore + 1);
+    assertThat(aborted.get()).isEqualTo(abortedBefore + 1);
+  }
+
+  @Test(timeOut = 60000)
+  public void execute_WithoutBudget_ShouldNotHedge() throws Exception {
+    final ApiClientConfig config = CONFIG.withHedging(90, 0.001);
+    for (int i = 0; i < 20; i++) {
+      requestHedger.execute(new HttpGet(URL + i), TrafficClass.READ, config);
+    }
+    // the first latencies are only recorded, and the hedge saved from the start is spent on a slow request
+    nextIsSlow.set(true);
+    requestHedger.execute(new HttpGet(URL + 1), TrafficClass.READ, config);
+    final int executionsBefore = executions.get();
+    nextIsSlow.set(true);
+    final Thread caller = new Thread(() -> {
+      try {
+        requestHedger.execute(new HttpGet(URL + 2), TrafficClass.READ, config);
+      } catch (Exception exception) {
+        // the answer does not matter
+      }
+    });
+    caller.setDaemon(true);
+    caller.start();
+    Thread.sleep(500);
+
+    assertThat(requestHedger.getHedges()).isEqualTo(1);
+    assertThat(executions.get()).isEqualTo(executionsBefore + 1);
+  }
+
+  @Test
+  public void execute_WithoutEnoughLatencies_ShouldNotHedge() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      requestHedger.execute(new HttpGet(URL + i), TrafficClass.READ, CONFIG);
+    }
+
+    assertThat(requestHedger.getHedges()).isZero();
+    assertThat(executions.get()).isEqualTo(10);
+  }
+
+  private static HttpResponse response() throws Exception {
+    final BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "");
+    response.setEntity(new StringEntity("{}"));
+    return response;
+  }
+}
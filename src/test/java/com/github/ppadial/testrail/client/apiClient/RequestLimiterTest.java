@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.apiClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class RequestLimiterTest {
+
+  private static final int THREADS = 16;
+
+  @Test(timeOut = 30000)
+  public void update_WhileRequestsAreInFlight_ShouldKeepTheNewLimitExactly() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(ApiClientConfig.DEFAULT);
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final AtomicBoolean stop = new AtomicBoolean();
+    final ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+    final List<Future<Integer>> requests = new ArrayList<Future<Integer>>();
+    for (int i = 0; i < THREADS; i++) {
+      requests.add(threads.submit(() -> {
+        int sent = 0;
+        while (!stop.get()) {
+          limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+          try {
+            final int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+            sent++;
+          } finally {
+            limiter.release(TrafficClass.READ);
+          }
+        }
+        return sent;
+      }));
+    }
+
+    // When: the limits change constantly while the requests are running
+    final Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      final int maxConcurrentRequests = 1 + random.nextInt(ApiClientConfig.MAX_CONCURRENT_REQUESTS);
+      final Double requestsPerSecond = random.nextBoolean() ? null : 1000.0 + random.nextInt(5000);
+      limiter.update(ApiClientConfig.DEFAULT.withRequestLimit(maxConcurrentRequests, requestsPerSecond));
+      Thread.sleep(1);
+    }
+    limiter.update(ApiClientConfig.DEFAULT.withRequestLimit(3, null));
+    Thread.sleep(100);
+    maxInFlight.set(0);
+    Thread.sleep(300);
+    stop.set(true);
+    threads.shutdown();
+    assertThat(threads.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    // Then: no request failed and no permit was lost or created
+    int sent = 0;
+    for (Future<Integer> request : requests) {
+      sent += request.get();
+    }
+    assertThat(sent).isPositive();
+    assertThat(maxInFlight.get()).isEqualTo(3);
+    assertThat(limiter.getMaxConcurrentRequests()).isEqualTo(3);
+  }
+
+  @Test(timeOut = 30000)
+  public void bulkheads_ShouldLendTheIdleCapacityAndGiveItBackToItsOwnerFirst() throws Exception {
+    // shares: 1 read, 1 write, 2 bulk
+    final RequestLimiter limiter =
+        new RequestLimiter(ApiClientConfig.DEFAULT.withRequestLimit(4, null).withBulkheads(1, 1, 2));
+    final ExecutorService threads = Executors.newFixedThreadPool(2);
+
+    // Given: the bulk traffic borrowed all the capacity
+    for (int i = 0; i < 4; i++) {
+      limiter.acquire(TrafficClass.BULK, RequestPriority.NORMAL);
+    }
+    final Future<?> bulk = threads.submit(() -> {
+      limiter.acquire(TrafficClass.BULK, RequestPriority.NORMAL);
+      return null;
+    });
+    Thread.sleep(100);
+    final Future<?> write = threads.submit(() -> {
+      limiter.acquire(TrafficClass.WRITE, RequestPriority.NORMAL);
+      return null;
+    });
+    Thread.sleep(100);
+    assertThat(bulk.isDone()).isFalse();
+    assertThat(write.isDone()).isFalse();
+
+    // When: a bulk request finishes, the write gets its share back before the waiting bulk request
+    limiter.release(TrafficClass.BULK);
+    write.get(5, TimeUnit.SECONDS);
+    Thread.sleep(100);
+    assertThat(bulk.isDone()).isFalse();
+
+    // Then: with the write finished the bulk traffic borrows again
+    limiter.release(TrafficClass.WRITE);
+    bulk.get(5, TimeUnit.SECONDS);
+    threads.shutdown();
+  }
+
+  @Test(timeOut = 30000)
+  public void acquire_ShouldSendTheHighestPriorityFirst() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(ApiClientConfig.DEFAULT.withRequestLimit(1, null));
+    final List<RequestPriority> sent = Collections.synchronizedList(new ArrayList<RequestPriority>());
+    final ExecutorService threads = Executors.newFixedThreadPool(3);
+    limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+
+    // Given: requests of every priority waiting, the lowest ones first
+    for (RequestPriority priority : new RequestPriority[] {RequestPriority.LOW, RequestPriority.NORMAL,
+        RequestPriority.HIGH}) {
+      threads.submit(() -> {
+        limiter.acquire(TrafficClass.READ, priority);
+        sent.add(priority);
+        return null;
+      });
+      Thread.sleep(50);
+    }
+
+    // When
+    for (int i = 0; i < 3; i++) {
+      limiter.release(TrafficClass.READ);
+      Thread.sleep(50);
+    }
+
+    // Then
+    assertThat(sent).containsExactly(RequestPriority.HIGH, RequestPriority.NORMAL, RequestPriority.LOW);
+    threads.shutdown();
+  }
+
+  @Test(timeOut = 30000)
+  public void acquire_WithAgedRequest_ShouldNotStarveIt() throws Exception {
+    final RequestLimiter limiter =
+        new RequestLimiter(ApiClientConfig.DEFAULT.withRequestLimit(1, null).withPriorityAging(50));
+    final List<RequestPriority> sent = Collections.synchronizedList(new ArrayList<RequestPriority>());
+    final ExecutorService threads = Executors.newFixedThreadPool(2);
+    limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+
+    // Given: a low priority request waiting for more than two aging periods
+    threads.submit(() -> {
+      limiter.acquire(TrafficClass.BULK, RequestPriority.LOW);
+      sent.add(RequestPriority.LOW);
+      return null;
+    });
+    Thread.sleep(150);
+    threads.submit(() -> {
+      limiter.acquire(TrafficClass.WRITE, RequestPriority.HIGH);
+      sent.add(RequestPriority.HIGH);
+      return null;
+    });
+    Thread.sleep(50);
+
+    // When
+    limiter.release(TrafficClass.READ);
+    Thread.sleep(50);
+    limiter.release(TrafficClass.BULK);
+    Thread.sleep(50);
+
+    // Then: it reached the top priority and it is older
+    assertThat(sent).containsExactly(RequestPriority.LOW, RequestPriority.HIGH);
+    threads.shutdown();
+  }
+
+  @Test(timeOut = 30000)
+  public void acquire_InterruptedWhileWaitingForTheRate_ShouldGiveBackItsSlot() throws Exception {
+    final RequestLimiter limiter = new RequestLimiter(ApiClientConfig.DEFAULT.withRequestLimit(1, 0.1));
+    final ExecutorService threads = Executors.newSingleThreadExecutor();
+    limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+    limiter.release(TrafficClass.READ);
+
+    // Given: a request holding the only slot while it waits ten seconds for the next rate token
+    final Future<Boolean> waiting = threads.submit(() -> {
+      try {
+        limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+        return false;
+      } catch (InterruptedException interruptedException) {
+        return true;
+      }
+    });
+    Thread.sleep(100);
+
+    // When
+    final long start = System.nanoTime();
+    threads.shutdownNow();
+
+    // Then: it stopped waiting at once and the slot is free again
+    assertThat(waiting.get()).isTrue();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+    limiter.update(ApiClientConfig.DEFAULT.withRequestLimit(1, null));
+    limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+    limiter.release(TrafficClass.READ);
+  }
+
+  @Test(timeOut = 30000)
+  public void acquire_WithLowPriority_ShouldOnlyUseTheSpareRate() throws Exception {
+    final RequestLimiter limiter =
+        new RequestLimiter(ApiClientConfig.DEFAULT.withRequestLimit(8, 20.0).withPriorityAging(500));
+    final AtomicBoolean stop = new AtomicBoolean();
+    final ExecutorService threads = Executors.newFixedThreadPool(4);
+
+    // Given: the whole rate is free
+    long start = System.nanoTime();
+    limiter.acquire(TrafficClass.BULK, RequestPriority.LOW);
+    limiter.release(TrafficClass.BULK);
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(200);
+
+    // When: normal requests use all the rate
+    for (int i = 0; i < 4; i++) {
+      threads.submit(() -> {
+        while (!stop.get()) {
+          limiter.acquire(TrafficClass.READ, RequestPriority.NORMAL);
+          limiter.release(TrafficClass.READ);
+        }
+        return null;
+      });
+    }
+    Thread.sleep(200);
+    start = System.nanoTime();
+    limiter.acquire(TrafficClass.BULK, RequestPriority.LOW);
+    limiter.release(TrafficClass.BULK);
+
+    // Then: the low priority request waited until it aged
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(500);
+    stop.set(true);
+    threads.shutdownNow();
+  }
+}
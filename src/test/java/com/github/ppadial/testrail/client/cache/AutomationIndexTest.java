@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AutomationIndexTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_cases/1&suite_id=2&limit=250&offset=0"))
+        .thenReturn(response("[{\"id\": 10, \"custom_automation_id\": \"LoginTest.valid\", \"updated_on\": 100},"
+            + " {\"id\": 11, \"custom_automation_id\": \"LoginTest.invalid\", \"updated_on\": 200}]"));
+    Mockito.when(apiClient.doGet("get_cases/1&suite_id=2&updated_after=199&limit=250&offset=0"))
+        .thenReturn(response("[{\"id\": 11, \"custom_automation_id\": \"LoginTest.locked\", \"updated_on\": 300}]"));
+    Mockito.when(apiClient.doGet("get_tests/5&limit=250&offset=0"))
+        .thenReturn(response("[{\"id\": 50, \"case_id\": 10}, {\"id\": 51, \"case_id\": 11}]"));
+  }
+
+  @Test
+  public void refresh_ShouldIndexCasesAndTests() throws Exception {
+    final AutomationIndex automationIndex = new AutomationIndex(apiClient, 1, 2).watchRun(5);
+
+    automationIndex.refresh();
+
+    assertThat(automationIndex.getCaseId("LoginTest.valid")).isEqualTo(10);
+    assertThat(automationIndex.getTestId(5, 11)).isEqualTo(51);
+    assertThat(automationIndex.getTestId(5, "LoginTest.invalid")).isEqualTo(51);
+    assertThat(automationIndex.getCaseId("unknown")).isNull();
+  }
+
+  @Test
+  public void refresh_ShouldReadAllThePagesOfCases() throws Exception {
+    Mockito.when(apiClient.doGet("get_cases/1&suite_id=3&limit=250&offset=0"))
+        .thenReturn(response("{\"_links\": {\"next\": \"/api/v2/x\"},"
+            + " \"cases\": [{\"id\": 20, \"custom_automation_id\": \"CartTest.add\"}]}"));
+    Mockito.when(apiClient.doGet("get_cases/1&suite_id=3&limit=250&offset=1"))
+        .thenReturn(response("{\"_links\": {\"next\": null},"
+            + " \"cases\": [{\"id\": 21, \"custom_automation_id\": \"CartTest.remove\"}]}"));
+    final AutomationIndex automationIndex = new AutomationIndex(apiClient, 1, 3);
+
+    automationIndex.refresh();
+
+    assertThat(automationIndex.getCaseId("CartTest.add")).isEqualTo(20);
+    assertThat(automationIndex.getCaseId("CartTest.remove")).isEqualTo(21);
+  }
+
+  @Test
+  public void secondRefresh_ShouldOnlyAskForTheUpdatedCases() throws Exception {
+    final AutomationIndex automationIndex = new AutomationIndex(apiClient, 1, 2);
+
+    automationIndex.refresh();
+    automationIndex.refresh();
+
+    Mockito.verify(apiClient).doGet("get_cases/1&suite_id=2&updated_after=199&limit=250&offset=0");
+    assertThat(automationIndex.getCaseId("LoginTest.locked")).isEqualTo(11);
+    assertThat(automationIndex.getCaseId("LoginTest.invalid")).isNull();
+    assertThat(automationIndex.getCaseId("LoginTest.valid")).isEqualTo(10);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.cache.EntityCache.Region;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CacheSnapshotsTest {
+
+  @Mock private ApiClient apiClient;
+  private Path file;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    file = Files.createTempDirectory("snapshots").resolve("caches.snapshot");
+    Mockito.when(apiClient.doGet("get_case/1")).thenReturn(response("{\"id\": 1, \"title\": \"cached\"}"));
+    Mockito.when(apiClient.doGet("get_statuses")).thenReturn(response("[{\"id\": 5, \"name\": \"failed\"}]"));
+  }
+
+  @Test
+  public void restoredCaches_ShouldServeTheSavedContent() throws Exception {
+    final EntityCache entityCache = EntityCache.builder().build();
+    final ReferenceDataCache referenceDataCache = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+    new CaseServiceClient(apiClient, entityCache).getCase(1);
+    referenceDataCache.getStatuses();
+    new CacheSnapshots(file, 1, TimeUnit.HOURS).register(entityCache).register(referenceDataCache).save();
+
+    final EntityCache restoredEntityCache = EntityCache.builder().build();
+    final ReferenceDataCache restoredReferenceDataCache = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+    final boolean restored = new CacheSnapshots(file, 1, TimeUnit.HOURS)
+        .register(restoredEntityCache)
+        .register(restoredReferenceDataCache)
+        .restore();
+
+    assertThat(restored).isTrue();
+    assertThat(new CaseServiceClient(apiClient, restoredEntityCache).getCase(1).title).isEqualTo("cached");
+    assertThat(restoredEntityCache.getStats(Region.CASES).hitCount()).isEqualTo(1);
+    assertThat(restoredReferenceDataCache.getStatusId("failed")).isEqualTo(5);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_case/1");
+  }
+
+  @Test
+  public void missingOrInvalidSnapshots_ShouldBeIgnored() throws Exception {
+    final CacheSnapshots snapshots =
+        new CacheSnapshots(file, 1, TimeUnit.HOURS).register(EntityCache.builder().build());
+
+    assertThat(snapshots.restore()).isFalse();
+    Files.write(file, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+    assertThat(snapshots.restore()).isFalse();
+  }
+
+  @Test
+  public void oldSnapshots_ShouldBeIgnored() throws Exception {
+    new CacheSnapshots(file, 1, TimeUnit.HOURS).register(EntityCache.builder().build()).save();
+    Thread.sleep(5);
+
+    assertThat(new CacheSnapshots(file, 1, TimeUnit.MILLISECONDS).register(EntityCache.builder().build()).restore())
+        .isFalse();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
+import com.github.ppadial.testrail.client.api.runs.RunServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.cache.EntityCache.Region;
+import java.util.HashMap;
+import org.apache.http.HttpEntity;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EntityCacheTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_case/1")).thenReturn(response("{\"id\": 1, \"title\": \"old\"}"));
+    Mockito.when(apiClient.doPost(Mockito.eq("update_case/1"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("{\"id\": 1, \"title\": \"new\"}"));
+    Mockito.when(apiClient.doPost("delete_case/1")).thenReturn(response(""));
+  }
+
+  @Test
+  public void repeatedGets_ShouldHitTheCache() throws Exception {
+    final EntityCache entityCache = EntityCache.builder().build();
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient, entityCache);
+
+    caseServiceClient.getCase(1);
+    caseServiceClient.getCase(1);
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_case/1");
+    assertThat(entityCache.getStats(Region.CASES).hitCount()).isEqualTo(1);
+    assertThat(entityCache.getStats(Region.CASES).missCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void update_ShouldRefreshTheCachedEntity() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient, EntityCache.builder().build());
+
+    caseServiceClient.getCase(1);
+    caseServiceClient.updateCase(1, new HashMap<String, Object>());
+
+    assertThat(caseServiceClient.getCase(1).title).isEqualTo("new");
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_case/1");
+  }
+
+  @Test
+  public void delete_ShouldInvalidateTheCachedEntity() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient, EntityCache.builder().build());
+
+    caseServiceClient.getCase(1);
+    caseServiceClient.deleteCase(1);
+    caseServiceClient.getCase(1);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_case/1");
+  }
+
+  @Test
+  public void planEntryUpdate_ShouldInvalidateTheCachedRunsOfThePlan() throws Exception {
+    Mockito.when(apiClient.doGet("get_run/5")).thenReturn(response("{\"id\": 5, \"plan_id\": 3}"));
+    Mockito.when(apiClient.doPost(Mockito.eq("update_plan_entry/3/4"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response("[]"));
+    final EntityCache entityCache = EntityCache.builder().build();
+    final RunServiceClient runServiceClient = new RunServiceClient(apiClient, entityCache);
+
+    runServiceClient.getRun(5);
+    new PlanServiceClient(apiClient, entityCache).updatePlanEntry(3, 4);
+    runServiceClient.getRun(5);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_run/5");
+  }
+
+  @Test
+  public void sizeBound_ShouldEvictEntities() throws Exception {
+    final EntityCache entityCache = EntityCache.builder().maximumSize(Region.RUNS, 1).build();
+
+    entityCache.put(Region.RUNS, 1, "first");
+    entityCache.put(Region.RUNS, 2, "second");
+
+    assertThat(entityCache.size(Region.RUNS)).isEqualTo(1);
+    assertThat(entityCache.getStats(Region.RUNS).evictionCount()).isEqualTo(1);
+  }
+}
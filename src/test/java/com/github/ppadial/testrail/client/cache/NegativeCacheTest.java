@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.TestRailException;
+import com.github.ppadial.testrail.client.api.cases.CaseServiceClient;
+import com.github.ppadial.testrail.client.api.cases.InvalidOrUnknownTestCaseException;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClientConfig;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpEntity;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class NegativeCacheTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withNegativeCache(TimeUnit.MINUTES.toMillis(1)));
+    Mockito.when(apiClient.doGet("get_case/7"))
+        .thenReturn(response(HttpStatusCode.BAD_REQUEST, "{\"error\": \"Field :case_id is not a valid test case.\"}"));
+    Mockito.when(apiClient.doPost(Mockito.eq("add_case/1"), Mockito.any(HttpEntity.class)))
+        .thenReturn(response(HttpStatusCode.OK, "{\"id\": 7, \"title\": \"new\"}"));
+  }
+
+  @Test
+  public void repeatedFailingLookups_ShouldBeAnsweredLocally() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient);
+
+    assertThat(lookupFailure(caseServiceClient, 7)).isInstanceOf(InvalidOrUnknownTestCaseException.class);
+    assertThat(lookupFailure(caseServiceClient, 7)).isInstanceOf(InvalidOrUnknownTestCaseException.class);
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_case/7");
+    assertThat(NegativeCache.of(apiClient).getStats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void createdEntity_ShouldInvalidateItsFailingLookups() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient);
+
+    lookupFailure(caseServiceClient, 7);
+    caseServiceClient.addCase(1, "new", null);
+    lookupFailure(caseServiceClient, 7);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_case/7");
+    assertThat(NegativeCache.of(apiClient).size()).isEqualTo(1);
+  }
+
+  @Test
+  public void changedTimeToLive_ShouldStartAnEmptyCache() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient);
+    lookupFailure(caseServiceClient, 7);
+    final NegativeCache first = NegativeCache.of(apiClient);
+
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withNegativeCache(TimeUnit.MINUTES.toMillis(2)));
+
+    assertThat(NegativeCache.of(apiClient)).isNotSameAs(first);
+    assertThat(NegativeCache.of(apiClient).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void reEnabledCache_ShouldNotRememberTheOldFailures() throws Exception {
+    final CaseServiceClient caseServiceClient = new CaseServiceClient(apiClient);
+    lookupFailure(caseServiceClient, 7);
+
+    Mockito.when(apiClient.getConfig()).thenReturn(ApiClientConfig.DEFAULT);
+    assertThat(NegativeCache.of(apiClient)).isNull();
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withNegativeCache(TimeUnit.MINUTES.toMillis(1)));
+    lookupFailure(caseServiceClient, 7);
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet("get_case/7");
+  }
+
+  @Test
+  public void otherFailures_ShouldNotBeCached() {
+    final NegativeCache negativeCache = new NegativeCache(1, TimeUnit.MINUTES, 100);
+
+    negativeCache.record("get_run/1", response(HttpStatusCode.FORBIDDEN, ""));
+
+    assertThat(negativeCache.getIfPresent("get_run/1")).isNull();
+  }
+
+  @Test
+  public void failingLists_ShouldNotBeCached() {
+    final NegativeCache negativeCache = new NegativeCache(1, TimeUnit.MINUTES, 100);
+
+    negativeCache.record("get_cases/1&suite_id=2", response(HttpStatusCode.BAD_REQUEST, ""));
+    negativeCache.record("get_results_for_run/1", response(HttpStatusCode.BAD_REQUEST, ""));
+    negativeCache.record("get_run/1", response(HttpStatusCode.BAD_REQUEST, ""));
+
+    assertThat(negativeCache.size()).isEqualTo(1);
+    assertThat(negativeCache.getIfPresent("get_run/1")).isNotNull();
+  }
+
+  private static TestRailException lookupFailure(final CaseServiceClient caseServiceClient, final int caseId) {
+    try {
+      caseServiceClient.getCase(caseId);
+      return null;
+    } catch (TestRailException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.api.plans.PlanServiceClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import com.github.ppadial.testrail.client.apiClient.ApiClientConfig;
+import com.github.ppadial.testrail.client.model.TRPlan;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class QueryCacheTest {
+
+  @Mock private ApiClient apiClient;
+
+  private QueryCache queryCache;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withQueryCache(TimeUnit.HOURS.toMillis(1), 100));
+    queryCache = QueryCache.of(apiClient);
+    Mockito.when(apiClient.doGet(Mockito.startsWith("get_plans/1")))
+        .thenReturn(response("[{\"id\": 10, \"name\": \"Regression\"}, {\"id\": 11, \"name\": \"Smoke\"}]"));
+    Mockito.when(apiClient.doPost("close_plan/10")).thenReturn(response("{\"id\": 10, \"is_completed\": true}"));
+  }
+
+  @Test
+  public void normalize_ShouldNotDependOnTheOrderOfTheFilters() {
+    assertThat(QueryCache.normalize("get_cases/1&suite_id=2&priority_id=4,1&type_id=3"))
+        .isEqualTo(QueryCache.normalize("get_cases/1&type_id=3&priority_id=1,4&suite_id=2"))
+        .isEqualTo("get_cases/1&priority_id=1,4&suite_id=2&type_id=3");
+  }
+
+  @Test
+  public void normalize_ShouldKeepTheRepeatedFilters() {
+    assertThat(QueryCache.normalize("get_cases/1&type_id=3&suite_id=2&type_id=5"))
+        .isEqualTo("get_cases/1&suite_id=2&type_id=3&type_id=5")
+        .isNotEqualTo(QueryCache.normalize("get_cases/1&type_id=5&suite_id=2"));
+  }
+
+  @Test
+  public void queries_ShouldNotBeKeptWhenInvalidatedWhileLoading() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch invalidated = new CountDownLatch(1);
+    final AtomicInteger loads = new AtomicInteger();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<List<Object>> stale = executor.submit(() -> queryCache.get("get_plans/1", query -> {
+        loads.incrementAndGet();
+        loading.countDown();
+        Uninterruptibles.awaitUninterruptibly(invalidated);
+        return Collections.<Object>singletonList("stale");
+      }));
+      loading.await();
+      queryCache.invalidateEndpoint("get_plans");
+      invalidated.countDown();
+
+      assertThat(stale.get()).containsExactly("stale");
+      assertThat(queryCache.get("get_plans/1", query -> {
+        loads.incrementAndGet();
+        return Collections.<Object>singletonList("fresh");
+      })).containsExactly("fresh");
+      assertThat(loads.get()).isEqualTo(2);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void queries_ShouldBeAnsweredFromTheCacheUntilAWriteAffectsThem() throws Exception {
+    final PlanServiceClient planServiceClient = new PlanServiceClient(apiClient);
+
+    final List<TRPlan> plans = planServiceClient.getPlans(1, filters("is_completed", "0", "milestone_id", "2"));
+    planServiceClient.getPlans(1, filters("milestone_id", "2", "is_completed", "0"));
+
+    assertThat(plans).hasSize(2);
+    assertThat(queryCache.getStats().hitCount()).isEqualTo(1);
+    Mockito.verify(apiClient, Mockito.times(1)).doGet(Mockito.startsWith("get_plans/1"));
+
+    planServiceClient.closePlan(10);
+    planServiceClient.getPlans(1, filters("is_completed", "0", "milestone_id", "2"));
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet(Mockito.startsWith("get_plans/1"));
+  }
+
+  @Test
+  public void queries_ShouldBeBoundedByTheNumberOfEntities() throws Exception {
+    final PlanServiceClient planServiceClient = new PlanServiceClient(apiClient);
+    for (int milestoneId = 0; milestoneId < 100; milestoneId++) {
+      planServiceClient.getPlans(1, filters("milestone_id", String.valueOf(milestoneId)));
+    }
+
+    assertThat(queryCache.size()).isLessThanOrEqualTo(100 / 3);
+  }
+
+  @Test
+  public void changedSettings_ShouldStartAnEmptyCache() throws Exception {
+    new PlanServiceClient(apiClient).getPlans(1, filters("milestone_id", "2"));
+
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withQueryCache(TimeUnit.HOURS.toMillis(1), 50));
+
+    assertThat(QueryCache.of(apiClient)).isNotSameAs(queryCache);
+    assertThat(QueryCache.of(apiClient).size()).isEqualTo(0);
+  }
+
+  @Test
+  public void reEnabledCache_ShouldNotAnswerTheOldQueries() throws Exception {
+    final PlanServiceClient planServiceClient = new PlanServiceClient(apiClient);
+    planServiceClient.getPlans(1, filters("milestone_id", "2"));
+
+    Mockito.when(apiClient.getConfig()).thenReturn(ApiClientConfig.DEFAULT);
+    assertThat(QueryCache.of(apiClient)).isNull();
+    Mockito.when(apiClient.getConfig())
+        .thenReturn(ApiClientConfig.DEFAULT.withQueryCache(TimeUnit.HOURS.toMillis(1), 100));
+    planServiceClient.getPlans(1, filters("milestone_id", "2"));
+
+    Mockito.verify(apiClient, Mockito.times(2)).doGet(Mockito.startsWith("get_plans/1"));
+  }
+
+  private static Map<String, String> filters(final String... namesAndValues) {
+    final Map<String, String> filters = new LinkedHashMap<String, String>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      filters.put(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return filters;
+  }
+}
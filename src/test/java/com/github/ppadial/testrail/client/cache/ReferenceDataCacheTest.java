@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.HttpClient;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReferenceDataCacheTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_statuses"))
+        .thenReturn(response("[{\"id\": 1, \"name\": \"passed\", \"label\": \"Passed\"},"
+            + " {\"id\": 5, \"name\": \"failed\", \"label\": \"Failed\"}]"));
+    Mockito.when(apiClient.doGet("get_configs/3"))
+        .thenReturn(response("[{\"id\": 1, \"name\": \"Browsers\", \"project_id\": 3,"
+            + " \"configs\": [{\"id\": 10, \"group_id\": 1, \"name\": \"Chrome\"}]}]"));
+  }
+
+  @Test
+  public void lookups_ShouldLoadTheDataOnce() throws Exception {
+    final ReferenceDataCache cache = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+
+    assertThat(cache.getStatusId("Failed")).isEqualTo(5);
+    assertThat(cache.getStatusId("passed")).isEqualTo(1);
+    assertThat(cache.getStatusId("blocked")).isNull();
+    assertThat(cache.getStatuses()).hasSize(2);
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_statuses");
+  }
+
+  @Test
+  public void configLookups_ShouldFindTheConfigByGroupAndName() throws Exception {
+    final ReferenceDataCache cache = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+
+    assertThat(cache.getConfigId(3, "browsers", "chrome")).isEqualTo(10);
+    assertThat(cache.getConfigId(3, "Chrome")).isEqualTo(10);
+    assertThat(cache.getConfigId(3, "Firefox")).isNull();
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_configs/3");
+  }
+
+  @Test
+  public void restoredMilestones_ShouldBeReloadedInFull() throws Exception {
+    Mockito.when(apiClient.doGet("get_milestones/3"))
+        .thenReturn(response("[{\"id\": 1, \"project_id\": 3, \"is_completed\": false},"
+            + " {\"id\": 2, \"project_id\": 3, \"is_completed\": true}]"))
+        .thenReturn(response("[{\"id\": 1, \"project_id\": 3, \"is_completed\": false}]"));
+    Mockito.when(apiClient.doGet("get_milestones/3&is_completed=0"))
+        .thenReturn(response("[{\"id\": 1, \"project_id\": 3, \"is_completed\": false}]"));
+    final Path file = Files.createTempDirectory("snapshots").resolve("caches.snapshot");
+    final ReferenceDataCache cache = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+    assertThat(cache.getMilestoneIndex(3).getMilestone(2)).isNotNull();
+    new CacheSnapshots(file, 1, TimeUnit.HOURS).register(cache).save();
+
+    // milestone 2 was deleted since the snapshot, an incremental refresh would keep it as it was completed
+    final ReferenceDataCache restored = new ReferenceDataCache(apiClient, 1, 2, TimeUnit.HOURS);
+    new CacheSnapshots(file, 1, TimeUnit.HOURS).register(restored).restore();
+
+    assertThat(restored.getMilestoneIndex(3).getMilestone(1)).isNotNull();
+    assertThat(restored.getMilestoneIndex(3).getMilestone(2)).isNull();
+    Mockito.verify(apiClient, Mockito.never()).doGet("get_milestones/3&is_completed=0");
+  }
+
+  @Test
+  public void sharedCache_ShouldBeTheSameForTheSameClient() {
+    assertThat(ReferenceDataCache.shared(apiClient)).isSameAs(ReferenceDataCache.shared(apiClient));
+  }
+
+  @Test
+  public void sharedCache_ShouldBeTheSameForTheSameInstanceAndUser() {
+    final ReferenceDataCache cache = ReferenceDataCache.shared(new ApiClient("http://testrail", "ann", "key"));
+
+    assertThat(ReferenceDataCache.shared(new ApiClient("http://testrail", "ann", "key"))).isSameAs(cache);
+    assertThat(ReferenceDataCache.shared(new ApiClient("http://testrail", "bob", "key"))).isNotSameAs(cache);
+  }
+
+  @Test
+  public void sharedCache_ShouldNotBeSharedByClientsCreatedFromAnHttpClient() {
+    final ApiClient first = new ApiClient(Mockito.mock(HttpClient.class));
+    final ApiClient second = new ApiClient(Mockito.mock(HttpClient.class));
+
+    assertThat(first.getUrl()).isNull();
+    assertThat(ReferenceDataCache.shared(first)).isSameAs(ReferenceDataCache.shared(first));
+    assertThat(ReferenceDataCache.shared(first)).isNotSameAs(ReferenceDataCache.shared(second));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018. Paulino Padial
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.ppadial.testrail.client.cache;
+
+import static com.github.ppadial.testrail.client.MocksFactory.response;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.ppadial.testrail.client.HttpStatusCode;
+import com.github.ppadial.testrail.client.apiClient.ApiClient;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.HttpClient;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class UserDirectoryTest {
+
+  @Mock private ApiClient apiClient;
+
+  @BeforeMethod(alwaysRun = true)
+  public void injectDoubles() throws Exception {
+    MockitoAnnotations.initMocks(this);
+    Mockito.when(apiClient.doGet("get_users"))
+        .thenReturn(response(HttpStatusCode.OK, "[{\"id\": 1, \"name\": \"Ann\", \"email\": \"Ann@Example.com\"},"
+            + " {\"id\": 2, \"name\": \"Bob\", \"email\": \"bob@example.com\"}]"));
+    Mockito.when(apiClient.doGet("get_user_by_email&email=new%2Buser%40example.com"))
+        .thenReturn(response(HttpStatusCode.NOT_FOUND, "{\"error\": \"Field :email is not a valid email address.\"}"));
+  }
+
+  @Test
+  public void lookups_ShouldBeAnsweredFromTheDirectory() throws Exception {
+    final UserDirectory directory = new UserDirectory(apiClient, 1, 2, 1, TimeUnit.HOURS);
+
+    assertThat(directory.getUserByEmail("ann@example.COM").id).isEqualTo(1);
+    assertThat(directory.getUser(2).name).isEqualTo("Bob");
+    assertThat(directory.getUsers()).hasSize(2);
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_users");
+  }
+
+  @Test
+  public void unknownEmails_ShouldBeAskedToTheServerOnce() throws Exception {
+    final UserDirectory directory = new UserDirectory(apiClient, 1, 2, 1, TimeUnit.HOURS);
+
+    assertThat(directory.getUserByEmail("new+user@example.com")).isNull();
+    assertThat(directory.getUserByEmail("New+User@example.com")).isNull();
+
+    Mockito.verify(apiClient, Mockito.times(1)).doGet("get_user_by_email&email=new%2Buser%40example.com");
+  }
+
+  @Test
+  public void sharedDirectory_ShouldNotBeSharedByClientsCreatedFromAnHttpClient() {
+    final ApiClient first = new ApiClient(Mockito.mock(HttpClient.class));
+    final ApiClient second = new ApiClient(Mockito.mock(HttpClient.class));
+
+    assertThat(UserDirectory.shared(first)).isSameAs(UserDirectory.shared(first));
+    assertThat(UserDirectory.shared(first)).isNotSameAs(UserDirectory.shared(second));
+  }
+}